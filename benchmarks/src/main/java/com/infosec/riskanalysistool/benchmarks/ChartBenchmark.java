@@ -0,0 +1,114 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.analysis.AggregateStage;
+import com.infosec.riskanalysistool.analysis.RiskAnalysisPipeline;
+import com.infosec.riskanalysistool.analysis.RiskChartStage;
+import com.infosec.riskanalysistool.model.Risk;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.util.ChartUtil;
+import com.infosec.riskanalysistool.view.RegisterRowList;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//ALE chart series construction on a headless (Monocle) toolkit, including CSS and layout.
+//fullRebuild is what every add used to cost, with one bar per risk; addOneRisk is the incremental pipeline
+//keeping the bounded top-risks chart and the summary totals current, as the app runs them, and should stay flat
+//as the register grows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChartBenchmark {
+    @Param({"100", "1000", "5000"})
+    int registerSize;
+
+    private RiskRegister register;
+    private ObservableList<Risk> risks;
+    private BarChart<String, Number> rebuiltChart;
+    private BarChart<String, Number> incrementalChart;
+    private RiskAnalysisPipeline pipeline;
+    private SyntheticRisks extra;
+    private int next;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        HeadlessFx.start();
+        SyntheticRisks input = SyntheticRisks.generate(registerSize);
+        extra = SyntheticRisks.generate(1_000);
+        register = input.toRegister();
+
+        HeadlessFx.run(() -> {
+            risks = new RegisterRowList(register);
+
+            rebuiltChart = newChart();
+            incrementalChart = newChart();
+            pipeline = new RiskAnalysisPipeline(register);
+            pipeline.setAutoFlush(false);
+            pipeline.addStage(new RiskChartStage(incrementalChart, register));
+            pipeline.addStage(new AggregateStage());
+            pipeline.start();
+            pipeline.flush();
+            layout(incrementalChart);
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        HeadlessFx.run(() -> pipeline.stop());
+    }
+
+    @Benchmark
+    public int fullRebuild() {
+        return HeadlessFx.call(() -> {
+            ChartUtil.updateRiskChart(rebuiltChart, risks);
+            layout(rebuiltChart);
+            return rebuiltChart.getData().get(0).getData().size();
+        });
+    }
+
+    //Adds a risk and removes it again so the register size stays at the parameter
+    @Benchmark
+    public int addOneRisk() {
+        return HeadlessFx.call(() -> {
+            int i = next++ % extra.size;
+            int row = register.add(extra.threats[i], extra.hipaaRules[i], extra.rmfSteps[i], extra.impacts[i], extra.likelihoods[i], extra.singleLossExpectancies[i], extra.annualisedRatesOfOccurrence[i], extra.controlMeasures[i], extra.controlEffectiveness[i]);
+            pipeline.flush();
+            layout(incrementalChart);
+
+            register.remove(row);
+            pipeline.flush();
+            return register.size();
+        });
+    }
+
+    private static BarChart<String, Number> newChart() {
+        BarChart<String, Number> chart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+        chart.setAnimated(false);
+        new Scene(chart, 1080, 720);
+        return chart;
+    }
+
+    private static void layout(BarChart<String, Number> chart) {
+        chart.applyCss();
+        chart.layout();
+    }
+}
@@ -0,0 +1,71 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.io.ReportExporter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//How long RiskAnalysisCli takes as a batch job would run it, each time in a new JVM: end to end for a
+//one-risk register, which is nearly all startup, and then the risks per second it reads and scores from a
+//large CSV register. The CLI runs from this program's class path with no JavaFX toolkit started.
+//
+//java -cp benchmarks/target/benchmarks.jar com.infosec.riskanalysistool.benchmarks.CliStartup [risks] [runs]
+public final class CliStartup {
+    private static final String CLI = "com.infosec.riskanalysistool.cli.RiskAnalysisCli";
+
+    private CliStartup() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int risks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Path small = Files.createTempFile("register", ".csv");
+        Path large = Files.createTempFile("register", ".csv");
+        try {
+            ReportExporter exporter = new ReportExporter();
+            exporter.export(SyntheticRisks.generate(1).toRegister().snapshot(), List.of(), small);
+            exporter.export(SyntheticRisks.generate(risks).toRegister().snapshot(), List.of(), large);
+
+            //The first run also pays for the OS reading the JDK into its cache
+            run(small);
+            long[] millis = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                long start = System.nanoTime();
+                run(small);
+                millis[i] = (System.nanoTime() - start) / 1_000_000;
+            }
+            Arrays.sort(millis);
+            System.out.printf("One risk, %d runs: min %d ms, median %d ms, max %d ms%n", runs, millis[0], millis[runs / 2], millis[runs - 1]);
+
+            long start = System.nanoTime();
+            String output = run(large);
+            System.out.printf("%,d risks: %,d ms end to end%n", risks, (System.nanoTime() - start) / 1_000_000);
+            output.lines().filter(line -> line.strip().startsWith("Read ")).forEach(System.out::println);
+        } finally {
+            Files.deleteIfExists(small);
+            Files.deleteIfExists(large);
+        }
+    }
+
+    private static String run(Path register) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(CLI);
+        command.add("--top");
+        command.add("0");
+        command.add(register.toString());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IOException("RiskAnalysisCli failed:\n" + output);
+        }
+        return output;
+    }
+}
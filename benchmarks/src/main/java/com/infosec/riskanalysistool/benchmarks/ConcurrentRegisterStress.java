@@ -0,0 +1,274 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.ConcurrentRiskRegister;
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RegisterVersion;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Read and write throughput of ConcurrentRiskRegister with readers and writers running at once, for 1, 2, 4...
+//threads up to twice the processor count, next to a RiskRegister behind a read-write lock. Half the threads
+//(at least one) read; of the writers, half append batches of APPEND_ROWS risks and half move SLE between two
+//random risks in one update. Readers check each snapshot as they go: moves keep the SLE total and appended
+//risks have none, so every snapshot must add up to the starting total, and appends must be whole batches.
+//
+//java -cp benchmarks/target/benchmarks.jar com.infosec.riskanalysistool.benchmarks.ConcurrentRegisterStress [registerSize] [seconds]
+public final class ConcurrentRegisterStress {
+    private static final int APPEND_ROWS = 64;
+    private static final int POINT_READS = 1_000;
+    //Readers check a whole snapshot once every this many rounds of point reads
+    private static final int CHECK_INTERVAL = 50;
+
+    private ConcurrentRegisterStress() {
+    }
+
+    //One way of sharing a register between threads
+    private interface SharedRegister {
+        //Sum of SLE over POINT_READS random rows of one consistent state
+        double pointReads(SplittableRandom random, int bound);
+
+        //Throws if a consistent state breaks the invariants
+        void check(double expectedTotal, int initialSize);
+
+        void append(RiskBatch batch);
+
+        void move(int from, int to, double amount);
+
+        String statistics();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int registerSize = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+        System.out.printf("%,d risks, %d s per run, %d processors%n", registerSize, seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-12s %7s %7s %7s %16s %14s %14s  %s%n", "register", "threads", "readers", "writers",
+                "point reads/s", "appends/s", "moves/s", "");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run("concurrent", new Concurrent(registerSize), registerSize, threads, seconds);
+            run("locked", new Locked(registerSize), registerSize, threads, seconds);
+        }
+    }
+
+    private static void run(String name, SharedRegister register, int registerSize, int threads, int seconds) throws InterruptedException {
+        //Whole-number SLEs, so moves and totals stay exact
+        double expectedTotal = 0;
+        for (int row = 0; row < registerSize; row++) {
+            expectedTotal += sle(row);
+        }
+        double total = expectedTotal;
+
+        int readers = Math.max(1, threads / 2);
+        int writers = threads - readers;
+        LongAdder reads = new LongAdder();
+        LongAdder appends = new LongAdder();
+        LongAdder moves = new LongAdder();
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = new SplittableRandom(i * 7919L);
+            Runnable work;
+            if (i < readers) {
+                work = () -> {
+                    for (int round = 1; !stop.get(); round++) {
+                        register.pointReads(random, registerSize);
+                        reads.add(POINT_READS);
+                        if (round % CHECK_INTERVAL == 0) {
+                            register.check(total, registerSize);
+                        }
+                    }
+                };
+            } else if ((i - readers) % 2 == 0) {
+                work = () -> {
+                    RiskBatch batch = new RiskBatch(APPEND_ROWS);
+                    for (int row = 0; row < APPEND_ROWS; row++) {
+                        batch.add("Appended threat", HIPAARule.SECURITY_RULE, RMFStep.MONITOR, 5, 5, 0, 1, "None", 50);
+                    }
+                    while (!stop.get()) {
+                        register.append(batch);
+                        appends.increment();
+                    }
+                };
+            } else {
+                work = () -> {
+                    while (!stop.get()) {
+                        register.move(random.nextInt(registerSize), random.nextInt(registerSize), 1 + random.nextInt(100));
+                        moves.increment();
+                    }
+                };
+            }
+            Thread worker = new Thread(() -> {
+                try {
+                    work.run();
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                    stop.set(true);
+                }
+            }, "stress-" + i);
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        register.check(total, registerSize);
+
+        System.out.printf("%-12s %7d %7d %7d %,16.0f %,14.0f %,14.0f  %s%n", name, threads, readers, writers,
+                reads.sum() / elapsed, appends.sum() / elapsed, moves.sum() / elapsed, register.statistics());
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException(name + " failed with " + threads + " threads", failures.get(0));
+        }
+    }
+
+    private static double sle(int row) {
+        return 1_000 + row % 10_000;
+    }
+
+    private static RiskBatch initialRisks(int registerSize) {
+        RiskBatch batch = new RiskBatch(registerSize);
+        for (int row = 0; row < registerSize; row++) {
+            batch.add("Threat " + row, HIPAARule.values()[row % HIPAARule.values().length], RMFStep.values()[row % RMFStep.values().length],
+                    1 + row % 10, 1 + row / 10 % 10, sle(row), 0.5, "None", row % 101);
+        }
+        return batch;
+    }
+
+    private static void checkTotals(String name, double total, double expectedTotal, int size, int initialSize) {
+        if (total != expectedTotal) {
+            throw new IllegalStateException(name + ": SLE total " + total + " in a snapshot, expected " + expectedTotal);
+        }
+        if ((size - initialSize) % APPEND_ROWS != 0) {
+            throw new IllegalStateException(name + ": " + (size - initialSize) + " rows appended, not whole batches of " + APPEND_ROWS);
+        }
+    }
+
+    private static final class Concurrent implements SharedRegister {
+        private final ConcurrentRiskRegister register = new ConcurrentRiskRegister();
+
+        Concurrent(int registerSize) {
+            register.addAll(initialRisks(registerSize));
+        }
+
+        @Override
+        public double pointReads(SplittableRandom random, int bound) {
+            RegisterVersion version = register.snapshot();
+            double sum = 0;
+            for (int i = 0; i < POINT_READS; i++) {
+                sum += version.getSingleLossExpectancy(random.nextInt(bound));
+            }
+            return sum;
+        }
+
+        @Override
+        public void check(double expectedTotal, int initialSize) {
+            RegisterVersion version = register.snapshot();
+            double total = 0;
+            for (int row = 0; row < version.size(); row++) {
+                total += version.getSingleLossExpectancy(row);
+            }
+            checkTotals("concurrent", total, expectedTotal, version.size(), initialSize);
+        }
+
+        @Override
+        public void append(RiskBatch batch) {
+            register.addAll(batch);
+        }
+
+        @Override
+        public void move(int from, int to, double amount) {
+            register.update(editor -> {
+                editor.setSingleLossExpectancy(from, editor.getSingleLossExpectancy(from) - amount);
+                editor.setSingleLossExpectancy(to, editor.getSingleLossExpectancy(to) + amount);
+            });
+        }
+
+        @Override
+        public String statistics() {
+            return String.format("%,d commits, %,d rebased, %,d retried", register.getCommits(), register.getRebases(), register.getRetries());
+        }
+    }
+
+    private static final class Locked implements SharedRegister {
+        private final RiskRegister register = new RiskRegister();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        Locked(int registerSize) {
+            register.addAll(initialRisks(registerSize));
+        }
+
+        @Override
+        public double pointReads(SplittableRandom random, int bound) {
+            lock.readLock().lock();
+            try {
+                double sum = 0;
+                for (int i = 0; i < POINT_READS; i++) {
+                    sum += register.getSingleLossExpectancy(random.nextInt(bound));
+                }
+                return sum;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void check(double expectedTotal, int initialSize) {
+            lock.readLock().lock();
+            try {
+                double total = 0;
+                for (int row = 0; row < register.size(); row++) {
+                    total += register.getSingleLossExpectancy(row);
+                }
+                checkTotals("locked", total, expectedTotal, register.size(), initialSize);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void append(RiskBatch batch) {
+            lock.writeLock().lock();
+            try {
+                register.addAll(batch);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void move(int from, int to, double amount) {
+            lock.writeLock().lock();
+            try {
+                register.update(() -> {
+                    register.setSingleLossExpectancy(from, register.getSingleLossExpectancy(from) - amount);
+                    register.setSingleLossExpectancy(to, register.getSingleLossExpectancy(to) + amount);
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public String statistics() {
+            return "";
+        }
+    }
+}
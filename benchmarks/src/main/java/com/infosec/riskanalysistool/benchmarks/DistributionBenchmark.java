@@ -0,0 +1,81 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.analysis.QuantileSketch;
+import com.infosec.riskanalysistool.analysis.RankingMetric;
+import com.infosec.riskanalysistool.analysis.RiskDistributions;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//Quantile sketches of ALE and residual risk. sketchAdd is the cost of one value reaching a sketch that has
+//already seen the whole register; distributionsOf sketches every group of the register from scratch (what a
+//rebuild costs), mergeHospitals combines the distributions of two registers and percentiles reads the median,
+//p90 and p99 of the whole register's ALE.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class DistributionBenchmark {
+    @Param({"100000", "1000000"})
+    int registerSize;
+
+    private RiskRegister register;
+    private RiskDistributions distributions;
+    private RiskDistributions otherHospital;
+    private QuantileSketch sketch;
+    private double[] values;
+    private int next;
+
+    @Setup
+    public void setup() {
+        register = SyntheticRisks.generate(registerSize).toRegister();
+        distributions = RiskDistributions.of(register);
+        otherHospital = RiskDistributions.of(SyntheticRisks.generate(registerSize).toRegister());
+        sketch = new QuantileSketch();
+        values = new double[registerSize];
+        for (int row = 0; row < registerSize; row++) {
+            values[row] = register.getAnnualisedLossExpectancy(row);
+            sketch.add(values[row]);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long sketchAdd() {
+        sketch.add(values[next]);
+        next = next + 1 == values.length ? 0 : next + 1;
+        return sketch.count();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RiskDistributions distributionsOf() {
+        return RiskDistributions.of(register);
+    }
+
+    @Benchmark
+    public RiskDistributions mergeHospitals() {
+        RiskDistributions combined = new RiskDistributions();
+        combined.merge(distributions);
+        combined.merge(otherHospital);
+        return combined;
+    }
+
+    @Benchmark
+    public double[] percentiles() {
+        return distributions.whole(RankingMetric.ANNUALISED_LOSS_EXPECTANCY).quantiles(0.5, 0.9, 0.99);
+    }
+}
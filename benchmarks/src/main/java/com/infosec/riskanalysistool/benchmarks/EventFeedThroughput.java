@@ -0,0 +1,101 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.diagnostics.LatencyHistogram;
+import com.infosec.riskanalysistool.diagnostics.MetricsSnapshot;
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.monitoring.EventFeedMonitor;
+import com.infosec.riskanalysistool.monitoring.EventRates;
+import com.infosec.riskanalysistool.monitoring.EventRules;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+//How many event lines a second EventFeedMonitor reads, parses and counts towards threats, from a log file it
+//follows from the start and from a loopback connection, with the time per batch and the bytes allocated per
+//line. Half the lines have ISO-8601 timestamps and half epoch milliseconds, and a fifth match no rule. The
+//monitor publishes once a second, so runs need a few million lines to time well.
+//
+//java -cp benchmarks/target/benchmarks.jar com.infosec.riskanalysistool.benchmarks.EventFeedThroughput [lines]
+public final class EventFeedThroughput {
+    private static final String[] EVENT_TYPES = {
+            "auth.failure", "auth.lockout", "malware.detected", "dlp.phi_exfiltration", "vpn.impossible_travel",
+            "firewall.port_scan", "ehr.bulk_export", "usb.mass_storage", "waf.sql_injection", "unmatched.event"
+    };
+
+    private EventFeedThroughput() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        EventRules rules = new EventRules();
+        for (int i = 0; i < EVENT_TYPES.length - 2; i++) {
+            rules.add(EVENT_TYPES[i], "Threat " + (i % 4), 1 + i * 10);
+        }
+
+        Path file = Files.createTempFile("events", ".log");
+        try {
+            writeEvents(file, lines);
+            System.out.printf("%,d lines, %.1f MB%n", lines, Files.size(file) / 1e6);
+            System.out.printf("%-8s %16s %12s %12s %12s%n", "source", "lines/s", "batch p50", "batch p99", "bytes/line");
+            run("file", rules, lines, monitor -> monitor.tail(file, true));
+            run("socket", rules, lines, monitor -> {
+                int port = monitor.listen(0);
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port); OutputStream out = socket.getOutputStream()) {
+                    Files.copy(file, out);
+                }
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private interface Source {
+        void start(EventFeedMonitor monitor) throws IOException;
+    }
+
+    private static void run(String name, EventRules rules, int lines, Source source) throws IOException, InterruptedException {
+        AtomicReference<EventRates> latest = new AtomicReference<>();
+        MetricsSnapshot before = MetricsSnapshot.take();
+        long start = System.nanoTime();
+        try (EventFeedMonitor monitor = new EventFeedMonitor(rules, Duration.ofHours(1), Duration.ofMinutes(20), latest::set)) {
+            source.start(monitor);
+            while (latest.get() == null || latest.get().getLines() < lines) {
+                Thread.sleep(1);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        MetricsSnapshot after = MetricsSnapshot.take();
+        LatencyHistogram.Snapshot batches = after.latencies(Operation.EVENT_INGEST).minus(before.latencies(Operation.EVENT_INGEST));
+        System.out.printf("%-8s %,16.0f %10.1f us %10.1f us %12.2f%n", name, lines / seconds,
+                batches.percentile(0.5) / 1e3, batches.percentile(0.99) / 1e3,
+                (after.allocatedBytes() - before.allocatedBytes()) / (double) lines);
+    }
+
+    //Events about 100 a second apart in time, ending now
+    private static void writeEvents(Path file, int lines) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        long time = System.currentTimeMillis() - lines / 100L * 1000;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            StringBuilder line = new StringBuilder(128);
+            for (int i = 0; i < lines; i++) {
+                time += random.nextInt(21);
+                line.setLength(0);
+                line.append(i % 2 == 0 ? Instant.ofEpochMilli(time).toString() : Long.toString(time)).append(',')
+                        .append(EVENT_TYPES[random.nextInt(EVENT_TYPES.length)])
+                        .append(",src=10.0.").append(random.nextInt(256)).append('.').append(random.nextInt(256))
+                        .append(" user=u").append(random.nextInt(5000)).append('\n');
+                out.write(line.toString().getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+}
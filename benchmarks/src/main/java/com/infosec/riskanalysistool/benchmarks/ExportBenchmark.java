@@ -0,0 +1,74 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.io.ExportResult;
+import com.infosec.riskanalysistool.io.ReportExporter;
+import com.infosec.riskanalysistool.io.ReportImage;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Writing a whole report to a temporary file in each format. The two images stand in for the charts the app
+//renders, which need the FX thread; they are encoded once per export like the real ones.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ExportBenchmark {
+    @Param({"100000", "1000000"})
+    int registerSize;
+
+    @Param({"CSV", "HTML", "PDF"})
+    ReportExporter.Format format;
+
+    private RiskBatch risks;
+    private List<ReportImage> images;
+    private Path path;
+    private final ReportExporter exporter = new ReportExporter();
+
+    @Setup
+    public void setup() throws IOException {
+        risks = SyntheticRisks.generate(registerSize).toRegister().snapshot();
+        images = List.of(gradient("Risk Matrix"), gradient("Top 15 Risks by ALE"));
+        path = Files.createTempFile("export-benchmark", "." + format.getExtension());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public ExportResult export() throws IOException {
+        return exporter.export(risks, images, path, format, rows -> { });
+    }
+
+    private static ReportImage gradient(String title) {
+        int width = 640;
+        int height = 420;
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = 0xFF000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8 | 0x80;
+            }
+        }
+        return new ReportImage(title, width, height, pixels);
+    }
+}
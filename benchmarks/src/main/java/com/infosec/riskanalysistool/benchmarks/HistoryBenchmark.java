@@ -0,0 +1,118 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.persistence.RegisterHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//Time travel through a register's history. The register is imported (one checkpoint) and then edited one risk
+//at a time, a second apart, until just before the next checkpoint is due, so registerAtLatest replays the
+//longest run of events a query can meet while registerAtCheckpoint only loads the checkpoint.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class HistoryBenchmark {
+    @Param({"100000", "1000000"})
+    int registerSize;
+
+    private Path directory;
+    private RegisterHistory history;
+    private Instant imported;
+    private Instant latest;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("history-benchmark");
+        long[] now = {1_700_000_000_000L};
+        Clock clock = new SteppingClock(now);
+        RiskRegister register = new RiskRegister();
+        history = RegisterHistory.open(directory, register, clock);
+        register.addAll(SyntheticRisks.generate(registerSize).toRegister().snapshot());
+        imported = Instant.ofEpochMilli(now[0]);
+
+        //A checkpoint is due after a quarter of the register, or 16,384 rows, has been edited
+        int edits = Math.max(16_384, registerSize / 4) - 1;
+        Random random = new Random(42);
+        for (int i = 0; i < edits; i++) {
+            now[0] += 1_000;
+            int row = random.nextInt(register.size());
+            register.update(() -> {
+                register.setImpact(row, 1 + random.nextInt(5));
+                register.setSingleLossExpectancy(row, register.getSingleLossExpectancy(row) * 1.01);
+            });
+        }
+        latest = Instant.ofEpochMilli(now[0]);
+        history.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public RiskRegister registerAtCheckpoint() throws IOException {
+        return history.registerAt(imported);
+    }
+
+    @Benchmark
+    public RiskRegister registerAtLatest() throws IOException {
+        return history.registerAt(latest);
+    }
+
+    //Reads the time from the benchmark set-up so the edits are spread out without waiting
+    private static final class SteppingClock extends Clock {
+        private final long[] now;
+
+        SteppingClock(long[] now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return now[0];
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now[0]);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+
+//The property-based Risk the tool used before the columnar register, kept as the baseline the model
+//benchmarks compare against. The original was an inner class that also pinned the Application instance.
+public class LegacyPropertyRisk {
+    private final SimpleStringProperty threat;
+    private final ObjectProperty<HIPAARule> hipaaRule;
+    private final ObjectProperty<RMFStep> rmfStep;
+    private final SimpleIntegerProperty impact;
+    private final SimpleIntegerProperty likelihood;
+    private final SimpleIntegerProperty riskPriorityNumber;
+
+    private final SimpleDoubleProperty singleLossExpectancy;          //SLE
+    private final SimpleDoubleProperty annualisedRateOfOccurrence;    //ARO
+    private final SimpleDoubleProperty annualisedLossExpectancy;      //ALE = SLE * ARO
+
+    private final SimpleStringProperty controlMeasures;
+    private final SimpleDoubleProperty controlEffectiveness;
+    private final SimpleDoubleProperty residualRisk;
+
+
+    public LegacyPropertyRisk(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) {
+
+        this.threat = new SimpleStringProperty(threat);
+        this.hipaaRule = new SimpleObjectProperty<>(hipaaRule);
+        this.rmfStep = new SimpleObjectProperty<>(rmfStep);
+        this.impact = new SimpleIntegerProperty(impact);
+        this.likelihood = new SimpleIntegerProperty(likelihood);
+        this.riskPriorityNumber = new SimpleIntegerProperty(impact * likelihood);
+
+        this.singleLossExpectancy = new SimpleDoubleProperty(singleLossExpectancy);
+        this.annualisedRateOfOccurrence = new SimpleDoubleProperty(annualisedRateOfOccurrence);
+        this.annualisedLossExpectancy = new SimpleDoubleProperty(calculateALE());
+
+        this.controlMeasures = new SimpleStringProperty(controlMeasures);
+        this.controlEffectiveness = new SimpleDoubleProperty(controlEffectiveness);
+        this.residualRisk = new SimpleDoubleProperty(calculateResidualRisk());
+    }
+
+    //Getter and Setters
+    public String getThreat() {
+        return threat.get();
+    }
+
+    public void setThreat(String threat) {
+        this.threat.set(threat);
+    }
+
+    public SimpleStringProperty threatProperty() {
+        return threat;
+    }
+
+    public HIPAARule getHipaaRule() {
+        return hipaaRule.get();
+    }
+
+    public void setHipaaRule(HIPAARule hipaaRule) {
+        this.hipaaRule.set(hipaaRule);
+    }
+
+    public ObjectProperty<HIPAARule> hipaaRuleProperty() {
+        return hipaaRule;
+    }
+
+    public RMFStep getRmfStep() {
+        return rmfStep.get();
+    }
+
+    public void setRmfStep(RMFStep rmfStep) {
+        this.rmfStep.set(rmfStep);
+    }
+
+    public ObjectProperty<RMFStep> rmfStepProperty() {
+        return rmfStep;
+    }
+
+    public int getImpact() {
+        return impact.get();
+    }
+
+    public void setImpact(int impact) {
+        this.impact.set(impact);
+        updateRiskPriorityNumber();
+    }
+
+    public SimpleIntegerProperty impactProperty() {
+        return impact;
+    }
+
+    public int getLikelihood() {
+        return likelihood.get();
+    }
+
+    public void setLikelihood(int likelihood) {
+        this.likelihood.set(likelihood);
+        updateRiskPriorityNumber();
+    }
+
+    public SimpleIntegerProperty likelihoodProperty() {
+        return likelihood;
+    }
+
+    public int getRiskPriorityNumber() {
+        return riskPriorityNumber.get();
+    }
+
+    public SimpleIntegerProperty riskPriorityNumberProperty() {
+        return riskPriorityNumber;
+    }
+
+    private void updateRiskPriorityNumber() {
+        this.riskPriorityNumber.set(getImpact() * getLikelihood());
+    }
+
+    public double getSingleLossExpectancy() {
+        return singleLossExpectancy.get();
+    }
+
+    public void setSingleLossExpectancy(double sle) {
+        this.singleLossExpectancy.set(sle);
+        updateAnnualisedLossExpectancy();
+    }
+
+    public SimpleDoubleProperty singleLossExpectancyProperty() {
+        return singleLossExpectancy;
+    }
+
+    public double getannualisedRateOfOccurrence() {
+        return annualisedRateOfOccurrence.get();
+    }
+
+    public void setAnnualisedRateOfOccurrence(double aro) {
+        this.annualisedRateOfOccurrence.set(aro);
+        updateAnnualisedLossExpectancy();
+    }
+
+    public SimpleDoubleProperty annualisedRateOfOccurrenceProperty() {
+        return annualisedRateOfOccurrence;
+    }
+
+    public double getAnnualisedLossExpectancy() {
+        return annualisedLossExpectancy.get();
+    }
+
+    public SimpleDoubleProperty annualisedLossExpectancyProperty() {
+        return annualisedLossExpectancy;
+    }
+
+    private double calculateALE() {
+        return getSingleLossExpectancy() * getannualisedRateOfOccurrence();
+    }
+
+    private void updateAnnualisedLossExpectancy() {
+        this.annualisedLossExpectancy.set(calculateALE());
+    }
+
+    //Control Measures
+    public String getControlMeasures() {
+        return controlMeasures.get();
+    }
+
+    public void setControlMeasures(String controlMeasures) {
+        this.controlMeasures.set(controlMeasures);
+    }
+
+    public SimpleStringProperty controlMeasuresProperty() {
+        return controlMeasures;
+    }
+
+    //Control Effectiveness
+    public double getControlEffectiveness() {
+        return controlEffectiveness.get();
+    }
+
+    public void setControlEffectiveness(double controlEffectiveness) {
+        this.controlEffectiveness.set(controlEffectiveness);
+        updateResidualRisk();
+    }
+
+    public SimpleDoubleProperty controlEffectivenessProperty() {
+        return controlEffectiveness;
+    }
+
+    //Residual Risk
+    public double getResidualRisk() {
+        return residualRisk.get();
+    }
+
+    public SimpleDoubleProperty residualRiskProperty() {
+        return residualRisk;
+    }
+
+    private double calculateResidualRisk() {
+        double effectiveness = getControlEffectiveness() / 100.0; //Convert to decimal
+        return getRiskPriorityNumber() * (1 - effectiveness);
+    }
+
+    private void updateResidualRisk() {
+        this.residualRisk.set(calculateResidualRisk());
+    }
+
+    //Calculate Risk Priority Number (RPN)
+    public int calculateRPN() {
+        return getImpact() * getLikelihood();
+    }
+
+    //Generate recommendations based on risk attributes
+    public String generateRecommendation() {
+        StringBuilder recommendations = new StringBuilder();
+        int rpn = getRiskPriorityNumber();
+        double ale = getAnnualisedLossExpectancy();
+        double residual = getResidualRisk();
+
+        //Provide recommendations based on RPN
+        if (rpn > 200) {
+            recommendations.append("Critical risk identified. Immediate action required.\n");
+        } else if (rpn > 70) {
+            recommendations.append("High risk. Prompt attention is necessary.\n");
+        } else if (rpn > 20) {
+            recommendations.append("Medium risk. Monitor and plan mitigation strategies.\n");
+        } else {
+            recommendations.append("Low risk. Regular monitoring is sufficient.\n");
+        }
+
+        //Provide recommendations based on ALE
+        if (ale > 100_000) {
+            recommendations.append("ALE exceeds R100,000. Consider investing in significant risk mitigation measures.\n");
+        } else if (ale > 50_000) {
+            recommendations.append("ALE exceeds R50,000. Evaluate cost-effective mitigation strategies.\n");
+        } else {
+            recommendations.append("ALE is within acceptable limits. Maintain current controls.\n");
+        }
+
+        //Recommendations based on impacts
+        if (getImpact() > 7) {
+            recommendations.append("High impact risk. prioritise impact reduction measures.\n");
+        }
+
+        if (getLikelihood() > 7) {
+            recommendations.append("High likelihood risk. Implement measures to reduce occurrence.\n");
+        }
+
+        //Specific recommendations based on HIPAA Rule
+        switch (getHipaaRule()) {
+            case PRIVACY_RULE:
+                recommendations.append("Ensure all PHI disclosures are compliant with the Privacy Rule.\n");
+                break;
+            case SECURITY_RULE:
+                recommendations.append("Strengthen technical safeguards to protect ePHI.\n");
+                break;
+            case BREACH_NOTIFICATION_RULE:
+                recommendations.append("Develop a robust breach response plan in line with notification requirements.\n");
+                break;
+        }
+
+        //Specific recommendations based on RMF Step
+        switch (getRmfStep()) {
+            case Categorise:
+                recommendations.append("Review system categorisations to ensure appropriate risk levels.\n");
+                break;
+            case SELECT:
+                recommendations.append("Select security controls tailored to mitigate identified risks.\n");
+                break;
+            case IMPLEMENT:
+                recommendations.append("Implement the chosen security controls effectively.\n");
+                break;
+            case ASSESS:
+                recommendations.append("Regularly assess the effectiveness of security controls.\n");
+                break;
+            case Authorise:
+                recommendations.append("Obtain necessary authorisations before system operation.\n");
+                break;
+            case MONITOR:
+                recommendations.append("Continuously monitor security controls and system operations.\n");
+                break;
+        }
+
+        return recommendations.toString();
+    }
+
+    //Severity band as the old HealthcareRiskAnalysisApp.categorizeRisk computed it
+    public static String categorizeRisk(int impact, int likelihood) {
+        int rpn = impact * likelihood;
+        if (rpn > 200) {
+            return "Critical";
+        } else if (rpn > 70) {
+            return "High";
+        } else if (rpn > 20) {
+            return "Medium";
+        } else {
+            return "Low";
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.optimisation.ControlOptimiser;
+import com.infosec.riskanalysistool.optimisation.ControlPlan;
+import com.infosec.riskanalysistool.optimisation.ControlPortfolio;
+import com.infosec.riskanalysistool.optimisation.ParetoFrontier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+//Control budget solver scaling with register size and options per risk.
+//frontier and greedy should grow like n log n in the number of options. exact is run at the largest budget
+//the exact solver accepts for the register size (costs are whole hundreds, solved in steps of 100), so it
+//shows the worst case a user can hit before the optimiser switches to greedy.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimiserBenchmark {
+    private static final double COST_RESOLUTION = 100;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    int risks;
+
+    @Param({"3", "6"})
+    int optionsPerRisk;
+
+    private ControlOptimiser optimiser;
+    private ControlPortfolio portfolio;
+    private double greedyBudget;
+    private double exactBudget;
+
+    @Setup
+    public void setup() {
+        SyntheticRisks input = SyntheticRisks.generate(risks);
+        SplittableRandom random = new SplittableRandom(7);
+        ControlPortfolio.Builder builder = ControlPortfolio.builder();
+        for (int i = 0; i < risks; i++) {
+            builder.addRisk(i, input.singleLossExpectancies[i] * input.annualisedRatesOfOccurrence[i], input.controlEffectiveness[i]);
+            for (int k = 0; k < optionsPerRisk; k++) {
+                builder.addOption("Control " + k, COST_RESOLUTION * (1 + random.nextInt(500)), random.nextInt(101));
+            }
+        }
+        portfolio = builder.build();
+        optimiser = new ControlOptimiser(ForkJoinPool.commonPool(), COST_RESOLUTION);
+
+        double maxCost = optimiser.frontier(portfolio).maxCost();
+        greedyBudget = maxCost / 4;
+        long exactSteps = ControlOptimiser.MAX_EXACT_CELLS / risks - 1;
+        exactBudget = Math.min(greedyBudget, COST_RESOLUTION * exactSteps);
+    }
+
+    @Benchmark
+    public ParetoFrontier frontier() {
+        return optimiser.frontier(portfolio);
+    }
+
+    @Benchmark
+    public ControlPlan greedy() {
+        return optimiser.solveGreedy(portfolio, greedyBudget);
+    }
+
+    @Benchmark
+    public ControlPlan exact() {
+        return optimiser.solveExact(portfolio, exactBudget);
+    }
+}
@@ -0,0 +1,112 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Columnar register against the old property-based Risk.
+//Both builds are pre-sized, so gc.alloc.rate.norm of the build benchmarks is the retained footprint of the
+//register (threat and control strings are shared input and not counted for either side).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class RegisterBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    private SyntheticRisks input;
+    private RiskRegister register;
+    private List<LegacyPropertyRisk> legacyRisks;
+
+    @Setup
+    public void setup() {
+        input = SyntheticRisks.generate(rows);
+        register = input.toRegister();
+        legacyRisks = input.toLegacyRisks();
+    }
+
+    @Benchmark
+    public RiskRegister buildRegister() {
+        return input.toRegister();
+    }
+
+    @Benchmark
+    public List<LegacyPropertyRisk> buildLegacy() {
+        return input.toLegacyRisks();
+    }
+
+    @Benchmark
+    public double scanRegisterAle() {
+        double total = 0;
+        for (int row = 0; row < register.size(); row++) {
+            total += register.getAnnualisedLossExpectancy(row);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double scanLegacyAle() {
+        double total = 0;
+        for (LegacyPropertyRisk risk : legacyRisks) {
+            total += risk.getAnnualisedLossExpectancy();
+        }
+        return total;
+    }
+
+    //Raises every control effectiveness by 10 points (wrapping at 100) in one update, then reads every residual risk.
+    //The register marks residual risk stale on each edit and recomputes it once on the read; the legacy
+    //properties recompute it eagerly and notify their listeners on every set.
+    @Benchmark
+    public double bulkEditRegister() {
+        register.update(() -> {
+            for (int row = 0; row < register.size(); row++) {
+                register.setControlEffectiveness(row, raised(register.getControlEffectiveness(row)));
+            }
+        });
+        double total = 0;
+        for (int row = 0; row < register.size(); row++) {
+            total += register.getResidualRisk(row);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double bulkEditLegacy() {
+        for (LegacyPropertyRisk risk : legacyRisks) {
+            risk.setControlEffectiveness(raised(risk.getControlEffectiveness()));
+        }
+        double total = 0;
+        for (LegacyPropertyRisk risk : legacyRisks) {
+            total += risk.getResidualRisk();
+        }
+        return total;
+    }
+
+    private static double raised(double effectiveness) {
+        return effectiveness >= 90 ? effectiveness - 90 : effectiveness + 10;
+    }
+
+    @Benchmark
+    public double scanRegisterViewsResidual() {
+        double total = 0;
+        for (int row = 0; row < register.size(); row++) {
+            total += register.view(row).getResidualRisk();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,108 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.Risk;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.scoring.AnalysisInput;
+import com.infosec.riskanalysistool.scoring.RegisterAnalysis;
+import com.infosec.riskanalysistool.scoring.RiskScorer;
+import com.infosec.riskanalysistool.util.ValidationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Categorisation, validation and recommendation passes over a whole register
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+    @Param({"10000", "100000"})
+    int rows;
+
+    private SyntheticRisks input;
+    private RiskRegister register;
+    private Risk[] views;
+    private List<LegacyPropertyRisk> legacyRisks;
+    private AnalysisInput analysisInput;
+    private RiskScorer scorer;
+
+    @Setup
+    public void setup() {
+        input = SyntheticRisks.generate(rows);
+        register = input.toRegister();
+        views = new Risk[rows];
+        for (int row = 0; row < rows; row++) {
+            views[row] = register.view(row);
+        }
+        legacyRisks = input.toLegacyRisks();
+        analysisInput = AnalysisInput.from(register);
+        scorer = new RiskScorer();
+    }
+
+    //categorizeRisk
+    @Benchmark
+    public void categorize(Blackhole blackhole) {
+        for (int row = 0; row < rows; row++) {
+            blackhole.consume(RiskCategory.of(register.getImpact(row), register.getLikelihood(row)));
+        }
+    }
+
+    @Benchmark
+    public void categorizeLegacy(Blackhole blackhole) {
+        for (int i = 0; i < rows; i++) {
+            blackhole.consume(LegacyPropertyRisk.categorizeRisk(input.impacts[i], input.likelihoods[i]));
+        }
+    }
+
+    //ValidationUtil.isValidRisk
+    @Benchmark
+    public void validateRows(Blackhole blackhole) {
+        for (Risk risk : views) {
+            blackhole.consume(ValidationUtil.isValidRisk(risk));
+        }
+    }
+
+    @Benchmark
+    public void validateRawValues(Blackhole blackhole) {
+        for (int i = 0; i < rows; i++) {
+            blackhole.consume(ValidationUtil.isValidRisk(input.threats[i], input.hipaaRules[i], input.rmfSteps[i], input.impacts[i], input.likelihoods[i], input.singleLossExpectancies[i], input.annualisedRatesOfOccurrence[i], input.controlEffectiveness[i]));
+        }
+    }
+
+    //generateRecommendation: precomputed table against the old per-call StringBuilder
+    @Benchmark
+    public void recommendations(Blackhole blackhole) {
+        for (Risk risk : views) {
+            blackhole.consume(risk.generateRecommendation());
+        }
+    }
+
+    @Benchmark
+    public void recommendationsLegacy(Blackhole blackhole) {
+        for (LegacyPropertyRisk risk : legacyRisks) {
+            blackhole.consume(risk.generateRecommendation());
+        }
+    }
+
+    //Every metric, category and recommendation key of the register with its totals, on the fork/join pool, as
+    //RiskAnalysisCli and the background analysis score it
+    @Benchmark
+    public RegisterAnalysis scoreRegister() {
+        return scorer.score(analysisInput);
+    }
+}
@@ -0,0 +1,233 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.diagnostics.LatencyHistogram;
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.service.ScoringServer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+//Load test of ScoringServer on localhost: thousands of clients, each on its own virtual thread with its own
+//keep-alive connection, send risks as fast as they are answered, first one risk per request to /score and
+//then batches to /score/batch. Prints requests and risks per second with the latency each client saw,
+//from sending a request to reading the whole answer, and the server's own p99 per request. The server
+//runs in this JVM, so clients and server share the machine's cores.
+//
+//java -cp benchmarks/target/benchmarks.jar com.infosec.riskanalysistool.benchmarks.ScoringServiceLoad [clients] [seconds] [batch size]
+public final class ScoringServiceLoad {
+    private static final int DISTINCT_RISKS = 1_024;
+    private static final long WARM_UP_NANOS = 3_000_000_000L;
+    //Batch requests are larger, so fewer clients keep the server as busy
+    private static final int CLIENTS_PER_BATCH_CLIENT = 32;
+
+    private ScoringServiceLoad() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        SyntheticRisks risks = SyntheticRisks.generate(Math.max(DISTINCT_RISKS, batchSize));
+
+        byte[][] single = new byte[DISTINCT_RISKS][];
+        for (int i = 0; i < single.length; i++) {
+            single[i] = request("/score", json(risks, i));
+        }
+        byte[][] batches = new byte[8][];
+        for (int b = 0; b < batches.length; b++) {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < batchSize; i++) {
+                body.append(json(risks, (b * 131 + i) % risks.size)).append('\n');
+            }
+            batches[b] = request("/score/batch", body.toString());
+        }
+
+        //Tuned as the CLI's --serve is
+        ScoringServer.configureForManyClients();
+        try (ScoringServer server = new ScoringServer()) {
+            int port = server.start(0);
+            System.out.printf("%-7s %8s %14s %14s %10s %10s %10s %12s %8s %10s%n", "", "clients", "requests/s", "risks/s",
+                    "p50", "p99", "max", "server p99", "failed", "reconnects");
+            run("single", port, clients, seconds, single);
+            run("batch", port, Math.max(1, clients / CLIENTS_PER_BATCH_CLIENT), seconds, batches);
+        }
+    }
+
+    private static void run(String name, int port, int clients, int seconds, byte[][] requests) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder risks = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder reconnects = new LongAdder();
+        long measureFrom = System.nanoTime() + WARM_UP_NANOS;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        LatencyHistogram.Snapshot serverBefore = null;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int first = c;
+                executor.submit(() -> client(port, requests, first, measureFrom, end, latencies, risks, failed, reconnects));
+            }
+            while (System.nanoTime() < measureFrom) {
+                sleep(10);
+            }
+            serverBefore = Operation.SCORING_REQUEST.latencies();
+        }
+
+        LatencyHistogram.Snapshot client = latencies.snapshot();
+        LatencyHistogram.Snapshot server = Operation.SCORING_REQUEST.latencies().minus(serverBefore);
+        System.out.printf(Locale.ROOT, "%-7s %,8d %,14.0f %,14.0f %7.2f ms %7.2f ms %7.2f ms %9.2f ms %,8d %,10d%n", name, clients,
+                client.count() / (double) seconds, risks.sum() / (double) seconds, client.percentile(0.5) / 1e6,
+                client.percentile(0.99) / 1e6, client.maxNanos() / 1e6, server.percentile(0.99) / 1e6, failed.sum(), reconnects.sum());
+    }
+
+    //Sends requests in turn until the end, counting only answers to requests sent after measureFrom
+    private static void client(int port, byte[][] requests, int first, long measureFrom, long end, LatencyHistogram latencies,
+                               LongAdder risks, LongAdder failed, LongAdder reconnects) {
+        Socket socket = null;
+        InputStream in = null;
+        OutputStream out = null;
+        for (int i = first; System.nanoTime() < end; i++) {
+            try {
+                if (socket == null) {
+                    socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                    socket.setTcpNoDelay(true);
+                    in = new BufferedInputStream(socket.getInputStream(), 1 << 16);
+                    out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+                }
+                long start = System.nanoTime();
+                out.write(requests[i % requests.length]);
+                out.flush();
+                Response response = Response.read(in);
+                long nanos = System.nanoTime() - start;
+                if (start >= measureFrom) {
+                    if (response.status == 200) {
+                        latencies.record(nanos);
+                        risks.add(response.lines == 0 ? 1 : response.lines);
+                    } else {
+                        failed.increment();
+                    }
+                }
+                if (response.close) {
+                    socket.close();
+                    socket = null;
+                }
+            } catch (IOException e) {
+                //The server closes idle connections past its limit; open another one
+                reconnects.increment();
+                close(socket);
+                socket = null;
+            }
+        }
+        close(socket);
+    }
+
+    private static void close(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //Finished with it either way
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] request(String path, String body) {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        byte[] head = ("POST " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] request = new byte[head.length + content.length];
+        System.arraycopy(head, 0, request, 0, head.length);
+        System.arraycopy(content, 0, request, head.length, content.length);
+        return request;
+    }
+
+    private static String json(SyntheticRisks risks, int i) {
+        return String.format(Locale.ROOT, "{\"threat\":\"%s\",\"hipaaRule\":\"%s\",\"rmfStep\":\"%s\",\"impact\":%d,\"likelihood\":%d,"
+                        + "\"sle\":%s,\"aro\":%s,\"controlMeasures\":\"%s\",\"controlEffectiveness\":%s}",
+                risks.threats[i], risks.hipaaRules[i].name(), risks.rmfSteps[i].name(), risks.impacts[i], risks.likelihoods[i],
+                risks.singleLossExpectancies[i], risks.annualisedRatesOfOccurrence[i], risks.controlMeasures[i], risks.controlEffectiveness[i]);
+    }
+
+    //Status of an HTTP/1.1 answer, whose body is read and only its lines counted
+    private record Response(int status, long lines, boolean close) {
+        static Response read(InputStream in) throws IOException {
+            String statusLine = readLine(in);
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            long length = -1;
+            boolean chunked = false;
+            boolean close = false;
+            for (String header = readLine(in); !header.isEmpty(); header = readLine(in)) {
+                String lower = header.toLowerCase(Locale.ROOT);
+                if (lower.startsWith("content-length:")) {
+                    length = Long.parseLong(lower.substring(15).strip());
+                } else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+                    chunked = true;
+                } else if (lower.startsWith("connection:") && lower.contains("close")) {
+                    close = true;
+                }
+            }
+            long lines = 0;
+            if (chunked) {
+                for (long size = Long.parseLong(readLine(in).strip(), 16); size > 0; size = Long.parseLong(readLine(in).strip(), 16)) {
+                    lines += skip(in, size);
+                    readLine(in);
+                }
+                readLine(in);
+            } else if (length > 0) {
+                skip(in, length);
+            }
+            return new Response(status, lines, close);
+        }
+
+        //Returns the newlines skipped
+        private static long skip(InputStream in, long count) throws IOException {
+            byte[] bytes = new byte[(int) Math.min(count, 1 << 16)];
+            long lines = 0;
+            while (count > 0) {
+                int read = in.read(bytes, 0, (int) Math.min(count, bytes.length));
+                if (read < 0) {
+                    throw new EOFException("Connection closed mid-answer");
+                }
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        lines++;
+                    }
+                }
+                count -= read;
+            }
+            return lines;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int b = in.read(); b != '\n'; b = in.read()) {
+                if (b < 0) {
+                    throw new EOFException("Connection closed");
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return line.toString();
+        }
+    }
+}
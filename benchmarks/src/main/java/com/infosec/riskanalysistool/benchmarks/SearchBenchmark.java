@@ -0,0 +1,79 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.index.TextIndex;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+//Trigram text search over registers of made-up threats of one to four words from a small vocabulary, one in
+//ten numbered so there are many distinct texts. broadSearch is one word found in about a tenth of the risks,
+//narrowSearch two words that seldom occur together; both rank the best 100 rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+    private static final String[] WORDS = {
+            "phishing", "ransomware", "insider", "theft", "laptop", "unpatched", "server", "cloud", "misconfiguration",
+            "ddos", "attack", "email", "spoofing", "vendor", "breach", "weak", "passwords", "lost", "backup", "usb",
+            "malware", "sql", "injection", "privilege", "escalation", "physical", "fire", "flood", "power", "outage"
+    };
+
+    @Param({"100000", "1000000"})
+    int registerSize;
+
+    private TextIndex index;
+
+    @Setup
+    public void setup() {
+        RiskRegister register = SyntheticRisks.generate(registerSize).toRegister();
+        SplittableRandom random = new SplittableRandom(11);
+        for (int row = 0; row < registerSize; row++) {
+            StringBuilder threat = new StringBuilder();
+            int words = 1 + random.nextInt(4);
+            for (int i = 0; i < words; i++) {
+                threat.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            if (random.nextInt(10) == 0) {
+                threat.append(" #").append(random.nextInt(registerSize));
+            }
+            register.setThreat(row, threat.toString());
+        }
+        index = new TextIndex(register);
+    }
+
+    @Benchmark
+    public TextIndex.Match broadSearch() {
+        return index.search("phish", null, 100);
+    }
+
+    @Benchmark
+    public TextIndex.Match narrowSearch() {
+        return index.search("sql inject", null, 100);
+    }
+
+    @Benchmark
+    public List<String> suggestThreats() {
+        return index.suggestThreats("ransom", 8);
+    }
+
+    @Benchmark
+    public List<TextIndex.SimilarThreat> similarThreats() {
+        return index.similarThreats("Phishing email spoofing attack", 0.6, 5);
+    }
+}
@@ -0,0 +1,55 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.sensitivity.SensitivityConfig;
+import com.infosec.riskanalysistool.sensitivity.SensitivityEngine;
+import com.infosec.riskanalysistool.sensitivity.SensitivityInput;
+import com.infosec.riskanalysistool.sensitivity.SensitivityResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//Sensitivity analysis of a whole register: every input moved down and up for every risk, HIPAA rule, RMF step
+//and category, and the drivers ranked. snapshot is the part that runs on the FX thread before the analysis
+//starts; analyse is the fork/join pass and ranking.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SensitivityBenchmark {
+    @Param({"100000", "1000000"})
+    int registerSize;
+
+    private RiskRegister register;
+    private SensitivityInput input;
+    private SensitivityEngine engine;
+
+    @Setup
+    public void setup() {
+        register = SyntheticRisks.generate(registerSize).toRegister();
+        input = SensitivityInput.from(register);
+        engine = new SensitivityEngine();
+    }
+
+    @Benchmark
+    public SensitivityInput snapshot() {
+        return SensitivityInput.from(register);
+    }
+
+    @Benchmark
+    public SensitivityResult analyse() {
+        return engine.run(input, SensitivityConfig.defaults());
+    }
+}
@@ -0,0 +1,153 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.HealthcareRiskAnalysisApp;
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.persistence.RegisterStore;
+import javafx.stage.Stage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+//How long the desktop app takes to start, each time in a new JVM as a user would start it, with a saved register
+//of the given size to load. For each stage it prints the min, median and max time since the JVM was launched:
+//the toolkit up, start() returned, the first pulse after the window is shown, and the saved register loaded.
+//The app runs on the headless Monocle platform, so no display is required. Any further arguments are passed to
+//the app's JVM, for example to compare runs with a class-data archive.
+//
+//java -cp benchmarks/target/benchmarks.jar com.infosec.riskanalysistool.benchmarks.StartupTime [risks] [runs] [JVM options...]
+public final class StartupTime {
+    private static final String CHILD = "--child";
+    private static final String[] STAGES = {"Toolkit started", "start() returned", "First frame", "Register loaded"};
+
+    private StartupTime() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD)) {
+            //The toolkit's thread would keep a failed start running
+            try {
+                startApp();
+            } catch (Throwable t) {
+                t.printStackTrace();
+                System.exit(1);
+            }
+            return;
+        }
+        int risks = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        List<String> jvmOptions = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+
+        Path data = Files.createTempDirectory("startup");
+        try {
+            RiskRegister register = new RiskRegister();
+            try (RegisterStore store = RegisterStore.open(data, register)) {
+                register.addAll(SyntheticRisks.generate(risks).toRegister().snapshot());
+            }
+
+            //The first run also pays for the OS reading the JDK and JavaFX into its cache
+            run(data, jvmOptions);
+            long[][] millis = new long[STAGES.length][runs];
+            for (int i = 0; i < runs; i++) {
+                long[] stages = run(data, jvmOptions);
+                for (int stage = 0; stage < STAGES.length; stage++) {
+                    millis[stage][i] = stages[stage];
+                }
+            }
+
+            System.out.printf("%,d saved risks, %d runs, times since the JVM was launched%n", risks, runs);
+            for (int stage = 0; stage < STAGES.length; stage++) {
+                Arrays.sort(millis[stage]);
+                System.out.printf("%-18s min %,6d ms   median %,6d ms   max %,6d ms%n", STAGES[stage],
+                        millis[stage][0], millis[stage][runs / 2], millis[stage][runs - 1]);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(data)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    //Returns the milliseconds since the JVM was launched at which it reached each stage
+    private static long[] run(Path data, List<String> jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-Driskanalysistool.data=" + data);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupTime.class.getName());
+        command.add(CHILD);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        StringBuilder output = new StringBuilder();
+        long[] stages = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith("startup ")) {
+                    stages = Arrays.stream(line.substring(8).split(" ")).mapToLong(Long::parseLong).toArray();
+                } else {
+                    output.append(line).append('\n');
+                }
+            }
+        }
+        if (process.waitFor() != 0 || stages == null) {
+            throw new IOException("The app did not start:\n" + output);
+        }
+        return stages;
+    }
+
+    //Runs in the app's JVM: starts the app as the launcher would and reports when it reached each stage
+    private static void startApp() throws Exception {
+        HeadlessFx.start();
+        long toolkit = uptime();
+
+        HealthcareRiskAnalysisApp app = new HealthcareRiskAnalysisApp();
+        CountDownLatch firstFrame = new CountDownLatch(1);
+        long[] frame = new long[1];
+        HeadlessFx.run(() -> {
+            Stage stage = new Stage();
+            app.start(stage);
+            stage.getScene().addPostLayoutPulseListener(() -> {
+                if (firstFrame.getCount() > 0) {
+                    frame[0] = uptime();
+                    firstFrame.countDown();
+                }
+            });
+        });
+        long started = uptime();
+        firstFrame.await();
+
+        while (Operation.REGISTER_LOAD.latencies().count() == 0) {
+            Thread.sleep(1);
+        }
+        long loaded = uptime();
+        System.out.printf("startup %d %d %d %d%n", toolkit, started, frame[0], loaded);
+
+        HeadlessFx.run(() -> {
+            try {
+                app.stop();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        System.exit(0);
+    }
+
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
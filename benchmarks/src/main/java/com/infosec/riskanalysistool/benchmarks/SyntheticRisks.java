@@ -0,0 +1,79 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//Reproducible register contents shared by the suites, generated up front so input creation is not measured
+final class SyntheticRisks {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final String[] CONTROL_MEASURES = {
+            "Multi-factor authentication and regular security audits",
+            "Outdated antivirus software",
+            "None",
+            "Basic cybersecurity training for staff",
+            "Encrypted backups tested quarterly"
+    };
+
+    final int size;
+    final String[] threats;
+    final String[] controlMeasures;
+    final HIPAARule[] hipaaRules;
+    final RMFStep[] rmfSteps;
+    final int[] impacts;
+    final int[] likelihoods;
+    final double[] singleLossExpectancies;
+    final double[] annualisedRatesOfOccurrence;
+    final double[] controlEffectiveness;
+
+    private SyntheticRisks(int size, long seed) {
+        this.size = size;
+        threats = new String[size];
+        controlMeasures = new String[size];
+        hipaaRules = new HIPAARule[size];
+        rmfSteps = new RMFStep[size];
+        impacts = new int[size];
+        likelihoods = new int[size];
+        singleLossExpectancies = new double[size];
+        annualisedRatesOfOccurrence = new double[size];
+        controlEffectiveness = new double[size];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < size; i++) {
+            threats[i] = "Threat " + i;
+            controlMeasures[i] = CONTROL_MEASURES[random.nextInt(CONTROL_MEASURES.length)];
+            hipaaRules[i] = HIPAA_RULES[random.nextInt(HIPAA_RULES.length)];
+            rmfSteps[i] = RMF_STEPS[random.nextInt(RMF_STEPS.length)];
+            impacts[i] = 1 + random.nextInt(10);
+            likelihoods[i] = 1 + random.nextInt(10);
+            singleLossExpectancies[i] = 1_000 + random.nextDouble() * 500_000;
+            annualisedRatesOfOccurrence[i] = random.nextDouble() * 2;
+            controlEffectiveness[i] = random.nextInt(101);
+        }
+    }
+
+    static SyntheticRisks generate(int size) {
+        return new SyntheticRisks(size, 42);
+    }
+
+    RiskRegister toRegister() {
+        RiskRegister register = new RiskRegister(size);
+        for (int i = 0; i < size; i++) {
+            register.add(threats[i], hipaaRules[i], rmfSteps[i], impacts[i], likelihoods[i], singleLossExpectancies[i], annualisedRatesOfOccurrence[i], controlMeasures[i], controlEffectiveness[i]);
+        }
+        return register;
+    }
+
+    List<LegacyPropertyRisk> toLegacyRisks() {
+        List<LegacyPropertyRisk> risks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            risks.add(new LegacyPropertyRisk(threats[i], hipaaRules[i], rmfSteps[i], impacts[i], likelihoods[i], singleLossExpectancies[i], annualisedRatesOfOccurrence[i], controlMeasures[i], controlEffectiveness[i]));
+        }
+        return risks;
+    }
+}
@@ -0,0 +1,125 @@
+package com.infosec.riskanalysistool.benchmarks;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+//Retained heap of a register whose text repeats the way real registers do, held three ways: the old
+//property-based risks, plain String columns (RiskBatch, laid out like the register before its text was
+//dictionary-encoded) and the dictionary-encoded RiskRegister. Every row gets its own String objects, as an
+//import or the journal would give it, so only the dictionary shares repeated text.
+//Heap in use is read after full GCs, so run it on its own with a fixed heap:
+//
+//    java -Xms4g -Xmx4g -cp benchmarks/target/benchmarks.jar com.infosec.riskanalysistool.benchmarks.TextFootprint [rows]
+public class TextFootprint {
+    private static final String[] THREATS = {
+            "Phishing email leading to credential theft", "Ransomware on clinical workstations", "Lost or stolen laptop",
+            "Unpatched server software", "Insider snooping on patient records", "Misconfigured cloud storage",
+            "Third-party vendor breach", "Weak or shared passwords", "Unencrypted backups", "Medical device malware",
+            "Denial of service on the patient portal", "SQL injection in the billing system", "Power outage in the data centre",
+            "Fire or flood damage to records", "Privilege escalation by a contractor", "USB media left in public areas"
+    };
+    private static final String[] CONTROL_MEASURES = {
+            "Multi-factor authentication and regular security audits", "None", "Outdated antivirus software",
+            "Basic cybersecurity training for staff", "Encrypted backups tested quarterly",
+            "Vendor security questionnaire reviewed annually as required by the business associate agreement",
+            "Full disk encryption with remote wipe", "Patch management within 30 days of release",
+            "Role-based access control with quarterly access reviews", "Network segmentation of medical devices"
+    };
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+
+    //What is being measured, kept reachable through the GCs after it is built
+    private static Object held;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        //Loads and initialises every class involved first, so that does not count against the first layout
+        legacyRisks(1_000);
+        stringColumns(1_000);
+        register(1_000);
+
+        System.out.printf("%,d rows, one threat in twenty unique%n", rows);
+        report("Property-based risks", rows, () -> legacyRisks(rows));
+        report("String columns", rows, () -> stringColumns(rows));
+        report("Dictionary-encoded register", rows, () -> register(rows));
+    }
+
+    private static List<LegacyPropertyRisk> legacyRisks(int rows) {
+        List<LegacyPropertyRisk> risks = new ArrayList<>(rows);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < rows; i++) {
+            risks.add(new LegacyPropertyRisk(threat(random, i), HIPAA_RULES[random.nextInt(HIPAA_RULES.length)], RMF_STEPS[random.nextInt(RMF_STEPS.length)],
+                    1 + random.nextInt(10), 1 + random.nextInt(10), random.nextDouble() * 500_000, random.nextDouble() * 2, controlMeasures(random), random.nextInt(101)));
+        }
+        return risks;
+    }
+
+    private static RiskBatch stringColumns(int rows) {
+        RiskBatch batch = new RiskBatch(rows);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < rows; i++) {
+            batch.add(threat(random, i), HIPAA_RULES[random.nextInt(HIPAA_RULES.length)], RMF_STEPS[random.nextInt(RMF_STEPS.length)],
+                    1 + random.nextInt(10), 1 + random.nextInt(10), random.nextDouble() * 500_000, random.nextDouble() * 2, controlMeasures(random), random.nextInt(101));
+        }
+        return batch;
+    }
+
+    private static RiskRegister register(int rows) {
+        RiskRegister register = new RiskRegister(rows);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < rows; i++) {
+            register.add(threat(random, i), HIPAA_RULES[random.nextInt(HIPAA_RULES.length)], RMF_STEPS[random.nextInt(RMF_STEPS.length)],
+                    1 + random.nextInt(10), 1 + random.nextInt(10), random.nextDouble() * 500_000, random.nextDouble() * 2, controlMeasures(random), random.nextInt(101));
+        }
+        return register;
+    }
+
+    //One threat in twenty is a one-off
+    private static String threat(SplittableRandom random, int row) {
+        if (random.nextInt(20) == 0) {
+            return "Finding " + row + " from the annual risk assessment";
+        }
+        return new String(THREATS[random.nextInt(THREATS.length)].toCharArray());
+    }
+
+    private static String controlMeasures(SplittableRandom random) {
+        return new String(CONTROL_MEASURES[random.nextInt(CONTROL_MEASURES.length)].toCharArray());
+    }
+
+    private static void report(String name, int rows, Supplier<Object> build) {
+        long before = usedAfterGc();
+        held = build.get();
+        long retained = usedAfterGc() - before;
+        held = null;
+        System.out.printf("%-30s %,8.1f MB  %,6.0f bytes/row%n", name, retained / (1024.0 * 1024), (double) retained / rows);
+    }
+
+    //Heap left in use after full GCs, as recorded by the collector. The figure recorded by the first GC after
+    //a large graph becomes unreachable can still include it, so this takes the lowest of several.
+    private static long usedAfterGc() {
+        long lowest = Long.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            long used = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+            lowest = Math.min(lowest, used);
+        }
+        return lowest;
+    }
+}
@@ -1,22 +1,127 @@
 package com.infosec.riskanalysistool;
 
+import com.infosec.riskanalysistool.analysis.AggregateStage;
+import com.infosec.riskanalysistool.analysis.AnalysisService;
+import com.infosec.riskanalysistool.analysis.CoalescingPublisher;
+import com.infosec.riskanalysistool.analysis.DistributionStage;
+import com.infosec.riskanalysistool.analysis.HeatMapStage;
+import com.infosec.riskanalysistool.analysis.RankingMetric;
+import com.infosec.riskanalysistool.analysis.RiskAggregates;
+import com.infosec.riskanalysistool.analysis.RiskAnalysisPipeline;
+import com.infosec.riskanalysistool.analysis.RiskChartStage;
+import com.infosec.riskanalysistool.diagnostics.LatencyHistogram;
+import com.infosec.riskanalysistool.diagnostics.MetricsReporter;
+import com.infosec.riskanalysistool.diagnostics.MetricsSnapshot;
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.diagnostics.PulseMonitor;
+import com.infosec.riskanalysistool.index.FacetCounts;
+import com.infosec.riskanalysistool.index.FacetIndex;
+import com.infosec.riskanalysistool.index.FacetQuery;
+import com.infosec.riskanalysistool.index.RowBitmap;
+import com.infosec.riskanalysistool.index.TextIndex;
+import com.infosec.riskanalysistool.io.ExportResult;
+import com.infosec.riskanalysistool.io.ImportError;
+import com.infosec.riskanalysistool.io.ImportResult;
+import com.infosec.riskanalysistool.io.ReportExporter;
+import com.infosec.riskanalysistool.io.ReportImage;
+import com.infosec.riskanalysistool.io.RiskImporter;
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.Risk;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+import com.infosec.riskanalysistool.monitoring.EventFeedMonitor;
+import com.infosec.riskanalysistool.monitoring.EventRates;
+import com.infosec.riskanalysistool.monitoring.EventRules;
+import com.infosec.riskanalysistool.monitoring.RateModel;
+import com.infosec.riskanalysistool.monitoring.RegisterRateUpdater;
+import com.infosec.riskanalysistool.optimisation.ControlCatalogue;
+import com.infosec.riskanalysistool.optimisation.ControlOptimiser;
+import com.infosec.riskanalysistool.optimisation.ControlPlan;
+import com.infosec.riskanalysistool.optimisation.ControlPortfolio;
+import com.infosec.riskanalysistool.optimisation.ParetoFrontier;
+import com.infosec.riskanalysistool.persistence.HistoryTotals;
+import com.infosec.riskanalysistool.persistence.RegisterHistory;
+import com.infosec.riskanalysistool.persistence.RegisterStore;
+import com.infosec.riskanalysistool.scoring.RegisterAnalysis;
+import com.infosec.riskanalysistool.sensitivity.SensitivityConfig;
+import com.infosec.riskanalysistool.sensitivity.SensitivityDriver;
+import com.infosec.riskanalysistool.sensitivity.SensitivityEngine;
+import com.infosec.riskanalysistool.sensitivity.SensitivityInput;
+import com.infosec.riskanalysistool.sensitivity.SensitivityLevel;
+import com.infosec.riskanalysistool.sensitivity.SensitivityResult;
+import com.infosec.riskanalysistool.simulation.FrequencyDistribution;
+import com.infosec.riskanalysistool.simulation.MonteCarloEngine;
+import com.infosec.riskanalysistool.simulation.SeverityDistribution;
+import com.infosec.riskanalysistool.simulation.SimulationConfig;
+import com.infosec.riskanalysistool.simulation.SimulationInput;
+import com.infosec.riskanalysistool.simulation.SimulationResult;
+import com.infosec.riskanalysistool.util.ChartUtil;
+import com.infosec.riskanalysistool.util.ValidationUtil;
+import com.infosec.riskanalysistool.view.RegisterRowList;
+import com.infosec.riskanalysistool.view.RegisterRowSubset;
+import com.infosec.riskanalysistool.view.ReportCharts;
+import com.infosec.riskanalysistool.view.RiskDistributionPanel;
+import com.infosec.riskanalysistool.view.RiskHeatMap;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.scene.Parent;
 import javafx.scene.layout.*;
 import javafx.scene.control.*;
 import javafx.scene.chart.*;
 import javafx.collections.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.beans.property.*;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.geometry.Insets;
+import javafx.geometry.Side;
+import javafx.util.Callback;
+import javafx.util.Duration;
 import javafx.util.StringConverter;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
-import java.text.NumberFormat;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 
 public class HealthcareRiskAnalysisApp extends Application {
+    //Threats at least this similar to a new one are shown as possible duplicates
+    private static final double SIMILAR_THREAT_WARNING = 0.6;
+    //Search matches listed first, best first; the rest follow in register order
+    private static final int RANKED_SEARCH_MATCHES = 100;
+
+    private static final String HISTORY_TOTAL_ALE = "Total ALE";
+    private static final String HISTORY_RESIDUAL_BY_STEP = "Residual risk by RMF step";
+    private static final String HISTORY_RISKS_BY_CATEGORY = "Risks by category";
+    //Bars on the tornado chart
+    private static final int TORNADO_DRIVERS = 15;
+
     private TextField sleField;
     private TextField aroField;
 
@@ -31,55 +136,272 @@ public class HealthcareRiskAnalysisApp extends Application {
     private TextField likelihoodField;
     private TextField controlMeasuresField;
     private TextField controlEffectivenessField;
+    private Label importStatusLabel;
+    private Label similarThreatsLabel;
+    private ContextMenu threatSuggestions;
+    private final RiskImporter riskImporter = new RiskImporter();
+    private final ReportExporter reportExporter = new ReportExporter();
 
     //Risk Analysis Tab Components
     private TableView<Risk> riskTable;
+    private RiskHeatMap riskHeatMap;
+    private HeatMapStage heatMapStage;
+    private Label tableFilterLabel;
+    private int tableFilterCell = -1;
+    //The rows shown while a filter is set
+    private RegisterRowSubset filteredRisks;
+    private FacetIndex facetIndex;
+    private FacetQuery facetQuery = FacetQuery.ALL;
+    private TextIndex textIndex;
+    private TextField searchField;
+    private boolean tableFilterRefreshScheduled;
+    private boolean tableRefreshScheduled;
+    private final Map<HIPAARule, CheckBox> hipaaRuleFacets = new EnumMap<>(HIPAARule.class);
+    private final Map<RMFStep, CheckBox> rmfStepFacets = new EnumMap<>(RMFStep.class);
+    private final Map<RiskCategory, CheckBox> categoryFacets = new EnumMap<>(RiskCategory.class);
     private BarChart<String, Number> riskChart;
-
+    private Label riskSummaryLabel;
+    private String riskSummary = "Analysing...";
+    private RiskAnalysisPipeline analysisPipeline;
+    private AggregateStage aggregateStage;
+    private AnalysisService analysisService;
+
+    //Monte Carlo Components
+    private LineChart<Number, Number> lossExceedanceChart;
+    private Label simulationStatusLabel;
+    private final MonteCarloEngine monteCarloEngine = new MonteCarloEngine();
+
+    //Control Budget Components
+    private ControlCatalogue controlCatalogue;
+    private LineChart<Number, Number> frontierChart;
+    private ListView<String> controlPlanList;
+    private Label optimisationStatusLabel;
+    private final ControlOptimiser controlOptimiser = new ControlOptimiser();
+
+    //Monitoring Components
+    private EventRules eventRules;
+    private EventFeedMonitor eventFeedMonitor;
+    private RegisterRateUpdater rateUpdater;
+    private EventRates lastEventRates;
+    private final List<String> eventSources = new ArrayList<>();
+    private Label monitoringStatusLabel;
+    private ListView<String> threatRateList;
+
+    //Sensitivity Components
+    private StackedBarChart<Number, String> tornadoChart;
+    private Label sensitivityStatusLabel;
+    private SensitivityResult lastSensitivity;
+    private final SensitivityEngine sensitivityEngine = new SensitivityEngine();
+
+    //Diagnostics Components
+    private final Map<Operation, Label[]> operationLabels = new EnumMap<>(Operation.class);
+    private Label allocationLabel;
+    private MetricsSnapshot lastMetrics;
+    private MetricsReporter metricsReporter;
+
+    private RiskRegister register;
     private ObservableList<Risk> risks;
+    private RegisterStore registerStore;
+    private RegisterHistory registerHistory;
+    //Risks cannot be added until the saved register has loaded
+    private final BooleanProperty registerLoading = new SimpleBooleanProperty(true);
 
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Healthcare Risk Analysis Tool");
 
         //Initialise data
-        risks = FXCollections.observableArrayList();
-
-        //Initialise UI Components
+        register = new RiskRegister();
+        risks = new RegisterRowList(register);
+        analysisService = new AnalysisService(register);
+        facetIndex = new FacetIndex(register);
+        textIndex = new TextIndex(register);
+        rateUpdater = new RegisterRateUpdater(register);
+
+        //Initialise UI Components; only the tab that shows first is built now
         initialiseUI();
 
-        //testing
-        addPredefinedRisks();
-        updateAnalysis();
+        //-Driskanalysistool.metrics=<file> keeps a metrics file current for monitoring
+        startMetricsReporter();
 
         //Set up Scene and Stage
         Scene scene = new Scene(mainTabPane, 1080, 720);
+        PulseMonitor.install(scene);
         scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/css/styles.css")).toExternalForm());
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        //Load the saved register behind the first frame; new edits are journalled from then on
+        loadRegister();
+    }
+
+    @Override
+    public void stop() throws IOException {
+        if (eventFeedMonitor != null) {
+            eventFeedMonitor.close();
+        }
+        analysisService.close();
+        facetIndex.close();
+        textIndex.close();
+        if (registerStore != null) {
+            registerStore.close();
+        }
+        if (registerHistory != null) {
+            registerHistory.close();
+        }
+        if (metricsReporter != null) {
+            metricsReporter.close();
+        }
+    }
+
+    //Saved in the user's home directory unless -Driskanalysistool.data points elsewhere
+    private static Path dataDirectory() {
+        String configured = System.getProperty("riskanalysistool.data");
+        return configured != null ? Path.of(configured) : Path.of(System.getProperty("user.home"), ".riskanalysistool");
+    }
+
+    private void startMetricsReporter() {
+        String file = System.getProperty("riskanalysistool.metrics");
+        if (file != null) {
+            long seconds = Long.getLong("riskanalysistool.metrics.interval", 10);
+            metricsReporter = MetricsReporter.start(Path.of(file), java.time.Duration.ofSeconds(seconds));
+        }
+    }
+
+    //The snapshot is read and decoded on a background thread. Appending it, replaying the journal and opening the
+    //history change the register, so they finish on the FX thread; adding risks waits until then, as the register
+    //must still be empty when it is opened.
+    private void loadRegister() {
+        long start = Operation.REGISTER_LOAD.begin();
+        Path directory = dataDirectory();
+        Task<RegisterStore.Saved> task = new Task<>() {
+            @Override
+            protected RegisterStore.Saved call() throws IOException {
+                return RegisterStore.read(directory);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            openRegisterStore(task.getValue());
+            registerLoaded(start);
+        });
+        task.setOnFailed(e -> {
+            //Carry on with an empty register; nothing will be saved this session
+            showAlert("Register Not Loaded", "The saved risk register could not be opened: " + task.getException().getMessage());
+            registerLoaded(start);
+        });
+
+        importStatusLabel.setText("Loading the saved register...");
+        Thread thread = new Thread(task, "register-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void openRegisterStore(RegisterStore.Saved saved) {
+        try {
+            registerStore = RegisterStore.open(saved, register);
+            registerStore.setErrorHandler(e -> Platform.runLater(() -> showAlert("Save Failed", "Recent changes could not be saved: " + e.getMessage())));
+        } catch (IOException e) {
+            //Carry on with whatever loaded; nothing will be saved this session
+            showAlert("Register Not Loaded", "The saved risk register could not be opened: " + e.getMessage());
+        }
+    }
+
+    private void registerLoaded(long start) {
+        openRegisterHistory();
+
+        //testing
+        if (register.isEmpty()) {
+            addPredefinedRisks();
+        }
+
+        Operation.REGISTER_LOAD.end(start, register.size());
+        importStatusLabel.setText(registerStore != null && registerStore.getLoadedRows() > 0
+                ? String.format("Loaded %,d saved risks in %,d ms", registerStore.getLoadedRows(), (System.nanoTime() - start) / 1_000_000) : "");
+        registerLoading.set(false);
+
+        //-Driskanalysistool.startupOnly=true exits after the next frame, e.g. to record the classes startup loads
+        if (Boolean.getBoolean("riskanalysistool.startupOnly")) {
+            mainTabPane.getScene().addPostLayoutPulseListener(() -> Platform.runLater(Platform::exit));
+        }
+    }
+
+    //History sits beside the saved register and carries on from whatever was loaded
+    private void openRegisterHistory() {
+        try {
+            registerHistory = RegisterHistory.open(dataDirectory().resolve("history"), register);
+            registerHistory.setErrorHandler(e -> Platform.runLater(() -> showAlert("History Not Saved", "Recent changes could not be added to the history: " + e.getMessage())));
+        } catch (IOException e) {
+            showAlert("History Not Loaded", "The risk register history could not be opened: " + e.getMessage());
+        }
     }
 
     private void initialiseUI() {
         //Main TabPane
         mainTabPane = new TabPane();
 
-        //Risk Entry Tab
+        //Analysis views follow the register incrementally instead of being rebuilt on every change;
+        //each tab adds its stages when it is built, and they are caught up with the rows already applied
+        analysisPipeline = new RiskAnalysisPipeline(register);
+        analysisPipeline.start();
+        //The summary totals are kept whichever tabs are built
+        aggregateStage = new AggregateStage();
+        aggregateStage.setOnPublished(this::showRiskSummary);
+        analysisPipeline.addStage(aggregateStage);
+
+        //Risk Entry Tab, the one showing at startup
         Tab riskEntryTab = new Tab("Risk Entry");
         riskEntryTab.setContent(createRiskEntryContent());
         riskEntryTab.setClosable(false);
 
+        //The other tabs are built the first time they are selected
+
         //Risk Analysis Tab
-        Tab riskAnalysisTab = new Tab("Risk Analysis");
-        riskAnalysisTab.setContent(createRiskAnalysisContent());
-        riskAnalysisTab.setClosable(false);
+        Tab riskAnalysisTab = lazyTab("Risk Analysis", tab -> createRiskAnalysisContent());
 
         //Tab for the Bar Chart
-        Tab riskChartTab = new Tab("Risk Chart");
-        riskChartTab.setContent(createRiskChartContent());
-        riskChartTab.setClosable(false);
+        Tab riskChartTab = lazyTab("Risk Chart", tab -> createRiskChartContent());
+
+        //Tab for choosing control upgrades within a budget
+        Tab controlBudgetTab = lazyTab("Control Budget", tab -> createControlBudgetContent());
+
+        //Tab for estimating AROs from a live security-event feed
+        Tab monitoringTab = lazyTab("Monitoring", tab -> createMonitoringContent());
+
+        //Percentiles of ALE and residual risk per group, redrawn only while the tab is showing
+        Tab distributionTab = lazyTab("Distributions", this::createDistributionContent);
+
+        //Which inputs move portfolio ALE and residual risk most, as a tornado chart
+        Tab sensitivityTab = lazyTab("Sensitivity", tab -> createSensitivityContent());
+
+        //Totals over time and the register as it stood at a chosen moment
+        Tab historyTab = lazyTab("History", this::createHistoryContent);
+
+        //Diagnostics Tab, refreshed only while it is showing
+        Tab diagnosticsTab = lazyTab("Diagnostics", this::createDiagnosticsContent);
 
-        mainTabPane.getTabs().addAll(riskEntryTab, riskAnalysisTab, riskChartTab);
+        mainTabPane.getTabs().addAll(riskEntryTab, riskAnalysisTab, riskChartTab, distributionTab, sensitivityTab, controlBudgetTab, monitoringTab, historyTab, diagnosticsTab);
 
+        //Summaries are kept until the Risk Chart tab that shows them is built; a full recount runs only when asked for
+        analysisService.setOnResult(this::showRecountSummary);
+        analysisService.setErrorHandler(e -> setRiskSummary("Recount failed: " + e.getMessage()));
+    }
+
+    //A tab whose content is built when it is first selected. Content that reacts to its tab being selected is
+    //built while the tab already is, so it must also act on being built.
+    private static Tab lazyTab(String name, Function<Tab, Parent> content) {
+        Tab tab = new Tab(name);
+        tab.setClosable(false);
+        tab.selectedProperty().addListener(new ChangeListener<>() {
+            @Override
+            public void changed(ObservableValue<? extends Boolean> obs, Boolean wasSelected, Boolean selected) {
+                if (selected) {
+                    tab.selectedProperty().removeListener(this);
+                    tab.setContent(content.apply(tab));
+                }
+            }
+        });
+        return tab;
     }
 
 
@@ -91,19 +413,28 @@ public class HealthcareRiskAnalysisApp extends Application {
         risks.add(new Risk("Threat 5", HIPAARule.PRIVACY_RULE, RMFStep.AUTHORISE, 7, 6, 1500000, 0.7, "Authorize", 90.0));*/
 
         //Test Case 1: High Risk with Effective Controls
-        risks.add(new Risk("Unauthorised access to patient data", HIPAARule.SECURITY_RULE, RMFStep.IMPLEMENT, 9, 8, 100000, 0.7, "Multi-factor authentication and regular security audits", 70.0));
+        addRisk("Unauthorised access to patient data", HIPAARule.SECURITY_RULE, RMFStep.IMPLEMENT, 9, 8, 100000, 0.7, "Multi-factor authentication and regular security audits", 70.0);
 
         //Test Case 2: Critical Risk with Ineffective Controls
-        risks.add(new Risk("Ransomware attack causing system-wide shutdown", HIPAARule.SECURITY_RULE, RMFStep.SELECT, 10, 9, 500000, 0.3, "Outdated antivirus software", 10.0));
+        addRisk("Ransomware attack causing system-wide shutdown", HIPAARule.SECURITY_RULE, RMFStep.SELECT, 10, 9, 500000, 0.3, "Outdated antivirus software", 10.0);
 
         //Test Case 2: Low Risk with No Controls
-        risks.add(new Risk("Minor software bugs leading to slight data inconsistencies", HIPAARule.PRIVACY_RULE, RMFStep.MONITOR, 2, 3, 1000, 0.2, "None", 0.0));
+        addRisk("Minor software bugs leading to slight data inconsistencies", HIPAARule.PRIVACY_RULE, RMFStep.MONITOR, 2, 3, 1000, 0.2, "None", 0.0);
 
         //Test Case 3: Medium Risk with Partial Controls
-        risks.add(new Risk("Phishing attacks targeting staff emails", HIPAARule.BREACH_NOTIFICATION_RULE, RMFStep.ASSESS, 6, 5, 10000, 1.5, "Basic cybersecurity training for staff", 40.0));
+        addRisk("Phishing attacks targeting staff emails", HIPAARule.BREACH_NOTIFICATION_RULE, RMFStep.ASSESS, 6, 5, 10000, 1.5, "Basic cybersecurity training for staff", 40.0);
 
     }
 
+    private void addRisk(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) {
+        register.add(threat, hipaaRule, rmfStep, impact, likelihood, singleLossExpectancy, annualisedRateOfOccurrence, controlMeasures, controlEffectiveness);
+    }
+
+    //Appends a whole batch to the register as a single change, so the table and the analysis pipeline see it once
+    private void addRisks(RiskBatch batch) {
+        register.addAll(batch);
+    }
+
     private Parent createRiskEntryContent() {
         threatField = new TextField();
         hipaaRuleCombo = new ComboBox<>();
@@ -115,6 +446,20 @@ public class HealthcareRiskAnalysisApp extends Application {
         controlMeasuresField = new TextField();
         controlEffectivenessField = new TextField();
         Button addRiskButton = new Button("Add Risk");
+        Button importButton = new Button("Import Risks...");
+        Button exportButton = new Button("Export Report...");
+        Button cancelExportButton = new Button("Cancel");
+        ProgressBar exportProgressBar = new ProgressBar();
+        cancelExportButton.managedProperty().bind(cancelExportButton.visibleProperty());
+        cancelExportButton.setVisible(false);
+        exportProgressBar.managedProperty().bind(exportProgressBar.visibleProperty());
+        exportProgressBar.setVisible(false);
+        importStatusLabel = new Label();
+        similarThreatsLabel = new Label();
+        similarThreatsLabel.setWrapText(true);
+        similarThreatsLabel.managedProperty().bind(similarThreatsLabel.visibleProperty());
+        similarThreatsLabel.setVisible(false);
+        threatSuggestions = new ContextMenu();
 
         hipaaRuleCombo.getItems().setAll(HIPAARule.values());
         rmfStepCombo.getItems().setAll(RMFStep.values());
@@ -128,7 +473,7 @@ public class HealthcareRiskAnalysisApp extends Application {
         grid.setPadding(new Insets(20));
 
         grid.add(new Label("Threat:"), 0, 0);
-        grid.add(threatField, 1, 0);
+        grid.add(new VBox(4, threatField, similarThreatsLabel), 1, 0);
         grid.add(new Label("HIPAA Rule:"), 0, 1);
         grid.add(hipaaRuleCombo, 1, 1);
         grid.add(new Label("RMF Step:"), 0, 2);
@@ -145,9 +490,28 @@ public class HealthcareRiskAnalysisApp extends Application {
         grid.add(controlMeasuresField, 1, 7);
         grid.add(new Label("Control Effectiveness (%):"), 0, 8);
         grid.add(controlEffectivenessField, 1, 8);
-        grid.add(addRiskButton, 1, 9);
+        grid.add(new HBox(10, addRiskButton, importButton, exportButton, exportProgressBar, cancelExportButton), 1, 9);
+        grid.add(importStatusLabel, 1, 10);
+
+        //Typeahead from the threats already in the register, and a duplicate warning once typing pauses
+        PauseTransition similarThreatsCheck = new PauseTransition(Duration.millis(250));
+        similarThreatsCheck.setOnFinished(e -> refreshSimilarThreats());
+        threatField.textProperty().addListener((obs, oldText, newText) -> {
+            refreshThreatSuggestions(newText);
+            similarThreatsCheck.playFromStart();
+        });
+        threatField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                threatSuggestions.hide();
+            }
+        });
 
+        addRiskButton.disableProperty().bind(registerLoading);
+        importButton.disableProperty().bind(registerLoading);
         addRiskButton.setOnAction(e -> handleAddRisk());
+        importButton.setOnAction(e -> handleImportRisks(importButton));
+        exportButton.setOnAction(e -> handleExportReport(exportButton, exportProgressBar, cancelExportButton));
+        cancelExportButton.setOnAction(e -> reportExporter.cancel());
 
         return grid;
     }
@@ -155,231 +519,577 @@ public class HealthcareRiskAnalysisApp extends Application {
     private Parent createRiskChartContent() {
         riskChart = new BarChart<>(new CategoryAxis(), new NumberAxis());
 
-        VBox vbox = new VBox(10);
-        vbox.setPadding(new Insets(20));
-        vbox.getChildren().add(riskChart);
-
-        updateAnalysis();
+        //Bounded to the top risks plus an "Other" bar, or one bar per group, however large the register is
+        RiskChartStage chartStage = new RiskChartStage(riskChart, register);
+        analysisPipeline.addStage(chartStage);
+        riskSummaryLabel = new Label(riskSummary);
+        //Rescores every risk from scratch in the background, to check the running totals
+        Button recountButton = new Button("Recount");
+        recountButton.setOnAction(e -> {
+            setRiskSummary("Recounting " + String.format("%,d", register.size()) + " risks...");
+            analysisService.requestAnalysis();
+        });
 
-        return vbox;
-    }
+        ComboBox<RiskChartStage.Grouping> groupingCombo = new ComboBox<>();
+        groupingCombo.getItems().setAll(RiskChartStage.Grouping.values());
+        groupingCombo.setValue(chartStage.getGrouping());
+        groupingCombo.setOnAction(e -> chartStage.setGrouping(groupingCombo.getValue()));
 
+        ComboBox<RankingMetric> metricCombo = new ComboBox<>();
+        metricCombo.getItems().setAll(RankingMetric.values());
+        metricCombo.setValue(chartStage.getMetric());
+        metricCombo.setOnAction(e -> chartStage.setMetric(metricCombo.getValue()));
 
-    private Parent createRiskAnalysisContent() {
-        riskTable = new TableView<>();
-        setupRiskTable();
+        Button backButton = new Button("Back");
+        backButton.setOnAction(e -> chartStage.drillUp());
+        Label chartViewLabel = new Label();
+        Runnable showChartView = () -> {
+            backButton.setVisible(chartStage.isDrilledDown());
+            chartViewLabel.setText(chartStage.getViewDescription() + (chartStage.getGrouping() != RiskChartStage.Grouping.NONE && !chartStage.isDrilledDown() ? " (click a bar for its top risks)" : ""));
+        };
+        chartStage.setOnViewChanged(showChartView);
+        showChartView.run();
 
-        GridPane riskMatrix = createRiskMatrix();
-
-        //Listener to riskTable to highlight the matrix cell corresponding to the selected risk
-        riskTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
-            if (newSelection != null) {
-                highlightMatrixCell(newSelection.getImpact(), newSelection.getLikelihood());
-            }
-        });
+        HBox chartControls = new HBox(10, new Label("Show:"), groupingCombo, new Label("Measure:"), metricCombo, backButton, chartViewLabel);
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(20));
-        vbox.getChildren().addAll(riskTable, riskMatrix);
+        vbox.getChildren().addAll(new HBox(10, riskSummaryLabel, recountButton), chartControls, riskChart, createSimulationContent());
 
         return vbox;
     }
 
+    private void showRiskSummary() {
+        RiskAggregates aggregates = aggregateStage.getAggregates();
+        setRiskSummary(riskSummary(aggregates.getRiskCount(), aggregates.getTotalAnnualisedLossExpectancy(), aggregates.getTotalResidualRisk(),
+                aggregates::getCategoryCount));
+    }
 
-    private void highlightMatrixCell(int impact, int likelihood) {
-        clearMatrixHighlights();
+    //Shown until the next change replaces it with the running totals
+    private void showRecountSummary(RegisterAnalysis analysis) {
+        setRiskSummary(riskSummary(analysis.getRiskCount(), analysis.getTotalAnnualisedLossExpectancy(), analysis.getTotalResidualRisk(),
+                analysis::getCategoryCount) + String.format("    (recounted in %,d ms)", analysis.getComputeNanos() / 1_000_000));
+    }
 
-        Label selectedCell = riskMatrixLabels[likelihood - 1][impact - 1];
-        selectedCell.setStyle("-fx-border-color: black; -fx-border-width: 2px; -fx-background-color: lightblue;");
+    private static String riskSummary(int riskCount, double totalAle, double totalResidualRisk, ToIntFunction<RiskCategory> categoryCount) {
+        return String.format("Risks: %,d    Total ALE: %s    Total Residual Risk: %,.1f    Critical: %,d    High: %,d    Medium: %,d    Low: %,d",
+                riskCount, ChartUtil.formatCurrency(totalAle), totalResidualRisk,
+                categoryCount.applyAsInt(RiskCategory.CRITICAL), categoryCount.applyAsInt(RiskCategory.HIGH),
+                categoryCount.applyAsInt(RiskCategory.MEDIUM), categoryCount.applyAsInt(RiskCategory.LOW));
     }
 
-    private void clearMatrixHighlights() {
-        for (int i = 0; i < 10; i++) {
-            for (int j = 0; j < 10; j++) {
-                riskMatrixLabels[i][j].setStyle("");
-            }
+    private void setRiskSummary(String text) {
+        riskSummary = text;
+        if (riskSummaryLabel != null) {
+            riskSummaryLabel.setText(text);
         }
     }
 
-    //2D array to store matrix labels for highlighting
-    private final Label[][] riskMatrixLabels = new Label[10][10];
+    private Parent createSimulationContent() {
+        ComboBox<Integer> trialsCombo = new ComboBox<>();
+        trialsCombo.getItems().setAll(100_000, 1_000_000, 5_000_000, 10_000_000);
+        trialsCombo.setValue(1_000_000);
+
+        ComboBox<FrequencyDistribution> frequencyCombo = new ComboBox<>();
+        frequencyCombo.getItems().setAll(FrequencyDistribution.values());
+        frequencyCombo.setValue(FrequencyDistribution.POISSON);
+
+        ComboBox<SeverityDistribution> severityCombo = new ComboBox<>();
+        severityCombo.getItems().setAll(SeverityDistribution.values());
+        severityCombo.setValue(SeverityDistribution.LOGNORMAL);
+
+        Button runButton = new Button("Run Simulation");
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setDisable(true);
+        simulationStatusLabel = new Label();
+
+        runButton.setOnAction(e -> {
+            SimulationConfig config = SimulationConfig.defaults(trialsCombo.getValue())
+                    .withFrequency(frequencyCombo.getValue())
+                    .withSeverity(severityCombo.getValue());
+            runSimulation(config, runButton, cancelButton);
+        });
+        cancelButton.setOnAction(e -> monteCarloEngine.cancel());
 
-    private GridPane createRiskMatrix() {
-        GridPane matrix = new GridPane();
-        matrix.setPadding(new Insets(20));
-        matrix.setHgap(10);
-        matrix.setVgap(10);
+        HBox controls = new HBox(10, new Label("Trials:"), trialsCombo, new Label("Frequency:"), frequencyCombo,
+                new Label("Severity:"), severityCombo, runButton, cancelButton);
 
-        for (int i = 1; i <= 10; i++) {
-            matrix.add(new Label("Impact " + i), i, 0);
-            matrix.add(new Label("Likelihood " + i), 0, i);
-        }
+        NumberAxis lossAxis = new NumberAxis();
+        lossAxis.setLabel("Annual portfolio loss");
+        ChartUtil.installCurrencyFormatter(lossAxis);
+        NumberAxis probabilityAxis = new NumberAxis(0, 1, 0.1);
+        probabilityAxis.setLabel("Probability of exceeding");
+        lossExceedanceChart = new LineChart<>(lossAxis, probabilityAxis);
+        lossExceedanceChart.setCreateSymbols(false);
+        lossExceedanceChart.setAnimated(false);
 
-        //Matrix with categories (Low, Medium, High, Critical)
-        for (int i = 1; i <= 10; i++) {
-            for (int j = 1; j <= 10; j++) {
+        VBox vbox = new VBox(10, controls, simulationStatusLabel, lossExceedanceChart);
+        return vbox;
+    }
+
+    private void runSimulation(SimulationConfig config, Button runButton, Button cancelButton) {
+        //Snapshot the inputs on the FX thread; the simulation itself runs on the fork/join pool
+        SimulationInput input = SimulationInput.from(register);
+        monteCarloEngine.resetCancel();
+        Task<SimulationResult> task = new Task<>() {
+            @Override
+            protected SimulationResult call() {
+                return monteCarloEngine.run(input, config);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            SimulationResult result = task.getValue();
+            lossExceedanceChart.getData().setAll(List.of(ChartUtil.lossExceedanceSeries(result.lossExceedanceCurve(100))));
+            simulationStatusLabel.setText(String.format("Mean: %s    VaR %.1f%%: %s    TVaR %.1f%%: %s    %,.0f trials/sec",
+                    ChartUtil.formatCurrency(result.meanPortfolioLoss()),
+                    config.confidenceLevel() * 100, ChartUtil.formatCurrency(result.valueAtRisk()),
+                    config.confidenceLevel() * 100, ChartUtil.formatCurrency(result.tailValueAtRisk()),
+                    result.trialsPerSecond()));
+        });
+        task.setOnFailed(e -> simulationStatusLabel.setText(task.getException() instanceof CancellationException
+                ? "Simulation cancelled." : "Simulation failed: " + task.getException().getMessage()));
+        task.runningProperty().addListener((obs, wasRunning, running) -> {
+            runButton.setDisable(running);
+            cancelButton.setDisable(!running);
+        });
 
-                String category = categorizeRisk(i, j);  //Determine risk category based on impact and likelihood
-                Label riskLabel = new Label(category);
+        simulationStatusLabel.setText("Simulating " + String.format("%,d", config.trials()) + " trials over " + input.size() + " risks...");
+        Thread thread = new Thread(task, "monte-carlo");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-                switch (category) {
-                    case "Critical":
-                        riskLabel.getStyleClass().add("critical-risk");
-                        break;
-                    case "High":
-                        riskLabel.getStyleClass().add("high-risk");
-                        break;
-                    case "Medium":
-                        riskLabel.getStyleClass().add("medium-risk");
-                        break;
-                    case "Low":
-                        riskLabel.getStyleClass().add("low-risk");
-                        break;
+    private Parent createControlBudgetContent() {
+        Button loadButton = new Button("Load Control Options...");
+        TextField budgetField = new TextField();
+        budgetField.setPromptText("Budget");
+        Button optimiseButton = new Button("Optimise");
+        optimiseButton.setDisable(true);
+        optimisationStatusLabel = new Label("Load a CSV file of threat,control,cost,effectiveness rows to compare control upgrades.");
+
+        loadButton.setOnAction(e -> handleLoadControls(loadButton, optimiseButton));
+        optimiseButton.setOnAction(e -> {
+            try {
+                double budget = Double.parseDouble(budgetField.getText().trim());
+                if (!(budget >= 0) || Double.isInfinite(budget)) {
+                    throw new NumberFormatException();
                 }
+                runOptimisation(budget, optimiseButton);
+            } catch (NumberFormatException ex) {
+                showAlert("Invalid Budget", "Please enter the budget as a number of zero or more.");
+            }
+        });
 
-                riskMatrixLabels[j - 1][i - 1] = riskLabel;
+        HBox controls = new HBox(10, loadButton, new Label("Budget:"), budgetField, optimiseButton);
 
-                matrix.add(riskLabel, i, j);
-            }
-        }
+        NumberAxis costAxis = new NumberAxis();
+        costAxis.setLabel("Control spend");
+        ChartUtil.installCurrencyFormatter(costAxis);
+        NumberAxis reductionAxis = new NumberAxis();
+        reductionAxis.setLabel("ALE reduction");
+        ChartUtil.installCurrencyFormatter(reductionAxis);
+        frontierChart = new LineChart<>(costAxis, reductionAxis);
+        frontierChart.setCreateSymbols(false);
+        frontierChart.setAnimated(false);
 
-        return matrix;
+        controlPlanList = new ListView<>();
+        controlPlanList.setPrefHeight(200);
+
+        VBox vbox = new VBox(10, controls, optimisationStatusLabel, frontierChart, controlPlanList);
+        vbox.setPadding(new Insets(20));
+        return vbox;
     }
 
+    private void handleLoadControls(Button loadButton, Button optimiseButton) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Load Control Options");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Control options (*.csv)", "*.csv"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(loadButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
 
-    private String categorizeRisk(int impact, int likelihood) {
-        int rpn = impact * likelihood;
-        if (rpn > 200) {
-            return "Critical";
-        } else if (rpn > 70) {
-            return "High";
-        } else if (rpn > 20) {
-            return "Medium";
-        } else {
-            return "Low";
+        try {
+            controlCatalogue = ControlCatalogue.read(file.toPath());
+            optimiseButton.setDisable(false);
+            optimisationStatusLabel.setText(String.format("Loaded %,d control options from %s", controlCatalogue.size(), file.getName()));
+        } catch (IOException ex) {
+            showAlert("Control Options Not Loaded", ex.getMessage());
         }
     }
 
-    private void handleAddRisk() {
+    private record OptimisationResult(ParetoFrontier frontier, ControlPlan plan) {
+    }
+
+    private void runOptimisation(double budget, Button optimiseButton) {
+        //Options are priced against the register as it is now; solving runs on the fork/join pool
+        ControlPortfolio portfolio;
         try {
-            Risk risk = getRisk();
+            portfolio = controlCatalogue.portfolioFor(register);
+        } catch (IllegalArgumentException ex) {
+            showAlert("Invalid Control Options", ex.getMessage());
+            return;
+        }
+        String[] threats = new String[portfolio.riskCount()];
+        for (int risk = 0; risk < threats.length; risk++) {
+            threats[risk] = register.getThreat(portfolio.riskRow(risk));
+        }
 
-            if (ValidationUtil.isValidRisk(risk)) {
-                risks.add(risk);
-                clearRiskEntryFields();
-                updateAnalysis();
-            } else {
-                showAlert("Invalid Risk Entry", "Please ensure all fields are filled correctly and values are within acceptable ranges.");
+        Task<OptimisationResult> task = new Task<>() {
+            @Override
+            protected OptimisationResult call() {
+                return new OptimisationResult(controlOptimiser.frontier(portfolio), controlOptimiser.optimise(portfolio, budget));
             }
-        } catch (NumberFormatException ex) {
-            showAlert("Invalid Input", "Please enter valid numbers for impact, likelihood, SLE, and ARO.");
-        }
-    }
+        };
 
-    private Risk getRisk() {
-        String threat = threatField.getText();
-        HIPAARule hipaaRule = hipaaRuleCombo.getValue();
-        RMFStep rmfStep = rmfStepCombo.getValue();
-        int impact = Integer.parseInt(impactField.getText());
-        int likelihood = Integer.parseInt(likelihoodField.getText());
-        double sle = Double.parseDouble(sleField.getText());
-        double aro = Double.parseDouble(aroField.getText());
-        String controlMeasures = controlMeasuresField.getText();
-        double controlEffectiveness = Double.parseDouble(controlEffectivenessField.getText());
+        task.setOnSucceeded(e -> showControlPlan(task.getValue(), threats));
+        task.setOnFailed(e -> optimisationStatusLabel.setText("Optimisation failed: " + task.getException().getMessage()));
+        optimiseButton.disableProperty().bind(task.runningProperty());
 
-        return new Risk(threat, hipaaRule, rmfStep, impact, likelihood, sle, aro, controlMeasures, controlEffectiveness);
+        optimisationStatusLabel.setText(String.format("Optimising %,d control options over %,d risks...", portfolio.optionCount(), portfolio.riskCount()));
+        Thread thread = new Thread(task, "control-optimiser");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    private void clearRiskEntryFields() {
-        threatField.clear();
-        hipaaRuleCombo.getSelectionModel().clearSelection();
-        rmfStepCombo.getSelectionModel().clearSelection();
-        impactField.clear();
-        likelihoodField.clear();
-        sleField.clear();
-        aroField.clear();
-        controlMeasuresField.clear();
-        controlEffectivenessField.clear();
+    private void showControlPlan(OptimisationResult result, String[] threats) {
+        ControlPlan plan = result.plan();
+        ParetoFrontier frontier = result.frontier();
+
+        XYChart.Series<Number, Number> budgetSeries = new XYChart.Series<>();
+        budgetSeries.setName("Budget");
+        double budgetLine = Math.min(plan.getBudget(), frontier.maxCost());
+        budgetSeries.getData().setAll(List.of(new XYChart.Data<>(budgetLine, 0), new XYChart.Data<>(budgetLine, frontier.maxReduction())));
+        frontierChart.getData().setAll(List.of(ChartUtil.paretoFrontierSeries(frontier.sample(200)), budgetSeries));
+
+        optimisationStatusLabel.setText(String.format("%s: upgrade %,d of %,d risks for %s to cut ALE by %s (within %.2f%% of the best possible, %,.0f ms)",
+                plan.getSolver().getLabel(), plan.getSelectedCount(), plan.getPortfolio().riskCount(),
+                ChartUtil.formatCurrency(plan.getTotalCost()), ChartUtil.formatCurrency(plan.getTotalReduction()),
+                plan.getOptimalityGap() * 100, plan.getSolveNanos() / 1e6));
+
+        //Biggest reductions first, capped so a large plan does not flood the list
+        ControlPortfolio portfolio = plan.getPortfolio();
+        List<Integer> chosen = new ArrayList<>();
+        for (int risk = 0; risk < portfolio.riskCount(); risk++) {
+            if (plan.chosenOption(risk) >= 0) {
+                chosen.add(risk);
+            }
+        }
+        chosen.sort((a, b) -> Double.compare(portfolio.optionReduction(plan.chosenOption(b)), portfolio.optionReduction(plan.chosenOption(a))));
+        List<String> lines = new ArrayList<>();
+        for (int risk : chosen.subList(0, Math.min(500, chosen.size()))) {
+            int option = plan.chosenOption(risk);
+            lines.add(String.format("%s: %s for %s, ALE down %s", threats[risk], portfolio.optionName(option),
+                    ChartUtil.formatCurrency(portfolio.optionCost(option)), ChartUtil.formatCurrency(portfolio.optionReduction(option))));
+        }
+        controlPlanList.getItems().setAll(lines);
     }
 
-    private void setupRiskTable() {
-        TableColumn<Risk, String> threatColumn = new TableColumn<>("Threat");
-        threatColumn.setCellValueFactory(data -> data.getValue().threatProperty());
+    private Parent createMonitoringContent() {
+        Button loadButton = new Button("Load Event Rules...");
+        ComboBox<Long> horizonCombo = new ComboBox<>();
+        horizonCombo.getItems().setAll(5L, 60L, 24 * 60L, 7 * 24 * 60L);
+        horizonCombo.setValue(60L);
+        horizonCombo.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Long minutes) {
+                if (minutes == null) {
+                    return "";
+                }
+                long count = minutes % (24 * 60) == 0 ? minutes / (24 * 60) : minutes % 60 == 0 ? minutes / 60 : minutes;
+                String unit = minutes % (24 * 60) == 0 ? "day" : minutes % 60 == 0 ? "hour" : "minute";
+                return count + " " + unit + (count == 1 ? "" : "s");
+            }
 
-        TableColumn<Risk, String> hipaaRuleColumn = new TableColumn<>("HIPAA Rule");
-        hipaaRuleColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getHipaaRule().toString()));
+            @Override
+            public Long fromString(String text) {
+                return null;
+            }
+        });
+        ComboBox<RateModel> modelCombo = new ComboBox<>();
+        modelCombo.getItems().setAll(RateModel.values());
+        modelCombo.setValue(rateUpdater.getModel());
+        Button tailButton = new Button("Follow Log File...");
+        TextField portField = new TextField();
+        portField.setPromptText("Port");
+        portField.setPrefColumnCount(6);
+        Button listenButton = new Button("Listen");
+        Button stopButton = new Button("Stop");
+        tailButton.setDisable(true);
+        listenButton.setDisable(true);
+        stopButton.setDisable(true);
+        monitoringStatusLabel = new Label("Load a CSV file of eventType,threat,eventsPerOccurrence rows, then follow a log file or listen on a port for events.");
+        monitoringStatusLabel.setWrapText(true);
+        threatRateList = new ListView<>();
+
+        loadButton.setOnAction(e -> handleLoadEventRules(loadButton, tailButton, listenButton));
+        modelCombo.setOnAction(e -> {
+            rateUpdater.setModel(modelCombo.getValue());
+            if (lastEventRates != null) {
+                showEventRates(lastEventRates);
+            }
+        });
+        tailButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Follow Log File");
+            File file = chooser.showOpenDialog(tailButton.getScene().getWindow());
+            if (file != null) {
+                startEventFeed(horizonCombo.getValue()).tail(file.toPath(), true);
+                eventSources.add(file.getName());
+                eventFeedStarted(loadButton, horizonCombo, stopButton);
+            }
+        });
+        listenButton.setOnAction(e -> {
+            try {
+                int port = Integer.parseInt(portField.getText().trim());
+                if (port < 0 || port > 65535) {
+                    throw new NumberFormatException();
+                }
+                int listening = startEventFeed(horizonCombo.getValue()).listen(port);
+                eventSources.add("port " + listening);
+                eventFeedStarted(loadButton, horizonCombo, stopButton);
+            } catch (NumberFormatException ex) {
+                showAlert("Invalid Port", "Please enter a port number from 0 to 65535.");
+            } catch (IOException ex) {
+                showAlert("Cannot Listen", "Port " + portField.getText().trim() + " could not be opened: " + ex.getMessage());
+            }
+        });
+        stopButton.setOnAction(e -> {
+            eventFeedMonitor.close();
+            eventFeedMonitor = null;
+            eventSources.clear();
+            lastEventRates = null;
+            loadButton.setDisable(false);
+            horizonCombo.setDisable(false);
+            stopButton.setDisable(true);
+            monitoringStatusLabel.setText("Stopped; risks keep their last estimated AROs.");
+        });
 
-        TableColumn<Risk, String> rmfStepColumn = new TableColumn<>("RMF Step");
-        rmfStepColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getRmfStep().toString()));
+        HBox controls = new HBox(10, loadButton, new Label("Horizon:"), horizonCombo, new Label("Estimate:"), modelCombo,
+                tailButton, portField, listenButton, stopButton);
+        VBox vbox = new VBox(10, controls, monitoringStatusLabel, threatRateList);
+        vbox.setPadding(new Insets(20));
+        return vbox;
+    }
 
-        TableColumn<Risk, Integer> impactColumn = new TableColumn<>("Impact");
-        impactColumn.setCellValueFactory(data -> data.getValue().impactProperty().asObject());
+    private void handleLoadEventRules(Button loadButton, Button tailButton, Button listenButton) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Load Event Rules");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Event rules (*.csv)", "*.csv"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(loadButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
 
-        TableColumn<Risk, Integer> likelihoodColumn = new TableColumn<>("Likelihood");
-        likelihoodColumn.setCellValueFactory(data -> data.getValue().likelihoodProperty().asObject());
+        try {
+            eventRules = EventRules.read(file.toPath());
+            lastEventRates = null;
+            tailButton.setDisable(false);
+            listenButton.setDisable(false);
+            threatRateList.getItems().clear();
+            monitoringStatusLabel.setText(String.format("Loaded %,d event rules for %,d threats from %s", eventRules.size(), eventRules.threatCount(), file.getName()));
+        } catch (IOException ex) {
+            showAlert("Event Rules Not Loaded", ex.getMessage());
+        }
+    }
 
-        TableColumn<Risk, Integer> rpnColumn = new TableColumn<>("RPN");
-        rpnColumn.setCellValueFactory(data -> data.getValue().riskPriorityNumberProperty().asObject());
+    //The running monitor, started if there is none. The window is the horizon and the half-life gives the
+    //decayed estimate the same mean event age as the window, so both models look back about as far.
+    private EventFeedMonitor startEventFeed(long horizonMinutes) {
+        if (eventFeedMonitor == null) {
+            java.time.Duration horizon = java.time.Duration.ofMinutes(horizonMinutes);
+            java.time.Duration halfLife = java.time.Duration.ofMillis((long) (horizon.toMillis() * Math.log(2) / 2));
+            //Rates arrive once a second; whatever the feed's pace, the FX thread sees at most one per pulse
+            CoalescingPublisher<EventRates> publisher = new CoalescingPublisher<>(this::showEventRates);
+            eventFeedMonitor = new EventFeedMonitor(eventRules, horizon, halfLife, publisher::publish);
+            eventFeedMonitor.setErrorHandler(e -> Platform.runLater(() -> showAlert("Event Source Failed", e.getMessage())));
+        }
+        return eventFeedMonitor;
+    }
 
-        TableColumn<Risk, String> sleColumn = new TableColumn<>("SLE");
-        sleColumn.setCellValueFactory(data -> {
-            double sleValue = data.getValue().getSingleLossExpectancy();
-            String formattedSLE = NumberFormat.getCurrencyInstance().format(sleValue);
-            return new SimpleStringProperty(formattedSLE);
-        });
+    private void eventFeedStarted(Button loadButton, ComboBox<Long> horizonCombo, Button stopButton) {
+        loadButton.setDisable(true);
+        horizonCombo.setDisable(true);
+        stopButton.setDisable(false);
+        monitoringStatusLabel.setText("Waiting for events from " + String.join(", ", eventSources) + "...");
+    }
 
-        TableColumn<Risk, Double> aroColumn = new TableColumn<>("ARO");
-        aroColumn.setCellValueFactory(data -> data.getValue().annualisedRateOfOccurrenceProperty().asObject());
+    private void showEventRates(EventRates rates) {
+        //Rates still in flight when the feed was stopped
+        if (eventFeedMonitor == null) {
+            return;
+        }
+        lastEventRates = rates;
+        int changed = rateUpdater.apply(rates);
+        monitoringStatusLabel.setText(String.format("%s: %,d events (%,.0f/s), %,d matched, %,d malformed    %,d risk AROs updated",
+                String.join(", ", eventSources), rates.getLines(), rates.getLinesPerSecond(), rates.getMatchedEvents(),
+                rates.getMalformedLines(), changed));
+        List<String> items = new ArrayList<>(rates.getRules().threatCount());
+        for (int threat = 0; threat < rates.getRules().threatCount(); threat++) {
+            items.add(String.format("%s: ARO %,.2f    (sliding window %,.2f, decayed %,.2f)", rates.getRules().getThreat(threat),
+                    rates.getAnnualisedRate(threat, rateUpdater.getModel()), rates.getAnnualisedRate(threat, RateModel.SLIDING_WINDOW),
+                    rates.getAnnualisedRate(threat, RateModel.EXPONENTIAL_DECAY)));
+        }
+        threatRateList.getItems().setAll(items);
+    }
 
-        TableColumn<Risk, String> aleColumn = new TableColumn<>("ALE");
-        aleColumn.setCellValueFactory(data -> {
-            double aleValue = data.getValue().getAnnualisedLossExpectancy();
-            String formattedALE = NumberFormat.getCurrencyInstance().format(aleValue);
-            return new SimpleStringProperty(formattedALE);
+    private Parent createDistributionContent(Tab distributionTab) {
+        DistributionStage distributionStage = new DistributionStage(register);
+        analysisPipeline.addStage(distributionStage);
+        RiskDistributionPanel distributionPanel = new RiskDistributionPanel();
+
+        ComboBox<RankingMetric> metricCombo = new ComboBox<>();
+        metricCombo.getItems().setAll(RankingMetric.values());
+        metricCombo.setValue(RankingMetric.ANNUALISED_LOSS_EXPECTANCY);
+        Runnable refresh = () -> distributionPanel.update(distributionStage.getDistributions(), metricCombo.getValue());
+        metricCombo.setOnAction(e -> refresh.run());
+        distributionStage.setOnChanged(distributions -> {
+            if (distributionTab.isSelected()) {
+                refresh.run();
+            }
+        });
+        distributionTab.selectedProperty().addListener((obs, wasSelected, selected) -> {
+            if (selected) {
+                refresh.run();
+            }
         });
+        refresh.run();
 
-        TableColumn<Risk, String> controlMeasuresColumn = new TableColumn<>("Control Measures");
-        controlMeasuresColumn.setCellValueFactory(data -> data.getValue().controlMeasuresProperty());
+        ScrollPane scrollPane = new ScrollPane(distributionPanel);
+        scrollPane.setFitToWidth(true);
+        VBox vbox = new VBox(10, new HBox(10, new Label("Measure:"), metricCombo), scrollPane);
+        vbox.setPadding(new Insets(20));
+        VBox.setVgrow(scrollPane, Priority.ALWAYS);
+        return vbox;
+    }
 
-        TableColumn<Risk, Double> controlEffectivenessColumn = new TableColumn<>("Control Effectiveness (%)");
-        controlEffectivenessColumn.setCellValueFactory(data -> data.getValue().controlEffectivenessProperty().asObject());
+    private Parent createSensitivityContent() {
+        SensitivityConfig defaults = SensitivityConfig.defaults();
+        TextField sleSwingField = swingField(defaults.sleSwing() * 100);
+        TextField aroSwingField = swingField(defaults.aroSwing() * 100);
+        TextField impactSwingField = swingField(defaults.impactSwing());
+        TextField likelihoodSwingField = swingField(defaults.likelihoodSwing());
+        TextField effectivenessSwingField = swingField(defaults.effectivenessSwing());
+        ComboBox<SensitivityLevel> levelCombo = new ComboBox<>();
+        levelCombo.getItems().setAll(SensitivityLevel.values());
+        levelCombo.setValue(SensitivityLevel.RISK);
+        ComboBox<RankingMetric> metricCombo = new ComboBox<>();
+        metricCombo.getItems().setAll(RankingMetric.values());
+        metricCombo.setValue(RankingMetric.ANNUALISED_LOSS_EXPECTANCY);
+        Button runButton = new Button("Run");
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setDisable(true);
+        sensitivityStatusLabel = new Label("Moves each input down and up for every risk and group of risks, and charts the ones that move the total most.");
+        sensitivityStatusLabel.setWrapText(true);
+
+        runButton.setOnAction(e -> {
+            try {
+                SensitivityConfig config = new SensitivityConfig(
+                        Double.parseDouble(sleSwingField.getText().trim()) / 100,
+                        Double.parseDouble(aroSwingField.getText().trim()) / 100,
+                        Integer.parseInt(impactSwingField.getText().trim()),
+                        Integer.parseInt(likelihoodSwingField.getText().trim()),
+                        Double.parseDouble(effectivenessSwingField.getText().trim()),
+                        defaults.topRisks());
+                runSensitivity(config, levelCombo, metricCombo, runButton, cancelButton);
+            } catch (NumberFormatException ex) {
+                showAlert("Invalid Swing", "Please enter each swing as a number.");
+            } catch (IllegalArgumentException ex) {
+                showAlert("Invalid Swing", ex.getMessage());
+            }
+        });
+        cancelButton.setOnAction(e -> sensitivityEngine.cancel());
+        //Another level or measure is drawn from the last run without running again
+        levelCombo.setOnAction(e -> showSensitivity(levelCombo.getValue(), metricCombo.getValue()));
+        metricCombo.setOnAction(e -> showSensitivity(levelCombo.getValue(), metricCombo.getValue()));
+
+        HBox swings = new HBox(10, new Label("SLE \u00b1%:"), sleSwingField, new Label("ARO \u00b1%:"), aroSwingField,
+                new Label("Impact \u00b1:"), impactSwingField, new Label("Likelihood \u00b1:"), likelihoodSwingField,
+                new Label("Effectiveness \u00b1 points:"), effectivenessSwingField);
+        HBox controls = new HBox(10, new Label("Level:"), levelCombo, new Label("Measure:"), metricCombo, runButton, cancelButton);
+
+        NumberAxis changeAxis = new NumberAxis();
+        CategoryAxis driverAxis = new CategoryAxis();
+        tornadoChart = new StackedBarChart<>(changeAxis, driverAxis);
+        tornadoChart.setAnimated(false);
+
+        VBox vbox = new VBox(10, swings, controls, sensitivityStatusLabel, tornadoChart);
+        vbox.setPadding(new Insets(20));
+        VBox.setVgrow(tornadoChart, Priority.ALWAYS);
+        return vbox;
+    }
 
-        TableColumn<Risk, String> recommendationColumn = new TableColumn<>("Recommendations");
-        recommendationColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().generateRecommendation()));
+    private static TextField swingField(double value) {
+        TextField field = new TextField(String.format("%.0f", value));
+        field.setPrefColumnCount(4);
+        return field;
+    }
 
-        TableColumn<Risk, Double> residualRiskColumn = new TableColumn<>("Residual Risk");
-        residualRiskColumn.setCellValueFactory(data -> data.getValue().residualRiskProperty().asObject());
+    private void runSensitivity(SensitivityConfig config, ComboBox<SensitivityLevel> levelCombo, ComboBox<RankingMetric> metricCombo,
+                                Button runButton, Button cancelButton) {
+        //Snapshot the inputs on the FX thread; the analysis itself runs on the fork/join pool
+        SensitivityInput input = SensitivityInput.from(register);
+        Task<SensitivityResult> task = new Task<>() {
+            @Override
+            protected SensitivityResult call() {
+                return sensitivityEngine.run(input, config);
+            }
+        };
 
-        riskTable.getColumns().addAll(threatColumn, hipaaRuleColumn, rmfStepColumn, impactColumn, likelihoodColumn, rpnColumn, residualRiskColumn, sleColumn, aroColumn, aleColumn, controlMeasuresColumn, controlEffectivenessColumn, recommendationColumn);
-        riskTable.setItems(risks);
-    }
+        task.setOnSucceeded(e -> {
+            lastSensitivity = task.getValue();
+            showSensitivity(levelCombo.getValue(), metricCombo.getValue());
+        });
+        task.setOnFailed(e -> sensitivityStatusLabel.setText(task.getException() instanceof CancellationException
+                ? "Sensitivity analysis cancelled." : "Sensitivity analysis failed: " + task.getException().getMessage()));
+        task.runningProperty().addListener((obs, wasRunning, running) -> {
+            runButton.setDisable(running);
+            cancelButton.setDisable(!running);
+        });
 
-    private void updateAnalysis() {
-        riskChart.getData().clear();
+        sensitivityStatusLabel.setText(String.format("Analysing %,d risks...", input.size()));
+        Thread thread = new Thread(task, "sensitivity");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        if (risks.isEmpty()) {
+    private void showSensitivity(SensitivityLevel level, RankingMetric metric) {
+        if (lastSensitivity == null) {
             return;
         }
-
-        XYChart.Series<String, Number> aleSeries = new XYChart.Series<>();
-        aleSeries.setName("Annualised Loss Expectancy (ALE)");
-
-        for (Risk risk : risks) {
-            XYChart.Data<String, Number> dataPoint = new XYChart.Data<>(risk.getThreat(), risk.getAnnualisedLossExpectancy());
-            aleSeries.getData().add(dataPoint);
-
-            String formattedALE = NumberFormat.getCurrencyInstance().format(risk.getAnnualisedLossExpectancy());
-            Tooltip tooltip = new Tooltip("ALE: " + formattedALE);
-            Tooltip.install(dataPoint.getNode(), tooltip);
+        double base = lastSensitivity.base(metric);
+        List<SensitivityDriver> drivers = lastSensitivity.drivers(level, metric, TORNADO_DRIVERS);
+        NumberAxis changeAxis = (NumberAxis) tornadoChart.getXAxis();
+        boolean currency = metric == RankingMetric.ANNUALISED_LOSS_EXPECTANCY;
+        if (currency) {
+            ChartUtil.installCurrencyFormatter(changeAxis);
+        } else {
+            changeAxis.setTickLabelFormatter(new NumberAxis.DefaultFormatter(changeAxis));
         }
+        changeAxis.setLabel("Change in " + metric);
+        tornadoChart.getData().setAll(ChartUtil.tornadoSeries(drivers, base));
+        sensitivityStatusLabel.setText(String.format("%s: %s over %,d risks    analysed in %,.0f ms",
+                metric, currency ? ChartUtil.formatCurrency(base) : String.format("%,.1f", base),
+                lastSensitivity.getRiskCount(), lastSensitivity.getElapsedNanos() / 1e6));
+    }
 
-        riskChart.getData().add(aleSeries);
+    private Parent createHistoryContent(Tab historyTab) {
+        ComboBox<String> measureCombo = new ComboBox<>();
+        measureCombo.getItems().setAll(HISTORY_TOTAL_ALE, HISTORY_RESIDUAL_BY_STEP, HISTORY_RISKS_BY_CATEGORY);
+        measureCombo.setValue(HISTORY_TOTAL_ALE);
 
-        NumberAxis yAxis = (NumberAxis) riskChart.getYAxis();
-        yAxis.setTickLabelFormatter(new StringConverter<Number>() {
+        DateTimeFormatter axisFormat = DateTimeFormatter.ofPattern("MMM d HH:mm");
+        NumberAxis timeAxis = new NumberAxis();
+        timeAxis.setForceZeroInRange(false);
+        timeAxis.setTickLabelFormatter(new StringConverter<>() {
             @Override
-            public String toString(Number object) {
-                return NumberFormat.getCurrencyInstance().format(object.doubleValue());
+            public String toString(Number millis) {
+                return axisFormat.format(Instant.ofEpochMilli(millis.longValue()).atZone(ZoneId.systemDefault()));
             }
 
             @Override
@@ -387,346 +1097,668 @@ public class HealthcareRiskAnalysisApp extends Application {
                 return null;
             }
         });
-    }
+        LineChart<Number, Number> historyChart = new LineChart<>(timeAxis, new NumberAxis());
+        historyChart.setCreateSymbols(false);
+        historyChart.setAnimated(false);
+        Runnable refresh = () -> {
+            if (registerHistory != null) {
+                showHistoryTotals(historyChart, registerHistory.totals(), measureCombo.getValue());
+            }
+        };
+        measureCombo.setOnAction(e -> refresh.run());
+        historyTab.selectedProperty().addListener((obs, wasSelected, selected) -> {
+            if (selected) {
+                refresh.run();
+            }
+        });
+        refresh.run();
+
+        DateTimeFormatter inputFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        TextField timeField = new TextField(inputFormat.format(LocalDateTime.now()));
+        timeField.setPrefColumnCount(14);
+        Button showButton = new Button("Show");
+        Label pastSummaryLabel = new Label("Enter a date and time to see the register as it stood then.");
+        ListView<String> pastRiskList = new ListView<>();
+        showButton.setOnAction(e -> {
+            if (registerHistory == null) {
+                return;
+            }
+            Instant instant;
+            try {
+                instant = LocalDateTime.parse(timeField.getText().trim(), inputFormat).atZone(ZoneId.systemDefault()).toInstant();
+            } catch (DateTimeParseException ex) {
+                showAlert("Invalid Time", "Please enter the time as yyyy-MM-dd HH:mm:ss.");
+                return;
+            }
+            showRegisterAt(instant, showButton, pastSummaryLabel, pastRiskList);
+        });
 
+        VBox vbox = new VBox(10, new HBox(10, new Label("Measure:"), measureCombo), historyChart,
+                new HBox(10, new Label("Register at:"), timeField, showButton), pastSummaryLabel, pastRiskList);
+        vbox.setPadding(new Insets(20));
+        VBox.setVgrow(historyChart, Priority.ALWAYS);
+        return vbox;
+    }
 
-    private void showAlert(String title, String content) {
-        Alert alert = new Alert(Alert.AlertType.WARNING);
-        alert.setTitle(title);
-        alert.setHeaderText(null);
-        alert.setContentText(content);
-        alert.showAndWait();
+    private static void showHistoryTotals(LineChart<Number, Number> historyChart, List<HistoryTotals> totals, String measure) {
+        List<XYChart.Series<Number, Number>> series = new ArrayList<>();
+        if (HISTORY_TOTAL_ALE.equals(measure)) {
+            series.add(historySeries(ChartUtil.ALE_SERIES_NAME, totals, HistoryTotals::getTotalAnnualisedLossExpectancy));
+            ChartUtil.installCurrencyFormatter((NumberAxis) historyChart.getYAxis());
+        } else {
+            ((NumberAxis) historyChart.getYAxis()).setTickLabelFormatter(null);
+            if (HISTORY_RESIDUAL_BY_STEP.equals(measure)) {
+                for (RMFStep rmfStep : RMFStep.values()) {
+                    series.add(historySeries(rmfStep.toString(), totals, point -> point.getResidualRisk(rmfStep)));
+                }
+            } else {
+                for (RiskCategory category : RiskCategory.values()) {
+                    series.add(historySeries(category.toString(), totals, point -> point.getCategoryCount(category)));
+                }
+            }
+        }
+        historyChart.getData().setAll(series);
     }
 
-    //Enums
-    public enum HIPAARule {
-        PRIVACY_RULE, SECURITY_RULE, BREACH_NOTIFICATION_RULE
+    private static XYChart.Series<Number, Number> historySeries(String name, List<HistoryTotals> totals, ToDoubleFunction<HistoryTotals> value) {
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        for (HistoryTotals point : totals) {
+            series.getData().add(new XYChart.Data<>(point.getTime().toEpochMilli(), value.applyAsDouble(point)));
+        }
+        return series;
     }
 
-    public enum RMFStep {
-        Categorise, SELECT, IMPLEMENT, ASSESS, Authorise, AUTHORISE, MONITOR
+    //Rebuilds the past register in the background and lists its largest risks
+    private void showRegisterAt(Instant instant, Button showButton, Label pastSummaryLabel, ListView<String> pastRiskList) {
+        Task<RiskRegister> task = new Task<>() {
+            @Override
+            protected RiskRegister call() throws IOException {
+                return registerHistory.registerAt(instant);
+            }
+        };
+        long start = System.nanoTime();
+        task.setOnSucceeded(e -> {
+            RiskRegister past = task.getValue();
+            double totalAle = 0;
+            double totalResidual = 0;
+            List<Integer> rows = new ArrayList<>(past.size());
+            for (int row = 0; row < past.size(); row++) {
+                totalAle += past.getAnnualisedLossExpectancy(row);
+                totalResidual += past.getResidualRisk(row);
+                rows.add(row);
+            }
+            rows.sort((a, b) -> Double.compare(past.getAnnualisedLossExpectancy(b), past.getAnnualisedLossExpectancy(a)));
+            List<String> lines = new ArrayList<>();
+            for (int row : rows.subList(0, Math.min(500, rows.size()))) {
+                lines.add(String.format("%s (%s, %s): ALE %s", past.getThreat(row), past.getHipaaRule(row), past.getRmfStep(row),
+                        ChartUtil.formatCurrency(past.getAnnualisedLossExpectancy(row))));
+            }
+            pastRiskList.getItems().setAll(lines);
+            pastSummaryLabel.setText(String.format("%,d risks, total ALE %s, residual risk %,.1f (rebuilt in %.0f ms)", past.size(),
+                    ChartUtil.formatCurrency(totalAle), totalResidual, (System.nanoTime() - start) / 1e6));
+        });
+        task.setOnFailed(e -> pastSummaryLabel.setText("History could not be read: " + task.getException().getMessage()));
+        task.runningProperty().addListener((obs, wasRunning, running) -> showButton.setDisable(running));
+
+        pastSummaryLabel.setText("Rebuilding the register...");
+        Thread thread = new Thread(task, "register-history-replay");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    public class Risk {
-        private final SimpleStringProperty threat;
-        private final ObjectProperty<HIPAARule> hipaaRule;
-        private final ObjectProperty<RMFStep> rmfStep;
-        private final SimpleIntegerProperty impact;
-        private final SimpleIntegerProperty likelihood;
-        private final SimpleIntegerProperty riskPriorityNumber;
+    private Parent createDiagnosticsContent(Tab diagnosticsTab) {
+        GridPane grid = new GridPane();
+        grid.setHgap(20);
+        grid.setVgap(6);
+        String[] headings = {"Operation", "Calls", "Timed", "Mean", "p50", "p99", "Max"};
+        for (int column = 0; column < headings.length; column++) {
+            Label heading = new Label(headings[column]);
+            heading.setStyle("-fx-font-weight: bold;");
+            grid.add(heading, column, 0);
+        }
+        int row = 1;
+        for (Operation operation : Operation.values()) {
+            grid.add(new Label(operation.getLabel()), 0, row);
+            Label[] labels = new Label[headings.length - 1];
+            for (int column = 0; column < labels.length; column++) {
+                labels[column] = new Label();
+                grid.add(labels[column], column + 1, row);
+            }
+            operationLabels.put(operation, labels);
+            row++;
+        }
 
-        private final SimpleDoubleProperty singleLossExpectancy;          //SLE
-        private final SimpleDoubleProperty annualisedRateOfOccurrence;    //ARO
-        private final SimpleDoubleProperty annualisedLossExpectancy;      //ALE = SLE * ARO
+        allocationLabel = new Label();
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(e -> {
+            MetricsSnapshot.resetAll();
+            refreshDiagnostics();
+        });
+        Label note = new Label("Cheap operations are timed on a sample of calls. Timings are also recorded as JFR events (com.infosec.riskanalysistool.Operation).");
+
+        Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> refreshDiagnostics()));
+        refresh.setCycleCount(Timeline.INDEFINITE);
+        diagnosticsTab.selectedProperty().addListener((obs, wasSelected, selected) -> {
+            if (selected) {
+                lastMetrics = null;
+                refreshDiagnostics();
+                refresh.play();
+            } else {
+                refresh.stop();
+            }
+        });
+        refreshDiagnostics();
+        refresh.play();
 
-        private final SimpleStringProperty controlMeasures;
-        private final SimpleDoubleProperty controlEffectiveness;
-        private final SimpleDoubleProperty residualRisk;
+        VBox vbox = new VBox(10, new HBox(10, resetButton, allocationLabel), grid, note);
+        vbox.setPadding(new Insets(20));
+        return vbox;
+    }
 
+    private void refreshDiagnostics() {
+        MetricsSnapshot metrics = MetricsSnapshot.take();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot latencies = metrics.latencies(operation);
+            Label[] labels = operationLabels.get(operation);
+            labels[0].setText(String.format("%,d", metrics.calls(operation)));
+            labels[1].setText(String.format("%,d", latencies.count()));
+            labels[2].setText(formatNanos(latencies.meanNanos()));
+            labels[3].setText(formatNanos(latencies.percentile(0.5)));
+            labels[4].setText(formatNanos(latencies.percentile(0.99)));
+            labels[5].setText(formatNanos(latencies.maxNanos()));
+        }
+        double allocationRate = lastMetrics != null ? metrics.allocationRate(lastMetrics) : -1;
+        allocationLabel.setText(String.format("Allocation rate: %s    Heap: %,d of %,d MB",
+                allocationRate < 0 ? "-" : String.format("%,.1f MB/s", allocationRate / (1024 * 1024)),
+                metrics.heapUsedBytes() / (1024 * 1024), metrics.heapMaxBytes() / (1024 * 1024)));
+        lastMetrics = metrics;
+    }
 
-        public Risk(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) {
+    private static String formatNanos(double nanos) {
+        if (nanos < 1_000) {
+            return String.format("%.0f ns", nanos);
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1f \u00b5s", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
 
-            this.threat = new SimpleStringProperty(threat);
-            this.hipaaRule = new SimpleObjectProperty<>(hipaaRule);
-            this.rmfStep = new SimpleObjectProperty<>(rmfStep);
-            this.impact = new SimpleIntegerProperty(impact);
-            this.likelihood = new SimpleIntegerProperty(likelihood);
-            this.riskPriorityNumber = new SimpleIntegerProperty(impact * likelihood);
+    private Parent createRiskAnalysisContent() {
+        riskTable = new TableView<>();
+        setupRiskTable();
 
-            this.singleLossExpectancy = new SimpleDoubleProperty(singleLossExpectancy);
-            this.annualisedRateOfOccurrence = new SimpleDoubleProperty(annualisedRateOfOccurrence);
-            this.annualisedLossExpectancy = new SimpleDoubleProperty(calculateALE());
+        riskHeatMap = new RiskHeatMap();
+        heatMapStage = new HeatMapStage(riskHeatMap);
+        analysisPipeline.addStage(heatMapStage);
+        tableFilterLabel = new Label();
 
-            this.controlMeasures = new SimpleStringProperty(controlMeasures);
-            this.controlEffectiveness = new SimpleDoubleProperty(controlEffectiveness);
-            this.residualRisk = new SimpleDoubleProperty(calculateResidualRisk());
-        }
+        //Listener to riskTable to highlight the heat map cell corresponding to the selected risk
+        riskTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
+            if (newSelection != null && !newSelection.isDetached()) {
+                riskHeatMap.setHighlightedCell(RiskHeatMap.cellIndex(newSelection.getImpact(), newSelection.getLikelihood()));
+            } else {
+                riskHeatMap.setHighlightedCell(-1);
+            }
+        });
 
-        //Getter and Setters
-        public String getThreat() {
-            return threat.get();
-        }
+        //Clicking a cell shows only its risks; clicking it again shows everything
+        riskHeatMap.setOnCellClicked((impact, likelihood) -> {
+            int cell = RiskHeatMap.cellIndex(impact, likelihood);
+            filterTableToCell(cell == tableFilterCell ? -1 : cell);
+        });
+        heatMapStage.setOnCellsChanged(changed -> {
+            if (tableFilterCell >= 0 && changed.get(tableFilterCell)) {
+                scheduleTableFilterRefresh();
+            }
+        });
+        facetIndex.setOnChanged(() -> {
+            if (!facetQuery.isEmpty()) {
+                scheduleTableFilterRefresh();
+            }
+        });
+        textIndex.setOnChanged(() -> {
+            if (TextIndex.isSearchable(searchField.getText())) {
+                scheduleTableFilterRefresh();
+            }
+        });
 
-        public void setThreat(String threat) {
-            this.threat.set(threat);
-        }
+        //Cells copy their value out of the register when they are filled, so edits made in place, such as ARO
+        //updates from the event feed and the ALE and residual risk derived from them, refill the visible cells
+        register.addListener(new RiskRegisterListener() {
+            @Override
+            public void rowsAdded(int first, int count) {
+            }
 
-        public SimpleStringProperty threatProperty() {
-            return threat;
-        }
+            @Override
+            public void rowRemoved(int row) {
+            }
 
-        public HIPAARule getHipaaRule() {
-            return hipaaRule.get();
-        }
+            @Override
+            public void valueChanged(int row, RiskField field) {
+                scheduleTableRefresh();
+            }
 
-        public void setHipaaRule(HIPAARule hipaaRule) {
-            this.hipaaRule.set(hipaaRule);
-        }
+            @Override
+            public void valuesChanged(RowChanges changes) {
+                scheduleTableRefresh();
+            }
 
-        public ObjectProperty<HIPAARule> hipaaRuleProperty() {
-            return hipaaRule;
-        }
+            @Override
+            public void cleared() {
+            }
+        });
 
-        public RMFStep getRmfStep() {
-            return rmfStep.get();
-        }
+        VBox vbox = new VBox(10);
+        vbox.setPadding(new Insets(20));
+        vbox.getChildren().addAll(createFilterBar(), tableFilterLabel, riskTable, riskHeatMap);
 
-        public void setRmfStep(RMFStep rmfStep) {
-            this.rmfStep.set(rmfStep);
-        }
+        return vbox;
+    }
 
-        public ObjectProperty<RMFStep> rmfStepProperty() {
-            return rmfStep;
-        }
+    //One drop-down of checkboxes per facet; values are ORed within a facet and the facets are ANDed
+    private Parent createFilterBar() {
+        MenuButton hipaaRuleMenu = createFacetMenu("HIPAA Rule", HIPAARule.values(), hipaaRuleFacets,
+                selected -> facetQuery.withHipaaRules(selected), HIPAARule.class);
+        MenuButton rmfStepMenu = createFacetMenu("RMF Step", RMFStep.values(), rmfStepFacets,
+                selected -> facetQuery.withRmfSteps(selected), RMFStep.class);
+        MenuButton categoryMenu = createFacetMenu("Category", RiskCategory.values(), categoryFacets,
+                selected -> facetQuery.withCategories(selected), RiskCategory.class);
+
+        //Search as you type over threats and control measures
+        searchField = new TextField();
+        searchField.setPromptText("Search threats and controls");
+        searchField.textProperty().addListener((obs, oldText, newText) -> scheduleTableFilterRefresh());
+
+        Button clearButton = new Button("Clear Filters");
+        clearButton.setOnAction(e -> {
+            searchField.clear();
+            for (Map<?, CheckBox> facets : List.of(hipaaRuleFacets, rmfStepFacets, categoryFacets)) {
+                for (CheckBox checkBox : facets.values()) {
+                    checkBox.setSelected(false);
+                }
+            }
+            facetQuery = FacetQuery.ALL;
+            filterTableToCell(-1);
+        });
 
-        public int getImpact() {
-            return impact.get();
-        }
+        return new HBox(10, new Label("Filter:"), searchField, hipaaRuleMenu, rmfStepMenu, categoryMenu, clearButton);
+    }
 
-        public void setImpact(int impact) {
-            this.impact.set(impact);
-            updateRiskPriorityNumber();
+    private <E extends Enum<E>> MenuButton createFacetMenu(String name, E[] values, Map<E, CheckBox> checkBoxes,
+                                                           Function<Set<E>, FacetQuery> query, Class<E> type) {
+        MenuButton menu = new MenuButton(name);
+        for (E value : values) {
+            CheckBox checkBox = new CheckBox(value.toString());
+            checkBox.setOnAction(e -> {
+                Set<E> selected = EnumSet.noneOf(type);
+                checkBoxes.forEach((candidate, box) -> {
+                    if (box.isSelected()) {
+                        selected.add(candidate);
+                    }
+                });
+                facetQuery = query.apply(selected);
+                refreshTableFilter();
+            });
+            checkBoxes.put(value, checkBox);
+            //Keep the menu open so several values can be ticked in a row
+            menu.getItems().add(new CustomMenuItem(checkBox, false));
         }
+        //Counts are only needed while a menu is open
+        menu.setOnShowing(e -> refreshFacetCounts());
+        return menu;
+    }
 
-        public SimpleIntegerProperty impactProperty() {
-            return impact;
-        }
+    private void refreshFacetCounts() {
+        FacetCounts counts = facetIndex.counts(facetQuery);
+        hipaaRuleFacets.forEach((value, checkBox) -> checkBox.setText(facetLabel(value, counts.count(value), counts.annualisedLossExpectancy(value))));
+        rmfStepFacets.forEach((value, checkBox) -> checkBox.setText(facetLabel(value, counts.count(value), counts.annualisedLossExpectancy(value))));
+        categoryFacets.forEach((value, checkBox) -> checkBox.setText(facetLabel(value, counts.count(value), counts.annualisedLossExpectancy(value))));
+    }
 
-        public int getLikelihood() {
-            return likelihood.get();
-        }
+    private static String facetLabel(Object value, int count, double ale) {
+        return String.format("%s (%,d, ALE %s)", value, count, ChartUtil.formatCompactCurrency(ale));
+    }
 
-        public void setLikelihood(int likelihood) {
-            this.likelihood.set(likelihood);
-            updateRiskPriorityNumber();
-        }
+    private void filterTableToCell(int cell) {
+        tableFilterCell = cell;
+        riskHeatMap.setFilteredCell(cell);
+        refreshTableFilter();
+    }
 
-        public SimpleIntegerProperty likelihoodProperty() {
-            return likelihood;
+    //Refills the visible cells at most once a pulse, however many rows changed
+    private void scheduleTableRefresh() {
+        if (!tableRefreshScheduled) {
+            tableRefreshScheduled = true;
+            Platform.runLater(() -> {
+                tableRefreshScheduled = false;
+                riskTable.refresh();
+            });
         }
+    }
 
-        public int getRiskPriorityNumber() {
-            return riskPriorityNumber.get();
+    private void scheduleTableFilterRefresh() {
+        if (!tableFilterRefreshScheduled) {
+            tableFilterRefreshScheduled = true;
+            Platform.runLater(this::refreshTableFilter);
         }
+    }
 
-        public SimpleIntegerProperty riskPriorityNumberProperty() {
-            return riskPriorityNumber;
+    //Shows the rows matching the search, the facet filters and the selected heat map cell, or every risk when
+    //none is set. Without a cell, the best search matches come first.
+    private void refreshTableFilter() {
+        tableFilterRefreshScheduled = false;
+        String query = searchField.getText();
+        boolean searching = TextIndex.isSearchable(query);
+        if (filteredRisks != null) {
+            filteredRisks.dispose();
+            filteredRisks = null;
         }
-
-        private void updateRiskPriorityNumber() {
-            this.riskPriorityNumber.set(getImpact() * getLikelihood());
+        if (facetQuery.isEmpty() && tableFilterCell < 0 && !searching) {
+            riskTable.setItems(risks);
+            tableFilterLabel.setText("");
+            return;
         }
 
-        public double getSingleLossExpectancy() {
-            return singleLossExpectancy.get();
+        //The cell's rows, narrowed to the facets and then the search
+        RowBitmap rows = tableFilterCell < 0 ? null : heatMapStage.rows(tableFilterCell);
+        if (!facetQuery.isEmpty()) {
+            rows = rows == null ? facetIndex.query(facetQuery) : rows.and(facetIndex.query(facetQuery));
         }
-
-        public void setSingleLossExpectancy(double sle) {
-            this.singleLossExpectancy.set(sle);
-            updateAnnualisedLossExpectancy();
+        int[] rankedRows = new int[0];
+        if (searching) {
+            TextIndex.Match match = textIndex.search(query, rows, tableFilterCell < 0 ? RANKED_SEARCH_MATCHES : 0);
+            rows = match.rows();
+            rankedRows = match.rankedRows();
         }
 
-        public SimpleDoubleProperty singleLossExpectancyProperty() {
-            return singleLossExpectancy;
+        //Only row numbers are listed; the table makes views for the rows it shows
+        int[] listed = new int[rows.cardinality()];
+        int count = 0;
+        double ale = 0;
+        RowBitmap ranked = new RowBitmap(register.size());
+        for (int row : rankedRows) {
+            listed[count++] = row;
+            ranked.set(row);
         }
-
-        public double getannualisedRateOfOccurrence() {
-            return annualisedRateOfOccurrence.get();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            if (!ranked.get(row)) {
+                listed[count++] = row;
+            }
+            ale += register.getAnnualisedLossExpectancy(row);
         }
+        filteredRisks = new RegisterRowSubset(register, listed, count);
+        riskTable.setItems(filteredRisks);
 
-        public void setAnnualisedRateOfOccurrence(double aro) {
-            this.annualisedRateOfOccurrence.set(aro);
-            updateAnnualisedLossExpectancy();
+        String text = String.format("Showing %,d of %,d risks, total ALE %s", count, register.size(), ChartUtil.formatCurrency(ale));
+        if (searching) {
+            text += String.format(" matching \"%s\"", query.strip());
         }
-
-        public SimpleDoubleProperty annualisedRateOfOccurrenceProperty() {
-            return annualisedRateOfOccurrence;
+        if (tableFilterCell >= 0) {
+            text += String.format(" (impact %d, likelihood %d; click the cell again to show all)",
+                    RiskHeatMap.impactOf(tableFilterCell), RiskHeatMap.likelihoodOf(tableFilterCell));
         }
+        tableFilterLabel.setText(text);
+    }
 
-        public double getAnnualisedLossExpectancy() {
-            return annualisedLossExpectancy.get();
+    private void refreshThreatSuggestions(String text) {
+        List<String> suggestions = threatField.isFocused() ? textIndex.suggestThreats(text, 8) : List.of();
+        if (suggestions.isEmpty() || suggestions.size() == 1 && suggestions.get(0).equals(text)) {
+            threatSuggestions.hide();
+            return;
         }
-
-        public SimpleDoubleProperty annualisedLossExpectancyProperty() {
-            return annualisedLossExpectancy;
+        List<MenuItem> items = new ArrayList<>(suggestions.size());
+        for (String suggestion : suggestions) {
+            MenuItem item = new MenuItem(suggestion);
+            item.setOnAction(e -> {
+                threatField.setText(suggestion);
+                threatField.positionCaret(suggestion.length());
+            });
+            items.add(item);
         }
-
-        private double calculateALE() {
-            return getSingleLossExpectancy() * getannualisedRateOfOccurrence();
+        threatSuggestions.getItems().setAll(items);
+        if (!threatSuggestions.isShowing()) {
+            threatSuggestions.show(threatField, Side.BOTTOM, 0, 0);
         }
+    }
 
-        private void updateAnnualisedLossExpectancy() {
-            this.annualisedLossExpectancy.set(calculateALE());
-        }
+    private void refreshSimilarThreats() {
+        String description = describeSimilarThreats(threatField.getText(), 3);
+        similarThreatsLabel.setText(description == null ? "" : "Possible duplicate of " + description);
+        similarThreatsLabel.setVisible(description != null);
+    }
 
-        //Control Measures
-        public String getControlMeasures() {
-            return controlMeasures.get();
+    //The threats already in the register that look like this one, or null if there are none
+    private String describeSimilarThreats(String threat, int limit) {
+        List<TextIndex.SimilarThreat> similar = textIndex.similarThreats(threat, SIMILAR_THREAT_WARNING, limit);
+        if (similar.isEmpty()) {
+            return null;
         }
-
-        public void setControlMeasures(String controlMeasures) {
-            this.controlMeasures.set(controlMeasures);
+        List<String> descriptions = new ArrayList<>(similar.size());
+        for (TextIndex.SimilarThreat candidate : similar) {
+            descriptions.add(String.format("\"%s\" (%,d %s, %.0f%% similar)", candidate.threat(), candidate.risks(),
+                    candidate.risks() == 1 ? "risk" : "risks", candidate.similarity() * 100));
         }
+        return String.join(", ", descriptions);
+    }
 
-        public SimpleStringProperty controlMeasuresProperty() {
-            return controlMeasures;
+    //True unless the threat looks like one already in the register and the user chooses not to add it
+    private boolean confirmNotDuplicate(String threat) {
+        String description = describeSimilarThreats(threat, 5);
+        if (description == null) {
+            return true;
         }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Possible Duplicate Risk");
+        alert.setHeaderText(null);
+        alert.setContentText("The register already has similar threats: " + description + ". Add this risk anyway?");
+        return alert.showAndWait().filter(ButtonType.OK::equals).isPresent();
+    }
 
-        //Control Effectiveness
-        public double getControlEffectiveness() {
-            return controlEffectiveness.get();
+    private void handleAddRisk() {
+        try {
+            String threat = threatField.getText();
+            HIPAARule hipaaRule = hipaaRuleCombo.getValue();
+            RMFStep rmfStep = rmfStepCombo.getValue();
+            int impact = Integer.parseInt(impactField.getText());
+            int likelihood = Integer.parseInt(likelihoodField.getText());
+            double sle = Double.parseDouble(sleField.getText());
+            double aro = Double.parseDouble(aroField.getText());
+            String controlMeasures = controlMeasuresField.getText();
+            double controlEffectiveness = Double.parseDouble(controlEffectivenessField.getText());
+
+            //Validate the raw values first so invalid entries never reach the register
+            long validationStart = Operation.VALIDATION.begin();
+            boolean valid = ValidationUtil.isValidRisk(threat, hipaaRule, rmfStep, impact, likelihood, sle, aro, controlEffectiveness);
+            Operation.VALIDATION.end(validationStart);
+            if (valid) {
+                if (!confirmNotDuplicate(threat)) {
+                    return;
+                }
+                addRisk(threat, hipaaRule, rmfStep, impact, likelihood, sle, aro, controlMeasures, controlEffectiveness);
+                clearRiskEntryFields();
+            } else {
+                showAlert("Invalid Risk Entry", "Please ensure all fields are filled correctly and values are within acceptable ranges.");
+            }
+        } catch (NumberFormatException ex) {
+            showAlert("Invalid Input", "Please enter valid numbers for impact, likelihood, SLE, and ARO.");
         }
+    }
 
-        public void setControlEffectiveness(double controlEffectiveness) {
-            this.controlEffectiveness.set(controlEffectiveness);
-            updateResidualRisk();
+    private void handleImportRisks(Button importButton) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Risks");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Risk registers (*.csv, *.json, *.jsonl)", "*.csv", "*.json", "*.jsonl", "*.ndjson"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(importButton.getScene().getWindow());
+        if (file == null) {
+            return;
         }
 
-        public SimpleDoubleProperty controlEffectivenessProperty() {
-            return controlEffectiveness;
-        }
+        //Parsing and validation run off the FX thread; only the final append and publish happen on it
+        Task<ImportResult> task = new Task<>() {
+            @Override
+            protected ImportResult call() throws Exception {
+                return riskImporter.importFile(file.toPath());
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            ImportResult result = task.getValue();
+            addRisks(result.getBatch());
+            importStatusLabel.setText(String.format("Imported %,d risks from %s (%,d rejected, %,.0f rows/sec)",
+                    result.getImportedRows(), file.getName(), result.getErrorCount(), result.rowsPerSecond()));
+            if (result.getErrorCount() > 0) {
+                StringBuilder details = new StringBuilder();
+                for (ImportError error : result.getErrors().subList(0, Math.min(10, result.getErrors().size()))) {
+                    details.append(error).append('\n');
+                }
+                if (result.getErrorCount() > 10) {
+                    details.append(String.format("...and %,d more", result.getErrorCount() - 10));
+                }
+                showAlert("Rows Rejected", details.toString());
+            }
+        });
+        task.setOnFailed(e -> importStatusLabel.setText("Import failed: " + task.getException().getMessage()));
+        importButton.disableProperty().bind(task.runningProperty());
 
-        //Residual Risk
-        public double getResidualRisk() {
-            return residualRisk.get();
-        }
+        importStatusLabel.setText("Importing " + file.getName() + "...");
+        Thread thread = new Thread(task, "risk-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        public SimpleDoubleProperty residualRiskProperty() {
-            return residualRisk;
+    private void handleExportReport(Button exportButton, ProgressBar progressBar, Button cancelButton) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Report");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv"),
+                new FileChooser.ExtensionFilter("HTML page (*.html)", "*.html"),
+                new FileChooser.ExtensionFilter("PDF document (*.pdf)", "*.pdf"));
+        chooser.setInitialFileName("risk-register.csv");
+        File file = chooser.showSaveDialog(exportButton.getScene().getWindow());
+        if (file == null) {
+            return;
         }
-
-        private double calculateResidualRisk() {
-            double effectiveness = getControlEffectiveness() / 100.0; //Convert to decimal
-            return getRiskPriorityNumber() * (1 - effectiveness);
+        //A name typed without an extension takes the chosen filter's
+        Path path = file.toPath();
+        if (!file.getName().contains(".") && chooser.getSelectedExtensionFilter() != null) {
+            path = path.resolveSibling(file.getName() + chooser.getSelectedExtensionFilter().getExtensions().get(0).substring(1));
         }
+        Path reportPath = path;
+        ReportExporter.Format format = ReportExporter.Format.of(reportPath);
 
-        private void updateResidualRisk() {
-            this.residualRisk.set(calculateResidualRisk());
-        }
+        //The snapshot and the chart images are taken on the FX thread; formatting and writing run off it
+        RiskBatch risks = register.snapshot();
+        List<ReportImage> images = format == ReportExporter.Format.CSV ? List.of() : ReportCharts.render(risks);
+        Task<ExportResult> task = new Task<>() {
+            @Override
+            protected ExportResult call() throws Exception {
+                return reportExporter.export(risks, images, reportPath, format, rows -> updateProgress(rows, risks.size()));
+            }
+        };
 
-        //Calculate Risk Priority Number (RPN)
-        public int calculateRPN() {
-            return getImpact() * getLikelihood();
-        }
+        task.setOnSucceeded(e -> {
+            ExportResult result = task.getValue();
+            importStatusLabel.setText(String.format("Exported %,d risks to %s (%.1f MB, %.1f MB/s)",
+                    result.getRows(), reportPath.getFileName(), result.getBytes() / 1e6, result.megabytesPerSecond()));
+        });
+        task.setOnFailed(e -> importStatusLabel.setText(task.getException() instanceof CancellationException
+                ? "Export cancelled" : "Export failed: " + task.getException().getMessage()));
+        exportButton.disableProperty().bind(task.runningProperty());
+        progressBar.visibleProperty().bind(task.runningProperty());
+        progressBar.progressProperty().bind(task.progressProperty());
+        cancelButton.visibleProperty().bind(task.runningProperty());
+
+        importStatusLabel.setText("Exporting " + String.format("%,d", risks.size()) + " risks to " + reportPath.getFileName() + "...");
+        Thread thread = new Thread(task, "report-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        //Generate recommendations based on risk attributes
-        public String generateRecommendation() {
-            StringBuilder recommendations = new StringBuilder();
-            int rpn = getRiskPriorityNumber();
-            double ale = getAnnualisedLossExpectancy();
-            double residual = getResidualRisk();
+    private void clearRiskEntryFields() {
+        threatField.clear();
+        threatSuggestions.hide();
+        hipaaRuleCombo.getSelectionModel().clearSelection();
+        rmfStepCombo.getSelectionModel().clearSelection();
+        impactField.clear();
+        likelihoodField.clear();
+        sleField.clear();
+        aroField.clear();
+        controlMeasuresField.clear();
+        controlEffectivenessField.clear();
+    }
 
-            //Provide recommendations based on RPN
-            if (rpn > 200) {
-                recommendations.append("Critical risk identified. Immediate action required.\n");
-            } else if (rpn > 70) {
-                recommendations.append("High risk. Prompt attention is necessary.\n");
-            } else if (rpn > 20) {
-                recommendations.append("Medium risk. Monitor and plan mitigation strategies.\n");
-            } else {
-                recommendations.append("Low risk. Regular monitoring is sufficient.\n");
-            }
+    //Times every cell value the table asks for as Operation.TABLE_CELL
+    private static <T> Callback<TableColumn.CellDataFeatures<Risk, T>, ObservableValue<T>> timedCellValue(Callback<TableColumn.CellDataFeatures<Risk, T>, ObservableValue<T>> factory) {
+        return data -> {
+            long start = Operation.TABLE_CELL.begin();
+            ObservableValue<T> value = factory.call(data);
+            Operation.TABLE_CELL.end(start);
+            return value;
+        };
+    }
 
-            //Provide recommendations based on ALE
-            if (ale > 100_000) {
-                recommendations.append("ALE exceeds R100,000. Consider investing in significant risk mitigation measures.\n");
-            } else if (ale > 50_000) {
-                recommendations.append("ALE exceeds R50,000. Evaluate cost-effective mitigation strategies.\n");
-            } else {
-                recommendations.append("ALE is within acceptable limits. Maintain current controls.\n");
-            }
+    private static String recommendation(Risk risk) {
+        long start = Operation.RECOMMENDATION.begin();
+        String recommendation = risk.generateRecommendation();
+        Operation.RECOMMENDATION.end(start);
+        return recommendation;
+    }
 
-            //Recommendations based on impacts
-            if (getImpact() > 7) {
-                recommendations.append("High impact risk. prioritise impact reduction measures.\n");
-            }
+    private void setupRiskTable() {
+        TableColumn<Risk, String> threatColumn = new TableColumn<>("Threat");
+        threatColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyStringWrapper(data.getValue().getThreat())));
 
-            if (getLikelihood() > 7) {
-                recommendations.append("High likelihood risk. Implement measures to reduce occurrence.\n");
-            }
+        TableColumn<Risk, String> hipaaRuleColumn = new TableColumn<>("HIPAA Rule");
+        hipaaRuleColumn.setCellValueFactory(timedCellValue(data -> new SimpleStringProperty(data.getValue().getHipaaRule().toString())));
 
-            //Specific recommendations based on HIPAA Rule
-            switch (getHipaaRule()) {
-                case PRIVACY_RULE:
-                    recommendations.append("Ensure all PHI disclosures are compliant with the Privacy Rule.\n");
-                    break;
-                case SECURITY_RULE:
-                    recommendations.append("Strengthen technical safeguards to protect ePHI.\n");
-                    break;
-                case BREACH_NOTIFICATION_RULE:
-                    recommendations.append("Develop a robust breach response plan in line with notification requirements.\n");
-                    break;
-            }
+        TableColumn<Risk, String> rmfStepColumn = new TableColumn<>("RMF Step");
+        rmfStepColumn.setCellValueFactory(timedCellValue(data -> new SimpleStringProperty(data.getValue().getRmfStep().toString())));
 
-            //Specific recommendations based on RMF Step
-            switch (getRmfStep()) {
-                case Categorise:
-                    recommendations.append("Review system categorisations to ensure appropriate risk levels.\n");
-                    break;
-                case SELECT:
-                    recommendations.append("Select security controls tailored to mitigate identified risks.\n");
-                    break;
-                case IMPLEMENT:
-                    recommendations.append("Implement the chosen security controls effectively.\n");
-                    break;
-                case ASSESS:
-                    recommendations.append("Regularly assess the effectiveness of security controls.\n");
-                    break;
-                case Authorise:
-                    recommendations.append("Obtain necessary authorisations before system operation.\n");
-                    break;
-                case MONITOR:
-                    recommendations.append("Continuously monitor security controls and system operations.\n");
-                    break;
-            }
+        TableColumn<Risk, Integer> impactColumn = new TableColumn<>("Impact");
+        impactColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyObjectWrapper<>(data.getValue().getImpact())));
 
-            return recommendations.toString();
-        }
-    }
+        TableColumn<Risk, Integer> likelihoodColumn = new TableColumn<>("Likelihood");
+        likelihoodColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyObjectWrapper<>(data.getValue().getLikelihood())));
 
-    public static class ValidationUtil {
-        public static boolean isValidRisk(Risk risk) {
-            boolean baseValidation = risk != null && risk.getThreat() != null && !risk.getThreat().isEmpty() && risk.getHipaaRule() != null && risk.getRmfStep() != null && risk.getImpact() >= 1 && risk.getImpact() <= 10 && risk.getLikelihood() >= 1 && risk.getLikelihood() <= 10 && risk.getSingleLossExpectancy() >= 0 && risk.getannualisedRateOfOccurrence() >= 0;
+        TableColumn<Risk, Integer> rpnColumn = new TableColumn<>("RPN");
+        rpnColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyObjectWrapper<>(data.getValue().getRiskPriorityNumber())));
 
-            boolean controlValidation = risk.getControlEffectiveness() >= 0 && risk.getControlEffectiveness() <= 100;
+        TableColumn<Risk, String> sleColumn = new TableColumn<>("SLE");
+        sleColumn.setCellValueFactory(timedCellValue(data -> new SimpleStringProperty(ChartUtil.formatCurrency(data.getValue().getSingleLossExpectancy()))));
 
-            return baseValidation && controlValidation;
-        }
-    }
+        TableColumn<Risk, Double> aroColumn = new TableColumn<>("ARO");
+        aroColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyObjectWrapper<>(data.getValue().getAnnualisedRateOfOccurrence())));
 
-    public static class ChartUtil {
-        public static void updateRiskChart(BarChart<String, Number> chart, List<Risk> risks) {
-            XYChart.Series<String, Number> aleSeries = new XYChart.Series<>();
-            aleSeries.setName("Annualised Loss Expectancy (ALE)");
+        TableColumn<Risk, String> aleColumn = new TableColumn<>("ALE");
+        aleColumn.setCellValueFactory(timedCellValue(data -> new SimpleStringProperty(ChartUtil.formatCurrency(data.getValue().getAnnualisedLossExpectancy()))));
 
-            for (Risk risk : risks) {
-                XYChart.Data<String, Number> dataPoint = new XYChart.Data<>(risk.getThreat(), risk.getAnnualisedLossExpectancy());
-                aleSeries.getData().add(dataPoint);
+        TableColumn<Risk, String> controlMeasuresColumn = new TableColumn<>("Control Measures");
+        controlMeasuresColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyStringWrapper(data.getValue().getControlMeasures())));
 
-                double aleValue = risk.getAnnualisedLossExpectancy();
-                String formattedALE = NumberFormat.getCurrencyInstance().format(aleValue);
+        TableColumn<Risk, Double> controlEffectivenessColumn = new TableColumn<>("Control Effectiveness (%)");
+        controlEffectivenessColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyObjectWrapper<>(data.getValue().getControlEffectiveness())));
 
-                Tooltip tooltip = new Tooltip("ALE: " + formattedALE);
-                Tooltip.install(dataPoint.getNode(), tooltip);
-            }
+        TableColumn<Risk, String> recommendationColumn = new TableColumn<>("Recommendations");
+        recommendationColumn.setCellValueFactory(timedCellValue(data -> new SimpleStringProperty(recommendation(data.getValue()))));
 
-            chart.getData().clear();
-            chart.getData().add(aleSeries);
+        TableColumn<Risk, Double> residualRiskColumn = new TableColumn<>("Residual Risk");
+        residualRiskColumn.setCellValueFactory(timedCellValue(data -> new ReadOnlyObjectWrapper<>(data.getValue().getResidualRisk())));
 
-            //Format the y-axis to display currency
-            NumberAxis yAxis = (NumberAxis) chart.getYAxis();
-            yAxis.setTickLabelFormatter(new StringConverter<Number>() {
-                @Override
-                public String toString(Number object) {
-                    return NumberFormat.getCurrencyInstance().format(object.doubleValue());
-                }
+        riskTable.getColumns().addAll(threatColumn, hipaaRuleColumn, rmfStepColumn, impactColumn, likelihoodColumn, rpnColumn, residualRiskColumn, sleColumn, aroColumn, aleColumn, controlMeasuresColumn, controlEffectivenessColumn, recommendationColumn);
+        riskTable.setItems(risks);
+    }
 
-                @Override
-                public Number fromString(String string) {
-                    return null;
-                }
-            });
-        }
+    private void showAlert(String title, String content) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
     }
 
     public static void main(String[] args) {
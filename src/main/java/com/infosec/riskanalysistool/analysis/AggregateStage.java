@@ -0,0 +1,64 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+//Maintains register totals incrementally and publishes them once per flush. This is what the summary above the
+//risk chart shows; AnalysisService's full rescore is only run when asked for.
+public class AggregateStage implements RiskAnalysisStage {
+    private final RiskAggregates aggregates = new RiskAggregates();
+    private Runnable onPublished = () -> { };
+
+    private final ReadOnlyIntegerWrapper riskCount = new ReadOnlyIntegerWrapper(this, "riskCount");
+    private final ReadOnlyDoubleWrapper totalAnnualisedLossExpectancy = new ReadOnlyDoubleWrapper(this, "totalAnnualisedLossExpectancy");
+    private final ReadOnlyDoubleWrapper totalResidualRisk = new ReadOnlyDoubleWrapper(this, "totalResidualRisk");
+
+    @Override
+    public void riskAdded(RiskRegister register, int row) {
+        aggregates.add(register.getAnnualisedLossExpectancy(row), register.getResidualRisk(row), RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row)));
+    }
+
+    @Override
+    public void riskUpdated(RiskRegister register, int row, RiskSnapshot previous) {
+        aggregates.remove(previous.annualisedLossExpectancy(), previous.residualRisk(), previous.category());
+        riskAdded(register, row);
+    }
+
+    @Override
+    public void riskRemoved(int row, RiskSnapshot previous) {
+        aggregates.remove(previous.annualisedLossExpectancy(), previous.residualRisk(), previous.category());
+    }
+
+    @Override
+    public void batchApplied() {
+        riskCount.set(aggregates.getRiskCount());
+        totalAnnualisedLossExpectancy.set(aggregates.getTotalAnnualisedLossExpectancy());
+        totalResidualRisk.set(aggregates.getTotalResidualRisk());
+        onPublished.run();
+    }
+
+    //Called after each flush that changed the totals, once the properties hold them
+    public void setOnPublished(Runnable onPublished) {
+        this.onPublished = onPublished;
+    }
+
+    public RiskAggregates getAggregates() {
+        return aggregates;
+    }
+
+    public ReadOnlyIntegerProperty riskCountProperty() {
+        return riskCount.getReadOnlyProperty();
+    }
+
+    public ReadOnlyDoubleProperty totalAnnualisedLossExpectancyProperty() {
+        return totalAnnualisedLossExpectancy.getReadOnlyProperty();
+    }
+
+    public ReadOnlyDoubleProperty totalResidualRiskProperty() {
+        return totalResidualRisk.getReadOnlyProperty();
+    }
+}
@@ -0,0 +1,102 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.scoring.AnalysisInput;
+import com.infosec.riskanalysistool.scoring.RegisterAnalysis;
+import com.infosec.riskanalysistool.scoring.RiskScorer;
+import javafx.application.Platform;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+//Rescores the whole register on a background fork/join pool when asked to: every derived metric, category and
+//recommendation key with the register totals, as RiskAnalysisCli scores a file. The UI's running totals come
+//from AggregateStage, which keeps them current in O(1) per change; this is the full recount behind them.
+//
+//The input is one bulk copy per column taken on the FX thread. Each input gets a new generation number;
+//submitting one cancels the run still working on an older input at its next task boundary, and results are
+//handed back through a CoalescingPublisher and dropped if a newer input has been submitted in the meantime.
+public class AnalysisService implements AutoCloseable {
+    private final RiskRegister register;
+    private final ForkJoinPool pool;
+    private final RiskScorer scorer;
+    private final AtomicLong generation = new AtomicLong();
+    private final CoalescingPublisher<RegisterAnalysis> publisher = new CoalescingPublisher<>(this::deliver);
+
+    //Owned by the FX thread
+    private Future<?> running;
+    private Consumer<RegisterAnalysis> onResult = result -> { };
+    private Consumer<Exception> errorHandler = e -> { };
+
+    //Leaves one core for the FX thread
+    public AnalysisService(RiskRegister register) {
+        this(register, new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), AnalysisService::newWorker, null, false));
+    }
+
+    public AnalysisService(RiskRegister register, ForkJoinPool pool) {
+        this.register = register;
+        this.pool = pool;
+        this.scorer = new RiskScorer(pool);
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("risk-analysis-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    //Called on the FX thread with every result that is still current
+    public void setOnResult(Consumer<RegisterAnalysis> onResult) {
+        this.onResult = onResult;
+    }
+
+    //Called on the FX thread with failures from the background pool
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    //Rescores the register as it stands now, superseding any run in progress
+    public void requestAnalysis() {
+        submit(AnalysisInput.from(register));
+    }
+
+    //Analyses the input in the background, superseding any earlier input
+    public void submit(AnalysisInput input) {
+        long current = generation.incrementAndGet();
+        if (running != null) {
+            running.cancel(false);
+        }
+        running = pool.submit(() -> {
+            try {
+                publisher.publish(scorer.score(input, current, () -> generation.get() != current));
+            } catch (CancellationException e) {
+                //Superseded by a newer input
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> errorHandler.accept(e));
+            }
+        });
+    }
+
+    //Analyses the input and waits for the result, without superseding anything (used by benchmarks; headless
+    //callers without an FX toolkit use RiskScorer)
+    public RegisterAnalysis analyse(AnalysisInput input) {
+        return scorer.score(input, generation.get(), () -> false);
+    }
+
+    private void deliver(RegisterAnalysis result) {
+        if (result.getGeneration() == generation.get()) {
+            onResult.accept(result);
+        }
+    }
+
+    //Abandons any run in progress and shuts the pool down
+    @Override
+    public void close() {
+        generation.incrementAndGet();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,31 @@
+package com.infosec.riskanalysistool.analysis;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+//Hands values from background threads to the JavaFX Application Thread. Only the latest value is kept and
+//at most one runLater is outstanding, so however fast values arrive the UI sees at most one per pulse.
+public class CoalescingPublisher<T> {
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final Consumer<T> consumer;
+
+    public CoalescingPublisher(Consumer<T> consumer) {
+        this.consumer = consumer;
+    }
+
+    //May be called from any thread; replaces any value not yet delivered
+    public void publish(T value) {
+        if (latest.getAndSet(value) == null) {
+            Platform.runLater(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        T value = latest.getAndSet(null);
+        if (value != null) {
+            consumer.accept(value);
+        }
+    }
+}
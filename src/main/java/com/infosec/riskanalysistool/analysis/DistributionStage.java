@@ -0,0 +1,72 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.util.function.Consumer;
+
+//Keeps the ALE and residual risk distributions up to date as risks are added, edited and removed, and hands
+//them on once per flush. When edits and removals have made them too inaccurate they are rebuilt from the
+//register, which by then holds exactly what the pipeline has applied.
+public class DistributionStage implements RiskAnalysisStage {
+    private final RiskRegister register;
+    private RiskDistributions distributions = new RiskDistributions();
+    private boolean changed = true;
+    private Consumer<RiskDistributions> onChanged = distributions -> { };
+
+    public DistributionStage(RiskRegister register) {
+        this.register = register;
+    }
+
+    //Called after each flush that changed the distributions
+    public void setOnChanged(Consumer<RiskDistributions> onChanged) {
+        this.onChanged = onChanged;
+    }
+
+    public RiskDistributions getDistributions() {
+        return distributions;
+    }
+
+    @Override
+    public void riskAdded(RiskRegister register, int row) {
+        distributions.add(register.getHipaaRule(row), register.getRmfStep(row), category(register, row),
+                register.getAnnualisedLossExpectancy(row), register.getResidualRisk(row));
+        changed = true;
+    }
+
+    @Override
+    public void riskUpdated(RiskRegister register, int row, RiskSnapshot previous) {
+        if (register.getHipaaRule(row) == previous.hipaaRule() && register.getRmfStep(row) == previous.rmfStep() && category(register, row) == previous.category()
+                && register.getAnnualisedLossExpectancy(row) == previous.annualisedLossExpectancy() && register.getResidualRisk(row) == previous.residualRisk()) {
+            return;
+        }
+        remove(previous);
+        riskAdded(register, row);
+    }
+
+    @Override
+    public void riskRemoved(int row, RiskSnapshot previous) {
+        remove(previous);
+    }
+
+    private void remove(RiskSnapshot previous) {
+        distributions.remove(previous.hipaaRule(), previous.rmfStep(), previous.category(), previous.annualisedLossExpectancy(), previous.residualRisk());
+        changed = true;
+    }
+
+    private static RiskCategory category(RiskRegister register, int row) {
+        return RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row));
+    }
+
+    @Override
+    public void batchApplied() {
+        if (!changed) {
+            return;
+        }
+        if (distributions.isStale()) {
+            distributions = RiskDistributions.of(register);
+        }
+        changed = false;
+        onChanged.accept(distributions);
+    }
+}
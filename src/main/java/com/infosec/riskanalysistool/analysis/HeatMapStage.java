@@ -0,0 +1,126 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.index.RowBitmap;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.view.RiskHeatMap;
+
+import java.util.BitSet;
+import java.util.function.Consumer;
+
+//Maintains the impact x likelihood grid behind the heat map: a risk count, ALE total and set of rows per cell.
+//The row sets are what filtering the table to a cell starts from, so it never scans the register.
+//Changed cells are collected between flushes and repainted together in batchApplied().
+public class HeatMapStage implements RiskAnalysisStage {
+    private final RiskHeatMap heatMap;
+    private final int[] counts = new int[RiskHeatMap.CELLS];
+    private final double[] annualisedLossExpectancies = new double[RiskHeatMap.CELLS];
+    //Created for a cell when a row first lands in it
+    private final RowBitmap[] members = new RowBitmap[RiskHeatMap.CELLS];
+    private int rows;
+    private final BitSet changed = new BitSet(RiskHeatMap.CELLS);
+    private Consumer<BitSet> onCellsChanged;
+
+    public HeatMapStage(RiskHeatMap heatMap) {
+        this.heatMap = heatMap;
+    }
+
+    //Called after each flush with the cells that changed
+    public void setOnCellsChanged(Consumer<BitSet> onCellsChanged) {
+        this.onCellsChanged = onCellsChanged;
+    }
+
+    public int count(int cell) {
+        return counts[cell];
+    }
+
+    //A copy of the cell's rows, free to be narrowed further
+    public RowBitmap rows(int cell) {
+        return members[cell] != null ? members[cell].copy() : new RowBitmap();
+    }
+
+    @Override
+    public void riskAdded(RiskRegister register, int row) {
+        rows++;
+        int cell = RiskHeatMap.cellIndex(register.getImpact(row), register.getLikelihood(row));
+        add(cell, register.getAnnualisedLossExpectancy(row));
+        if (cell >= 0) {
+            if (members[cell] == null) {
+                members[cell] = new RowBitmap(rows);
+            }
+            members[cell].set(row);
+        }
+    }
+
+    @Override
+    public void riskUpdated(RiskRegister register, int row, RiskSnapshot previous) {
+        int oldCell = RiskHeatMap.cellIndex(previous.impact(), previous.likelihood());
+        int newCell = RiskHeatMap.cellIndex(register.getImpact(row), register.getLikelihood(row));
+        double ale = register.getAnnualisedLossExpectancy(row);
+        if (oldCell == newCell && ale == previous.annualisedLossExpectancy()) {
+            return;
+        }
+        remove(oldCell, previous.annualisedLossExpectancy());
+        add(newCell, ale);
+        if (oldCell != newCell) {
+            if (oldCell >= 0) {
+                members[oldCell].clear(row);
+            }
+            if (newCell >= 0) {
+                if (members[newCell] == null) {
+                    members[newCell] = new RowBitmap(rows);
+                }
+                members[newCell].set(row);
+            }
+        }
+    }
+
+    @Override
+    public void riskRemoved(int row, RiskSnapshot previous) {
+        int cell = RiskHeatMap.cellIndex(previous.impact(), previous.likelihood());
+        remove(cell, previous.annualisedLossExpectancy());
+        rows--;
+        if (row == rows) {
+            //The last row, as every row is when the register is cleared: nothing moves down
+            if (cell >= 0) {
+                members[cell].clear(row);
+            }
+            return;
+        }
+        for (RowBitmap bitmap : members) {
+            if (bitmap != null) {
+                bitmap.removeRow(row);
+            }
+        }
+    }
+
+    @Override
+    public void batchApplied() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        heatMap.update(counts, annualisedLossExpectancies, changed);
+        if (onCellsChanged != null) {
+            onCellsChanged.accept(changed);
+        }
+        changed.clear();
+    }
+
+    private void add(int cell, double ale) {
+        //Scores outside 1-10 have no cell
+        if (cell < 0) {
+            return;
+        }
+        counts[cell]++;
+        annualisedLossExpectancies[cell] += ale;
+        changed.set(cell);
+    }
+
+    private void remove(int cell, double ale) {
+        if (cell < 0) {
+            return;
+        }
+        counts[cell]--;
+        annualisedLossExpectancies[cell] = counts[cell] == 0 ? 0 : annualisedLossExpectancies[cell] - ale;
+        changed.set(cell);
+    }
+}
@@ -0,0 +1,28 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+//Measures the risk chart can rank and total risks by
+public enum RankingMetric {
+    ANNUALISED_LOSS_EXPECTANCY("Annualised Loss Expectancy (ALE)"),
+    RESIDUAL_RISK("Residual Risk");
+
+    private final String label;
+
+    RankingMetric(String label) {
+        this.label = label;
+    }
+
+    public double value(RiskSnapshot snapshot) {
+        return this == ANNUALISED_LOSS_EXPECTANCY ? snapshot.annualisedLossExpectancy() : snapshot.residualRisk();
+    }
+
+    public double value(RiskRegister register, int row) {
+        return this == ANNUALISED_LOSS_EXPECTANCY ? register.getAnnualisedLossExpectancy(row) : register.getResidualRisk(row);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,50 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+import java.util.Arrays;
+
+//Running register totals, maintained by adding and subtracting per-risk contributions
+public class RiskAggregates {
+    private int riskCount;
+    private double totalAnnualisedLossExpectancy;
+    private double totalResidualRisk;
+    private final int[] categoryCounts = new int[RiskCategory.values().length];
+
+    public void add(double ale, double residualRisk, RiskCategory category) {
+        riskCount++;
+        totalAnnualisedLossExpectancy += ale;
+        totalResidualRisk += residualRisk;
+        categoryCounts[category.ordinal()]++;
+    }
+
+    public void remove(double ale, double residualRisk, RiskCategory category) {
+        riskCount--;
+        totalAnnualisedLossExpectancy -= ale;
+        totalResidualRisk -= residualRisk;
+        categoryCounts[category.ordinal()]--;
+    }
+
+    public void clear() {
+        riskCount = 0;
+        totalAnnualisedLossExpectancy = 0;
+        totalResidualRisk = 0;
+        Arrays.fill(categoryCounts, 0);
+    }
+
+    public int getRiskCount() {
+        return riskCount;
+    }
+
+    public double getTotalAnnualisedLossExpectancy() {
+        return totalAnnualisedLossExpectancy;
+    }
+
+    public double getTotalResidualRisk() {
+        return totalResidualRisk;
+    }
+
+    public int getCategoryCount(RiskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+}
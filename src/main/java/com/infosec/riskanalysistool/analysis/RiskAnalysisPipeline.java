@@ -0,0 +1,191 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Incremental analysis over the register. Each row added, edited or removed is applied to every stage as the
+//register reports it, and the stages publish their results in a single flush per FX pulse, so adding one risk
+//costs the same whether the register holds ten risks or a million. A stage added after the start is caught up
+//with every row already applied, so views that are built late cost nothing until they are built.
+//
+//Stages undo a row's old contribution from the values the pipeline last applied. Those are kept in primitive
+//columns indexed by row, like the register's own, rather than as an object per risk.
+public class RiskAnalysisPipeline implements RiskRegisterListener {
+    private final RiskRegister register;
+    private final List<RiskAnalysisStage> stages = new ArrayList<>();
+
+    //Last applied values of every row, in the register's row order
+    private byte[] hipaaRules = new byte[0];
+    private byte[] rmfSteps = new byte[0];
+    private int[] impacts = new int[0];
+    private int[] likelihoods = new int[0];
+    private double[] annualisedLossExpectancies = new double[0];
+    private double[] residualRisks = new double[0];
+    private int size;
+
+    //Refilled from the columns for each callback
+    private final RiskSnapshot previous = new RiskSnapshot();
+
+    private int pendingChanges;
+    private boolean started;
+    private boolean flushScheduled;
+    private boolean autoFlush = true;
+
+    public RiskAnalysisPipeline(RiskRegister register) {
+        this.register = register;
+    }
+
+    public void addStage(RiskAnalysisStage stage) {
+        if (started) {
+            for (int row = 0; row < size; row++) {
+                stage.riskAdded(register, row);
+            }
+            stage.batchApplied();
+        }
+        stages.add(stage);
+    }
+
+    //Starts listening and applies the rows already in the register as additions
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        register.addListener(this);
+        if (!register.isEmpty()) {
+            rowsAdded(0, register.size());
+        }
+    }
+
+    public void stop() {
+        register.removeListener(this);
+        started = false;
+        size = 0;
+    }
+
+    //When disabled, stages only publish on an explicit flush() (used by headless callers and benchmarks)
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    @Override
+    public void rowsAdded(int first, int count) {
+        ensureCapacity(size + count);
+        for (int row = first; row < first + count; row++) {
+            record(row);
+            for (RiskAnalysisStage stage : stages) {
+                stage.riskAdded(register, row);
+            }
+        }
+        size += count;
+        changed(count);
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        RiskSnapshot snapshot = snapshot(row);
+        for (RiskAnalysisStage stage : stages) {
+            stage.riskRemoved(row, snapshot);
+        }
+        int tail = size - row - 1;
+        System.arraycopy(hipaaRules, row + 1, hipaaRules, row, tail);
+        System.arraycopy(rmfSteps, row + 1, rmfSteps, row, tail);
+        System.arraycopy(impacts, row + 1, impacts, row, tail);
+        System.arraycopy(likelihoods, row + 1, likelihoods, row, tail);
+        System.arraycopy(annualisedLossExpectancies, row + 1, annualisedLossExpectancies, row, tail);
+        System.arraycopy(residualRisks, row + 1, residualRisks, row, tail);
+        size--;
+        changed(1);
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+        update(row);
+        changed(1);
+    }
+
+    @Override
+    public void valuesChanged(RowChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            update(changes.row(i));
+        }
+        changed(changes.size());
+    }
+
+    @Override
+    public void cleared() {
+        //Last row first, so no later rows are left to move down
+        for (int row = size - 1; row >= 0; row--) {
+            RiskSnapshot snapshot = snapshot(row);
+            for (RiskAnalysisStage stage : stages) {
+                stage.riskRemoved(row, snapshot);
+            }
+        }
+        changed(size);
+        size = 0;
+    }
+
+    //Publishes what the stages have applied since the last flush
+    public void flush() {
+        flushScheduled = false;
+        if (pendingChanges == 0) {
+            return;
+        }
+        long start = Operation.PIPELINE_FLUSH.begin();
+        for (RiskAnalysisStage stage : stages) {
+            stage.batchApplied();
+        }
+        Operation.PIPELINE_FLUSH.end(start, pendingChanges);
+        pendingChanges = 0;
+    }
+
+    private void update(int row) {
+        RiskSnapshot snapshot = snapshot(row);
+        for (RiskAnalysisStage stage : stages) {
+            stage.riskUpdated(register, row, snapshot);
+        }
+        record(row);
+    }
+
+    private RiskSnapshot snapshot(int row) {
+        return previous.set(hipaaRules[row], rmfSteps[row], impacts[row], likelihoods[row], annualisedLossExpectancies[row], residualRisks[row]);
+    }
+
+    private void record(int row) {
+        hipaaRules[row] = (byte) register.getHipaaRule(row).ordinal();
+        rmfSteps[row] = (byte) register.getRmfStep(row).ordinal();
+        impacts[row] = register.getImpact(row);
+        likelihoods[row] = register.getLikelihood(row);
+        annualisedLossExpectancies[row] = register.getAnnualisedLossExpectancy(row);
+        residualRisks[row] = register.getResidualRisk(row);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= hipaaRules.length) {
+            return;
+        }
+        int capacity = Math.max(minCapacity, hipaaRules.length + (hipaaRules.length >> 1));
+        hipaaRules = Arrays.copyOf(hipaaRules, capacity);
+        rmfSteps = Arrays.copyOf(rmfSteps, capacity);
+        impacts = Arrays.copyOf(impacts, capacity);
+        likelihoods = Arrays.copyOf(likelihoods, capacity);
+        annualisedLossExpectancies = Arrays.copyOf(annualisedLossExpectancies, capacity);
+        residualRisks = Arrays.copyOf(residualRisks, capacity);
+    }
+
+    private void changed(int changes) {
+        pendingChanges += changes;
+        if (autoFlush && !flushScheduled) {
+            flushScheduled = true;
+            Platform.runLater(this::flush);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+//A consumer of register changes driven by RiskAnalysisPipeline. Callbacks arrive on the JavaFX Application
+//Thread as the register changes, with batchApplied() once per flush. Rows are the register's current row numbers.
+public interface RiskAnalysisStage {
+    void riskAdded(RiskRegister register, int row);
+
+    void riskUpdated(RiskRegister register, int row, RiskSnapshot previous);
+
+    //The row has already gone from the register, so only the snapshot can be read; later rows have moved down by one
+    void riskRemoved(int row, RiskSnapshot previous);
+
+    default void batchApplied() {
+    }
+}
@@ -0,0 +1,484 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.util.ChartUtil;
+import javafx.scene.Node;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Drives the Risk Chart tab with a bounded number of bars whatever the register size.
+//
+//The chart shows either the top risks by the chosen metric, followed by an "Other" bar for the rest, or the
+//metric's totals rolled up by HIPAA rule, RMF step, category or control measures. Clicking a roll-up bar
+//drills down into the top risks of that group. Every group keeps its own TopRisks heaps and running totals,
+//updated per change, so switching views or drilling down never scans the register unless a heap has gone stale.
+//Control measures groups come and go with the texts in the register, and each row's group is kept in a column
+//so a change knows which group it leaves; only the groups a change touches are updated.
+public class RiskChartStage implements RiskAnalysisStage {
+    //Bars shown for individual risks; the "Other" bar comes on top of these
+    public static final int TOP_RISKS = 15;
+
+    private static final int THREAT_LABEL_LENGTH = 32;
+
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final RiskCategory[] CATEGORIES = RiskCategory.values();
+    private static final RankingMetric[] METRICS = RankingMetric.values();
+
+    //Groups are numbered HIPAA rules first, then RMF steps, then categories
+    private static final int RMF_STEP_GROUPS = HIPAA_RULES.length;
+    private static final int CATEGORY_GROUPS = RMF_STEP_GROUPS + RMF_STEPS.length;
+    private static final int GROUPS = CATEGORY_GROUPS + CATEGORIES.length;
+
+    public enum Grouping {
+        NONE("Top risks"), HIPAA_RULE("By HIPAA Rule"), RMF_STEP("By RMF Step"), CATEGORY("By Category"),
+        CONTROL_MEASURES("By Control Measures");
+
+        private final String label;
+
+        Grouping(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final BarChart<String, Number> chart;
+    private final RiskRegister register;
+    private final XYChart.Series<String, Number> series = new XYChart.Series<>();
+    private final StringConverter<Number> plainFormatter;
+
+    //[metric][0] ranks the whole register, [metric][1 + group] one group
+    private final TopRisks[][] topRisks = new TopRisks[METRICS.length][GROUPS + 1];
+    private final int[] groupCounts = new int[GROUPS];
+    private final double[][] groupTotals = new double[METRICS.length][GROUPS];
+    private int riskCount;
+    //By text, with null and blank text in one group; rowGroups holds each row's group in register row order
+    private final Map<String, ControlMeasuresGroup> controlMeasuresGroups = new HashMap<>();
+    private ControlMeasuresGroup[] rowGroups = new ControlMeasuresGroup[16];
+
+    private RankingMetric metric = RankingMetric.ANNUALISED_LOSS_EXPECTANCY;
+    private Grouping grouping = Grouping.NONE;
+    private int drillGroup = -1;
+    //Set while drilled into a control measure group; null text is its own group
+    private boolean drilledIntoControlMeasures;
+    private String drillControlMeasures;
+    private boolean changed = true;
+    private Runnable onViewChanged = () -> { };
+
+    public RiskChartStage(BarChart<String, Number> chart, RiskRegister register) {
+        this.chart = chart;
+        this.register = register;
+        this.plainFormatter = ((NumberAxis) chart.getYAxis()).getTickLabelFormatter();
+        for (TopRisks[] byGroup : topRisks) {
+            for (int i = 0; i < byGroup.length; i++) {
+                byGroup[i] = new TopRisks(TOP_RISKS);
+            }
+        }
+        chart.setAnimated(false);
+        chart.getData().setAll(List.of(series));
+        redraw();
+    }
+
+    public BarChart<String, Number> getChart() {
+        return chart;
+    }
+
+    //Called after the view changes, including drilling down from a bar click
+    public void setOnViewChanged(Runnable onViewChanged) {
+        this.onViewChanged = onViewChanged;
+    }
+
+    public RankingMetric getMetric() {
+        return metric;
+    }
+
+    public void setMetric(RankingMetric metric) {
+        this.metric = metric;
+        viewChanged();
+    }
+
+    public Grouping getGrouping() {
+        return grouping;
+    }
+
+    //Shows the top risks or a roll-up and leaves any drill-down
+    public void setGrouping(Grouping grouping) {
+        this.grouping = grouping;
+        drillGroup = -1;
+        drilledIntoControlMeasures = false;
+        viewChanged();
+    }
+
+    public boolean isDrilledDown() {
+        return drillGroup >= 0 || drilledIntoControlMeasures;
+    }
+
+    //Returns from a drill-down to the roll-up it came from
+    public void drillUp() {
+        drillGroup = -1;
+        drilledIntoControlMeasures = false;
+        viewChanged();
+    }
+
+    //Description of what the chart is showing
+    public String getViewDescription() {
+        if (drillGroup >= 0) {
+            return "Top risks by " + metric + " in " + groupName(drillGroup);
+        }
+        if (drilledIntoControlMeasures) {
+            return "Top risks by " + metric + " with control measures " + controlMeasuresName(drillControlMeasures);
+        }
+        return grouping == Grouping.NONE ? "Top risks by " + metric : metric + " " + grouping.toString().toLowerCase();
+    }
+
+    private void drillDown(int group) {
+        drillGroup = group;
+        viewChanged();
+    }
+
+    private void drillDown(String controlMeasures) {
+        drilledIntoControlMeasures = true;
+        drillControlMeasures = controlMeasures;
+        viewChanged();
+    }
+
+    private void viewChanged() {
+        redraw();
+        onViewChanged.run();
+    }
+
+    @Override
+    public void riskAdded(RiskRegister register, int row) {
+        int hipaaRule = register.getHipaaRule(row).ordinal();
+        int rmfStep = RMF_STEP_GROUPS + register.getRmfStep(row).ordinal();
+        int category = CATEGORY_GROUPS + category(register, row);
+        for (RankingMetric m : METRICS) {
+            double value = m.value(register, row);
+            TopRisks[] byGroup = topRisks[m.ordinal()];
+            byGroup[0].put(register, row, value);
+            byGroup[1 + hipaaRule].put(register, row, value);
+            byGroup[1 + rmfStep].put(register, row, value);
+            byGroup[1 + category].put(register, row, value);
+        }
+        addToGroups(+1, hipaaRule, rmfStep, category, register.getAnnualisedLossExpectancy(row), register.getResidualRisk(row));
+        //Rows are only ever added at the end
+        if (row == rowGroups.length) {
+            rowGroups = Arrays.copyOf(rowGroups, row + (row >> 1));
+        }
+        ControlMeasuresGroup group = controlMeasuresGroup(register.getControlMeasures(row));
+        group.add(register, row);
+        rowGroups[row] = group;
+        riskCount++;
+        changed = true;
+    }
+
+    @Override
+    public void riskUpdated(RiskRegister register, int row, RiskSnapshot previous) {
+        int[] oldGroups = {previous.hipaaRule().ordinal(), RMF_STEP_GROUPS + previous.rmfStep().ordinal(), CATEGORY_GROUPS + previous.category().ordinal()};
+        int[] newGroups = {register.getHipaaRule(row).ordinal(), RMF_STEP_GROUPS + register.getRmfStep(row).ordinal(), CATEGORY_GROUPS + category(register, row)};
+        for (RankingMetric m : METRICS) {
+            double value = m.value(register, row);
+            TopRisks[] byGroup = topRisks[m.ordinal()];
+            byGroup[0].put(register, row, value);
+            for (int i = 0; i < newGroups.length; i++) {
+                if (oldGroups[i] != newGroups[i]) {
+                    byGroup[1 + oldGroups[i]].remove(row);
+                }
+                byGroup[1 + newGroups[i]].put(register, row, value);
+            }
+        }
+        addToGroups(-1, oldGroups[0], oldGroups[1], oldGroups[2], previous.annualisedLossExpectancy(), previous.residualRisk());
+        addToGroups(+1, newGroups[0], newGroups[1], newGroups[2], register.getAnnualisedLossExpectancy(row), register.getResidualRisk(row));
+
+        ControlMeasuresGroup oldGroup = rowGroups[row];
+        ControlMeasuresGroup newGroup = controlMeasuresGroup(register.getControlMeasures(row));
+        if (oldGroup != newGroup) {
+            oldGroup.leave(row);
+        }
+        oldGroup.subtract(previous);
+        newGroup.add(register, row);
+        rowGroups[row] = newGroup;
+        dropIfEmpty(oldGroup);
+        changed = true;
+    }
+
+    @Override
+    public void riskRemoved(int row, RiskSnapshot previous) {
+        int hipaaRule = previous.hipaaRule().ordinal();
+        int rmfStep = RMF_STEP_GROUPS + previous.rmfStep().ordinal();
+        int category = CATEGORY_GROUPS + previous.category().ordinal();
+        for (TopRisks[] byGroup : topRisks) {
+            byGroup[0].removeDetached();
+            byGroup[1 + hipaaRule].removeDetached();
+            byGroup[1 + rmfStep].removeDetached();
+            byGroup[1 + category].removeDetached();
+        }
+        addToGroups(-1, hipaaRule, rmfStep, category, previous.annualisedLossExpectancy(), previous.residualRisk());
+
+        ControlMeasuresGroup group = rowGroups[row];
+        group.removeDetached();
+        group.subtract(previous);
+        dropIfEmpty(group);
+        System.arraycopy(rowGroups, row + 1, rowGroups, row, riskCount - row - 1);
+        riskCount--;
+        rowGroups[riskCount] = null;
+        changed = true;
+    }
+
+    private ControlMeasuresGroup controlMeasuresGroup(String controlMeasures) {
+        return controlMeasuresGroups.computeIfAbsent(controlMeasuresKey(controlMeasures), ControlMeasuresGroup::new);
+    }
+
+    private void dropIfEmpty(ControlMeasuresGroup group) {
+        if (group.count == 0) {
+            controlMeasuresGroups.remove(group.key);
+        }
+    }
+
+    private static String controlMeasuresKey(String controlMeasures) {
+        return controlMeasures == null ? "" : controlMeasures;
+    }
+
+    private static int category(RiskRegister register, int row) {
+        return RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row)).ordinal();
+    }
+
+    private void addToGroups(int sign, int hipaaRule, int rmfStep, int category, double ale, double residualRisk) {
+        for (int group : new int[]{hipaaRule, rmfStep, category}) {
+            groupCounts[group] += sign;
+            groupTotals[RankingMetric.ANNUALISED_LOSS_EXPECTANCY.ordinal()][group] += sign * ale;
+            groupTotals[RankingMetric.RESIDUAL_RISK.ordinal()][group] += sign * residualRisk;
+        }
+    }
+
+    @Override
+    public void batchApplied() {
+        if (changed) {
+            redraw();
+        }
+    }
+
+    //Replaces the series with at most TOP_RISKS + 1 bars
+    private void redraw() {
+        changed = false;
+        long start = Operation.CHART_UPDATE.begin();
+        List<XYChart.Data<String, Number>> bars = new ArrayList<>(TOP_RISKS + 1);
+        List<Integer> barGroups = new ArrayList<>(TOP_RISKS + 1);
+        List<String> barControlMeasures = new ArrayList<>(TOP_RISKS + 1);
+        if (drilledIntoControlMeasures) {
+            addControlMeasureTopRiskBars(bars);
+        } else if (grouping == Grouping.CONTROL_MEASURES) {
+            addControlMeasureBars(bars, barControlMeasures);
+        } else if (grouping == Grouping.NONE || drillGroup >= 0) {
+            addTopRiskBars(bars);
+        } else {
+            int first = grouping == Grouping.HIPAA_RULE ? 0 : grouping == Grouping.RMF_STEP ? RMF_STEP_GROUPS : CATEGORY_GROUPS;
+            int end = grouping == Grouping.HIPAA_RULE ? RMF_STEP_GROUPS : grouping == Grouping.RMF_STEP ? CATEGORY_GROUPS : GROUPS;
+            for (int group = first; group < end; group++) {
+                double total = groupTotals[metric.ordinal()][group];
+                bars.add(bar(groupName(group), total, String.format("%s: %,d risks, %s %s", groupName(group), groupCounts[group], metric, format(total))));
+                barGroups.add(group);
+            }
+        }
+
+        series.setName(metric.toString());
+        series.getData().setAll(bars);
+        NumberAxis axis = (NumberAxis) chart.getYAxis();
+        if (metric == RankingMetric.ANNUALISED_LOSS_EXPECTANCY) {
+            ChartUtil.installCurrencyFormatter(axis);
+        } else {
+            axis.setTickLabelFormatter(plainFormatter);
+        }
+        for (int i = 0; i < bars.size(); i++) {
+            XYChart.Data<String, Number> bar = bars.get(i);
+            ChartUtil.installAleTooltip(bar);
+            Node node = bar.getNode();
+            if (node != null && i < barGroups.size()) {
+                int group = barGroups.get(i);
+                node.setOnMouseClicked(e -> drillDown(group));
+            } else if (node != null && i < barControlMeasures.size()) {
+                String controlMeasures = barControlMeasures.get(i);
+                node.setOnMouseClicked(e -> drillDown(controlMeasures));
+            }
+        }
+        Operation.CHART_UPDATE.end(start, bars.size());
+    }
+
+    private void addTopRiskBars(List<XYChart.Data<String, Number>> bars) {
+        TopRisks top = topRisks[metric.ordinal()][1 + drillGroup];
+        if (top.isStale()) {
+            int group = drillGroup;
+            top.rebuild(register, metric, row -> group < 0 || inGroup(row, group));
+        }
+
+        List<TopRisks.Entry> ranked = top.ranked();
+        double shown = 0;
+        for (int i = 0; i < ranked.size(); i++) {
+            TopRisks.Entry entry = ranked.get(i);
+            String threat = entry.risk().getThreat();
+            //Ranks keep the categories distinct when threats share a name
+            bars.add(bar((i + 1) + ". " + abbreviate(threat), entry.value(), threat + "\n" + metric + ": " + format(entry.value())));
+            shown += entry.value();
+        }
+
+        int total = drillGroup < 0 ? riskCount : groupCounts[drillGroup];
+        int others = total - ranked.size();
+        if (others > 0) {
+            double otherTotal = Math.max(0, groupTotal(drillGroup) - shown);
+            bars.add(bar(String.format("Other (%,d)", others), otherTotal, String.format("%,d other risks\n%s: %s", others, metric, format(otherTotal))));
+        }
+    }
+
+    //The largest control measure groups by the metric's total, then an "Other" bar for the rest
+    private void addControlMeasureBars(List<XYChart.Data<String, Number>> bars, List<String> barControlMeasures) {
+        int m = metric.ordinal();
+        List<ControlMeasuresGroup> ranked = new ArrayList<>(controlMeasuresGroups.values());
+        ranked.sort((a, b) -> Double.compare(b.totals[m], a.totals[m]));
+        double otherTotal = 0;
+        int otherCount = 0;
+        for (int i = 0; i < ranked.size(); i++) {
+            ControlMeasuresGroup group = ranked.get(i);
+            if (i >= TOP_RISKS) {
+                otherTotal += group.totals[m];
+                otherCount++;
+                continue;
+            }
+            String name = controlMeasuresName(group.key);
+            bars.add(bar((i + 1) + ". " + abbreviate(name), group.totals[m], String.format("%s: %,d risks, %s %s", name, group.count, metric, format(group.totals[m]))));
+            barControlMeasures.add(group.key);
+        }
+        if (otherCount > 0) {
+            bars.add(bar(String.format("Other (%,d)", otherCount), otherTotal, String.format("%,d other control measures\n%s: %s", otherCount, metric, format(otherTotal))));
+        }
+    }
+
+    private void addControlMeasureTopRiskBars(List<XYChart.Data<String, Number>> bars) {
+        ControlMeasuresGroup group = controlMeasuresGroups.get(controlMeasuresKey(drillControlMeasures));
+        if (group == null) {
+            //No risk has these control measures any more
+            return;
+        }
+        TopRisks top = group.topRisks[metric.ordinal()];
+        if (top.isStale()) {
+            top.rebuild(register, metric, row -> rowGroups[row] == group);
+        }
+        List<TopRisks.Entry> ranked = top.ranked();
+        for (int i = 0; i < ranked.size(); i++) {
+            TopRisks.Entry entry = ranked.get(i);
+            String threat = entry.risk().getThreat();
+            bars.add(bar((i + 1) + ". " + abbreviate(threat), entry.value(), threat + "\n" + metric + ": " + format(entry.value())));
+        }
+    }
+
+    private static String controlMeasuresName(String controlMeasures) {
+        return controlMeasures == null || controlMeasures.isBlank() ? "(none)" : controlMeasures;
+    }
+
+    private double groupTotal(int group) {
+        if (group >= 0) {
+            return groupTotals[metric.ordinal()][group];
+        }
+        //Every risk has exactly one HIPAA rule, so those groups add up to the whole register
+        double total = 0;
+        for (int i = 0; i < RMF_STEP_GROUPS; i++) {
+            total += groupTotals[metric.ordinal()][i];
+        }
+        return total;
+    }
+
+    private boolean inGroup(int row, int group) {
+        if (group < RMF_STEP_GROUPS) {
+            return register.getHipaaRule(row).ordinal() == group;
+        } else if (group < CATEGORY_GROUPS) {
+            return register.getRmfStep(row).ordinal() == group - RMF_STEP_GROUPS;
+        } else {
+            return RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row)).ordinal() == group - CATEGORY_GROUPS;
+        }
+    }
+
+    private static String groupName(int group) {
+        if (group < RMF_STEP_GROUPS) {
+            return HIPAA_RULES[group].toString();
+        } else if (group < CATEGORY_GROUPS) {
+            return RMF_STEPS[group - RMF_STEP_GROUPS].toString();
+        } else {
+            return CATEGORIES[group - CATEGORY_GROUPS].toString();
+        }
+    }
+
+    private static XYChart.Data<String, Number> bar(String label, double value, String description) {
+        return new XYChart.Data<>(label, value, description);
+    }
+
+    private String format(double value) {
+        return metric == RankingMetric.ANNUALISED_LOSS_EXPECTANCY ? ChartUtil.formatCurrency(value) : String.format("%,.1f", value);
+    }
+
+    private static String abbreviate(String threat) {
+        if (threat == null) {
+            return "";
+        }
+        return threat.length() <= THREAT_LABEL_LENGTH ? threat : threat.substring(0, THREAT_LABEL_LENGTH - 1) + "…";
+    }
+
+    //The risks sharing one control measures text: their count, totals and top risks by each metric
+    private static final class ControlMeasuresGroup {
+        private final String key;
+        private int count;
+        private final double[] totals = new double[METRICS.length];
+        private final TopRisks[] topRisks = new TopRisks[METRICS.length];
+
+        ControlMeasuresGroup(String key) {
+            this.key = key;
+            for (int i = 0; i < topRisks.length; i++) {
+                topRisks[i] = new TopRisks(TOP_RISKS);
+            }
+        }
+
+        //Adds a row joining the group, or the new values of a row still in it
+        void add(RiskRegister register, int row) {
+            count++;
+            for (RankingMetric m : METRICS) {
+                double value = m.value(register, row);
+                totals[m.ordinal()] += value;
+                topRisks[m.ordinal()].put(register, row, value);
+            }
+        }
+
+        //Takes off a row's old values, whether it is leaving the group or being updated in it
+        void subtract(RiskSnapshot previous) {
+            count--;
+            for (RankingMetric m : METRICS) {
+                totals[m.ordinal()] -= m.value(previous);
+            }
+        }
+
+        void leave(int row) {
+            for (TopRisks top : topRisks) {
+                top.remove(row);
+            }
+        }
+
+        void removeDetached() {
+            for (TopRisks top : topRisks) {
+                top.removeDetached();
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//Distributions of ALE and residual risk over the whole register and per HIPAA rule, RMF step and category,
+//each held as quantile sketches of a few kilobytes rather than the values themselves.
+//
+//Sketches only take values in, so a risk that is removed or edited is cancelled out by adding its old value to
+//a second sketch of removed values, and quantiles are read from the difference. That keeps updates at
+//O(log k) but the error grows with the removed values, so once they pass a quarter of the added ones the
+//distribution reports itself stale and should be rebuilt from the register. Distributions of groups small
+//enough to still be held exactly take removals directly.
+//Distributions built from different registers, or from parts of one, merge into the distribution of them all.
+public final class RiskDistributions {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final RiskCategory[] CATEGORIES = RiskCategory.values();
+    private static final RankingMetric[] METRICS = RankingMetric.values();
+
+    //Groups are numbered the whole register first, then HIPAA rules, RMF steps and categories
+    private static final int HIPAA_RULE_GROUPS = 1;
+    private static final int RMF_STEP_GROUPS = HIPAA_RULE_GROUPS + HIPAA_RULES.length;
+    private static final int CATEGORY_GROUPS = RMF_STEP_GROUPS + RMF_STEPS.length;
+    private static final int GROUPS = CATEGORY_GROUPS + CATEGORIES.length;
+
+    private static final int MIN_ROWS_PER_TASK = 65_536;
+
+    private final Distribution[][] distributions = new Distribution[METRICS.length][GROUPS];
+
+    public RiskDistributions() {
+        for (Distribution[] byGroup : distributions) {
+            for (int group = 0; group < GROUPS; group++) {
+                byGroup[group] = new Distribution();
+            }
+        }
+    }
+
+    //Sketches every row of the register, splitting the rows across the pool and merging the parts
+    public static RiskDistributions of(RiskRegister register) {
+        return of(register, ForkJoinPool.commonPool());
+    }
+
+    public static RiskDistributions of(RiskRegister register, ForkJoinPool pool) {
+        return pool.invoke(new BuildTask(register, 0, register.size()));
+    }
+
+    public void add(HIPAARule hipaaRule, RMFStep rmfStep, RiskCategory category, double annualisedLossExpectancy, double residualRisk) {
+        for (RankingMetric metric : METRICS) {
+            double value = metric == RankingMetric.ANNUALISED_LOSS_EXPECTANCY ? annualisedLossExpectancy : residualRisk;
+            Distribution[] byGroup = distributions[metric.ordinal()];
+            byGroup[0].add(value);
+            byGroup[HIPAA_RULE_GROUPS + hipaaRule.ordinal()].add(value);
+            byGroup[RMF_STEP_GROUPS + rmfStep.ordinal()].add(value);
+            byGroup[CATEGORY_GROUPS + category.ordinal()].add(value);
+        }
+    }
+
+    public void remove(HIPAARule hipaaRule, RMFStep rmfStep, RiskCategory category, double annualisedLossExpectancy, double residualRisk) {
+        for (RankingMetric metric : METRICS) {
+            double value = metric == RankingMetric.ANNUALISED_LOSS_EXPECTANCY ? annualisedLossExpectancy : residualRisk;
+            Distribution[] byGroup = distributions[metric.ordinal()];
+            byGroup[0].remove(value);
+            byGroup[HIPAA_RULE_GROUPS + hipaaRule.ordinal()].remove(value);
+            byGroup[RMF_STEP_GROUPS + rmfStep.ordinal()].remove(value);
+            byGroup[CATEGORY_GROUPS + category.ordinal()].remove(value);
+        }
+    }
+
+    //Adds everything the other distributions hold, e.g. another hospital's register
+    public void merge(RiskDistributions other) {
+        for (int metric = 0; metric < METRICS.length; metric++) {
+            for (int group = 0; group < GROUPS; group++) {
+                distributions[metric][group].merge(other.distributions[metric][group]);
+            }
+        }
+    }
+
+    //True when removals have made some distribution too inaccurate and it should be rebuilt
+    public boolean isStale() {
+        for (Distribution[] byGroup : distributions) {
+            for (Distribution distribution : byGroup) {
+                if (distribution.isStale()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public Distribution whole(RankingMetric metric) {
+        return distributions[metric.ordinal()][0];
+    }
+
+    public Distribution of(RankingMetric metric, HIPAARule hipaaRule) {
+        return distributions[metric.ordinal()][HIPAA_RULE_GROUPS + hipaaRule.ordinal()];
+    }
+
+    public Distribution of(RankingMetric metric, RMFStep rmfStep) {
+        return distributions[metric.ordinal()][RMF_STEP_GROUPS + rmfStep.ordinal()];
+    }
+
+    public Distribution of(RankingMetric metric, RiskCategory category) {
+        return distributions[metric.ordinal()][CATEGORY_GROUPS + category.ordinal()];
+    }
+
+    //Bytes held by all the sketches
+    public long sketchBytes() {
+        long bytes = 0;
+        for (Distribution[] byGroup : distributions) {
+            for (Distribution distribution : byGroup) {
+                bytes += distribution.sketchBytes();
+            }
+        }
+        return bytes;
+    }
+
+    //One metric of one group: the values added less those removed
+    public static final class Distribution {
+        private final QuantileSketch added = new QuantileSketch();
+        private QuantileSketch removed;
+
+        void add(double value) {
+            added.add(value);
+        }
+
+        void remove(double value) {
+            if (added.isExact() && (removed == null || removed.isEmpty())) {
+                added.remove(value);
+                return;
+            }
+            if (removed == null) {
+                removed = new QuantileSketch();
+            }
+            removed.add(value);
+        }
+
+        void merge(Distribution other) {
+            added.merge(other.added);
+            if (other.removed != null && !other.removed.isEmpty()) {
+                if (removed == null) {
+                    removed = new QuantileSketch();
+                }
+                removed.merge(other.removed);
+            }
+        }
+
+        boolean isStale() {
+            return removed != null && removed.count() * 4 > added.count();
+        }
+
+        public long count() {
+            return added.count() - (removed == null ? 0 : removed.count());
+        }
+
+        //Bound on how far a quantile's rank can be from the true rank, as a fraction of the count; 0 when exact
+        public double rankError() {
+            long count = count();
+            if (added.isExact() && (removed == null || removed.isEmpty()) || count == 0) {
+                return 0;
+            }
+            return QuantileSketch.RANK_ERROR * (added.count() + (removed == null ? 0 : removed.count())) / count;
+        }
+
+        public double quantile(double fraction) {
+            return quantiles(fraction)[0];
+        }
+
+        //Several quantiles from one pass over the sketches; NaN when the group is empty
+        public double[] quantiles(double... fractions) {
+            double[] values = new double[fractions.length];
+            if (count() <= 0) {
+                Arrays.fill(values, Double.NaN);
+                return values;
+            }
+            QuantileSketch.Weighted weighted = QuantileSketch.Weighted.of(added, removed);
+            for (int i = 0; i < fractions.length; i++) {
+                values[i] = weighted.quantile(fractions[i]);
+            }
+            return values;
+        }
+
+        long sketchBytes() {
+            return 8L * (added.retained() + (removed == null ? 0 : removed.retained()));
+        }
+    }
+
+    //Sketches a range of rows, splitting it in two until it is small enough, then merges the halves
+    private static final class BuildTask extends RecursiveTask<RiskDistributions> {
+        private final RiskRegister register;
+        private final int from;
+        private final int to;
+
+        BuildTask(RiskRegister register, int from, int to) {
+            this.register = register;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected RiskDistributions compute() {
+            if (to - from > MIN_ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                BuildTask left = new BuildTask(register, from, middle);
+                left.fork();
+                RiskDistributions right = new BuildTask(register, middle, to).compute();
+                RiskDistributions distributions = left.join();
+                distributions.merge(right);
+                return distributions;
+            }
+            RiskDistributions distributions = new RiskDistributions();
+            for (int row = from; row < to; row++) {
+                distributions.add(register.getHipaaRule(row), register.getRmfStep(row), RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row)),
+                        register.getAnnualisedLossExpectancy(row), register.getResidualRisk(row));
+            }
+            return distributions;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskScoring;
+
+//Values of a row as they were when the pipeline last applied it, so stages can undo the row's old contribution
+//after the register has already been changed in place. The pipeline keeps these values in columns and refills
+//one snapshot for each callback, so a stage must read it during the callback and never keep it.
+public final class RiskSnapshot {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+
+    private HIPAARule hipaaRule;
+    private RMFStep rmfStep;
+    private int impact;
+    private int likelihood;
+    private double annualisedLossExpectancy;
+    private double residualRisk;
+
+    RiskSnapshot() {
+    }
+
+    RiskSnapshot set(int hipaaRule, int rmfStep, int impact, int likelihood, double annualisedLossExpectancy, double residualRisk) {
+        this.hipaaRule = HIPAA_RULES[hipaaRule];
+        this.rmfStep = RMF_STEPS[rmfStep];
+        this.impact = impact;
+        this.likelihood = likelihood;
+        this.annualisedLossExpectancy = annualisedLossExpectancy;
+        this.residualRisk = residualRisk;
+        return this;
+    }
+
+    public HIPAARule hipaaRule() {
+        return hipaaRule;
+    }
+
+    public RMFStep rmfStep() {
+        return rmfStep;
+    }
+
+    public int impact() {
+        return impact;
+    }
+
+    public int likelihood() {
+        return likelihood;
+    }
+
+    public double annualisedLossExpectancy() {
+        return annualisedLossExpectancy;
+    }
+
+    public double residualRisk() {
+        return residualRisk;
+    }
+
+    public int riskPriorityNumber() {
+        return RiskScoring.riskPriorityNumber(impact, likelihood);
+    }
+
+    public RiskCategory category() {
+        return RiskCategory.fromRiskPriorityNumber(riskPriorityNumber());
+    }
+}
@@ -0,0 +1,128 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.Risk;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+//The highest-valued risks of a group, held in a min-heap bounded to capacity entries.
+//
+//While the heap is not full it holds every risk of the group. Adds and increases cost O(log capacity): a risk
+//either joins or is ignored because it does not beat the smallest entry. When a member falls or leaves a full
+//heap, some risk outside it may now belong in it, so the heap is marked stale and is rebuilt from the register
+//the next time it is read.
+//
+//Members are found by scanning the heap, which is never larger than capacity, so only the risks in it have an
+//entry, and only they need a row view; views follow their rows when earlier rows are removed.
+final class TopRisks {
+    private static final Comparator<Entry> BY_VALUE = Comparator.comparingDouble(Entry::value);
+
+    private final int capacity;
+    private final PriorityQueue<Entry> heap;
+    private boolean stale;
+
+    TopRisks(int capacity) {
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(capacity, BY_VALUE);
+    }
+
+    //Adds a register row of the group or records its new value
+    void put(RiskRegister register, int row, double value) {
+        Entry existing = find(row);
+        if (existing != null) {
+            if (value < existing.value() && heap.size() == capacity) {
+                stale = true;
+            }
+            heap.remove(existing);
+            insert(existing.risk(), value);
+            return;
+        }
+        if (heap.size() < capacity) {
+            insert(register.view(row), value);
+        } else if (value > heap.peek().value()) {
+            heap.poll();
+            insert(register.view(row), value);
+        }
+    }
+
+    //Drops a row that has left the group
+    void remove(int row) {
+        drop(find(row));
+    }
+
+    //Drops a row that has been removed from the register; its view is the one that is now detached
+    void removeDetached() {
+        for (Entry entry : heap) {
+            if (entry.risk().isDetached()) {
+                drop(entry);
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        heap.clear();
+        stale = false;
+    }
+
+    boolean isStale() {
+        return stale;
+    }
+
+    //Refills the heap from every register row in the group
+    void rebuild(RiskRegister register, RankingMetric metric, IntPredicate inGroup) {
+        PriorityQueue<double[]> rows = new PriorityQueue<>(capacity, Comparator.comparingDouble(row -> row[0]));
+        for (int row = 0; row < register.size(); row++) {
+            if (!inGroup.test(row)) {
+                continue;
+            }
+            double value = metric.value(register, row);
+            if (rows.size() < capacity) {
+                rows.add(new double[]{value, row});
+            } else if (value > rows.peek()[0]) {
+                rows.poll();
+                rows.add(new double[]{value, row});
+            }
+        }
+        clear();
+        for (double[] row : rows) {
+            insert(register.view((int) row[1]), row[0]);
+        }
+    }
+
+    //Members from highest to lowest value
+    List<Entry> ranked() {
+        List<Entry> ranked = new ArrayList<>(heap);
+        ranked.sort(BY_VALUE.reversed());
+        return ranked;
+    }
+
+    private Entry find(int row) {
+        for (Entry entry : heap) {
+            if (entry.risk().getRow() == row) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void drop(Entry entry) {
+        if (entry != null) {
+            if (heap.size() == capacity) {
+                stale = true;
+            }
+            heap.remove(entry);
+        }
+    }
+
+    private void insert(Risk risk, double value) {
+        heap.add(new Entry(risk, value));
+    }
+
+    record Entry(Risk risk, double value) {
+    }
+}
@@ -0,0 +1,232 @@
+package com.infosec.riskanalysistool.cli;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.io.ExportResult;
+import com.infosec.riskanalysistool.io.ImportError;
+import com.infosec.riskanalysistool.io.ImportResult;
+import com.infosec.riskanalysistool.io.ReportExporter;
+import com.infosec.riskanalysistool.io.RiskImporter;
+import com.infosec.riskanalysistool.model.RecommendationEngine;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.scoring.AnalysisInput;
+import com.infosec.riskanalysistool.scoring.RegisterAnalysis;
+import com.infosec.riskanalysistool.scoring.RiskScorer;
+import com.infosec.riskanalysistool.service.ScoringServer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+
+//Batch scoring without the UI: reads register files (CSV or JSON Lines, as "Import Risks..." does), scores
+//and categorises every risk on the fork/join pool and prints a summary per file, optionally writing the scored
+//report. With --serve it runs ScoringServer instead, scoring risks sent over HTTP until it is stopped. Only
+//JavaFX-free packages are touched, so it runs from the class path with no JavaFX on it.
+//
+//java -cp target/classes com.infosec.riskanalysistool.cli.RiskAnalysisCli [--top n] [--report out.csv] risks.csv...
+//java -cp target/classes com.infosec.riskanalysistool.cli.RiskAnalysisCli --serve 8080
+//
+//Amounts are printed as plain numbers: a currency format would cost more to set up than scoring a small file.
+//Exits with 0 when every file was scored, 1 when a file could not be read or written and 2 for bad arguments.
+public final class RiskAnalysisCli {
+    static final int OK = 0;
+    static final int FAILED = 1;
+    static final int USAGE = 2;
+
+    private static final int DEFAULT_TOP_RISKS = 10;
+    //Rejected rows listed per file; the rest are only counted
+    private static final int LISTED_ERRORS = 10;
+    private static final String USAGE_TEXT = """
+            Usage: RiskAnalysisCli [--top n] [--report file] register-file...
+                   RiskAnalysisCli --serve port
+              Scores every risk in each CSV or JSON Lines register file and prints its totals,
+              risks per category and top risks by ALE.
+              --top n        Number of top risks to list (default 10, 0 for none)
+              --report file  Write the scored register as a CSV, HTML or PDF report (one input file only)
+              --serve port   Score risks sent over HTTP on this machine until stopped (0 picks a free port):
+                             POST one JSON risk to /score or JSON Lines to /score/batch""";
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final RiskImporter importer = new RiskImporter();
+    private final RiskScorer scorer = new RiskScorer();
+
+    RiskAnalysisCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        //-Driskanalysistool.jfr=true commits the timings to a flight recording, at the cost of starting JFR
+        Operation.setFlightRecorderEvents(Boolean.getBoolean("riskanalysistool.jfr"));
+        System.exit(new RiskAnalysisCli(System.out, System.err).run(args));
+    }
+
+    int run(String[] args) {
+        int topRisks = DEFAULT_TOP_RISKS;
+        Path report = null;
+        int servePort = -1;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ((arg.equals("--top") || arg.equals("--report") || arg.equals("--serve")) && i + 1 == args.length) {
+                return usage(arg + " needs a value");
+            }
+            switch (arg) {
+                case "--top" -> {
+                    try {
+                        topRisks = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        topRisks = -1;
+                    }
+                    if (topRisks < 0) {
+                        return usage("--top must be a whole number of zero or more: " + args[i]);
+                    }
+                }
+                case "--report" -> report = Path.of(args[++i]);
+                case "--serve" -> {
+                    try {
+                        servePort = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        servePort = -1;
+                    }
+                    if (servePort < 0 || servePort > 65_535) {
+                        return usage("--serve must be a port from 0 to 65535: " + args[i]);
+                    }
+                }
+                case "-h", "--help" -> {
+                    out.println(USAGE_TEXT);
+                    return OK;
+                }
+                default -> {
+                    if (arg.startsWith("-")) {
+                        return usage("Unknown option " + arg);
+                    }
+                    files.add(Path.of(arg));
+                }
+            }
+        }
+        if (servePort >= 0) {
+            return files.isEmpty() && report == null ? serve(servePort) : usage("--serve takes no register files or report");
+        }
+        if (files.isEmpty()) {
+            return usage("No register file given");
+        }
+        if (report != null && files.size() > 1) {
+            return usage("--report needs exactly one register file");
+        }
+
+        int status = OK;
+        for (Path file : files) {
+            try {
+                score(file, topRisks, report);
+            } catch (IOException | RuntimeException e) {
+                err.println(file + ": " + (e.getMessage() != null ? e.getMessage() : e.toString()));
+                status = FAILED;
+            }
+        }
+        return status;
+    }
+
+    private int serve(int port) {
+        ScoringServer.configureForManyClients();
+        ScoringServer server = new ScoringServer();
+        try {
+            port = server.start(port);
+        } catch (IOException e) {
+            err.println("Cannot listen on port " + port + ": " + e.getMessage());
+            return FAILED;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "scoring-server-stop"));
+        out.printf("Scoring risks on http://127.0.0.1:%d/score and /score/batch; stop with Ctrl+C%n", port);
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.close();
+        return OK;
+    }
+
+    private int usage(String problem) {
+        err.println(problem);
+        err.println(USAGE_TEXT);
+        return USAGE;
+    }
+
+    private void score(Path file, int topRisks, Path report) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("No such file");
+        }
+        ImportResult imported = importer.importFile(file);
+        RiskBatch risks = imported.getBatch();
+        for (ImportError error : imported.getErrors().subList(0, Math.min(LISTED_ERRORS, imported.getErrors().size()))) {
+            err.println(file + ": " + error);
+        }
+        if (imported.getErrorCount() > LISTED_ERRORS) {
+            err.printf("%s: %,d more rows rejected%n", file, imported.getErrorCount() - LISTED_ERRORS);
+        }
+
+        long scoring = System.nanoTime();
+        RegisterAnalysis analysis = scorer.score(AnalysisInput.from(risks));
+        long scoringNanos = System.nanoTime() - scoring;
+
+        out.printf("%s: %,d risks scored, %,d rows rejected%n", file, analysis.getRiskCount(), imported.getErrorCount());
+        out.printf("  Total ALE:           %,.2f%n", analysis.getTotalAnnualisedLossExpectancy());
+        out.printf("  Total residual risk: %,.1f%n", analysis.getTotalResidualRisk());
+        out.printf("  %-10s %12s %22s%n", "Category", "Risks", "ALE");
+        for (RiskCategory category : RiskCategory.values()) {
+            out.printf("  %-10s %,12d %,22.2f%n", category, analysis.getCategoryCount(category),
+                    analysis.getCategoryAnnualisedLossExpectancy(category));
+        }
+        int[] top = topRows(analysis, topRisks);
+        if (top.length > 0) {
+            out.printf("  Top %d risks by ALE:%n", top.length);
+            for (int row : top) {
+                out.printf("    %s (#%d): ALE %,.2f, %s, RPN %d, residual risk %.1f%n", risks.getThreat(row), row + 1,
+                        analysis.getAnnualisedLossExpectancy(row), analysis.getCategory(row),
+                        analysis.getRiskPriorityNumber(row), analysis.getResidualRisk(row));
+                for (String line : RecommendationEngine.recommendation(analysis.getRecommendationKey(row)).split("\n")) {
+                    if (!line.isBlank()) {
+                        out.println("      " + line.strip());
+                    }
+                }
+            }
+        }
+        out.printf("  Read %,.1f MB in %,.0f ms (%,.0f risks/s), scored in %,.0f ms (%,.0f risks/s)%n",
+                imported.getBytes() / 1e6, imported.getElapsedNanos() / 1e6, imported.rowsPerSecond(),
+                scoringNanos / 1e6, analysis.getRiskCount() * 1e9 / Math.max(1, scoringNanos));
+
+        if (report != null) {
+            ExportResult exported = new ReportExporter().export(risks, List.of(), report);
+            out.printf("  Report: %s, %,.1f MB in %,.0f ms%n", exported.getPath(), exported.getBytes() / 1e6,
+                    exported.getElapsedNanos() / 1e6);
+        }
+    }
+
+    //Rows with the highest ALE, highest first; ties go to the earlier row
+    private static int[] topRows(RegisterAnalysis analysis, int count) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, count), (a, b) -> {
+            int byValue = Double.compare(analysis.getAnnualisedLossExpectancy(a), analysis.getAnnualisedLossExpectancy(b));
+            return byValue != 0 ? byValue : Integer.compare(b, a);
+        });
+        for (int row = 0; row < analysis.getRiskCount() && count > 0; row++) {
+            if (heap.size() < count) {
+                heap.add(row);
+            } else if (analysis.getAnnualisedLossExpectancy(row) > analysis.getAnnualisedLossExpectancy(heap.peek())) {
+                heap.poll();
+                heap.add(row);
+            }
+        }
+        int[] rows = new int[heap.size()];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            rows[i] = heap.poll();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,106 @@
+package com.infosec.riskanalysistool.diagnostics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Rewrites a metrics file at a fixed interval, for monitoring tools to scrape without a display.
+//The file is in the Prometheus text format with latencies in seconds; each write goes to a temporary file
+//that is then moved over the old one, so readers never see a partial file.
+public class MetricsReporter implements AutoCloseable {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+    private MetricsSnapshot previous = MetricsSnapshot.take();
+
+    private MetricsReporter(Path file, Duration interval) {
+        this.file = file;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        scheduler.scheduleAtFixedRate(this::writeQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public static MetricsReporter start(Path file, Duration interval) {
+        return new MetricsReporter(file, interval);
+    }
+
+    //Writes the current metrics now
+    public synchronized void write() throws IOException {
+        MetricsSnapshot current = MetricsSnapshot.take();
+        String text = format(current, previous);
+        previous = current;
+        Path parent = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temporary, text, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException e) {
+            //A failed write is retried at the next interval; there is nobody to tell in headless runs
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    //Writes a final copy and stops
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        write();
+    }
+
+    static String format(MetricsSnapshot current, MetricsSnapshot previous) {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# HELP riskanalysistool_operation_calls_total Calls of each instrumented operation\n");
+        out.append("# TYPE riskanalysistool_operation_calls_total counter\n");
+        for (Operation operation : Operation.values()) {
+            out.append("riskanalysistool_operation_calls_total{operation=\"").append(operation.name().toLowerCase(Locale.ROOT))
+                    .append("\"} ").append(current.calls(operation)).append('\n');
+        }
+
+        out.append("# HELP riskanalysistool_operation_seconds Latency of the timed calls of each operation\n");
+        out.append("# TYPE riskanalysistool_operation_seconds summary\n");
+        for (Operation operation : Operation.values()) {
+            String name = operation.name().toLowerCase(Locale.ROOT);
+            LatencyHistogram.Snapshot latencies = current.latencies(operation);
+            for (double quantile : QUANTILES) {
+                out.append("riskanalysistool_operation_seconds{operation=\"").append(name).append("\",quantile=\"").append(quantile)
+                        .append("\"} ").append(seconds(latencies.percentile(quantile))).append('\n');
+            }
+            out.append("riskanalysistool_operation_seconds_sum{operation=\"").append(name).append("\"} ")
+                    .append(seconds(latencies.totalNanos())).append('\n');
+            out.append("riskanalysistool_operation_seconds_count{operation=\"").append(name).append("\"} ")
+                    .append(latencies.count()).append('\n');
+        }
+
+        out.append("# HELP riskanalysistool_allocation_bytes_per_second Heap allocation rate since the previous write\n");
+        out.append("# TYPE riskanalysistool_allocation_bytes_per_second gauge\n");
+        out.append("riskanalysistool_allocation_bytes_per_second ").append(String.format(Locale.ROOT, "%.0f", current.allocationRate(previous))).append('\n');
+        out.append("# HELP riskanalysistool_heap_used_bytes Heap in use\n");
+        out.append("# TYPE riskanalysistool_heap_used_bytes gauge\n");
+        out.append("riskanalysistool_heap_used_bytes ").append(current.heapUsedBytes()).append('\n');
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,81 @@
+package com.infosec.riskanalysistool.diagnostics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.EnumMap;
+import java.util.Map;
+
+//Every operation's counters and latencies plus JVM allocation and heap figures at one moment.
+//Rates come from the difference between two snapshots.
+public final class MetricsSnapshot {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final long takenNanos;
+    private final long allocatedBytes;
+    private final long heapUsedBytes;
+    private final long heapMaxBytes;
+    private final Map<Operation, Long> calls = new EnumMap<>(Operation.class);
+    private final Map<Operation, LatencyHistogram.Snapshot> latencies = new EnumMap<>(Operation.class);
+
+    private MetricsSnapshot() {
+        takenNanos = System.nanoTime();
+        allocatedBytes = THREADS != null ? THREADS.getTotalThreadAllocatedBytes() : -1;
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        heapUsedBytes = heap.getUsed();
+        heapMaxBytes = heap.getMax();
+        for (Operation operation : Operation.values()) {
+            calls.put(operation, operation.calls());
+            latencies.put(operation, operation.latencies());
+        }
+    }
+
+    public static MetricsSnapshot take() {
+        return new MetricsSnapshot();
+    }
+
+    //Clears every operation's counters and latencies
+    public static void resetAll() {
+        for (Operation operation : Operation.values()) {
+            operation.reset();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    public long calls(Operation operation) {
+        return calls.get(operation);
+    }
+
+    public LatencyHistogram.Snapshot latencies(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    //Bytes allocated by all live threads so far, or -1 when the JVM cannot tell
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long heapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    public long heapMaxBytes() {
+        return heapMaxBytes;
+    }
+
+    //Bytes per second allocated since an earlier snapshot, or -1 when unknown. Threads that ended in between
+    //take their allocations with them, so this can undercount.
+    public double allocationRate(MetricsSnapshot earlier) {
+        double seconds = (takenNanos - earlier.takenNanos) / 1e9;
+        if (allocatedBytes < 0 || earlier.allocatedBytes < 0 || seconds <= 0) {
+            return -1;
+        }
+        return Math.max(0, allocatedBytes - earlier.allocatedBytes) / seconds;
+    }
+}
@@ -0,0 +1,104 @@
+package com.infosec.riskanalysistool.diagnostics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+//Instrumented hot paths. Each counts every call and keeps a latency histogram; the cheapest ones time only
+//a random sample of calls so the clock reads cost less than the work. Timings are also committed as
+//OperationEvent to Java Flight Recorder when a recording has it enabled.
+//
+//    long start = Operation.IMPORT.begin();
+//    ...
+//    Operation.IMPORT.end(start, rows);
+public enum Operation {
+    ANALYSIS("Register analysis", 1),
+    PIPELINE_FLUSH("Analysis pipeline flush", 1),
+    CHART_UPDATE("Chart series update", 1),
+    TABLE_CELL("Table cell value", 16),
+    RECOMMENDATION("Recommendation lookup", 64),
+    VALIDATION("Risk validation", 64),
+    SEARCH("Text search", 1),
+    SENSITIVITY("Sensitivity analysis", 1),
+    IMPORT("Import", 1),
+    EXPORT("Report export", 1),
+    EVENT_INGEST("Event feed batch", 1),
+    SCORING_REQUEST("Scoring service request", 1),
+    REGISTER_LOAD("Saved register load", 1),
+    JOURNAL_WRITE("Journal write", 1),
+    SNAPSHOT_WRITE("Snapshot write", 1),
+    HISTORY_WRITE("History write", 1),
+    HISTORY_REPLAY("History time travel", 1),
+    FX_PULSE("FX pulse (CSS and layout)", 1);
+
+    //Loading the JFR event class starts the flight recorder, which costs a batch run more than its work
+    private static volatile boolean flightRecorderEvents = true;
+
+    private final String label;
+    private final int sampleEvery;
+    private final LongAdder calls = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    Operation(String label, int sampleEvery) {
+        this.label = label;
+        this.sampleEvery = sampleEvery;
+    }
+
+    //Turns committing timings to JFR off or on for every operation; counts and histograms are kept either way
+    public static void setFlightRecorderEvents(boolean enabled) {
+        flightRecorderEvents = enabled;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    //Returns the start time to pass to end(), or 0 when this call is not in the sample
+    public long begin() {
+        calls.increment();
+        if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    public void end(long start) {
+        end(start, 1);
+    }
+
+    public void end(long start, long items) {
+        if (start != 0) {
+            record(System.nanoTime() - start, items);
+        }
+    }
+
+    //For durations measured elsewhere; counts as a call
+    public void recordCall(long nanos) {
+        calls.increment();
+        record(nanos, 1);
+    }
+
+    private void record(long nanos, long items) {
+        histogram.record(nanos);
+        if (flightRecorderEvents && OperationEvent.isRecording()) {
+            OperationEvent.commit(label, nanos, items);
+        }
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public LatencyHistogram.Snapshot latencies() {
+        return histogram.snapshot();
+    }
+
+    void reset() {
+        calls.reset();
+        histogram.reset();
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
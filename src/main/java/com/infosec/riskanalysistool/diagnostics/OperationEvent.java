@@ -0,0 +1,41 @@
+package com.infosec.riskanalysistool.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+//One timed call of an instrumented Operation. The duration is measured by the caller, so the event itself
+//is committed without begin()/end() and carries the time in durationNanos.
+@Name("com.infosec.riskanalysistool.Operation")
+@Label("Risk Tool Operation")
+@Category("Risk Analysis Tool")
+@StackTrace(false)
+class OperationEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(OperationEvent.class);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long durationNanos;
+
+    @Label("Items")
+    long items;
+
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+
+    static void commit(String operation, long durationNanos, long items) {
+        OperationEvent event = new OperationEvent();
+        event.operation = operation;
+        event.durationNanos = durationNanos;
+        event.items = items;
+        event.commit();
+    }
+}
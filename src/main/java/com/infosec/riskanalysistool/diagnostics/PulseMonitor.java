@@ -0,0 +1,18 @@
+package com.infosec.riskanalysistool.diagnostics;
+
+import javafx.scene.Scene;
+
+//Times the CSS and layout part of every JavaFX pulse for a scene as Operation.FX_PULSE.
+//Rendering happens after the post-layout listeners, so it is not included.
+public final class PulseMonitor {
+    private long pulseStart;
+
+    private PulseMonitor() {
+    }
+
+    public static void install(Scene scene) {
+        PulseMonitor monitor = new PulseMonitor();
+        scene.addPreLayoutPulseListener(() -> monitor.pulseStart = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> Operation.FX_PULSE.recordCall(System.nanoTime() - monitor.pulseStart));
+    }
+}
@@ -0,0 +1,43 @@
+package com.infosec.riskanalysistool.index;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+//Risk count and ALE total for every facet value. Each facet is counted against the query with that facet's
+//own selection left out, so the figures say how many rows choosing (or adding) the value would give.
+public final class FacetCounts {
+    final int[] hipaaRuleCounts = new int[HIPAARule.values().length];
+    final double[] hipaaRuleAnnualisedLossExpectancies = new double[HIPAARule.values().length];
+    final int[] rmfStepCounts = new int[RMFStep.values().length];
+    final double[] rmfStepAnnualisedLossExpectancies = new double[RMFStep.values().length];
+    final int[] categoryCounts = new int[RiskCategory.values().length];
+    final double[] categoryAnnualisedLossExpectancies = new double[RiskCategory.values().length];
+
+    FacetCounts() {
+    }
+
+    public int count(HIPAARule hipaaRule) {
+        return hipaaRuleCounts[hipaaRule.ordinal()];
+    }
+
+    public double annualisedLossExpectancy(HIPAARule hipaaRule) {
+        return hipaaRuleAnnualisedLossExpectancies[hipaaRule.ordinal()];
+    }
+
+    public int count(RMFStep rmfStep) {
+        return rmfStepCounts[rmfStep.ordinal()];
+    }
+
+    public double annualisedLossExpectancy(RMFStep rmfStep) {
+        return rmfStepAnnualisedLossExpectancies[rmfStep.ordinal()];
+    }
+
+    public int count(RiskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+
+    public double annualisedLossExpectancy(RiskCategory category) {
+        return categoryAnnualisedLossExpectancies[category.ordinal()];
+    }
+}
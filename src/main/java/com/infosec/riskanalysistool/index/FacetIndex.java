@@ -0,0 +1,219 @@
+package com.infosec.riskanalysistool.index;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+
+import java.util.Set;
+
+//Bitmap index over the register's HIPAA rule, RMF step and risk category (the RPN band).
+//There is one RowBitmap per value, kept in step with the register through its listener callbacks, so a
+//faceted query is a handful of word-wide ORs and ANDs instead of a scan of every row.
+public class FacetIndex implements RiskRegisterListener {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final RiskCategory[] CATEGORIES = RiskCategory.values();
+
+    private final RiskRegister register;
+    private final RowBitmap[] hipaaRules = new RowBitmap[HIPAA_RULES.length];
+    private final RowBitmap[] rmfSteps = new RowBitmap[RMF_STEPS.length];
+    private final RowBitmap[] categories = new RowBitmap[CATEGORIES.length];
+    private Runnable onChanged = () -> { };
+
+    //Indexes the register's current rows and follows every later change
+    public FacetIndex(RiskRegister register) {
+        this.register = register;
+        int rows = register.size();
+        for (int i = 0; i < hipaaRules.length; i++) {
+            hipaaRules[i] = new RowBitmap(rows);
+        }
+        for (int i = 0; i < rmfSteps.length; i++) {
+            rmfSteps[i] = new RowBitmap(rows);
+        }
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = new RowBitmap(rows);
+        }
+        rowsAdded(0, rows);
+        register.addListener(this);
+    }
+
+    //Called after every change to the index, on the thread that changed the register
+    public void setOnChanged(Runnable onChanged) {
+        this.onChanged = onChanged;
+    }
+
+    public void close() {
+        register.removeListener(this);
+    }
+
+    //Rows matching the query
+    public RowBitmap query(FacetQuery query) {
+        RowBitmap result = all();
+        and(result, hipaaRules, query.hipaaRules(), HIPAA_RULES);
+        and(result, rmfSteps, query.rmfSteps(), RMF_STEPS);
+        and(result, categories, query.categories(), CATEGORIES);
+        return result;
+    }
+
+    //Count and ALE total per facet value, each facet counted against the other facets' selections
+    public FacetCounts counts(FacetQuery query) {
+        FacetCounts counts = new FacetCounts();
+
+        RowBitmap rows = all();
+        and(rows, rmfSteps, query.rmfSteps(), RMF_STEPS);
+        and(rows, categories, query.categories(), CATEGORIES);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            int value = register.getHipaaRule(row).ordinal();
+            counts.hipaaRuleCounts[value]++;
+            counts.hipaaRuleAnnualisedLossExpectancies[value] += register.getAnnualisedLossExpectancy(row);
+        }
+
+        rows = all();
+        and(rows, hipaaRules, query.hipaaRules(), HIPAA_RULES);
+        and(rows, categories, query.categories(), CATEGORIES);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            int value = register.getRmfStep(row).ordinal();
+            counts.rmfStepCounts[value]++;
+            counts.rmfStepAnnualisedLossExpectancies[value] += register.getAnnualisedLossExpectancy(row);
+        }
+
+        rows = all();
+        and(rows, hipaaRules, query.hipaaRules(), HIPAA_RULES);
+        and(rows, rmfSteps, query.rmfSteps(), RMF_STEPS);
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            int value = categoryOf(row);
+            counts.categoryCounts[value]++;
+            counts.categoryAnnualisedLossExpectancies[value] += register.getAnnualisedLossExpectancy(row);
+        }
+        return counts;
+    }
+
+    //Every row is in exactly one category, so their union is the whole register
+    private RowBitmap all() {
+        RowBitmap all = categories[0].copy();
+        for (int i = 1; i < categories.length; i++) {
+            all.or(categories[i]);
+        }
+        return all;
+    }
+
+    //Intersects result with the union of the selected values' bitmaps; no selection leaves it unchanged
+    private static <E extends Enum<E>> void and(RowBitmap result, RowBitmap[] bitmaps, Set<E> selected, E[] values) {
+        if (selected.isEmpty()) {
+            return;
+        }
+        RowBitmap union = new RowBitmap();
+        for (E value : values) {
+            if (selected.contains(value)) {
+                union.or(bitmaps[value.ordinal()]);
+            }
+        }
+        result.and(union);
+    }
+
+    private int categoryOf(int row) {
+        return RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row)).ordinal();
+    }
+
+    //RiskRegisterListener
+    @Override
+    public void rowsAdded(int first, int count) {
+        int end = first + count;
+        for (RowBitmap bitmap : hipaaRules) {
+            bitmap.ensureCapacity(end);
+        }
+        for (RowBitmap bitmap : rmfSteps) {
+            bitmap.ensureCapacity(end);
+        }
+        for (RowBitmap bitmap : categories) {
+            bitmap.ensureCapacity(end);
+        }
+        for (int row = first; row < end; row++) {
+            hipaaRules[register.getHipaaRule(row).ordinal()].set(row);
+            rmfSteps[register.getRmfStep(row).ordinal()].set(row);
+            categories[categoryOf(row)].set(row);
+        }
+        onChanged.run();
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        for (RowBitmap bitmap : hipaaRules) {
+            bitmap.removeRow(row);
+        }
+        for (RowBitmap bitmap : rmfSteps) {
+            bitmap.removeRow(row);
+        }
+        for (RowBitmap bitmap : categories) {
+            bitmap.removeRow(row);
+        }
+        onChanged.run();
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+        reindex(row, field);
+        onChanged.run();
+    }
+
+    @Override
+    public void valuesChanged(RowChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            int row = changes.row(i);
+            if (changes.changed(i, RiskField.HIPAA_RULE)) {
+                reindex(row, RiskField.HIPAA_RULE);
+            }
+            if (changes.changed(i, RiskField.RMF_STEP)) {
+                reindex(row, RiskField.RMF_STEP);
+            }
+            if (changes.changed(i, RiskField.IMPACT) || changes.changed(i, RiskField.LIKELIHOOD)) {
+                reindex(row, RiskField.IMPACT);
+            }
+        }
+        onChanged.run();
+    }
+
+    private void reindex(int row, RiskField field) {
+        switch (field) {
+            case HIPAA_RULE:
+                reassign(hipaaRules, row, register.getHipaaRule(row).ordinal());
+                break;
+            case RMF_STEP:
+                reassign(rmfSteps, row, register.getRmfStep(row).ordinal());
+                break;
+            case IMPACT:
+            case LIKELIHOOD:
+                reassign(categories, row, categoryOf(row));
+                break;
+            default:
+                //Only the ALE totals depend on the other fields, and those are read from the register
+                break;
+        }
+    }
+
+    @Override
+    public void cleared() {
+        for (RowBitmap bitmap : hipaaRules) {
+            bitmap.clear();
+        }
+        for (RowBitmap bitmap : rmfSteps) {
+            bitmap.clear();
+        }
+        for (RowBitmap bitmap : categories) {
+            bitmap.clear();
+        }
+        onChanged.run();
+    }
+
+    //The old value is not known, so the row is cleared from every bitmap of the facet
+    private static void reassign(RowBitmap[] bitmaps, int row, int value) {
+        for (RowBitmap bitmap : bitmaps) {
+            bitmap.clear(row);
+        }
+        bitmaps[value].set(row);
+    }
+}
@@ -0,0 +1,36 @@
+package com.infosec.riskanalysistool.index;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+//Selected values per facet. A row matches when it has one of the selected values in every facet
+//(OR within a facet, AND across facets); a facet with nothing selected matches every row.
+public record FacetQuery(Set<HIPAARule> hipaaRules, Set<RMFStep> rmfSteps, Set<RiskCategory> categories) {
+    public static final FacetQuery ALL = new FacetQuery(EnumSet.noneOf(HIPAARule.class), EnumSet.noneOf(RMFStep.class), EnumSet.noneOf(RiskCategory.class));
+
+    public FacetQuery {
+        hipaaRules = Set.copyOf(hipaaRules);
+        rmfSteps = Set.copyOf(rmfSteps);
+        categories = Set.copyOf(categories);
+    }
+
+    public boolean isEmpty() {
+        return hipaaRules.isEmpty() && rmfSteps.isEmpty() && categories.isEmpty();
+    }
+
+    public FacetQuery withHipaaRules(Set<HIPAARule> hipaaRules) {
+        return new FacetQuery(hipaaRules, rmfSteps, categories);
+    }
+
+    public FacetQuery withRmfSteps(Set<RMFStep> rmfSteps) {
+        return new FacetQuery(hipaaRules, rmfSteps, categories);
+    }
+
+    public FacetQuery withCategories(Set<RiskCategory> categories) {
+        return new FacetQuery(hipaaRules, rmfSteps, categories);
+    }
+}
@@ -0,0 +1,125 @@
+package com.infosec.riskanalysistool.index;
+
+import java.util.Arrays;
+
+//Set of register rows packed 64 to a word. Unlike java.util.BitSet it can close the gap left by a removed
+//row, shifting every later row down by one the same way the register's columns do.
+public final class RowBitmap {
+    private long[] words;
+
+    public RowBitmap() {
+        this(64);
+    }
+
+    public RowBitmap(int rows) {
+        words = new long[wordCount(rows)];
+    }
+
+    private RowBitmap(long[] words) {
+        this.words = words;
+    }
+
+    private static int wordCount(int rows) {
+        return Math.max(1, (rows + 63) >>> 6);
+    }
+
+    public boolean get(int row) {
+        int word = row >>> 6;
+        return row >= 0 && word < words.length && (words[word] & (1L << row)) != 0;
+    }
+
+    public void set(int row) {
+        ensureCapacity(row + 1);
+        words[row >>> 6] |= 1L << row;
+    }
+
+    public void clear(int row) {
+        int word = row >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << row);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    //Removes a row and moves every later row down by one
+    public void removeRow(int row) {
+        int first = row >>> 6;
+        if (first >= words.length) {
+            return;
+        }
+        long keep = (1L << row) - 1;    //Bits below row within its word
+        long word = words[first];
+        words[first] = (word & keep) | ((word >>> 1) & ~keep);
+        for (int i = first; i < words.length - 1; i++) {
+            words[i] |= words[i + 1] << 63;
+            words[i + 1] >>>= 1;
+        }
+    }
+
+    public void ensureCapacity(int rows) {
+        int needed = wordCount(rows);
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length + (words.length >> 1)));
+        }
+    }
+
+    public RowBitmap copy() {
+        return new RowBitmap(words.clone());
+    }
+
+    //In-place set operations; both return this
+    public RowBitmap and(RowBitmap other) {
+        int common = Math.min(words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            words[i] &= other.words[i];
+        }
+        Arrays.fill(words, common, words.length, 0);
+        return this;
+    }
+
+    public RowBitmap or(RowBitmap other) {
+        ensureCapacity(other.words.length << 6);
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Index of the first row at or after from, or -1
+    public int nextSetBit(int from) {
+        int i = from >>> 6;
+        if (from < 0 || i >= words.length) {
+            return -1;
+        }
+        long word = words[i] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == words.length) {
+                return -1;
+            }
+            word = words[i];
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.infosec.riskanalysistool.index;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Trigram search over the register's threat and control measure text, kept in step with the register
+//through its listener callbacks like FacetIndex.
+//Search: every query word of two or more letters must appear in the threat or the control measures. A
+//two-letter word matches the start of a word; longer words match anywhere, found by intersecting the
+//posting lists of their trigrams and checking the few candidates. Rows are ranked by where the words
+//matched (threat over control measures, word starts over the middle of words), then by ALE.
+//Near duplicates: the trigram sets of two threats are compared by Jaccard similarity. Candidates are only
+//drawn from the rarest trigrams of the new threat (any text similar enough must share one of them), and
+//their overlap with the common trigrams is found by binary search in those posting lists.
+public class TextIndex implements RiskRegisterListener {
+    //Threat matches count for more than control measure matches
+    private static final float THREAT_WEIGHT = 2;
+    private static final float CONTROL_WEIGHT = 1;
+    //Words after these are ignored
+    private static final int MAX_WORDS = 16;
+
+    //Rows per scan task; a multiple of 64 so tasks never write to the same bitmap word
+    private static final int SCAN_CHUNK = 1 << 16;
+
+    private final RiskRegister register;
+    private final ForkJoinPool pool;
+    private final TrigramIndex threats = new TrigramIndex();
+    private final TrigramIndex controls = new TrigramIndex();
+    private Runnable onChanged = () -> { };
+
+    public record Match(RowBitmap rows, int count, int[] rankedRows) {
+    }
+
+    //A distinct threat text already in the register
+    public record SimilarThreat(String threat, int risks, double similarity) {
+    }
+
+    //One search: the word masks of every text, and each chunk's count and best rows
+    private record Scan(int[] threatMasks, int[] controlMasks, int all, int words, RowBitmap within, RowBitmap rows,
+                        int limit, int[] counts, RankedRows[] rankings) {
+        Scan(int[] threatMasks, int[] controlMasks, int all, int words, RowBitmap within, RowBitmap rows, int limit, int chunks) {
+            this(threatMasks, controlMasks, all, words, within, rows, limit, new int[chunks], new RankedRows[chunks]);
+        }
+    }
+
+    //Indexes the register's current rows and follows every later change
+    public TextIndex(RiskRegister register) {
+        this(register, ForkJoinPool.commonPool());
+    }
+
+    //Searches of large registers are split across the pool
+    public TextIndex(RiskRegister register, ForkJoinPool pool) {
+        this.register = register;
+        this.pool = pool;
+        rowsAdded(0, register.size());
+        register.addListener(this);
+    }
+
+    //Called after every change to the index, on the thread that changed the register
+    public void setOnChanged(Runnable onChanged) {
+        this.onChanged = onChanged;
+    }
+
+    public void close() {
+        register.removeListener(this);
+    }
+
+    //True when the query has a word long enough to search for; otherwise search() matches nothing
+    public static boolean isSearchable(String query) {
+        return words(query).length > 0;
+    }
+
+    //Rows matching every word of the query, optionally only among the rows set in within, with the best
+    //limit of them ranked first
+    public Match search(String query, RowBitmap within, int limit) {
+        long start = Operation.SEARCH.begin();
+        Match match = match(words(query), within, limit);
+        Operation.SEARCH.end(start, match.count());
+        return match;
+    }
+
+    private Match match(String[] words, RowBitmap within, int limit) {
+        RowBitmap rows = new RowBitmap(register.size());
+        if (words.length == 0) {
+            return new Match(rows, 0, new int[0]);
+        }
+
+        //Per text: which words it has, and which of those start a word of the text
+        int[] threatMasks = matchTexts(threats, words);
+        int[] controlMasks = matchTexts(controls, words);
+        int all = (1 << words.length) - 1;
+        if ((present(threatMasks, words.length) | present(controlMasks, words.length)) != all) {
+            //Some word is nowhere in the register
+            return new Match(rows, 0, new int[0]);
+        }
+        int chunks = (threats.rows() + SCAN_CHUNK - 1) / SCAN_CHUNK;
+        Scan scan = new Scan(threatMasks, controlMasks, all, words.length, within, rows, limit, chunks);
+        pool.invoke(new ScanTask(scan, 0, chunks));
+        RankedRows ranked = new RankedRows(limit);
+        int count = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            count += scan.counts[chunk];
+            scan.rankings[chunk].addTo(ranked);
+        }
+        return new Match(rows, count, ranked.rows());
+    }
+
+    //Matches one chunk of rows into the shared bitmap; chunks are whole bitmap words, so they never share one
+    private void scan(Scan scan, int chunk) {
+        RankedRows ranked = new RankedRows(scan.limit);
+        int count = 0;
+        int end = Math.min(threats.rows(), (chunk + 1) * SCAN_CHUNK);
+        for (int row = chunk * SCAN_CHUNK; row < end; row++) {
+            int threatMask = scan.threatMasks[threats.textOf(row)];
+            int controlMask = scan.controlMasks[controls.textOf(row)];
+            if (((threatMask | controlMask) & scan.all) != scan.all || scan.within != null && !scan.within.get(row)) {
+                continue;
+            }
+            scan.rows.set(row);
+            count++;
+            float score = score(threatMask, controlMask, scan.words);
+            if (ranked.accepts(score)) {
+                ranked.offer(row, score, register.getAnnualisedLossExpectancy(row));
+            }
+        }
+        scan.counts[chunk] = count;
+        scan.rankings[chunk] = ranked;
+    }
+
+    //Distinct threats matching the query, best first and then by how many risks have them
+    public List<String> suggestThreats(String query, int limit) {
+        String[] words = words(query);
+        List<String> suggestions = new ArrayList<>();
+        if (words.length == 0) {
+            return suggestions;
+        }
+        int[] masks = matchTexts(threats, words);
+        int all = (1 << words.length) - 1;
+        RankedRows ranked = new RankedRows(limit);
+        for (int text = 0; text < threats.textCount(); text++) {
+            if ((masks[text] & all) == all && threats.rowCount(text) > 0) {
+                ranked.offer(text, score(masks[text], 0, words.length), threats.rowCount(text));
+            }
+        }
+        for (int text : ranked.rows()) {
+            suggestions.add(threats.text(text));
+        }
+        return suggestions;
+    }
+
+    //Distinct threats whose trigram Jaccard similarity to the given one is at least minSimilarity, most similar first
+    public List<SimilarThreat> similarThreats(String threat, double minSimilarity, int limit) {
+        long[] trigrams = TrigramIndex.trigrams(TrigramIndex.normalise(threat));
+        List<SimilarThreat> similar = new ArrayList<>();
+        int n = trigrams.length;
+        if (n == 0 || limit <= 0) {
+            return similar;
+        }
+        double threshold = Math.max(minSimilarity, 1e-9);
+
+        //Rarest trigrams first; a text sharing none of the first n - ceil(threshold * n) + 1 cannot reach the threshold
+        Long[] order = new Long[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = trigrams[i];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(threats.postingSize(a), threats.postingSize(b)));
+        int prefix = Math.min(n, n - (int) Math.ceil(threshold * n) + 1);
+
+        int[] shared = new int[threats.textCount()];
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (int i = 0; i < prefix; i++) {
+            int[] list = threats.postings(order[i]);
+            int size = threats.postingSize(order[i]);
+            for (int j = 0; j < size; j++) {
+                int text = list[j];
+                if (shared[text]++ == 0) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = text;
+                }
+            }
+        }
+
+        RankedRows ranked = new RankedRows(limit);
+        double[] similarities = new double[threats.textCount()];
+        for (int c = 0; c < candidateCount; c++) {
+            int text = candidates[c];
+            int size = threats.trigramCount(text);
+            //Jaccard can only reach the threshold when the sizes are within that ratio
+            if (threats.rowCount(text) == 0 || size < threshold * n || size * threshold > n) {
+                continue;
+            }
+            int overlap = shared[text];
+            for (int i = prefix; i < n; i++) {
+                if (Arrays.binarySearch(threats.postings(order[i]), 0, threats.postingSize(order[i]), text) >= 0) {
+                    overlap++;
+                }
+            }
+            double similarity = (double) overlap / (n + size - overlap);
+            if (similarity >= threshold) {
+                similarities[text] = similarity;
+                ranked.offer(text, (float) similarity, threats.rowCount(text));
+            }
+        }
+        for (int text : ranked.rows()) {
+            similar.add(new SimilarThreat(threats.text(text), threats.rowCount(text), similarities[text]));
+        }
+        return similar;
+    }
+
+    //Query words of at least two letters, at most MAX_WORDS of them
+    private static String[] words(String query) {
+        String normalised = TrigramIndex.normalise(query);
+        List<String> words = new ArrayList<>();
+        if (normalised.isEmpty()) {
+            return new String[0];
+        }
+        for (String word : normalised.split(" ")) {
+            if (word.length() >= 2 && words.size() < MAX_WORDS) {
+                words.add(word);
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    //Per text id: bit w set if word w appears in the text, and bit MAX_WORDS + w as well if it starts a word there
+    private static int[] matchTexts(TrigramIndex index, String[] words) {
+        int[] masks = new int[index.textCount()];
+        for (int w = 0; w < words.length; w++) {
+            String word = words[w];
+
+            //Trigrams every candidate must have, smallest posting list first
+            List<Long> required = new ArrayList<>();
+            if (word.length() == 2) {
+                required.add(TrigramIndex.trigram(' ', word.charAt(0), word.charAt(1)));
+            } else {
+                for (int i = 0; i + 3 <= word.length(); i++) {
+                    required.add(TrigramIndex.trigram(word.charAt(i), word.charAt(i + 1), word.charAt(i + 2)));
+                }
+            }
+            required.sort((a, b) -> Integer.compare(index.postingSize(a), index.postingSize(b)));
+            int count = index.postingSize(required.get(0));
+            if (count == 0) {
+                continue;
+            }
+            int[] candidates = Arrays.copyOf(index.postings(required.get(0)), count);
+            for (int r = 1; r < required.size() && count > 0; r++) {
+                count = intersect(candidates, count, index.postings(required.get(r)), index.postingSize(required.get(r)));
+            }
+
+            for (int i = 0; i < count; i++) {
+                int text = candidates[i];
+                if (index.rowCount(text) > 0) {
+                    int match = wordMatch(index.normalisedText(text), word);
+                    if (match > 0) {
+                        masks[text] |= 1 << w;
+                    }
+                    if (match == 2) {
+                        masks[text] |= 1 << (MAX_WORDS + w);
+                    }
+                }
+            }
+        }
+        return masks;
+    }
+
+    //Bit w set if word w matched any text
+    private static int present(int[] masks, int words) {
+        int all = (1 << words) - 1;
+        int present = 0;
+        for (int i = 0; i < masks.length && present != all; i++) {
+            present |= masks[i] & all;
+        }
+        return present;
+    }
+
+    //Sum over the words of the best place each matched: threat over control measures, word start over inside a word
+    private static float score(int threatMask, int controlMask, int words) {
+        float score = 0;
+        for (int w = 0; w < words; w++) {
+            float threat = (threatMask >>> w & 1) == 0 ? 0 : THREAT_WEIGHT * (1 + (threatMask >>> (MAX_WORDS + w) & 1));
+            float control = (controlMask >>> w & 1) == 0 ? 0 : CONTROL_WEIGHT * (1 + (controlMask >>> (MAX_WORDS + w) & 1));
+            score += Math.max(threat, control);
+        }
+        return score;
+    }
+
+    //Keeps the ids in candidates[0, count) that are also in list[0, size); both are sorted
+    private static int intersect(int[] candidates, int count, int[] list, int size) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < size; i++) {
+            int id = candidates[i];
+            while (j < size && list[j] < id) {
+                j++;
+            }
+            if (j < size && list[j] == id) {
+                candidates[kept++] = id;
+            }
+        }
+        return kept;
+    }
+
+    //2 if the word starts a word of the text, 1 if it only appears inside one, 0 if it does not appear
+    private static int wordMatch(String text, String word) {
+        int best = 0;
+        for (int at = text.indexOf(word); at >= 0; at = text.indexOf(word, at + 1)) {
+            if (at == 0 || text.charAt(at - 1) == ' ') {
+                return 2;
+            }
+            best = 1;
+        }
+        return best;
+    }
+
+    //RiskRegisterListener
+    @Override
+    public void rowsAdded(int first, int count) {
+        String[] threatTexts = new String[count];
+        String[] controlTexts = new String[count];
+        for (int i = 0; i < count; i++) {
+            threatTexts[i] = register.getThreat(first + i);
+            controlTexts[i] = register.getControlMeasures(first + i);
+        }
+        threats.insertRows(first, threatTexts);
+        controls.insertRows(first, controlTexts);
+        onChanged.run();
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        threats.removeRow(row);
+        controls.removeRow(row);
+        onChanged.run();
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+        reindex(row, field);
+        onChanged.run();
+    }
+
+    @Override
+    public void valuesChanged(RowChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            if (changes.changed(i, RiskField.THREAT)) {
+                reindex(changes.row(i), RiskField.THREAT);
+            }
+            if (changes.changed(i, RiskField.CONTROL_MEASURES)) {
+                reindex(changes.row(i), RiskField.CONTROL_MEASURES);
+            }
+        }
+        onChanged.run();
+    }
+
+    private void reindex(int row, RiskField field) {
+        switch (field) {
+            case THREAT:
+                threats.setRow(row, register.getThreat(row));
+                break;
+            case CONTROL_MEASURES:
+                controls.setRow(row, register.getControlMeasures(row));
+                break;
+            default:
+                //Only text is indexed
+                break;
+        }
+    }
+
+    @Override
+    public void cleared() {
+        threats.clear();
+        controls.clear();
+        onChanged.run();
+    }
+
+    private final class ScanTask extends RecursiveAction {
+        private final Scan scan;
+        private final int from;
+        private final int to;
+
+        ScanTask(Scan scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ScanTask(scan, from, mid), new ScanTask(scan, mid, to));
+                return;
+            }
+            if (from < to) {
+                scan(scan, from);
+            }
+        }
+    }
+
+    //Bounded min-heap keeping the best ids by score, then by a tie-break value
+    private static final class RankedRows {
+        private final int limit;
+        private final int[] ids;
+        private final float[] scores;
+        private final double[] tieBreaks;
+        private int size;
+
+        RankedRows(int limit) {
+            this.limit = Math.max(0, limit);
+            ids = new int[this.limit];
+            scores = new float[this.limit];
+            tieBreaks = new double[this.limit];
+        }
+
+        //False if an id with this score would certainly not be kept, so its tie-break need not be looked up
+        boolean accepts(float score) {
+            return size < limit || limit > 0 && scores[0] <= score;
+        }
+
+        void offer(int id, float score, double tieBreak) {
+            if (size < limit) {
+                ids[size] = id;
+                scores[size] = score;
+                tieBreaks[size] = tieBreak;
+                siftUp(size++);
+            } else if (limit > 0 && worse(0, score, tieBreak)) {
+                ids[0] = id;
+                scores[0] = score;
+                tieBreaks[0] = tieBreak;
+                siftDown(0);
+            }
+        }
+
+        void addTo(RankedRows other) {
+            for (int i = 0; i < size; i++) {
+                if (other.accepts(scores[i])) {
+                    other.offer(ids[i], scores[i], tieBreaks[i]);
+                }
+            }
+        }
+
+        //Best first
+        int[] rows() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> scores[a] != scores[b] ? Float.compare(scores[b], scores[a]) : Double.compare(tieBreaks[b], tieBreaks[a]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ids[order[i]];
+            }
+            return result;
+        }
+
+        //True if the entry at i ranks below the given score and tie-break
+        private boolean worse(int i, float score, double tieBreak) {
+            return scores[i] < score || scores[i] == score && tieBreaks[i] < tieBreak;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(i, scores[parent], tieBreaks[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && worse(child + 1, scores[child], tieBreaks[child])) {
+                    child++;
+                }
+                if (!worse(child, scores[i], tieBreaks[i])) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            double tieBreak = tieBreaks[a];
+            tieBreaks[a] = tieBreaks[b];
+            tieBreaks[b] = tieBreak;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.infosec.riskanalysistool.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+//Trigram index over one text column. Registers repeat the same threat and control texts across many rows,
+//so the index works on distinct texts: each gets an id, a row count and a posting in the list of every
+//trigram it contains, and rows only hold their text id. Texts are normalised to lower-case words, and each
+//word is padded with a space on both sides before it is cut into trigrams, so the first trigram of a word
+//(" ph" for "phishing") marks a word start.
+//Posting lists are sorted by text id because ids only ever grow. Texts whose last row goes keep their id
+//and postings (a text that comes back reuses them) until dead texts outnumber live ones, then the index is
+//rebuilt from the rows.
+final class TrigramIndex {
+    private static final int MIN_COMPACTION_TEXTS = 1_024;
+
+    //Distinct texts by id, as first seen and normalised
+    private String[] texts = new String[16];
+    private String[] normalised = new String[16];
+    private int[] rowCounts = new int[16];
+    private int[] trigramCounts = new int[16];
+    private int textCount;
+    private int liveTexts;
+    private final Map<String, Integer> textIds = new HashMap<>();
+
+    //Trigram -> slot, open addressing; a trigram key is never 0 because it always holds a letter or digit
+    private long[] slotKeys = new long[1024];
+    private int[] slotValues = new int[1024];
+    private int slots;
+    private int[][] postings = new int[64][];
+    private int[] postingSizes = new int[64];
+
+    //Text id of every row
+    private int[] rowTexts = new int[16];
+    private int rows;
+
+    int rows() {
+        return rows;
+    }
+
+    int textCount() {
+        return textCount;
+    }
+
+    int textOf(int row) {
+        return rowTexts[row];
+    }
+
+    String text(int text) {
+        return texts[text];
+    }
+
+    String normalisedText(int text) {
+        return normalised[text];
+    }
+
+    //Number of rows with the text; 0 for a dead text
+    int rowCount(int text) {
+        return rowCounts[text];
+    }
+
+    int trigramCount(int text) {
+        return trigramCounts[text];
+    }
+
+    //Inserts rows with the given texts before the row at first
+    void insertRows(int first, String[] texts) {
+        int count = texts.length;
+        if (rows + count > rowTexts.length) {
+            rowTexts = Arrays.copyOf(rowTexts, Math.max(rows + count, rowTexts.length * 2));
+        }
+        System.arraycopy(rowTexts, first, rowTexts, first + count, rows - first);
+        rows += count;
+        for (int i = 0; i < count; i++) {
+            rowTexts[first + i] = acquire(texts[i]);
+        }
+    }
+
+    void removeRow(int row) {
+        release(rowTexts[row]);
+        System.arraycopy(rowTexts, row + 1, rowTexts, row, rows - row - 1);
+        rows--;
+        compactIfDue();
+    }
+
+    void setRow(int row, String text) {
+        int old = rowTexts[row];
+        rowTexts[row] = acquire(text);
+        release(old);
+        compactIfDue();
+    }
+
+    void clear() {
+        texts = new String[16];
+        normalised = new String[16];
+        rowCounts = new int[16];
+        trigramCounts = new int[16];
+        textCount = 0;
+        liveTexts = 0;
+        textIds.clear();
+        slotKeys = new long[1024];
+        slotValues = new int[1024];
+        slots = 0;
+        postings = new int[64][];
+        postingSizes = new int[64];
+        rows = 0;
+    }
+
+    //Posting list of a trigram (read up to postingSize()), or null when no text has it
+    int[] postings(long trigram) {
+        int slot = slotOf(trigram);
+        return slot < 0 ? null : postings[slot];
+    }
+
+    int postingSize(long trigram) {
+        int slot = slotOf(trigram);
+        return slot < 0 ? 0 : postingSizes[slot];
+    }
+
+    //Lower-case words separated by single spaces; anything other than a letter or digit separates words
+    static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                out.append(' ');
+                space = true;
+            }
+        }
+        int length = out.length();
+        if (length > 0 && out.charAt(length - 1) == ' ') {
+            out.setLength(length - 1);
+        }
+        return out.toString();
+    }
+
+    static long trigram(char a, char b, char c) {
+        return (long) a << 32 | (long) b << 16 | c;
+    }
+
+    //Distinct trigrams of a normalised text, sorted. A word of n letters has n trigrams once padded.
+    static long[] trigrams(String normalised) {
+        int length = normalised.length();
+        long[] keys = new long[length];
+        int count = 0;
+        int start = 0;
+        while (start < length) {
+            int end = normalised.indexOf(' ', start);
+            if (end < 0) {
+                end = length;
+            }
+            for (int k = 0; k < end - start; k++) {
+                keys[count++] = trigram(padded(normalised, start, end, k), padded(normalised, start, end, k + 1), padded(normalised, start, end, k + 2));
+            }
+            start = end + 1;
+        }
+        Arrays.sort(keys, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || keys[distinct - 1] != keys[i]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    //Character k of the word text[start, end) with a space on each side
+    private static char padded(String text, int start, int end, int k) {
+        return k == 0 || k == end - start + 1 ? ' ' : text.charAt(start + k - 1);
+    }
+
+    private int acquire(String text) {
+        String key = normalise(text);
+        Integer existing = textIds.get(key);
+        int id;
+        if (existing != null) {
+            id = existing;
+        } else {
+            id = textCount++;
+            if (id == normalised.length) {
+                texts = Arrays.copyOf(texts, id * 2);
+                normalised = Arrays.copyOf(normalised, id * 2);
+                rowCounts = Arrays.copyOf(rowCounts, id * 2);
+                trigramCounts = Arrays.copyOf(trigramCounts, id * 2);
+            }
+            texts[id] = text;
+            normalised[id] = key;
+            textIds.put(key, id);
+            long[] keys = trigrams(key);
+            trigramCounts[id] = keys.length;
+            for (long trigram : keys) {
+                addPosting(trigram, id);
+            }
+        }
+        if (rowCounts[id]++ == 0) {
+            liveTexts++;
+        }
+        return id;
+    }
+
+    private void release(int id) {
+        if (--rowCounts[id] == 0) {
+            liveTexts--;
+        }
+    }
+
+    private void compactIfDue() {
+        int dead = textCount - liveTexts;
+        if (dead > MIN_COMPACTION_TEXTS && dead > liveTexts) {
+            String[] live = new String[rows];
+            for (int row = 0; row < rows; row++) {
+                live[row] = texts[rowTexts[row]];
+            }
+            clear();
+            insertRows(0, live);
+        }
+    }
+
+    private void addPosting(long trigram, int id) {
+        int slot = slotOf(trigram);
+        if (slot < 0) {
+            slot = newSlot(trigram);
+        }
+        int[] list = postings[slot];
+        int size = postingSizes[slot];
+        if (list == null) {
+            list = new int[4];
+        } else if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = id;
+        postings[slot] = list;
+        postingSizes[slot] = size + 1;
+    }
+
+    private int slotOf(long trigram) {
+        int mask = slotKeys.length - 1;
+        for (int i = hash(trigram) & mask; ; i = (i + 1) & mask) {
+            if (slotKeys[i] == trigram) {
+                return slotValues[i];
+            }
+            if (slotKeys[i] == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private int newSlot(long trigram) {
+        if ((slots + 1) * 2 > slotKeys.length) {
+            long[] oldKeys = slotKeys;
+            int[] oldValues = slotValues;
+            slotKeys = new long[oldKeys.length * 2];
+            slotValues = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        int slot = slots++;
+        if (slot == postings.length) {
+            postings = Arrays.copyOf(postings, slot * 2);
+            postingSizes = Arrays.copyOf(postingSizes, slot * 2);
+        }
+        put(trigram, slot);
+        return slot;
+    }
+
+    private void put(long trigram, int slot) {
+        int mask = slotKeys.length - 1;
+        int i = hash(trigram) & mask;
+        while (slotKeys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slotKeys[i] = trigram;
+        slotValues[i] = slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+}
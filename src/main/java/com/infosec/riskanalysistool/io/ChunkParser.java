@@ -0,0 +1,360 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.util.ValidationUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Parses one line-aligned chunk of a mapped file straight from its bytes into a RiskBatch.
+//Numbers and enum names are read in place; only the text columns are decoded into Strings.
+//Subclasses find the fields on a line and hand their byte ranges to assign().
+abstract class ChunkParser {
+    private static final byte[][] HIPAA_RULE_NAMES = names(HIPAARule.values());
+    private static final byte[][] RMF_STEP_NAMES = names(RMFStep.values());
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+    private static final int INVALID = Integer.MIN_VALUE;
+    //Rows are hardly ever shorter than this, so a small chunk's batch starts with little more room than it
+    //needs rather than a thousand rows; it grows as usual if not
+    private static final int MIN_ROW_BYTES = 32;
+    private static final int MAX_INITIAL_ROWS = 1024;
+
+    //Every column but the control measures must be present on a row
+    private static final int REQUIRED = ((1 << ImportField.values().length) - 1) & ~(1 << ImportField.CONTROL_MEASURES.ordinal());
+
+    protected final ByteBuffer buffer;
+    private final RiskBatch batch;
+    private final List<ImportError> errors = new ArrayList<>();
+    private long errorCount;
+    private int maxErrors = ImportResult.MAX_ERRORS;
+    //Line of each row added, only kept once keepLines() is called
+    private int[] rowLines;
+    private byte[] scratch = new byte[256];
+
+    //Set by subclasses when a line holds a record; lines without one (blank, "[" or "]") are skipped
+    protected boolean rowStarted;
+
+    //Values of the row being parsed
+    private int seen;
+    private String threat;
+    private HIPAARule hipaaRule;
+    private RMFStep rmfStep;
+    private int impact;
+    private int likelihood;
+    private double singleLossExpectancy;
+    private double annualisedRateOfOccurrence;
+    private String controlMeasures;
+    private double controlEffectiveness;
+
+    ChunkParser(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.batch = new RiskBatch(Math.min(MAX_INITIAL_ROWS, buffer.limit() / MIN_ROW_BYTES + 1));
+    }
+
+    //Returns an error message for the line, or null if it parsed
+    protected abstract String parseLine(int start, int end);
+
+    //Keeps every error and the line of every row, for callers that answer line by line
+    void keepLines() {
+        maxErrors = Integer.MAX_VALUE;
+        rowLines = new int[64];
+    }
+
+    //Lines of the rows in the batch, relative to the start of the chunk; null unless keepLines() was called
+    int[] rowLines() {
+        return rowLines != null ? Arrays.copyOf(rowLines, batch.size()) : null;
+    }
+
+    ChunkResult parse() {
+        int limit = buffer.limit();
+        int lines = 0;
+        int pos = 0;
+        while (pos < limit) {
+            int newline = pos;
+            while (newline < limit && buffer.get(newline) != '\n') {
+                newline++;
+            }
+            int end = newline > pos && buffer.get(newline - 1) == '\r' ? newline - 1 : newline;
+            lines++;
+
+            resetRow();
+            String error = parseLine(pos, end);
+            if (error == null && rowStarted) {
+                error = addRow();
+                if (error == null && rowLines != null) {
+                    keepRowLine(lines);
+                }
+            }
+            if (error != null) {
+                errorCount++;
+                if (errors.size() < maxErrors) {
+                    errors.add(new ImportError(lines, error));
+                }
+            }
+            pos = newline + 1;
+        }
+        return new ChunkResult(batch, errors, errorCount, lines);
+    }
+
+    private void keepRowLine(int line) {
+        int row = batch.size() - 1;
+        if (row == rowLines.length) {
+            rowLines = Arrays.copyOf(rowLines, row * 2);
+        }
+        rowLines[row] = line;
+    }
+
+    private void resetRow() {
+        rowStarted = false;
+        seen = 0;
+        threat = null;
+        hipaaRule = null;
+        rmfStep = null;
+        impact = INVALID;
+        likelihood = INVALID;
+        singleLossExpectancy = Double.NaN;
+        annualisedRateOfOccurrence = Double.NaN;
+        controlMeasures = "";
+        controlEffectiveness = Double.NaN;
+    }
+
+    private String addRow() {
+        int missing = REQUIRED & ~seen;
+        if (missing != 0) {
+            return "Missing " + label(ImportField.values()[Integer.numberOfTrailingZeros(missing)]);
+        }
+        long start = Operation.VALIDATION.begin();
+        String error = ValidationUtil.validationError(threat, hipaaRule, rmfStep, impact, likelihood, singleLossExpectancy, annualisedRateOfOccurrence, controlEffectiveness);
+        Operation.VALIDATION.end(start);
+        if (error != null) {
+            return error;
+        }
+        batch.add(threat, hipaaRule, rmfStep, impact, likelihood, singleLossExpectancy, annualisedRateOfOccurrence, controlMeasures, controlEffectiveness);
+        return null;
+    }
+
+    //Assigns the raw bytes in [start, end); surrounding spaces are ignored and an empty value counts as missing
+    protected String assign(ImportField field, int start, int end) {
+        while (start < end && isSpace(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isSpace(buffer.get(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        switch (field) {
+            case THREAT:
+                threat = decode(start, end);
+                break;
+            case CONTROL_MEASURES:
+                controlMeasures = decode(start, end);
+                break;
+            case HIPAA_RULE:
+                int hipaa = matchName(HIPAA_RULE_NAMES, start, end);
+                if (hipaa < 0) {
+                    return invalid(field, start, end);
+                }
+                hipaaRule = HIPAA_RULES[hipaa];
+                break;
+            case RMF_STEP:
+                int rmf = matchName(RMF_STEP_NAMES, start, end);
+                if (rmf < 0) {
+                    return invalid(field, start, end);
+                }
+                rmfStep = RMF_STEPS[rmf];
+                break;
+            case IMPACT:
+                impact = parseInt(start, end);
+                if (impact == INVALID) {
+                    return invalid(field, start, end);
+                }
+                break;
+            case LIKELIHOOD:
+                likelihood = parseInt(start, end);
+                if (likelihood == INVALID) {
+                    return invalid(field, start, end);
+                }
+                break;
+            case SINGLE_LOSS_EXPECTANCY:
+                singleLossExpectancy = parseDouble(start, end);
+                if (Double.isNaN(singleLossExpectancy)) {
+                    return invalid(field, start, end);
+                }
+                break;
+            case ANNUALISED_RATE_OF_OCCURRENCE:
+                annualisedRateOfOccurrence = parseDouble(start, end);
+                if (Double.isNaN(annualisedRateOfOccurrence)) {
+                    return invalid(field, start, end);
+                }
+                break;
+            case CONTROL_EFFECTIVENESS:
+                controlEffectiveness = parseDouble(start, end);
+                if (Double.isNaN(controlEffectiveness)) {
+                    return invalid(field, start, end);
+                }
+                break;
+        }
+        seen |= 1 << field.ordinal();
+        return null;
+    }
+
+    //Assigns a value that had to be unescaped first; only the text columns can legitimately contain escapes
+    protected String assignText(ImportField field, String value) {
+        switch (field) {
+            case THREAT:
+                threat = value.strip();
+                break;
+            case CONTROL_MEASURES:
+                controlMeasures = value.strip();
+                break;
+            default:
+                return "Invalid " + label(field) + ": " + abbreviate(value);
+        }
+        if (!value.isBlank()) {
+            seen |= 1 << field.ordinal();
+        }
+        return null;
+    }
+
+    protected String decode(int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    //Digits with an optional sign; INVALID if anything else is present
+    private int parseInt(int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        byte first = buffer.get(pos);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos++;
+        }
+        if (pos == end || end - pos > 9) {
+            return INVALID;
+        }
+        int value = 0;
+        for (; pos < end; pos++) {
+            int digit = buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+        }
+        //Range checks are left to ValidationUtil
+        return negative ? -value : value;
+    }
+
+    //Plain decimals are assembled from their digits: with at most 15 significant digits both the mantissa
+    //and the power of ten are exact doubles, so one division gives the correctly rounded result.
+    //Exponents and longer values fall back to Double.parseDouble. NaN means invalid.
+    private double parseDouble(int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        byte first = buffer.get(pos);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        boolean anyDigit = false;
+        int fractionDigits = -1;
+        for (; pos < end; pos++) {
+            byte b = buffer.get(pos);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                anyDigit = true;
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (pos == end && anyDigit && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        try {
+            double value = Double.parseDouble(decode(start, end));
+            return Double.isFinite(value) ? value : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    //Enum constants are matched by name ignoring case, with spaces and dashes standing in for underscores.
+    //An exact match wins, which keeps RMFStep's Authorise and AUTHORISE apart.
+    private int matchName(byte[][] names, int start, int end) {
+        int length = end - start;
+        int caseInsensitive = -1;
+        for (int i = 0; i < names.length; i++) {
+            byte[] name = names[i];
+            if (name.length != length) {
+                continue;
+            }
+            boolean exact = true;
+            boolean loose = true;
+            for (int j = 0; j < length && loose; j++) {
+                byte b = buffer.get(start + j);
+                if (b != name[j]) {
+                    exact = false;
+                    byte normalised = b == ' ' || b == '-' ? (byte) '_' : ImportField.toLower(b);
+                    loose = normalised == ImportField.toLower(name[j]);
+                }
+            }
+            if (exact) {
+                return i;
+            }
+            if (loose && caseInsensitive < 0) {
+                caseInsensitive = i;
+            }
+        }
+        return caseInsensitive;
+    }
+
+    private String invalid(ImportField field, int start, int end) {
+        return "Invalid " + label(field) + ": " + abbreviate(decode(start, end));
+    }
+
+    protected static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static String label(ImportField field) {
+        return field.name().toLowerCase().replace('_', ' ');
+    }
+
+    private static String abbreviate(String value) {
+        return value.length() > 40 ? value.substring(0, 40) + "..." : value;
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,9 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.model.RiskBatch;
+
+import java.util.List;
+
+//Output of one chunk; error line numbers are relative to the start of the chunk
+record ChunkResult(RiskBatch batch, List<ImportError> errors, long errorCount, int lines) {
+}
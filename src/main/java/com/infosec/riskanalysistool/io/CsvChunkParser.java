@@ -0,0 +1,122 @@
+package com.infosec.riskanalysistool.io;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+//Comma separated rows with RFC 4180 quoting ("" inside a quoted field is a quote).
+//Records are split on line boundaries, so a quoted field cannot span lines.
+class CsvChunkParser extends ChunkParser {
+    private final ImportField[] columns;
+
+    CsvChunkParser(ByteBuffer buffer, ImportField[] columns) {
+        super(buffer);
+        this.columns = columns;
+    }
+
+    //Reads a header line into its columns, or returns null when none of its fields name a column
+    static ImportField[] readHeader(ByteBuffer buffer, int start, int end) {
+        ImportField[] header = new ImportField[ImportField.values().length * 2];
+        int count = 0;
+        boolean recognised = false;
+        int pos = start;
+        while (true) {
+            int fieldEnd = pos;
+            while (fieldEnd < end && buffer.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            int nameStart = pos;
+            int nameEnd = fieldEnd;
+            while (nameStart < nameEnd && (isSpace(buffer.get(nameStart)) || buffer.get(nameStart) == '"')) {
+                nameStart++;
+            }
+            while (nameEnd > nameStart && (isSpace(buffer.get(nameEnd - 1)) || buffer.get(nameEnd - 1) == '"')) {
+                nameEnd--;
+            }
+            ImportField field = ImportField.match(buffer, nameStart, nameEnd);
+            recognised |= field != null;
+            if (count == header.length) {
+                header = Arrays.copyOf(header, count * 2);
+            }
+            header[count++] = field;
+            if (fieldEnd >= end) {
+                break;
+            }
+            pos = fieldEnd + 1;
+        }
+        return recognised ? Arrays.copyOf(header, count) : null;
+    }
+
+    @Override
+    protected String parseLine(int start, int end) {
+        if (isBlank(start, end)) {
+            return null;
+        }
+        rowStarted = true;
+
+        int pos = start;
+        int column = 0;
+        while (true) {
+            ImportField field = column < columns.length ? columns[column] : null;
+            String error;
+            if (pos < end && buffer.get(pos) == '"') {
+                int quote = pos + 1;
+                boolean escaped = false;
+                while (true) {
+                    if (quote >= end) {
+                        return "Unterminated quoted field in column " + (column + 1);
+                    }
+                    if (buffer.get(quote) == '"') {
+                        if (quote + 1 < end && buffer.get(quote + 1) == '"') {
+                            escaped = true;
+                            quote += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    quote++;
+                }
+                int next = quote + 1;
+                while (next < end && isSpace(buffer.get(next))) {
+                    next++;
+                }
+                if (next < end && buffer.get(next) != ',') {
+                    return "Unexpected text after quoted field in column " + (column + 1);
+                }
+                if (field == null) {
+                    error = null;
+                } else if (escaped) {
+                    error = assignText(field, decode(pos + 1, quote).replace("\"\"", "\""));
+                } else {
+                    error = assign(field, pos + 1, quote);
+                }
+                pos = next;
+            } else {
+                int comma = pos;
+                while (comma < end && buffer.get(comma) != ',') {
+                    comma++;
+                }
+                error = field == null ? null : assign(field, pos, comma);
+                pos = comma;
+            }
+            if (error != null) {
+                return error;
+            }
+
+            column++;
+            if (pos >= end) {
+                return null;
+            }
+            //Skip the comma
+            pos++;
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isSpace(buffer.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
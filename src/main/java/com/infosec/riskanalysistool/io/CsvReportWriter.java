@@ -0,0 +1,74 @@
+package com.infosec.riskanalysistool.io;
+
+import java.io.IOException;
+import java.util.List;
+
+//Plain values, one risk per line, with enum names and unformatted numbers so RiskImporter can read the file
+//back (it ignores the derived columns). Images are not part of a CSV report.
+final class CsvReportWriter extends ReportWriter {
+    private final StringBuilder line = new StringBuilder(512);
+
+    CsvReportWriter(ReportOutput out) {
+        super(out);
+    }
+
+    @Override
+    void header(ReportSummary summary, List<ReportImage> images) throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(COLUMNS[i]);
+        }
+        line.append("\r\n");
+        out.write(line);
+    }
+
+    @Override
+    void row(ReportRow row) throws IOException {
+        line.setLength(0);
+        appendText(row.threat).append(',');
+        line.append(row.hipaaRule.name()).append(',');
+        line.append(row.rmfStep.name()).append(',');
+        line.append(row.impact).append(',');
+        line.append(row.likelihood).append(',');
+        line.append(row.riskPriorityNumber).append(',');
+        line.append(row.category.name()).append(',');
+        line.append(row.singleLossExpectancy).append(',');
+        line.append(row.annualisedRateOfOccurrence).append(',');
+        line.append(row.annualisedLossExpectancy).append(',');
+        appendText(row.controlMeasures).append(',');
+        line.append(row.controlEffectiveness).append(',');
+        line.append(row.residualRisk).append(',');
+        appendText(row.recommendation).append("\r\n");
+        out.write(line);
+    }
+
+    @Override
+    void footer() {
+    }
+
+    //Quoted only when it has to be, with quotes doubled (RFC 4180). Line breaks become spaces so that every
+    //risk stays on one line, which RiskImporter needs to split the file into chunks. Runs of ordinary
+    //characters are appended in one go.
+    private StringBuilder appendText(String text) {
+        if (text == null) {
+            return line;
+        }
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0;
+        if (quote) {
+            line.append('"');
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\n' || c == '\r') {
+                line.append(text, start, i).append(c == '"' ? "\"\"" : " ");
+                start = i + 1;
+            }
+        }
+        line.append(text, start, text.length());
+        return quote ? line.append('"') : line;
+    }
+}
@@ -0,0 +1,40 @@
+package com.infosec.riskanalysistool.io;
+
+import java.nio.file.Path;
+
+//What an export wrote and how fast
+public class ExportResult {
+    private final Path path;
+    private final int rows;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    ExportResult(Path path, int rows, long bytes, long elapsedNanos) {
+        this.path = path;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    //Megabytes (2^20 bytes) written per second
+    public double megabytesPerSecond() {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        return bytes / (1024.0 * 1024.0) / seconds;
+    }
+}
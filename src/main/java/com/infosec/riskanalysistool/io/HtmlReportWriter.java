@@ -0,0 +1,121 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Base64;
+import java.util.List;
+
+//A single self-contained page: the totals, the charts as embedded PNGs and a table with one row per risk
+final class HtmlReportWriter extends ReportWriter {
+    private static final String STYLE = "body{font-family:sans-serif;margin:24px}"
+            + "table{border-collapse:collapse;font-size:12px}th,td{border:1px solid #ccc;padding:3px 6px;text-align:left;vertical-align:top}"
+            + "th{background:#eee;position:sticky;top:0}td.n{text-align:right}img{display:block;margin:8px 0 24px}";
+
+    private final StringBuilder html = new StringBuilder(1024);
+
+    HtmlReportWriter(ReportOutput out) {
+        super(out);
+    }
+
+    @Override
+    void header(ReportSummary summary, List<ReportImage> images) throws IOException {
+        html.setLength(0);
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>Healthcare Risk Register</title>\n<style>")
+                .append(STYLE).append("</style>\n</head>\n<body>\n<h1>Healthcare Risk Register</h1>\n<p>");
+        html.append(String.format("%,d", summary.riskCount())).append(" risks, total ALE ").append(currency(summary.totalAnnualisedLossExpectancy()))
+                .append(", total residual risk ").append(decimal(summary.totalResidualRisk())).append(".<br>");
+        for (RiskCategory category : RiskCategory.values()) {
+            html.append(category).append(": ").append(String.format("%,d", summary.categoryCount(category))).append(". ");
+        }
+        html.append("<br>Generated ")
+                .append(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).format(summary.generated().atZone(ZoneId.systemDefault())))
+                .append(".</p>\n");
+        out.write(html);
+
+        for (ReportImage image : images) {
+            html.setLength(0);
+            html.append("<h2>");
+            appendEscaped(image.getTitle());
+            html.append("</h2>\n<img width=\"").append(image.getWidth()).append("\" height=\"").append(image.getHeight()).append("\" alt=\"");
+            appendEscaped(image.getTitle());
+            html.append("\" src=\"data:image/png;base64,");
+            out.write(html);
+            out.write(Base64.getEncoder().encode(image.png()));
+            out.write("\">\n");
+        }
+
+        html.setLength(0);
+        html.append("<h2>Risks</h2>\n<table>\n<thead><tr>");
+        for (String column : COLUMNS) {
+            html.append("<th>").append(column).append("</th>");
+        }
+        html.append("</tr></thead>\n<tbody>\n");
+        out.write(html);
+    }
+
+    @Override
+    void row(ReportRow row) throws IOException {
+        html.setLength(0);
+        html.append("<tr><td>");
+        appendEscaped(row.threat);
+        html.append("</td><td>").append(row.hipaaRule);
+        html.append("</td><td>").append(row.rmfStep);
+        html.append("</td><td class=\"n\">").append(row.impact);
+        html.append("</td><td class=\"n\">").append(row.likelihood);
+        html.append("</td><td class=\"n\">").append(row.riskPriorityNumber);
+        html.append("</td><td>").append(row.category);
+        html.append("</td><td class=\"n\">").append(currency(row.singleLossExpectancy));
+        html.append("</td><td class=\"n\">").append(decimal(row.annualisedRateOfOccurrence));
+        html.append("</td><td class=\"n\">").append(currency(row.annualisedLossExpectancy));
+        html.append("</td><td>");
+        appendEscaped(row.controlMeasures);
+        html.append("</td><td class=\"n\">").append(decimal(row.controlEffectiveness)).append('%');
+        html.append("</td><td class=\"n\">").append(decimal(row.residualRisk));
+        html.append("</td><td>");
+        appendEscaped(row.recommendation);
+        html.append("</td></tr>\n");
+        out.write(html);
+    }
+
+    @Override
+    void footer() throws IOException {
+        out.write("</tbody>\n</table>\n</body>\n</html>\n");
+    }
+
+    //Runs of characters that need no escaping are appended in one go
+    private void appendEscaped(String text) {
+        if (text == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String escaped;
+            switch (text.charAt(i)) {
+                case '<':
+                    escaped = "&lt;";
+                    break;
+                case '>':
+                    escaped = "&gt;";
+                    break;
+                case '&':
+                    escaped = "&amp;";
+                    break;
+                case '"':
+                    escaped = "&quot;";
+                    break;
+                case '\n':
+                    escaped = "<br>";
+                    break;
+                default:
+                    continue;
+            }
+            html.append(text, start, i).append(escaped);
+            start = i + 1;
+        }
+        html.append(text, start, text.length());
+    }
+}
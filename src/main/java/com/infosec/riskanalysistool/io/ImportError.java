@@ -0,0 +1,10 @@
+package com.infosec.riskanalysistool.io;
+
+//A rejected row, by 1-based line number in the source file
+public record ImportError(long line, String message) {
+
+    @Override
+    public String toString() {
+        return "Line " + line + ": " + message;
+    }
+}
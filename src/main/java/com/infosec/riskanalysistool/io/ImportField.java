@@ -0,0 +1,60 @@
+package com.infosec.riskanalysistool.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//Columns understood by the importer. Header names and JSON keys are matched ignoring case, spaces,
+//underscores and dashes, so "Control Effectiveness", "control_effectiveness" and "controlEffectiveness" all match.
+public enum ImportField {
+    THREAT("threat"),
+    HIPAA_RULE("hipaarule", "hipaa"),
+    RMF_STEP("rmfstep", "rmf"),
+    IMPACT("impact"),
+    LIKELIHOOD("likelihood"),
+    SINGLE_LOSS_EXPECTANCY("sle", "singlelossexpectancy"),
+    ANNUALISED_RATE_OF_OCCURRENCE("aro", "annualisedrateofoccurrence", "annualizedrateofoccurrence"),
+    CONTROL_MEASURES("controlmeasures", "controls"),
+    CONTROL_EFFECTIVENESS("controleffectiveness", "effectiveness");
+
+    private static final ImportField[] VALUES = values();
+
+    private final byte[][] aliases;
+
+    ImportField(String... aliases) {
+        this.aliases = new byte[aliases.length][];
+        for (int i = 0; i < aliases.length; i++) {
+            this.aliases[i] = aliases[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    //Matches the bytes in [start, end) without decoding them; null if the name is not a known column
+    static ImportField match(ByteBuffer buffer, int start, int end) {
+        for (ImportField field : VALUES) {
+            for (byte[] alias : field.aliases) {
+                if (matches(buffer, start, end, alias)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, byte[] alias) {
+        int a = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == ' ' || b == '_' || b == '-') {
+                continue;
+            }
+            if (a == alias.length || toLower(b) != alias[a]) {
+                return false;
+            }
+            a++;
+        }
+        return a == alias.length;
+    }
+
+    static byte toLower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
@@ -0,0 +1,55 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.model.RiskBatch;
+
+import java.util.List;
+
+//Rows that passed validation, ready for RiskRegister.addAll, plus the rejected rows and throughput.
+//Only the first MAX_ERRORS errors are kept; errorCount is always the full number.
+public class ImportResult {
+    public static final int MAX_ERRORS = 1_000;
+
+    private final RiskBatch batch;
+    private final List<ImportError> errors;
+    private final long errorCount;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    ImportResult(RiskBatch batch, List<ImportError> errors, long errorCount, long bytes, long elapsedNanos) {
+        this.batch = batch;
+        this.errors = errors;
+        this.errorCount = errorCount;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public RiskBatch getBatch() {
+        return batch;
+    }
+
+    public int getImportedRows() {
+        return batch.size();
+    }
+
+    public List<ImportError> getErrors() {
+        return errors;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    //Rows read (accepted and rejected) per second of parse and validation time
+    public double rowsPerSecond() {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        return (batch.size() + errorCount) / seconds;
+    }
+}
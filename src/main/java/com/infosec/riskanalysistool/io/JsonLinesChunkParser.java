@@ -0,0 +1,176 @@
+package com.infosec.riskanalysistool.io;
+
+import java.nio.ByteBuffer;
+
+//One flat JSON object per line: JSON Lines, or a top-level array written one element per line.
+//Brackets and separating commas around the object are skipped; nested objects and arrays are rejected.
+class JsonLinesChunkParser extends ChunkParser {
+
+    JsonLinesChunkParser(ByteBuffer buffer) {
+        super(buffer);
+    }
+
+    @Override
+    protected String parseLine(int start, int end) {
+        int pos = skipWhitespace(start, end);
+        if (pos < end && (buffer.get(pos) == '[' || buffer.get(pos) == ',')) {
+            pos = skipWhitespace(pos + 1, end);
+        }
+        if (pos == end || buffer.get(pos) == ']') {
+            return null;
+        }
+        if (buffer.get(pos) != '{') {
+            return "Expected a JSON object";
+        }
+        rowStarted = true;
+
+        pos = skipWhitespace(pos + 1, end);
+        if (pos < end && buffer.get(pos) == '}') {
+            pos++;
+        } else {
+            while (true) {
+                if (pos >= end || buffer.get(pos) != '"') {
+                    return "Expected a quoted key";
+                }
+                int keyEnd = stringEnd(pos + 1, end);
+                if (keyEnd < 0) {
+                    return "Unterminated string";
+                }
+                ImportField field = ImportField.match(buffer, pos + 1, keyEnd);
+
+                pos = skipWhitespace(keyEnd + 1, end);
+                if (pos >= end || buffer.get(pos) != ':') {
+                    return "Expected ':' after key";
+                }
+                pos = skipWhitespace(pos + 1, end);
+                if (pos >= end) {
+                    return "Missing value";
+                }
+
+                String error = null;
+                byte first = buffer.get(pos);
+                if (first == '"') {
+                    int valueEnd = stringEnd(pos + 1, end);
+                    if (valueEnd < 0) {
+                        return "Unterminated string";
+                    }
+                    if (field != null) {
+                        error = hasEscape(pos + 1, valueEnd) ? assignText(field, unescape(decode(pos + 1, valueEnd))) : assign(field, pos + 1, valueEnd);
+                    }
+                    pos = valueEnd + 1;
+                } else if (first == '{' || first == '[') {
+                    return "Nested values are not supported";
+                } else {
+                    int valueEnd = pos;
+                    while (valueEnd < end && buffer.get(valueEnd) != ',' && buffer.get(valueEnd) != '}' && !isWhitespace(buffer.get(valueEnd))) {
+                        valueEnd++;
+                    }
+                    //null leaves the field missing
+                    boolean isNull = valueEnd - pos == 4 && first == 'n' && buffer.get(pos + 1) == 'u' && buffer.get(pos + 2) == 'l' && buffer.get(pos + 3) == 'l';
+                    if (field != null && !isNull) {
+                        error = assign(field, pos, valueEnd);
+                    }
+                    pos = valueEnd;
+                }
+                if (error != null) {
+                    return error;
+                }
+
+                pos = skipWhitespace(pos, end);
+                if (pos < end && buffer.get(pos) == ',') {
+                    pos = skipWhitespace(pos + 1, end);
+                    continue;
+                }
+                if (pos < end && buffer.get(pos) == '}') {
+                    pos++;
+                    break;
+                }
+                return "Expected ',' or '}'";
+            }
+        }
+
+        pos = skipWhitespace(pos, end);
+        if (pos < end && (buffer.get(pos) == ',' || buffer.get(pos) == ']')) {
+            pos = skipWhitespace(pos + 1, end);
+        }
+        return pos == end ? null : "Only one object per line is supported";
+    }
+
+    //Index of the closing quote of a string whose content starts at start, or -1
+    private int stringEnd(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '\\') {
+                i++;
+            } else if (b == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean hasEscape(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int skipWhitespace(int pos, int end) {
+        while (pos < end && isWhitespace(buffer.get(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static String unescape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                builder.append(c);
+                continue;
+            }
+            char escape = value.charAt(++i);
+            switch (escape) {
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 < value.length()) {
+                        try {
+                            builder.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                            i += 4;
+                            break;
+                        } catch (NumberFormatException e) {
+                            //Keep the sequence as written
+                        }
+                    }
+                    builder.append("\\u");
+                    break;
+                default:
+                    builder.append(escape);
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+}
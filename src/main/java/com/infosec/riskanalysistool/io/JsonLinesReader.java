@@ -0,0 +1,102 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.model.RiskBatch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Reads JSON Lines risks from a stream a block of whole lines at a time, so a caller can score and answer one
+//block before reading the next and a stream of any length is never held in memory. Blocks are parsed in place
+//by the importer's JSON Lines parser. Every rejected line is kept, and the line of every row, so answers can
+//be matched back to the lines they came from.
+public class JsonLinesReader {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+    private static final int MAX_LINE_LENGTH = 1 << 24;
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int filled;
+    private long linesRead;
+    private boolean ended;
+
+    //Lines are numbered from 1 at the start of the stream
+    public record Block(RiskBatch batch, int[] rowLines, List<ImportError> errors, long firstLine) {
+        public long rowLine(int row) {
+            return firstLine + rowLines[row] - 1;
+        }
+    }
+
+    public JsonLinesReader(InputStream in) {
+        this(in, DEFAULT_BLOCK_SIZE);
+    }
+
+    public JsonLinesReader(InputStream in, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.in = in;
+        this.buffer = new byte[blockSize];
+    }
+
+    //The next block of whole lines, or null once the stream has been read
+    public Block next() throws IOException {
+        int end = -1;
+        while (end < 0) {
+            fill();
+            if (ended) {
+                if (filled == 0) {
+                    return null;
+                }
+                end = filled;
+            } else {
+                end = lastLineEnd();
+                if (end < 0) {
+                    if (buffer.length >= MAX_LINE_LENGTH) {
+                        throw new IOException("Line " + (linesRead + 1) + " is longer than " + MAX_LINE_LENGTH + " bytes");
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.min(MAX_LINE_LENGTH, buffer.length * 2));
+                }
+            }
+        }
+
+        JsonLinesChunkParser parser = new JsonLinesChunkParser(ByteBuffer.wrap(buffer, 0, end));
+        parser.keepLines();
+        ChunkResult chunk = parser.parse();
+        long firstLine = linesRead + 1;
+        List<ImportError> errors = new ArrayList<>(chunk.errors().size());
+        for (ImportError error : chunk.errors()) {
+            errors.add(new ImportError(firstLine + error.line() - 1, error.message()));
+        }
+        linesRead += chunk.lines();
+
+        System.arraycopy(buffer, end, buffer, 0, filled - end);
+        filled -= end;
+        return new Block(chunk.batch(), parser.rowLines(), errors, firstLine);
+    }
+
+    //Reads until the buffer is full or the stream ends
+    private void fill() throws IOException {
+        while (filled < buffer.length && !ended) {
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                ended = true;
+            } else {
+                filled += read;
+            }
+        }
+    }
+
+    //Index just past the last newline in the buffer, or -1 if there is none
+    private int lastLineEnd() {
+        for (int i = filled - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
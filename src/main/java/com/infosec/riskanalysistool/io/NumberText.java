@@ -0,0 +1,121 @@
+package com.infosec.riskanalysistool.io;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+
+//Formats numbers the way a DecimalFormat would, for reports with millions of values. The format's own
+//prefixes, separators, grouping and fraction digits are read once and the digits are then written directly,
+//which is several times faster than DecimalFormat; values it cannot be sure to round the same way (halfway
+//cases, very large numbers, NaN) are handed to the format itself. Not thread-safe.
+final class NumberText {
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000};
+    //Beyond this, value * 10^fraction digits no longer fits a long with room to spare
+    private static final double MAX_FAST_VALUE = 1e15;
+
+    private final NumberFormat format;
+    private final StringBuilder text = new StringBuilder(32);
+    //DecimalFormat only writes to a StringBuffer
+    private final StringBuffer formatted = new StringBuffer(32);
+    private final FieldPosition fieldPosition = new FieldPosition(0);
+    private final char[] digits = new char[40];
+    private final boolean fast;
+    private String positivePrefix;
+    private String positiveSuffix;
+    private String negativePrefix;
+    private String negativeSuffix;
+    private int groupingSize;
+    private char groupingSeparator;
+    private char decimalSeparator;
+    private char zeroDigit;
+    private int minimumFractionDigits;
+    private int maximumFractionDigits;
+
+    NumberText(NumberFormat format, boolean monetary) {
+        this.format = format;
+        if (format instanceof DecimalFormat decimalFormat && format.getMaximumFractionDigits() < POWERS_OF_TEN.length
+                && format.getMaximumIntegerDigits() >= 16 && format.getMinimumIntegerDigits() <= 1 && decimalFormat.getMultiplier() == 1
+                && !decimalFormat.isDecimalSeparatorAlwaysShown() && hasSingleGrouping(decimalFormat)) {
+            DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+            positivePrefix = decimalFormat.getPositivePrefix();
+            positiveSuffix = decimalFormat.getPositiveSuffix();
+            negativePrefix = decimalFormat.getNegativePrefix();
+            negativeSuffix = decimalFormat.getNegativeSuffix();
+            groupingSize = decimalFormat.isGroupingUsed() ? decimalFormat.getGroupingSize() : 0;
+            groupingSeparator = monetary ? symbols.getMonetaryGroupingSeparator() : symbols.getGroupingSeparator();
+            decimalSeparator = monetary ? symbols.getMonetaryDecimalSeparator() : symbols.getDecimalSeparator();
+            zeroDigit = symbols.getZeroDigit();
+            minimumFractionDigits = format.getMinimumFractionDigits();
+            maximumFractionDigits = format.getMaximumFractionDigits();
+            fast = true;
+        } else {
+            fast = false;
+        }
+    }
+
+    //Patterns such as #,##,##0 group the digits unevenly, which the fast path does not do
+    private static boolean hasSingleGrouping(DecimalFormat format) {
+        String pattern = format.toPattern();
+        int end = pattern.indexOf(';');
+        String positive = end < 0 ? pattern : pattern.substring(0, end);
+        return positive.indexOf(',') == positive.lastIndexOf(',');
+    }
+
+    //The formatted value, valid until the next call
+    CharSequence format(double value) {
+        double magnitude = Math.abs(value);
+        if (!fast || !(magnitude < MAX_FAST_VALUE)) {
+            return slow(value);
+        }
+        long scale = POWERS_OF_TEN[maximumFractionDigits];
+        double scaled = magnitude * scale;
+        double floor = Math.floor(scaled);
+        //DecimalFormat rounds halfway cases to even on the exact decimal value; leave those to it
+        if (scaled - floor == 0.5) {
+            return slow(value);
+        }
+        long units = (long) Math.rint(scaled);
+        long whole = units / scale;
+        long fraction = units % scale;
+
+        //Trailing fraction zeros are dropped down to the minimum
+        int fractionDigits = maximumFractionDigits;
+        while (fractionDigits > minimumFractionDigits && fraction % 10 == 0) {
+            fraction /= 10;
+            fractionDigits--;
+        }
+
+        //Digits are filled in from the right
+        int position = digits.length;
+        for (int i = 0; i < fractionDigits; i++) {
+            digits[--position] = (char) (zeroDigit + fraction % 10);
+            fraction /= 10;
+        }
+        if (fractionDigits > 0) {
+            digits[--position] = decimalSeparator;
+        }
+        int integerDigits = 0;
+        do {
+            if (groupingSize > 0 && integerDigits > 0 && integerDigits % groupingSize == 0) {
+                digits[--position] = groupingSeparator;
+            }
+            digits[--position] = (char) (zeroDigit + whole % 10);
+            whole /= 10;
+            integerDigits++;
+        } while (whole > 0);
+
+        //Like DecimalFormat, keep the sign of a negative value that rounds to zero, and of -0.0
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        text.setLength(0);
+        text.append(negative ? negativePrefix : positivePrefix);
+        text.append(digits, position, digits.length - position);
+        text.append(negative ? negativeSuffix : positiveSuffix);
+        return text;
+    }
+
+    private CharSequence slow(double value) {
+        formatted.setLength(0);
+        return format.format(value, formatted, fieldPosition);
+    }
+}
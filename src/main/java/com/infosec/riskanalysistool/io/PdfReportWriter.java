@@ -0,0 +1,321 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+//A landscape A4 PDF written in one pass: a first page with the totals and charts, then the risks, two lines
+//each, a page at a time. Only the page being filled is held in memory; each is compressed and written as soon
+//as it is full. The page tree and cross-reference table come last, once every object's offset is known.
+//
+//Text uses the standard Helvetica fonts, so nothing is embedded; characters outside their WinAnsi encoding
+//print as '?'. Long text is cut to fit its column.
+final class PdfReportWriter extends ReportWriter {
+    private static final int PAGE_WIDTH = 842;
+    private static final int PAGE_HEIGHT = 595;
+    private static final int MARGIN = 36;
+    private static final int ROW_HEIGHT = 22;
+    private static final int RISKS_PER_PAGE = (PAGE_HEIGHT - 2 * MARGIN - 24) / ROW_HEIGHT;
+
+    //Fixed object numbers; everything else is numbered as it is written
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT = 3;
+    private static final int BOLD_FONT = 4;
+
+    private static final String[] HEADINGS = {"Threat", "HIPAA Rule", "RMF Step", "Imp.", "Lik.", "RPN", "Category", "SLE", "ARO", "ALE", "Eff.", "Residual"};
+    private static final int[] WIDTHS = {170, 104, 62, 26, 26, 26, 50, 74, 40, 74, 36, 44};
+    //Helvetica averages a little under half an em per character
+    private static final double CHAR_WIDTH = 0.48;
+
+    private final StringBuilder page = new StringBuilder(16 * 1024);
+    private final StringBuilder text = new StringBuilder(256);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] pageBytes = new byte[16 * 1024];
+    private byte[] compressed = new byte[8 * 1024];
+    private long[] offsets = new long[64];
+    private int[] pageObjects = new int[64];
+    private int pageCount;
+    private int nextObject = BOLD_FONT + 1;
+    private int rowsOnPage;
+
+    PdfReportWriter(ReportOutput out) {
+        super(out);
+    }
+
+    @Override
+    void header(ReportSummary summary, List<ReportImage> images) throws IOException {
+        out.write("%PDF-1.4\n");
+        //Marks the file as binary for transfer programs
+        out.write(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+        writeObject(FONT, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        writeObject(BOLD_FONT, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>");
+
+        int[] imageObjects = new int[images.size()];
+        for (int i = 0; i < images.size(); i++) {
+            imageObjects[i] = writeImage(images.get(i));
+        }
+
+        page.setLength(0);
+        line(BOLD_FONT, 18, MARGIN, PAGE_HEIGHT - MARGIN - 18, "Healthcare Risk Register", 80);
+        text.setLength(0);
+        text.append(String.format("%,d", summary.riskCount())).append(" risks, total ALE ").append(currency(summary.totalAnnualisedLossExpectancy()))
+                .append(", total residual risk ").append(decimal(summary.totalResidualRisk()));
+        line(FONT, 10, MARGIN, PAGE_HEIGHT - MARGIN - 40, text, 160);
+        text.setLength(0);
+        for (RiskCategory category : RiskCategory.values()) {
+            text.append(category).append(": ").append(String.format("%,d", summary.categoryCount(category))).append("    ");
+        }
+        line(FONT, 10, MARGIN, PAGE_HEIGHT - MARGIN - 54, text, 160);
+        line(FONT, 10, MARGIN, PAGE_HEIGHT - MARGIN - 68,
+                "Generated " + DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM).format(summary.generated().atZone(ZoneId.systemDefault())), 160);
+
+        //Charts side by side, scaled to fit below the totals
+        if (!images.isEmpty()) {
+            double gap = 18;
+            double slotWidth = (PAGE_WIDTH - 2 * MARGIN - gap * (images.size() - 1)) / images.size();
+            double slotHeight = PAGE_HEIGHT - 2 * MARGIN - 110;
+            double x = MARGIN;
+            for (int i = 0; i < images.size(); i++) {
+                ReportImage image = images.get(i);
+                double scale = Math.min(slotWidth / image.getWidth(), slotHeight / image.getHeight());
+                double width = image.getWidth() * scale;
+                double height = image.getHeight() * scale;
+                double top = PAGE_HEIGHT - MARGIN - 96;
+                line(BOLD_FONT, 11, x, top, image.getTitle(), (int) (slotWidth / (11 * CHAR_WIDTH)));
+                page.append(String.format(Locale.ROOT, "q %.2f 0 0 %.2f %.2f %.2f cm /Im%d Do Q\n", width, height, x, top - 8 - height, i));
+                x += slotWidth + gap;
+            }
+        }
+        StringBuilder resources = new StringBuilder("<< /Font << /F3 3 0 R /F4 4 0 R >>");
+        if (imageObjects.length > 0) {
+            resources.append(" /XObject <<");
+            for (int i = 0; i < imageObjects.length; i++) {
+                resources.append(" /Im").append(i).append(' ').append(imageObjects[i]).append(" 0 R");
+            }
+            resources.append(" >>");
+        }
+        resources.append(" >>");
+        finishPage(resources.toString());
+    }
+
+    @Override
+    void row(ReportRow row) throws IOException {
+        if (rowsOnPage == RISKS_PER_PAGE) {
+            finishPage(null);
+        }
+        if (rowsOnPage == 0) {
+            startTablePage();
+        }
+        double y = PAGE_HEIGHT - MARGIN - 24 - ROW_HEIGHT * rowsOnPage - 8;
+        //One text object per line, moving from column to column
+        page.append("BT /F3 8 Tf ").append(MARGIN).append(' ').append(y).append(" Td ");
+        cell(row.threat, 0);
+        cell(row.hipaaRule.toString(), 1);
+        cell(row.rmfStep.toString(), 2);
+        cell(text(row.impact), 3);
+        cell(text(row.likelihood), 4);
+        cell(text(row.riskPriorityNumber), 5);
+        cell(row.category.toString(), 6);
+        cell(currency(row.singleLossExpectancy), 7);
+        cell(decimal(row.annualisedRateOfOccurrence), 8);
+        cell(currency(row.annualisedLossExpectancy), 9);
+        text.setLength(0);
+        cell(text.append(decimal(row.controlEffectiveness)).append('%'), 10);
+        cell(decimal(row.residualRisk), 11);
+        page.append("ET\n");
+
+        text.setLength(0);
+        if (row.controlMeasures != null && !row.controlMeasures.isEmpty()) {
+            text.append("Controls: ").append(row.controlMeasures).append(".  ");
+        }
+        text.append(row.recommendation);
+        page.append("0.35 g ");
+        line(FONT, 7, MARGIN + 8, y - 9, text, (int) ((PAGE_WIDTH - 2 * MARGIN - 8) / (7 * CHAR_WIDTH)));
+        page.append("0 g\n");
+        rowsOnPage++;
+    }
+
+    @Override
+    void footer() throws IOException {
+        if (rowsOnPage > 0) {
+            finishPage(null);
+        }
+
+        offsets[PAGES] = out.position();
+        StringBuilder tree = new StringBuilder(16 * 1024);
+        tree.append(PAGES).append(" 0 obj\n<< /Type /Pages /Count ").append(pageCount).append(" /Kids [");
+        for (int i = 0; i < pageCount; i++) {
+            tree.append(pageObjects[i]).append(" 0 R ");
+            if (tree.length() > 8 * 1024) {
+                out.write(tree);
+                tree.setLength(0);
+            }
+        }
+        tree.append("] >>\nendobj\n");
+        out.write(tree);
+        writeObject(CATALOG, "<< /Type /Catalog /Pages 2 0 R >>");
+
+        //Every entry is exactly 20 bytes
+        long xref = out.position();
+        tree.setLength(0);
+        tree.append("xref\n0 ").append(nextObject).append("\n0000000000 65535 f \n");
+        for (int object = 1; object < nextObject; object++) {
+            String offset = Long.toString(offsets[object]);
+            for (int pad = offset.length(); pad < 10; pad++) {
+                tree.append('0');
+            }
+            tree.append(offset).append(" 00000 n \n");
+            if (tree.length() > 8 * 1024) {
+                out.write(tree);
+                tree.setLength(0);
+            }
+        }
+        tree.append("trailer\n<< /Size ").append(nextObject).append(" /Root 1 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        out.write(tree);
+        deflater.end();
+    }
+
+    private void startTablePage() {
+        page.setLength(0);
+        page.append("BT /F4 8 Tf ").append(MARGIN).append(' ').append(PAGE_HEIGHT - MARGIN - 12).append(" Td ");
+        for (int i = 0; i < HEADINGS.length; i++) {
+            cell(HEADINGS[i], i);
+        }
+        page.append("ET\n");
+        page.append("0.6 G 0.5 w ").append(MARGIN).append(' ').append(PAGE_HEIGHT - MARGIN - 17).append(" m ")
+                .append(PAGE_WIDTH - MARGIN).append(' ').append(PAGE_HEIGHT - MARGIN - 17).append(" l S\n");
+        page.append("BT /F3 7 Tf ").append(PAGE_WIDTH - MARGIN - 40).append(' ').append(MARGIN / 2).append(" Td (Page ")
+                .append(pageCount + 1).append(") Tj ET\n");
+    }
+
+    //Text at the current position, then a move to the next column
+    private void cell(CharSequence value, int column) {
+        appendString(value, (int) (WIDTHS[column] / (8 * CHAR_WIDTH)) - 1);
+        page.append(" Tj ");
+        if (column + 1 < WIDTHS.length) {
+            page.append(WIDTHS[column]).append(" 0 Td ");
+        }
+    }
+
+    private void line(int font, int size, double x, double y, CharSequence value, int maxChars) {
+        page.append("BT /F").append(font).append(' ').append(size).append(" Tf ")
+                .append(Math.round(x * 100) / 100.0).append(' ').append(Math.round(y * 100) / 100.0).append(" Td ");
+        appendString(value, maxChars);
+        page.append(" Tj ET\n");
+    }
+
+    //A PDF string of at most maxChars characters, escaped and kept to WinAnsi. Runs of plain ASCII are
+    //appended in one go.
+    private void appendString(CharSequence value, int maxChars) {
+        page.append('(');
+        if (value != null) {
+            int length = value.length();
+            boolean cut = length > maxChars;
+            int end = cut ? Math.max(0, maxChars - 3) : length;
+            int start = 0;
+            for (int i = 0; i < end; i++) {
+                char c = value.charAt(i);
+                if (c >= 32 && c < 127 && c != '(' && c != ')' && c != '\\') {
+                    continue;
+                }
+                page.append(value, start, i);
+                start = i + 1;
+                if (c == '(' || c == ')' || c == '\\') {
+                    page.append('\\').append(c);
+                } else if (c >= 160 && c <= 255) {
+                    //Latin-1 and WinAnsi agree here; written as octal so the content stays ASCII
+                    page.append('\\').append(Integer.toOctalString(c));
+                } else if (c == '\u20AC') {
+                    page.append("\\200");
+                } else if (c == '\u202F' || c == '\u2009' || c < 32) {
+                    //Narrow and thin spaces some locales group digits with, and control characters
+                    page.append(' ');
+                } else {
+                    page.append('?');
+                }
+            }
+            page.append(value, start, end);
+            if (cut) {
+                page.append("...");
+            }
+        }
+        page.append(')');
+    }
+
+    private static CharSequence text(int value) {
+        return Integer.toString(value);
+    }
+
+    //Compresses the page's content stream and writes it with the page object that uses it
+    private void finishPage(String resources) throws IOException {
+        int length = page.length();
+        if (pageBytes.length < length) {
+            pageBytes = new byte[Math.max(length, pageBytes.length * 2)];
+        }
+        //Content is ASCII by construction
+        for (int i = 0; i < length; i++) {
+            pageBytes[i] = (byte) page.charAt(i);
+        }
+        deflater.reset();
+        deflater.setInput(pageBytes, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        int contents = nextObject++;
+        beginObject(contents);
+        out.write("<< /Length " + compressedLength + " /Filter /FlateDecode >>\nstream\n");
+        out.write(compressed, 0, compressedLength);
+        out.write("\nendstream\nendobj\n");
+
+        int pageObject = nextObject++;
+        writeObject(pageObject, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT + "] /Resources "
+                + (resources != null ? resources : "<< /Font << /F3 3 0 R /F4 4 0 R >> >>") + " /Contents " + contents + " 0 R >>");
+        if (pageCount == pageObjects.length) {
+            pageObjects = Arrays.copyOf(pageObjects, pageCount * 2);
+        }
+        pageObjects[pageCount++] = pageObject;
+        page.setLength(0);
+        rowsOnPage = 0;
+    }
+
+    //The image's PNG rows go in as they are, undone by the PNG predictor on reading
+    private int writeImage(ReportImage image) throws IOException {
+        byte[] data = image.deflatedRows();
+        int object = nextObject++;
+        beginObject(object);
+        out.write("<< /Type /XObject /Subtype /Image /Width " + image.getWidth() + " /Height " + image.getHeight()
+                + " /ColorSpace /DeviceRGB /BitsPerComponent 8 /Filter /FlateDecode /DecodeParms << /Predictor 15 /Colors 3 /BitsPerComponent 8 /Columns "
+                + image.getWidth() + " >> /Length " + data.length + " >>\nstream\n");
+        out.write(data);
+        out.write("\nendstream\nendobj\n");
+        return object;
+    }
+
+    private void writeObject(int object, String body) throws IOException {
+        beginObject(object);
+        out.write(body);
+        out.write("\nendobj\n");
+    }
+
+    private void beginObject(int object) throws IOException {
+        if (object >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(object + 1, offsets.length * 2));
+        }
+        offsets[object] = out.position();
+        out.write(object + " 0 obj\n");
+    }
+}
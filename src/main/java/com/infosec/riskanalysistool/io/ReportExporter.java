@@ -0,0 +1,148 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskScoring;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+//Writes the register out as a CSV, HTML or PDF report.
+//The caller hands over a RiskBatch copy of the register (RiskRegister.snapshot()) and any chart images, both
+//taken on the FX thread, and calls export() on a background thread. Rows are formatted one at a time into a
+//fixed buffer that is written to the file whenever it fills, so memory stays the same whatever the register
+//size; progress is reported and cancellation checked after every chunk of rows. The report is written to a
+//temporary file beside the target and moved over it only once complete, so a failed or cancelled export leaves
+//any earlier report at that path as it was.
+public class ReportExporter {
+    public enum Format {
+        CSV("csv"),
+        HTML("html"),
+        PDF("pdf");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        //.htm and .html are HTML, .pdf is PDF; anything else is CSV
+        public static Format of(Path path) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".html") || name.endsWith(".htm")) {
+                return HTML;
+            }
+            return name.endsWith(".pdf") ? PDF : CSV;
+        }
+    }
+
+    private static final int DEFAULT_CHUNK_ROWS = 16_384;
+
+    private final int chunkRows;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public ReportExporter() {
+        this(DEFAULT_CHUNK_ROWS);
+    }
+
+    public ReportExporter(int chunkRows) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkRows = chunkRows;
+    }
+
+    //Stops an export at the next chunk; export() then deletes the partial file and throws CancellationException
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public ExportResult export(RiskBatch risks, List<ReportImage> images, Path path) throws IOException {
+        return export(risks, images, path, Format.of(path), rows -> { });
+    }
+
+    //progress is called with the number of rows written so far
+    public ExportResult export(RiskBatch risks, List<ReportImage> images, Path path, Format format, IntConsumer progress) throws IOException {
+        cancelled.set(false);
+        long start = System.nanoTime();
+        long timing = Operation.EXPORT.begin();
+        int rows = risks.size();
+        ReportSummary summary = summarise(risks);
+        ReportRow row = new ReportRow();
+        long bytes;
+        Path partial = path.resolveSibling("." + path.getFileName() + ".part");
+        boolean complete = false;
+        try {
+            try (ReportOutput out = new ReportOutput(partial, charset(format))) {
+                ReportWriter writer = writer(format, out);
+                writer.header(summary, images);
+                for (int first = 0; first < rows; first += chunkRows) {
+                    if (cancelled.get()) {
+                        throw new CancellationException("Export cancelled");
+                    }
+                    int end = Math.min(rows, first + chunkRows);
+                    for (int r = first; r < end; r++) {
+                        row.load(risks, r);
+                        writer.row(row);
+                    }
+                    progress.accept(end);
+                }
+                writer.footer();
+                bytes = out.position();
+            }
+            Files.move(partial, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(partial);
+            }
+        }
+        Operation.EXPORT.end(timing, rows);
+        return new ExportResult(path, rows, bytes, System.nanoTime() - start);
+    }
+
+    private static ReportWriter writer(Format format, ReportOutput out) {
+        switch (format) {
+            case HTML:
+                return new HtmlReportWriter(out);
+            case PDF:
+                return new PdfReportWriter(out);
+            default:
+                return new CsvReportWriter(out);
+        }
+    }
+
+    //PDF content is kept to ASCII by the writer
+    private static Charset charset(Format format) {
+        return format == Format.PDF ? StandardCharsets.US_ASCII : StandardCharsets.UTF_8;
+    }
+
+    //Totals for the report header, from the numeric columns only
+    private static ReportSummary summarise(RiskBatch risks) {
+        double totalAnnualisedLossExpectancy = 0;
+        double totalResidualRisk = 0;
+        int[] categoryCounts = new int[RiskCategory.values().length];
+        for (int row = 0; row < risks.size(); row++) {
+            int riskPriorityNumber = RiskScoring.riskPriorityNumber(risks.getImpact(row), risks.getLikelihood(row));
+            totalAnnualisedLossExpectancy += RiskScoring.annualisedLossExpectancy(risks.getSingleLossExpectancy(row), risks.getAnnualisedRateOfOccurrence(row));
+            totalResidualRisk += RiskScoring.residualRisk(riskPriorityNumber, risks.getControlEffectiveness(row));
+            categoryCounts[RiskCategory.fromRiskPriorityNumber(riskPriorityNumber).ordinal()]++;
+        }
+        return new ReportSummary(risks.size(), totalAnnualisedLossExpectancy, totalResidualRisk, categoryCounts, Instant.now());
+    }
+}
@@ -0,0 +1,91 @@
+package com.infosec.riskanalysistool.io;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+//A chart rendered for a report, as opaque ARGB pixels. The caller renders it (on the FX thread); encoding it
+//happens here, on the export thread, once per report whatever the format.
+public final class ReportImage {
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final String title;
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private byte[] deflatedRows;
+
+    public ReportImage(String title, int width, int height, int[] pixels) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " pixels but got " + pixels.length);
+        }
+        this.title = title;
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    //Rows of 8-bit RGB, each led by PNG filter type 0, zlib-compressed. This is both the IDAT data of a PNG and,
+    //with PNG predictors declared, a FlateDecode image stream in a PDF.
+    byte[] deflatedRows() {
+        if (deflatedRows == null) {
+            byte[] rows = new byte[height * (1 + width * 3)];
+            int i = 0;
+            for (int y = 0; y < height; y++) {
+                rows[i++] = 0;
+                for (int x = 0; x < width; x++) {
+                    int argb = pixels[y * width + x];
+                    rows[i++] = (byte) (argb >> 16);
+                    rows[i++] = (byte) (argb >> 8);
+                    rows[i++] = (byte) argb;
+                }
+            }
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            deflater.setInput(rows);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(rows.length / 8);
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            deflater.end();
+            deflatedRows = out.toByteArray();
+        }
+        return deflatedRows;
+    }
+
+    byte[] png() {
+        byte[] data = deflatedRows();
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height).put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+        ByteBuffer png = ByteBuffer.allocate(PNG_SIGNATURE.length + 3 * 12 + 13 + data.length);
+        png.put(PNG_SIGNATURE);
+        chunk(png, "IHDR", header.array());
+        chunk(png, "IDAT", data);
+        chunk(png, "IEND", new byte[0]);
+        return png.array();
+    }
+
+    //Length, type, data and the CRC-32 of type and data
+    private static void chunk(ByteBuffer png, String type, byte[] data) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        png.putInt(data.length).put(typeBytes).put(data).putInt((int) crc.getValue());
+    }
+}
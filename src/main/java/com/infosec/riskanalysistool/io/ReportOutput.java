@@ -0,0 +1,99 @@
+package com.infosec.riskanalysistool.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//Encodes report text straight into one direct buffer and writes it to the file whenever the buffer fills, so
+//however large the report only the buffer and the text of the row being written are ever held in memory.
+//ReportExporter points it at a temporary file, so truncating here never touches a finished report.
+final class ReportOutput implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder;
+    //Text is copied here first: encoding from an array is much faster than from a CharSequence
+    private char[] chars = new char[8192];
+    private long written;
+
+    ReportOutput(Path path, Charset charset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        //Characters the charset cannot hold become '?'
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .replaceWith(new byte[]{'?'});
+    }
+
+    void write(StringBuilder text) throws IOException {
+        int length = text.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        text.getChars(0, length, chars, 0);
+        CharBuffer in = CharBuffer.wrap(chars, 0, length);
+        while (true) {
+            CoderResult result = encoder.encode(in, buffer, true);
+            if (!result.isOverflow()) {
+                break;
+            }
+            drain();
+        }
+        encoder.reset();
+    }
+
+    void write(String text) throws IOException {
+        CharBuffer in = CharBuffer.wrap(text);
+        while (encoder.encode(in, buffer, true).isOverflow()) {
+            drain();
+        }
+        encoder.reset();
+    }
+
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    void write(byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    //Bytes written so far, including those still in the buffer
+    long position() {
+        return written + buffer.position();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RecommendationEngine;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskScoring;
+
+//One risk of a report with its derived values. A single instance is reloaded for every row, so writing a
+//report allocates nothing per risk beyond the text the batch decodes.
+final class ReportRow {
+    String threat;
+    HIPAARule hipaaRule;
+    RMFStep rmfStep;
+    int impact;
+    int likelihood;
+    int riskPriorityNumber;
+    RiskCategory category;
+    double singleLossExpectancy;
+    double annualisedRateOfOccurrence;
+    double annualisedLossExpectancy;
+    String controlMeasures;
+    double controlEffectiveness;
+    double residualRisk;
+    String recommendation;
+
+    //Derives the same values as RiskRegister, through RiskScoring
+    void load(RiskBatch batch, int row) {
+        threat = batch.getThreat(row);
+        hipaaRule = batch.getHipaaRule(row);
+        rmfStep = batch.getRmfStep(row);
+        impact = batch.getImpact(row);
+        likelihood = batch.getLikelihood(row);
+        riskPriorityNumber = RiskScoring.riskPriorityNumber(impact, likelihood);
+        category = RiskCategory.fromRiskPriorityNumber(riskPriorityNumber);
+        singleLossExpectancy = batch.getSingleLossExpectancy(row);
+        annualisedRateOfOccurrence = batch.getAnnualisedRateOfOccurrence(row);
+        annualisedLossExpectancy = RiskScoring.annualisedLossExpectancy(singleLossExpectancy, annualisedRateOfOccurrence);
+        controlMeasures = batch.getControlMeasures(row);
+        controlEffectiveness = batch.getControlEffectiveness(row);
+        residualRisk = RiskScoring.residualRisk(riskPriorityNumber, controlEffectiveness);
+        recommendation = RecommendationEngine.recommendation(impact, likelihood, annualisedLossExpectancy, hipaaRule, rmfStep);
+    }
+}
@@ -0,0 +1,12 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+import java.time.Instant;
+
+//Register totals shown at the top of a report, taken in a first pass over the batch
+record ReportSummary(int riskCount, double totalAnnualisedLossExpectancy, double totalResidualRisk, int[] categoryCounts, Instant generated) {
+    int categoryCount(RiskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+}
@@ -0,0 +1,37 @@
+package com.infosec.riskanalysistool.io;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.List;
+
+//One report format. The exporter calls header() once, row() for every risk in register order and footer()
+//once; the writer appends to the output as it goes and keeps nothing from earlier rows.
+//Each export has its own writer, so the formatters are reused for every value without locking.
+abstract class ReportWriter {
+    static final String[] COLUMNS = {"Threat", "HIPAA Rule", "RMF Step", "Impact", "Likelihood", "RPN", "Category", "SLE", "ARO", "ALE",
+            "Control Measures", "Control Effectiveness", "Residual Risk", "Recommendation"};
+
+    final ReportOutput out;
+    private final NumberText currencyText = new NumberText(NumberFormat.getCurrencyInstance(), true);
+    private final NumberText decimalText = new NumberText(new DecimalFormat("#,##0.##"), false);
+
+    ReportWriter(ReportOutput out) {
+        this.out = out;
+    }
+
+    abstract void header(ReportSummary summary, List<ReportImage> images) throws IOException;
+
+    abstract void row(ReportRow row) throws IOException;
+
+    abstract void footer() throws IOException;
+
+    //Formatted text for a value, valid until the next call
+    final CharSequence currency(double value) {
+        return currencyText.format(value);
+    }
+
+    final CharSequence decimal(double value) {
+        return decimalText.format(value);
+    }
+}
@@ -0,0 +1,222 @@
+package com.infosec.riskanalysistool.io;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RiskBatch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Bulk import of CSV and JSON Lines files.
+//The file is cut into chunks that end on line boundaries, each chunk is memory mapped and parsed on
+//the fork/join pool into its own RiskBatch, and the batches are stitched back together in file order.
+//Nothing here touches the register or the FX thread: the caller appends getBatch() with
+//RiskRegister.addAll and publishes the new rows in one list change.
+public class RiskImporter {
+    public enum Format {
+        CSV,
+        JSON;
+
+        //.json, .jsonl and .ndjson are read as JSON; anything else as CSV
+        public static Format of(Path path) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSON : CSV;
+        }
+    }
+
+    private static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public RiskImporter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public RiskImporter(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    //Stops an import at the next chunk; importFile() then throws CancellationException
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public ImportResult importFile(Path path) throws IOException {
+        return importFile(path, Format.of(path));
+    }
+
+    public ImportResult importFile(Path path, Format format) throws IOException {
+        cancelled.set(false);
+        long start = System.nanoTime();
+        long timing = Operation.IMPORT.begin();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = hasByteOrderMark(channel) ? 3 : 0;
+
+            //CSV columns come from the header when there is one, otherwise the table's column order is assumed
+            ImportField[] columns = ImportField.values();
+            int headerLines = 0;
+            if (format == Format.CSV && dataStart < size) {
+                long headerEnd = nextLineStart(channel, dataStart, size);
+                MappedByteBuffer headerBuffer = map(channel, dataStart, headerEnd);
+                int lineEnd = headerBuffer.limit();
+                while (lineEnd > 0 && (headerBuffer.get(lineEnd - 1) == '\n' || headerBuffer.get(lineEnd - 1) == '\r')) {
+                    lineEnd--;
+                }
+                ImportField[] header = CsvChunkParser.readHeader(headerBuffer, 0, lineEnd);
+                if (header != null) {
+                    columns = header;
+                    headerLines = 1;
+                    dataStart = headerEnd;
+                }
+            }
+
+            long[] boundaries = chunkBoundaries(channel, dataStart, size);
+            int chunks = boundaries.length - 1;
+            ChunkResult[] results = new ChunkResult[chunks];
+            if (chunks > 0) {
+                try {
+                    pool.invoke(new ChunkTask(channel, format, columns, boundaries, results, 0, chunks));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+            if (cancelled.get()) {
+                throw new CancellationException("Import cancelled");
+            }
+            ImportResult result = merge(results, headerLines, size, System.nanoTime() - start);
+            Operation.IMPORT.end(timing, result.getImportedRows());
+            return result;
+        }
+    }
+
+    private static ImportResult merge(ChunkResult[] results, int headerLines, long bytes, long elapsedNanos) {
+        int rows = 0;
+        for (ChunkResult result : results) {
+            rows += result.batch().size();
+        }
+        RiskBatch batch = new RiskBatch(rows);
+        List<ImportError> errors = new ArrayList<>();
+        long errorCount = 0;
+        long firstLine = headerLines + 1;
+        for (ChunkResult result : results) {
+            batch.addAll(result.batch());
+            for (ImportError error : result.errors()) {
+                if (errors.size() < ImportResult.MAX_ERRORS) {
+                    errors.add(new ImportError(firstLine + error.line() - 1, error.message()));
+                }
+            }
+            errorCount += result.errorCount();
+            firstLine += result.lines();
+        }
+        return new ImportResult(batch, errors, errorCount, bytes, elapsedNanos);
+    }
+
+    //Chunk i covers [boundaries[i], boundaries[i + 1]); every boundary but the last is the start of a line
+    private long[] chunkBoundaries(FileChannel channel, long start, long size) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(start);
+        long pos = start;
+        while (pos < size) {
+            long end = pos + chunkSize;
+            pos = end >= size ? size : nextLineStart(channel, end, size);
+            boundaries.add(pos);
+        }
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long pos = from;
+        while (pos < size) {
+            scan.clear();
+            int read = channel.read(scan, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static boolean hasByteOrderMark(FileChannel channel) throws IOException {
+        ByteBuffer bom = ByteBuffer.allocate(3);
+        channel.read(bom, 0);
+        return bom.position() == 3 && (bom.get(0) & 0xFF) == 0xEF && (bom.get(1) & 0xFF) == 0xBB && (bom.get(2) & 0xFF) == 0xBF;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new IOException("Line at offset " + from + " is too long to import");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private final FileChannel channel;
+        private final Format format;
+        private final ImportField[] columns;
+        private final long[] boundaries;
+        private final ChunkResult[] results;
+        private final int from;
+        private final int to;
+
+        ChunkTask(FileChannel channel, Format format, ImportField[] columns, long[] boundaries, ChunkResult[] results, int from, int to) {
+            this.channel = channel;
+            this.format = format;
+            this.columns = columns;
+            this.boundaries = boundaries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) {
+                return;
+            }
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(channel, format, columns, boundaries, results, from, mid),
+                        new ChunkTask(channel, format, columns, boundaries, results, mid, to));
+                return;
+            }
+
+            try {
+                MappedByteBuffer buffer = map(channel, boundaries[from], boundaries[from + 1]);
+                ChunkParser parser = format == Format.JSON ? new JsonLinesChunkParser(buffer) : new CsvChunkParser(buffer, columns);
+                results[from] = parser.parse();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.infosec.riskanalysistool.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//A risk register that any number of threads can read and write at once, for work that cannot go through the
+//FX thread's RiskRegister: background imports and analyses running side by side, or several users.
+//
+//The rows are held in immutable segments of up to SEGMENT_ROWS rows, and each commit publishes a new
+//RegisterVersion that shares every segment it did not change with the version before. Readers take
+//snapshot() and get a consistent register that later commits never alter, without locking. Writers prepare
+//their changes against the latest version with no lock held, copying only the segments they change, and
+//then swap their version in with a single compare-and-set. If another writer got there first, the changes
+//are carried over onto its version when they touched different segments, which is the usual case for
+//ingestion threads appending batches, and the update runs again only when they touched the same ones.
+public class ConcurrentRiskRegister {
+    //Small enough that copying a segment for a one-row edit is cheap, large enough that the segment table
+    //each commit copies stays short
+    static final int SEGMENT_ROWS = 512;
+
+    private final AtomicReference<RegisterVersion> current = new AtomicReference<>(RegisterVersion.EMPTY);
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder rebases = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    //The latest committed version
+    public RegisterVersion snapshot() {
+        return current.get();
+    }
+
+    public int size() {
+        return current.get().size();
+    }
+
+    //Applies the edits atomically and returns the version they were committed in. The edits may be run more
+    //than once, against newer versions, so they should change nothing but the editor.
+    public RegisterVersion update(Consumer<RegisterEditor> edits) {
+        RegisterVersion base = current.get();
+        RegisterEditor editor = new RegisterEditor(base);
+        edits.accept(editor);
+        if (editor.isEmpty()) {
+            return base;
+        }
+        while (true) {
+            RegisterVersion next = editor.applyTo(base);
+            if (current.compareAndSet(base, next)) {
+                commits.increment();
+                return next;
+            }
+            RegisterVersion latest = current.get();
+            if (editor.canRebase(latest)) {
+                rebases.increment();
+            } else {
+                retries.increment();
+                editor = new RegisterEditor(latest);
+                edits.accept(editor);
+            }
+            base = latest;
+        }
+    }
+
+    //Appends every row of the batch as one commit. Appends read nothing, so they are never run again: the
+    //segments are built once, with no lock held, and a lost race only costs copying the segment table.
+    public RegisterVersion addAll(RiskBatch batch) {
+        return update(editor -> editor.addAll(batch));
+    }
+
+    public RegisterVersion add(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) {
+        return update(editor -> editor.add(threat, hipaaRule, rmfStep, impact, likelihood, singleLossExpectancy, annualisedRateOfOccurrence, controlMeasures, controlEffectiveness));
+    }
+
+    //Removes the row at this index in the version the removal commits to. To remove a particular risk while
+    //others may be removing rows too, check it inside update() instead.
+    public RegisterVersion remove(int row) {
+        return update(editor -> editor.remove(row));
+    }
+
+    //Replaces every row with the batch's
+    public RegisterVersion replaceAll(RiskBatch batch) {
+        RegisterEditor editor = new RegisterEditor(RegisterVersion.EMPTY);
+        editor.addAll(batch);
+        while (true) {
+            RegisterVersion base = current.get();
+            RegisterVersion next = editor.applyTo(RegisterVersion.empty(base.getNumber()));
+            if (current.compareAndSet(base, next)) {
+                commits.increment();
+                return next;
+            }
+            retries.increment();
+        }
+    }
+
+    //Commits since the register was created
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    //Commits that lost a race but were carried over onto the winner's version without running the edits again
+    public long getRebases() {
+        return rebases.sum();
+    }
+
+    //Times the edits were run again because a concurrent commit changed rows they had read or written
+    public long getRetries() {
+        return retries.sum();
+    }
+}
@@ -1,4 +1,5 @@
 package com.infosec.riskanalysistool.model;
 
-public class HIPAARule {
+public enum HIPAARule {
+    PRIVACY_RULE, SECURITY_RULE, BREACH_NOTIFICATION_RULE
 }
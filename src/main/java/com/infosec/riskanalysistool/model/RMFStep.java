@@ -1,4 +1,5 @@
 package com.infosec.riskanalysistool.model;
 
-public class RMFStep {
+public enum RMFStep {
+    Categorise, SELECT, IMPLEMENT, ASSESS, Authorise, AUTHORISE, MONITOR
 }
@@ -0,0 +1,154 @@
+package com.infosec.riskanalysistool.model;
+
+//Recommendation text depends only on the RPN band, the ALE band, whether impact and likelihood exceed 7,
+//the HIPAA rule and the RMF step. That is 4 x 3 x 2 x 2 x 3 x 7 = 1008 combinations, so every text is
+//built once up front and looked up by a packed key that the register keeps next to each row.
+public final class RecommendationEngine {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+
+    private static final int RPN_BANDS = RiskCategory.values().length;
+    private static final int ALE_BANDS = 3;
+    private static final int HIPAA_RULE_COUNT = HIPAA_RULES.length;
+    private static final int RMF_STEP_COUNT = RMF_STEPS.length;
+
+    public static final int KEY_COUNT = RPN_BANDS * ALE_BANDS * 2 * 2 * HIPAA_RULE_COUNT * RMF_STEP_COUNT;
+
+    private static final String[] RECOMMENDATIONS = buildTable();
+
+    private RecommendationEngine() {
+    }
+
+    public static int key(int impact, int likelihood, double ale, HIPAARule hipaaRule, RMFStep rmfStep) {
+        return key(impact, likelihood, ale, hipaaRule.ordinal(), rmfStep.ordinal());
+    }
+
+    //Packs the recommendation inputs into a dense mixed-radix key in [0, KEY_COUNT)
+    public static int key(int impact, int likelihood, double ale, int hipaaRuleOrdinal, int rmfStepOrdinal) {
+        int rpnBand = RiskCategory.of(impact, likelihood).ordinal();
+        return pack(rpnBand, aleBand(ale), impact > 7 ? 1 : 0, likelihood > 7 ? 1 : 0, hipaaRuleOrdinal, rmfStepOrdinal);
+    }
+
+    public static String recommendation(int key) {
+        return RECOMMENDATIONS[key];
+    }
+
+    public static String recommendation(int impact, int likelihood, double ale, HIPAARule hipaaRule, RMFStep rmfStep) {
+        return RECOMMENDATIONS[key(impact, likelihood, ale, hipaaRule, rmfStep)];
+    }
+
+    private static int pack(int rpnBand, int aleBand, int highImpact, int highLikelihood, int hipaaRuleOrdinal, int rmfStepOrdinal) {
+        int key = rpnBand;
+        key = key * ALE_BANDS + aleBand;
+        key = key * 2 + highImpact;
+        key = key * 2 + highLikelihood;
+        key = key * HIPAA_RULE_COUNT + hipaaRuleOrdinal;
+        key = key * RMF_STEP_COUNT + rmfStepOrdinal;
+        return key;
+    }
+
+    private static int aleBand(double ale) {
+        if (ale > 100_000) {
+            return 2;
+        } else if (ale > 50_000) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    private static String[] buildTable() {
+        String[] table = new String[KEY_COUNT];
+        for (RiskCategory rpnBand : RiskCategory.values()) {
+            for (int aleBand = 0; aleBand < ALE_BANDS; aleBand++) {
+                for (int highImpact = 0; highImpact < 2; highImpact++) {
+                    for (int highLikelihood = 0; highLikelihood < 2; highLikelihood++) {
+                        for (HIPAARule hipaaRule : HIPAA_RULES) {
+                            for (RMFStep rmfStep : RMF_STEPS) {
+                                int key = pack(rpnBand.ordinal(), aleBand, highImpact, highLikelihood, hipaaRule.ordinal(), rmfStep.ordinal());
+                                table[key] = buildRecommendation(rpnBand, aleBand, highImpact == 1, highLikelihood == 1, hipaaRule, rmfStep).intern();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    //Generate recommendations based on risk attributes
+    private static String buildRecommendation(RiskCategory rpnBand, int aleBand, boolean highImpact, boolean highLikelihood, HIPAARule hipaaRule, RMFStep rmfStep) {
+        StringBuilder recommendations = new StringBuilder();
+
+        //Provide recommendations based on RPN
+        switch (rpnBand) {
+            case CRITICAL:
+                recommendations.append("Critical risk identified. Immediate action required.\n");
+                break;
+            case HIGH:
+                recommendations.append("High risk. Prompt attention is necessary.\n");
+                break;
+            case MEDIUM:
+                recommendations.append("Medium risk. Monitor and plan mitigation strategies.\n");
+                break;
+            case LOW:
+                recommendations.append("Low risk. Regular monitoring is sufficient.\n");
+                break;
+        }
+
+        //Provide recommendations based on ALE
+        if (aleBand == 2) {
+            recommendations.append("ALE exceeds R100,000. Consider investing in significant risk mitigation measures.\n");
+        } else if (aleBand == 1) {
+            recommendations.append("ALE exceeds R50,000. Evaluate cost-effective mitigation strategies.\n");
+        } else {
+            recommendations.append("ALE is within acceptable limits. Maintain current controls.\n");
+        }
+
+        //Recommendations based on impacts
+        if (highImpact) {
+            recommendations.append("High impact risk. prioritise impact reduction measures.\n");
+        }
+
+        if (highLikelihood) {
+            recommendations.append("High likelihood risk. Implement measures to reduce occurrence.\n");
+        }
+
+        //Specific recommendations based on HIPAA Rule
+        switch (hipaaRule) {
+            case PRIVACY_RULE:
+                recommendations.append("Ensure all PHI disclosures are compliant with the Privacy Rule.\n");
+                break;
+            case SECURITY_RULE:
+                recommendations.append("Strengthen technical safeguards to protect ePHI.\n");
+                break;
+            case BREACH_NOTIFICATION_RULE:
+                recommendations.append("Develop a robust breach response plan in line with notification requirements.\n");
+                break;
+        }
+
+        //Specific recommendations based on RMF Step
+        switch (rmfStep) {
+            case Categorise:
+                recommendations.append("Review system categorisations to ensure appropriate risk levels.\n");
+                break;
+            case SELECT:
+                recommendations.append("Select security controls tailored to mitigate identified risks.\n");
+                break;
+            case IMPLEMENT:
+                recommendations.append("Implement the chosen security controls effectively.\n");
+                break;
+            case ASSESS:
+                recommendations.append("Regularly assess the effectiveness of security controls.\n");
+                break;
+            case Authorise:
+                recommendations.append("Obtain necessary authorisations before system operation.\n");
+                break;
+            case MONITOR:
+                recommendations.append("Continuously monitor security controls and system operations.\n");
+                break;
+        }
+
+        return recommendations.toString();
+    }
+}
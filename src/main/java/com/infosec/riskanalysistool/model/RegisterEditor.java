@@ -0,0 +1,238 @@
+package com.infosec.riskanalysistool.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//The edits of one ConcurrentRiskRegister.update(), made against the version the update started from. Rows
+//are numbered as in that version throughout, even after remove(); removed rows go when the update commits
+//and added rows are appended after every other row.
+//The editor remembers which segments it read and wrote. If another commit got in first, the edits are
+//carried over to the newer version as long as none of those segments changed there; otherwise the update
+//runs again against the newer version.
+public final class RegisterEditor {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final int SHORT_SEGMENT_ROWS = ConcurrentRiskRegister.SEGMENT_ROWS / 4;
+
+    private final RegisterVersion base;
+    private final Map<Integer, Touched> touched = new HashMap<>();
+    private final List<RegisterSegment> added = new ArrayList<>();
+    private boolean sizeRead;
+
+    //A segment of the base version the edits depend on, and the edited copy if they changed it
+    private static final class Touched {
+        final RegisterSegment original;
+        RegisterSegment copy;
+        boolean[] removed;
+
+        Touched(RegisterSegment original) {
+            this.original = original;
+        }
+
+        RegisterSegment rows() {
+            return copy != null ? copy : original;
+        }
+    }
+
+    RegisterEditor(RegisterVersion base) {
+        this.base = base;
+    }
+
+    //Rows in the version the edits started from. Reading it makes the update depend on every row, so a
+    //concurrent add or remove makes it run again.
+    public int size() {
+        sizeRead = true;
+        return base.size();
+    }
+
+    public String getThreat(int row) {
+        return read(row).threats[row - start(row)];
+    }
+
+    public HIPAARule getHipaaRule(int row) {
+        return HIPAA_RULES[read(row).hipaaRules[row - start(row)]];
+    }
+
+    public RMFStep getRmfStep(int row) {
+        return RMF_STEPS[read(row).rmfSteps[row - start(row)]];
+    }
+
+    public int getImpact(int row) {
+        return read(row).impacts[row - start(row)];
+    }
+
+    public int getLikelihood(int row) {
+        return read(row).likelihoods[row - start(row)];
+    }
+
+    public double getSingleLossExpectancy(int row) {
+        return read(row).singleLossExpectancies[row - start(row)];
+    }
+
+    public double getAnnualisedRateOfOccurrence(int row) {
+        return read(row).annualisedRatesOfOccurrence[row - start(row)];
+    }
+
+    public String getControlMeasures(int row) {
+        return read(row).controlMeasures[row - start(row)];
+    }
+
+    public double getControlEffectiveness(int row) {
+        return read(row).controlEffectiveness[row - start(row)];
+    }
+
+    public void setThreat(int row, String threat) {
+        write(row).threats[row - start(row)] = threat;
+    }
+
+    public void setHipaaRule(int row, HIPAARule hipaaRule) {
+        write(row).hipaaRules[row - start(row)] = (byte) hipaaRule.ordinal();
+    }
+
+    public void setRmfStep(int row, RMFStep rmfStep) {
+        write(row).rmfSteps[row - start(row)] = (byte) rmfStep.ordinal();
+    }
+
+    public void setImpact(int row, int impact) {
+        write(row).impacts[row - start(row)] = impact;
+    }
+
+    public void setLikelihood(int row, int likelihood) {
+        write(row).likelihoods[row - start(row)] = likelihood;
+    }
+
+    public void setSingleLossExpectancy(int row, double singleLossExpectancy) {
+        write(row).singleLossExpectancies[row - start(row)] = singleLossExpectancy;
+    }
+
+    public void setAnnualisedRateOfOccurrence(int row, double annualisedRateOfOccurrence) {
+        write(row).annualisedRatesOfOccurrence[row - start(row)] = annualisedRateOfOccurrence;
+    }
+
+    public void setControlMeasures(int row, String controlMeasures) {
+        write(row).controlMeasures[row - start(row)] = controlMeasures;
+    }
+
+    public void setControlEffectiveness(int row, double controlEffectiveness) {
+        write(row).controlEffectiveness[row - start(row)] = controlEffectiveness;
+    }
+
+    public void remove(int row) {
+        Touched segment = touch(row);
+        if (segment.removed == null) {
+            segment.removed = new boolean[segment.original.size];
+        }
+        segment.removed[row - start(row)] = true;
+    }
+
+    public void add(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) {
+        RiskBatch row = new RiskBatch(1);
+        row.add(threat, hipaaRule, rmfStep, impact, likelihood, singleLossExpectancy, annualisedRateOfOccurrence, controlMeasures, controlEffectiveness);
+        addAll(row);
+    }
+
+    //The batch is copied into segments now, so it may be reused once this returns
+    public void addAll(RiskBatch batch) {
+        for (int from = 0; from < batch.size(); from += ConcurrentRiskRegister.SEGMENT_ROWS) {
+            added.add(RegisterSegment.of(batch, from, Math.min(ConcurrentRiskRegister.SEGMENT_ROWS, batch.size() - from)));
+        }
+    }
+
+    boolean isEmpty() {
+        return added.isEmpty() && touched.values().stream().allMatch(segment -> segment.copy == null && segment.removed == null);
+    }
+
+    //Whether the edits still hold against a later version: every segment they read or wrote is the same
+    //object at the same position there, and if they read the size, it has not changed
+    boolean canRebase(RegisterVersion latest) {
+        if (sizeRead && latest.size() != base.size()) {
+            return false;
+        }
+        for (Map.Entry<Integer, Touched> entry : touched.entrySet()) {
+            int index = entry.getKey();
+            if (index >= latest.segments.length || latest.segments[index] != entry.getValue().original
+                    || latest.starts[index] != base.starts[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //The next version: the given one with the edited segments swapped in, removed rows dropped and added rows
+    //appended. A short last segment is joined with the first added one so one-row adds do not fragment it.
+    RegisterVersion applyTo(RegisterVersion onto) {
+        RegisterSegment[] segments = Arrays.copyOf(onto.segments, onto.segments.length + added.size());
+        int count = onto.segments.length;
+        boolean shrunk = false;
+        for (Map.Entry<Integer, Touched> entry : touched.entrySet()) {
+            Touched segment = entry.getValue();
+            RegisterSegment rows = segment.rows();
+            if (segment.removed != null) {
+                rows = rows.without(segment.removed);
+                shrunk = true;
+            }
+            segments[entry.getKey()] = rows;
+        }
+        //Segments before this one keep their sizes and so their starts
+        int firstChanged = count;
+        if (shrunk) {
+            //Drops emptied segments and joins short ones to the one before, so removals cannot leave the
+            //register in thousands of tiny segments
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                RegisterSegment rows = segments[i];
+                if (rows != null && kept > 0 && rows.size < SHORT_SEGMENT_ROWS
+                        && segments[kept - 1].size + rows.size <= ConcurrentRiskRegister.SEGMENT_ROWS) {
+                    segments[kept - 1] = segments[kept - 1].concat(rows);
+                    firstChanged = Math.min(firstChanged, kept - 1);
+                } else if (rows != null) {
+                    if (kept != i || rows.size != onto.segments[i].size) {
+                        firstChanged = Math.min(firstChanged, kept);
+                    }
+                    segments[kept++] = rows;
+                }
+            }
+            Arrays.fill(segments, kept, count, null);
+            count = kept;
+        }
+        firstChanged = Math.min(firstChanged, count);
+        for (RegisterSegment rows : added) {
+            if (count > 0 && segments[count - 1].size + rows.size <= ConcurrentRiskRegister.SEGMENT_ROWS) {
+                firstChanged = Math.min(firstChanged, count - 1);
+                segments[count - 1] = segments[count - 1].concat(rows);
+            } else {
+                segments[count++] = rows;
+            }
+        }
+        return RegisterVersion.of(onto.getNumber() + 1, count == segments.length ? segments : Arrays.copyOf(segments, count), onto, firstChanged);
+    }
+
+    private int start(int row) {
+        return base.starts[base.segmentOf(row)];
+    }
+
+    private RegisterSegment read(int row) {
+        return touch(row).rows();
+    }
+
+    private RegisterSegment write(int row) {
+        Touched segment = touch(row);
+        if (segment.copy == null) {
+            segment.copy = segment.original.copy();
+        }
+        return segment.copy;
+    }
+
+    private Touched touch(int row) {
+        int index = base.segmentOf(row);
+        Touched segment = touched.get(index);
+        if (segment == null) {
+            segment = new Touched(base.segments[index]);
+            touched.put(index, segment);
+        }
+        return segment;
+    }
+}
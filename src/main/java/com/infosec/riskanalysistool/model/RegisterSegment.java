@@ -0,0 +1,99 @@
+package com.infosec.riskanalysistool.model;
+
+import java.util.Arrays;
+
+//A run of consecutive rows of a ConcurrentRiskRegister, stored by column like RiskRegister. A segment is never
+//changed once a version that holds it has been published: an edit copies the segment, changes the copy and
+//publishes it in a new version, so readers of older versions keep seeing the old rows.
+final class RegisterSegment {
+    final int size;
+    final String[] threats;
+    final String[] controlMeasures;
+    final byte[] hipaaRules;
+    final byte[] rmfSteps;
+    final int[] impacts;
+    final int[] likelihoods;
+    final double[] singleLossExpectancies;
+    final double[] annualisedRatesOfOccurrence;
+    final double[] controlEffectiveness;
+
+    private RegisterSegment(int size, String[] threats, String[] controlMeasures, byte[] hipaaRules, byte[] rmfSteps, int[] impacts,
+                            int[] likelihoods, double[] singleLossExpectancies, double[] annualisedRatesOfOccurrence, double[] controlEffectiveness) {
+        this.size = size;
+        this.threats = threats;
+        this.controlMeasures = controlMeasures;
+        this.hipaaRules = hipaaRules;
+        this.rmfSteps = rmfSteps;
+        this.impacts = impacts;
+        this.likelihoods = likelihoods;
+        this.singleLossExpectancies = singleLossExpectancies;
+        this.annualisedRatesOfOccurrence = annualisedRatesOfOccurrence;
+        this.controlEffectiveness = controlEffectiveness;
+    }
+
+    //Rows from..from+count of a batch, with encoded text decoded so the segment does not keep the dictionary
+    static RegisterSegment of(RiskBatch batch, int from, int count) {
+        String[] threats = new String[count];
+        String[] controlMeasures = new String[count];
+        for (int i = 0; i < count; i++) {
+            threats[i] = batch.getThreat(from + i);
+            controlMeasures[i] = batch.getControlMeasures(from + i);
+        }
+        return new RegisterSegment(count, threats, controlMeasures,
+                Arrays.copyOfRange(batch.hipaaRules, from, from + count), Arrays.copyOfRange(batch.rmfSteps, from, from + count),
+                Arrays.copyOfRange(batch.impacts, from, from + count), Arrays.copyOfRange(batch.likelihoods, from, from + count),
+                Arrays.copyOfRange(batch.singleLossExpectancies, from, from + count),
+                Arrays.copyOfRange(batch.annualisedRatesOfOccurrence, from, from + count),
+                Arrays.copyOfRange(batch.controlEffectiveness, from, from + count));
+    }
+
+    //A private copy for an edit to change before it is published
+    RegisterSegment copy() {
+        return new RegisterSegment(size, threats.clone(), controlMeasures.clone(), hipaaRules.clone(), rmfSteps.clone(), impacts.clone(),
+                likelihoods.clone(), singleLossExpectancies.clone(), annualisedRatesOfOccurrence.clone(), controlEffectiveness.clone());
+    }
+
+    //This segment's rows followed by another's
+    RegisterSegment concat(RegisterSegment next) {
+        int total = size + next.size;
+        RegisterSegment joined = new RegisterSegment(total, Arrays.copyOf(threats, total), Arrays.copyOf(controlMeasures, total),
+                Arrays.copyOf(hipaaRules, total), Arrays.copyOf(rmfSteps, total), Arrays.copyOf(impacts, total), Arrays.copyOf(likelihoods, total),
+                Arrays.copyOf(singleLossExpectancies, total), Arrays.copyOf(annualisedRatesOfOccurrence, total), Arrays.copyOf(controlEffectiveness, total));
+        joined.copyRows(next, 0, size, next.size);
+        return joined;
+    }
+
+    //The rows not marked removed, or null if there are none
+    RegisterSegment without(boolean[] removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed[i]) {
+                kept++;
+            }
+        }
+        if (kept == 0) {
+            return null;
+        }
+        RegisterSegment compacted = new RegisterSegment(kept, new String[kept], new String[kept], new byte[kept], new byte[kept], new int[kept],
+                new int[kept], new double[kept], new double[kept], new double[kept]);
+        int to = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed[i]) {
+                compacted.copyRows(this, i, to++, 1);
+            }
+        }
+        return compacted;
+    }
+
+    private void copyRows(RegisterSegment from, int fromRow, int toRow, int count) {
+        System.arraycopy(from.threats, fromRow, threats, toRow, count);
+        System.arraycopy(from.controlMeasures, fromRow, controlMeasures, toRow, count);
+        System.arraycopy(from.hipaaRules, fromRow, hipaaRules, toRow, count);
+        System.arraycopy(from.rmfSteps, fromRow, rmfSteps, toRow, count);
+        System.arraycopy(from.impacts, fromRow, impacts, toRow, count);
+        System.arraycopy(from.likelihoods, fromRow, likelihoods, toRow, count);
+        System.arraycopy(from.singleLossExpectancies, fromRow, singleLossExpectancies, toRow, count);
+        System.arraycopy(from.annualisedRatesOfOccurrence, fromRow, annualisedRatesOfOccurrence, toRow, count);
+        System.arraycopy(from.controlEffectiveness, fromRow, controlEffectiveness, toRow, count);
+    }
+}
@@ -0,0 +1,160 @@
+package com.infosec.riskanalysistool.model;
+
+import java.util.Arrays;
+
+//One committed state of a ConcurrentRiskRegister. A version never changes, so any number of threads can read
+//it, for as long as they like, without locks and without seeing later commits. Derived values are computed
+//as they are read, the same way RiskRegister computes them.
+//Rows are looked up by binary search over the segment starts; scans that visit every row should take a
+//RiskBatch copy with toBatch() instead.
+public final class RegisterVersion {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+
+    static final RegisterVersion EMPTY = empty(0);
+
+    private final long number;
+    final RegisterSegment[] segments;
+    //starts[i] is the first row of segments[i]; the extra last entry is the size
+    final int[] starts;
+
+    RegisterVersion(long number, RegisterSegment[] segments, int[] starts) {
+        this.number = number;
+        this.segments = segments;
+        this.starts = starts;
+    }
+
+    static RegisterVersion empty(long number) {
+        return new RegisterVersion(number, new RegisterSegment[0], new int[]{0});
+    }
+
+    //The starts of segments before the first changed one are taken from the previous version
+    static RegisterVersion of(long number, RegisterSegment[] segments, RegisterVersion previous, int firstChanged) {
+        int[] starts = new int[segments.length + 1];
+        System.arraycopy(previous.starts, 0, starts, 0, firstChanged + 1);
+        for (int i = firstChanged; i < segments.length; i++) {
+            starts[i + 1] = starts[i] + segments[i].size;
+        }
+        return new RegisterVersion(number, segments, starts);
+    }
+
+    //Counts commits: every commit makes a version one higher than the one it replaced
+    public long getNumber() {
+        return number;
+    }
+
+    public int size() {
+        return starts[segments.length];
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public String getThreat(int row) {
+        int segment = segmentOf(row);
+        return segments[segment].threats[row - starts[segment]];
+    }
+
+    public HIPAARule getHipaaRule(int row) {
+        int segment = segmentOf(row);
+        return HIPAA_RULES[segments[segment].hipaaRules[row - starts[segment]]];
+    }
+
+    public RMFStep getRmfStep(int row) {
+        int segment = segmentOf(row);
+        return RMF_STEPS[segments[segment].rmfSteps[row - starts[segment]]];
+    }
+
+    public int getImpact(int row) {
+        int segment = segmentOf(row);
+        return segments[segment].impacts[row - starts[segment]];
+    }
+
+    public int getLikelihood(int row) {
+        int segment = segmentOf(row);
+        return segments[segment].likelihoods[row - starts[segment]];
+    }
+
+    public int getRiskPriorityNumber(int row) {
+        int segment = segmentOf(row);
+        int local = row - starts[segment];
+        return RiskScoring.riskPriorityNumber(segments[segment].impacts[local], segments[segment].likelihoods[local]);
+    }
+
+    public double getSingleLossExpectancy(int row) {
+        int segment = segmentOf(row);
+        return segments[segment].singleLossExpectancies[row - starts[segment]];
+    }
+
+    public double getAnnualisedRateOfOccurrence(int row) {
+        int segment = segmentOf(row);
+        return segments[segment].annualisedRatesOfOccurrence[row - starts[segment]];
+    }
+
+    public double getAnnualisedLossExpectancy(int row) {
+        int segment = segmentOf(row);
+        int local = row - starts[segment];
+        return RiskScoring.annualisedLossExpectancy(segments[segment].singleLossExpectancies[local], segments[segment].annualisedRatesOfOccurrence[local]);
+    }
+
+    public String getControlMeasures(int row) {
+        int segment = segmentOf(row);
+        return segments[segment].controlMeasures[row - starts[segment]];
+    }
+
+    public double getControlEffectiveness(int row) {
+        int segment = segmentOf(row);
+        return segments[segment].controlEffectiveness[row - starts[segment]];
+    }
+
+    public double getResidualRisk(int row) {
+        int segment = segmentOf(row);
+        int local = row - starts[segment];
+        RegisterSegment rows = segments[segment];
+        return RiskScoring.residualRisk(rows.impacts[local], rows.likelihoods[local], rows.controlEffectiveness[local]);
+    }
+
+    //Every row, copied by column, e.g. to append to a RiskRegister or export
+    public RiskBatch toBatch() {
+        int size = size();
+        String[] threats = new String[size];
+        String[] controlMeasures = new String[size];
+        byte[] hipaaRules = new byte[size];
+        byte[] rmfSteps = new byte[size];
+        int[] impacts = new int[size];
+        int[] likelihoods = new int[size];
+        double[] singleLossExpectancies = new double[size];
+        double[] annualisedRatesOfOccurrence = new double[size];
+        double[] controlEffectiveness = new double[size];
+        for (int i = 0; i < segments.length; i++) {
+            RegisterSegment segment = segments[i];
+            int at = starts[i];
+            System.arraycopy(segment.threats, 0, threats, at, segment.size);
+            System.arraycopy(segment.controlMeasures, 0, controlMeasures, at, segment.size);
+            System.arraycopy(segment.hipaaRules, 0, hipaaRules, at, segment.size);
+            System.arraycopy(segment.rmfSteps, 0, rmfSteps, at, segment.size);
+            System.arraycopy(segment.impacts, 0, impacts, at, segment.size);
+            System.arraycopy(segment.likelihoods, 0, likelihoods, at, segment.size);
+            System.arraycopy(segment.singleLossExpectancies, 0, singleLossExpectancies, at, segment.size);
+            System.arraycopy(segment.annualisedRatesOfOccurrence, 0, annualisedRatesOfOccurrence, at, segment.size);
+            System.arraycopy(segment.controlEffectiveness, 0, controlEffectiveness, at, segment.size);
+        }
+        return new RiskBatch(size, threats, controlMeasures, hipaaRules, rmfSteps, impacts, likelihoods,
+                singleLossExpectancies, annualisedRatesOfOccurrence, controlEffectiveness, null, null, null);
+    }
+
+    //Index of the segment holding a row. Segments are usually full, so the row's position if they all were is
+    //tried first; the starts are searched only when removals have left shorter segments before it.
+    int segmentOf(int row) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for register of size " + size());
+        }
+        int guess = Math.min(row / ConcurrentRiskRegister.SEGMENT_ROWS, segments.length - 1);
+        if (starts[guess] <= row && row < starts[guess + 1]) {
+            return guess;
+        }
+        int found = Arrays.binarySearch(starts, 0, segments.length, row);
+        return found >= 0 ? found : -found - 2;
+    }
+}
@@ -1,4 +1,148 @@
 package com.infosec.riskanalysistool.model;
 
-public class Risk {
+//Thin row view over a RiskRegister. Holds no data of its own, only the row it points at, until the row is
+//removed: the view is then detached and keeps a copy of the row's values, which can still be read but not edited.
+public final class Risk {
+    private final RiskRegister register;
+    int row;    //Maintained by the register when earlier rows are removed
+    //Once detached, a one-row register holding the values the row had
+    private RiskRegister removedValues;
+
+    Risk(RiskRegister register, int row) {
+        this.register = register;
+        this.row = row;
+    }
+
+    public RiskRegister getRegister() {
+        return register;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    //True once the row has been removed from its register
+    public boolean isDetached() {
+        return row < 0;
+    }
+
+    void detach(RiskRegister removedValues) {
+        this.removedValues = removedValues;
+        row = -1;
+    }
+
+    //Where the view's values are read from, and at which row
+    private RiskRegister source() {
+        return removedValues != null ? removedValues : register;
+    }
+
+    private int at() {
+        return removedValues != null ? 0 : row;
+    }
+
+    //Getter and Setters
+    public String getThreat() {
+        return source().getThreat(at());
+    }
+
+    public void setThreat(String threat) {
+        register.setThreat(row, threat);
+    }
+
+    public HIPAARule getHipaaRule() {
+        return source().getHipaaRule(at());
+    }
+
+    public void setHipaaRule(HIPAARule hipaaRule) {
+        register.setHipaaRule(row, hipaaRule);
+    }
+
+    public RMFStep getRmfStep() {
+        return source().getRmfStep(at());
+    }
+
+    public void setRmfStep(RMFStep rmfStep) {
+        register.setRmfStep(row, rmfStep);
+    }
+
+    public int getImpact() {
+        return source().getImpact(at());
+    }
+
+    public void setImpact(int impact) {
+        register.setImpact(row, impact);
+    }
+
+    public int getLikelihood() {
+        return source().getLikelihood(at());
+    }
+
+    public void setLikelihood(int likelihood) {
+        register.setLikelihood(row, likelihood);
+    }
+
+    public int getRiskPriorityNumber() {
+        return source().getRiskPriorityNumber(at());
+    }
+
+    public RiskCategory getCategory() {
+        return RiskCategory.fromRiskPriorityNumber(getRiskPriorityNumber());
+    }
+
+    public double getSingleLossExpectancy() {
+        return source().getSingleLossExpectancy(at());
+    }
+
+    public void setSingleLossExpectancy(double sle) {
+        register.setSingleLossExpectancy(row, sle);
+    }
+
+    public double getAnnualisedRateOfOccurrence() {
+        return source().getAnnualisedRateOfOccurrence(at());
+    }
+
+    public void setAnnualisedRateOfOccurrence(double aro) {
+        register.setAnnualisedRateOfOccurrence(row, aro);
+    }
+
+    public double getAnnualisedLossExpectancy() {
+        return source().getAnnualisedLossExpectancy(at());
+    }
+
+    //Control Measures
+    public String getControlMeasures() {
+        return source().getControlMeasures(at());
+    }
+
+    public void setControlMeasures(String controlMeasures) {
+        register.setControlMeasures(row, controlMeasures);
+    }
+
+    //Control Effectiveness
+    public double getControlEffectiveness() {
+        return source().getControlEffectiveness(at());
+    }
+
+    public void setControlEffectiveness(double controlEffectiveness) {
+        register.setControlEffectiveness(row, controlEffectiveness);
+    }
+
+    //Residual Risk
+    public double getResidualRisk() {
+        return source().getResidualRisk(at());
+    }
+
+    //Calculate Risk Priority Number (RPN)
+    public int calculateRPN() {
+        return RiskScoring.riskPriorityNumber(getImpact(), getLikelihood());
+    }
+
+    public int getRecommendationKey() {
+        return source().getRecommendationKey(at());
+    }
+
+    //Recommendations come from the precomputed table, so no text is built per call
+    public String generateRecommendation() {
+        return RecommendationEngine.recommendation(getRecommendationKey());
+    }
 }
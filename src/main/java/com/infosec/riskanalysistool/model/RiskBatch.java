@@ -0,0 +1,211 @@
+package com.infosec.riskanalysistool.model;
+
+import java.util.Arrays;
+
+//Columnar staging area for risks that are built off the FX thread (imports, loads, snapshots) and then
+//appended to a RiskRegister in one go with RiskRegister.addAll.
+//Text can be dictionary-encoded: a null threat or control measure with a code is resolved through the dictionary.
+public class RiskBatch {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+
+    private int size;
+
+    String[] threats;
+    String[] controlMeasures;
+    byte[] hipaaRules;
+    byte[] rmfSteps;
+    int[] impacts;
+    int[] likelihoods;
+    double[] singleLossExpectancies;
+    double[] annualisedRatesOfOccurrence;
+    double[] controlEffectiveness;
+
+    //Only set for encoded batches
+    int[] threatCodes;
+    int[] controlMeasureCodes;
+    TextDictionary dictionary;
+
+    public RiskBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RiskBatch(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        threats = new String[capacity];
+        controlMeasures = new String[capacity];
+        hipaaRules = new byte[capacity];
+        rmfSteps = new byte[capacity];
+        impacts = new int[capacity];
+        likelihoods = new int[capacity];
+        singleLossExpectancies = new double[capacity];
+        annualisedRatesOfOccurrence = new double[capacity];
+        controlEffectiveness = new double[capacity];
+    }
+
+    RiskBatch(int size, String[] threats, String[] controlMeasures, byte[] hipaaRules, byte[] rmfSteps, int[] impacts, int[] likelihoods,
+              double[] singleLossExpectancies, double[] annualisedRatesOfOccurrence, double[] controlEffectiveness,
+              int[] threatCodes, int[] controlMeasureCodes, TextDictionary dictionary) {
+        this.size = size;
+        this.threats = threats;
+        this.controlMeasures = controlMeasures;
+        this.hipaaRules = hipaaRules;
+        this.rmfSteps = rmfSteps;
+        this.impacts = impacts;
+        this.likelihoods = likelihoods;
+        this.singleLossExpectancies = singleLossExpectancies;
+        this.annualisedRatesOfOccurrence = annualisedRatesOfOccurrence;
+        this.controlEffectiveness = controlEffectiveness;
+        this.threatCodes = threatCodes;
+        this.controlMeasureCodes = controlMeasureCodes;
+        this.dictionary = dictionary;
+    }
+
+    //Wraps columns read from storage without copying them; text stays encoded until a row is read
+    public static RiskBatch encoded(int size, byte[] hipaaRules, byte[] rmfSteps, int[] impacts, int[] likelihoods,
+                                    double[] singleLossExpectancies, double[] annualisedRatesOfOccurrence, double[] controlEffectiveness,
+                                    int[] threatCodes, int[] controlMeasureCodes, TextDictionary dictionary) {
+        return new RiskBatch(size, new String[size], new String[size], hipaaRules, rmfSteps, impacts, likelihoods,
+                singleLossExpectancies, annualisedRatesOfOccurrence, controlEffectiveness, threatCodes, controlMeasureCodes, dictionary);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        this.threats[row] = threat;
+        this.hipaaRules[row] = (byte) hipaaRule.ordinal();
+        this.rmfSteps[row] = (byte) rmfStep.ordinal();
+        this.impacts[row] = impact;
+        this.likelihoods[row] = likelihood;
+        this.singleLossExpectancies[row] = singleLossExpectancy;
+        this.annualisedRatesOfOccurrence[row] = annualisedRateOfOccurrence;
+        this.controlMeasures[row] = controlMeasures;
+        this.controlEffectiveness[row] = controlEffectiveness;
+        if (threatCodes != null) {
+            threatCodes[row] = -1;
+            controlMeasureCodes[row] = -1;
+        }
+    }
+
+    //Appends all rows of another batch, used to stitch parallel-parsed chunks back together in order
+    public void addAll(RiskBatch other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.threats, 0, threats, size, count);
+        System.arraycopy(other.controlMeasures, 0, controlMeasures, size, count);
+        System.arraycopy(other.hipaaRules, 0, hipaaRules, size, count);
+        System.arraycopy(other.rmfSteps, 0, rmfSteps, size, count);
+        System.arraycopy(other.impacts, 0, impacts, size, count);
+        System.arraycopy(other.likelihoods, 0, likelihoods, size, count);
+        System.arraycopy(other.singleLossExpectancies, 0, singleLossExpectancies, size, count);
+        System.arraycopy(other.annualisedRatesOfOccurrence, 0, annualisedRatesOfOccurrence, size, count);
+        System.arraycopy(other.controlEffectiveness, 0, controlEffectiveness, size, count);
+        if (other.dictionary != null) {
+            //Text from another dictionary cannot share codes with this batch
+            for (int i = 0; i < count; i++) {
+                threats[size + i] = other.getThreat(i);
+                controlMeasures[size + i] = other.getControlMeasures(i);
+            }
+        }
+        if (threatCodes != null) {
+            Arrays.fill(threatCodes, size, size + count, -1);
+            Arrays.fill(controlMeasureCodes, size, size + count, -1);
+        }
+        size += count;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        int capacity = impacts.length;
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+        threats = Arrays.copyOf(threats, newCapacity);
+        controlMeasures = Arrays.copyOf(controlMeasures, newCapacity);
+        hipaaRules = Arrays.copyOf(hipaaRules, newCapacity);
+        rmfSteps = Arrays.copyOf(rmfSteps, newCapacity);
+        impacts = Arrays.copyOf(impacts, newCapacity);
+        likelihoods = Arrays.copyOf(likelihoods, newCapacity);
+        singleLossExpectancies = Arrays.copyOf(singleLossExpectancies, newCapacity);
+        annualisedRatesOfOccurrence = Arrays.copyOf(annualisedRatesOfOccurrence, newCapacity);
+        controlEffectiveness = Arrays.copyOf(controlEffectiveness, newCapacity);
+        if (threatCodes != null) {
+            threatCodes = Arrays.copyOf(threatCodes, newCapacity);
+            controlMeasureCodes = Arrays.copyOf(controlMeasureCodes, newCapacity);
+        }
+    }
+
+    //Copies the columns every derived value is computed from into arrays of at least size() rows, as RiskRegister does
+    public void copyScoringInputs(byte[] hipaaRules, byte[] rmfSteps, int[] impacts, int[] likelihoods, double[] singleLossExpectancies,
+                                  double[] annualisedRatesOfOccurrence, double[] controlEffectiveness) {
+        System.arraycopy(this.hipaaRules, 0, hipaaRules, 0, size);
+        System.arraycopy(this.rmfSteps, 0, rmfSteps, 0, size);
+        System.arraycopy(this.impacts, 0, impacts, 0, size);
+        System.arraycopy(this.likelihoods, 0, likelihoods, 0, size);
+        System.arraycopy(this.singleLossExpectancies, 0, singleLossExpectancies, 0, size);
+        System.arraycopy(this.annualisedRatesOfOccurrence, 0, annualisedRatesOfOccurrence, 0, size);
+        System.arraycopy(this.controlEffectiveness, 0, controlEffectiveness, 0, size);
+    }
+
+    //Row accessors, used by writers
+    public String getThreat(int row) {
+        String threat = threats[row];
+        return threat != null || dictionary == null ? threat : dictionary.text(threatCodes[row]);
+    }
+
+    public String getControlMeasures(int row) {
+        String text = controlMeasures[row];
+        return text != null || dictionary == null ? text : dictionary.text(controlMeasureCodes[row]);
+    }
+
+    //Dictionary code of the row's threat while it is still encoded, otherwise -1
+    public int getThreatCode(int row) {
+        return threats[row] != null || dictionary == null ? -1 : threatCodes[row];
+    }
+
+    public int getControlMeasuresCode(int row) {
+        return controlMeasures[row] != null || dictionary == null ? -1 : controlMeasureCodes[row];
+    }
+
+    //Decodes the codes above, or null if no text is encoded
+    public TextDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public HIPAARule getHipaaRule(int row) {
+        return HIPAA_RULES[hipaaRules[row]];
+    }
+
+    public RMFStep getRmfStep(int row) {
+        return RMF_STEPS[rmfSteps[row]];
+    }
+
+    public int getImpact(int row) {
+        return impacts[row];
+    }
+
+    public int getLikelihood(int row) {
+        return likelihoods[row];
+    }
+
+    public double getSingleLossExpectancy(int row) {
+        return singleLossExpectancies[row];
+    }
+
+    public double getAnnualisedRateOfOccurrence(int row) {
+        return annualisedRatesOfOccurrence[row];
+    }
+
+    public double getControlEffectiveness(int row) {
+        return controlEffectiveness[row];
+    }
+}
@@ -0,0 +1,33 @@
+package com.infosec.riskanalysistool.model;
+
+//Severity bands derived from the Risk Priority Number (RPN = impact * likelihood)
+public enum RiskCategory {
+    LOW("Low"), MEDIUM("Medium"), HIGH("High"), CRITICAL("Critical");
+
+    private final String label;
+
+    RiskCategory(String label) {
+        this.label = label;
+    }
+
+    public static RiskCategory of(int impact, int likelihood) {
+        return fromRiskPriorityNumber(RiskScoring.riskPriorityNumber(impact, likelihood));
+    }
+
+    public static RiskCategory fromRiskPriorityNumber(int rpn) {
+        if (rpn > 200) {
+            return CRITICAL;
+        } else if (rpn > 70) {
+            return HIGH;
+        } else if (rpn > 20) {
+            return MEDIUM;
+        } else {
+            return LOW;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,14 @@
+package com.infosec.riskanalysistool.model;
+
+//Editable attributes of a risk, as reported to RiskRegisterListener
+public enum RiskField {
+    THREAT,
+    HIPAA_RULE,
+    RMF_STEP,
+    IMPACT,
+    LIKELIHOOD,
+    SINGLE_LOSS_EXPECTANCY,
+    ANNUALISED_RATE_OF_OCCURRENCE,
+    CONTROL_MEASURES,
+    CONTROL_EFFECTIVENESS
+}
@@ -0,0 +1,605 @@
+package com.infosec.riskanalysistool.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Column-oriented store for the whole risk register.
+//Every attribute lives in its own primitive array indexed by row, so a risk costs a few dozen bytes
+//instead of a graph of property objects. The UI works against thin Risk row views handed out by view().
+//
+//Derived columns (RPN, ALE, residual risk and recommendation key) are computed lazily. An edit only marks
+//the derived values that depend on the edited field as stale, and each one is recomputed the next time it
+//is read, so editing several inputs of a row, or thousands of rows, costs one recompute per value read.
+public class RiskRegister {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    //Stale flags for the derived columns
+    private static final byte RPN_STALE = 1;
+    private static final byte ALE_STALE = 2;
+    private static final byte RESIDUAL_RISK_STALE = 4;
+    private static final byte RECOMMENDATION_KEY_STALE = 8;
+    private static final byte ALL_STALE = RPN_STALE | ALE_STALE | RESIDUAL_RISK_STALE | RECOMMENDATION_KEY_STALE;
+
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+
+    private int size;
+
+    //Text columns, as codes into one dictionary of distinct strings shared by both columns
+    private int[] threatCodes;
+    private int[] controlMeasureCodes;
+    private StringDictionary dictionary = new StringDictionary();
+
+    //Enum ordinal columns
+    private byte[] hipaaRules;
+    private byte[] rmfSteps;
+
+    //Scoring columns
+    private int[] impacts;
+    private int[] likelihoods;
+    private int[] riskPriorityNumbers;
+
+    //Financial columns
+    private double[] singleLossExpectancies;          //SLE
+    private double[] annualisedRatesOfOccurrence;     //ARO
+    private double[] annualisedLossExpectancies;      //ALE = SLE * ARO
+
+    //Control columns
+    private double[] controlEffectiveness;
+    private double[] residualRisks;
+
+    //Packed RecommendationEngine key
+    private short[] recommendationKeys;
+
+    //Which derived values of each row need recomputing
+    private byte[] stale;
+
+    //Row views, created on first request so bulk loads never allocate them
+    private Risk[] views;
+    //The rows being removed or cleared, while listeners are told about them
+    private List<Risk> removedRows;
+
+    private final List<RiskRegisterListener> listeners = new ArrayList<>();
+
+    //Edits made inside beginUpdate()/endUpdate(): the rows touched, in order, and a RiskField mask per row
+    private int updateDepth;
+    private int[] pendingRows;
+    private int[] pendingFields;
+    private int pendingCount;
+
+    public RiskRegister() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RiskRegister(int initialCapacity) {
+        allocate(Math.max(initialCapacity, 1));
+    }
+
+    private void allocate(int capacity) {
+        threatCodes = new int[capacity];
+        controlMeasureCodes = new int[capacity];
+        hipaaRules = new byte[capacity];
+        rmfSteps = new byte[capacity];
+        impacts = new int[capacity];
+        likelihoods = new int[capacity];
+        riskPriorityNumbers = new int[capacity];
+        singleLossExpectancies = new double[capacity];
+        annualisedRatesOfOccurrence = new double[capacity];
+        annualisedLossExpectancies = new double[capacity];
+        controlEffectiveness = new double[capacity];
+        residualRisks = new double[capacity];
+        recommendationKeys = new short[capacity];
+        stale = new byte[capacity];
+        views = new Risk[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void addListener(RiskRegisterListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(RiskRegisterListener listener) {
+        listeners.remove(listener);
+    }
+
+    //Groups edits so that listeners are told about them once, as a RowChanges, when the outermost update ends.
+    //Structural changes inside an update first deliver the edits made so far, so row numbers stay consistent.
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    public void endUpdate() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("endUpdate() without beginUpdate()");
+        }
+        if (--updateDepth == 0) {
+            firePendingChanges();
+        }
+    }
+
+    //Runs a batch of edits as one update
+    public void update(Runnable edits) {
+        beginUpdate();
+        try {
+            edits.run();
+        } finally {
+            endUpdate();
+        }
+    }
+
+    //Appends a risk and returns its row index
+    public int add(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) {
+        firePendingChanges();
+        ensureCapacity(size + 1);
+        int row = size++;
+
+        this.threatCodes[row] = dictionary.acquire(threat);
+        this.hipaaRules[row] = (byte) hipaaRule.ordinal();
+        this.rmfSteps[row] = (byte) rmfStep.ordinal();
+        this.impacts[row] = impact;
+        this.likelihoods[row] = likelihood;
+        this.singleLossExpectancies[row] = singleLossExpectancy;
+        this.annualisedRatesOfOccurrence[row] = annualisedRateOfOccurrence;
+        this.controlMeasureCodes[row] = dictionary.acquire(controlMeasures);
+        this.controlEffectiveness[row] = controlEffectiveness;
+
+        stale[row] = ALL_STALE;
+        fireRowsAdded(row, 1);
+        return row;
+    }
+
+    //Appends every row of a batch with one copy per column and returns the row index of the first one
+    public int addAll(RiskBatch batch) {
+        firePendingChanges();
+        int count = batch.size();
+        ensureCapacity(size + count);
+        int first = size;
+
+        System.arraycopy(batch.hipaaRules, 0, hipaaRules, first, count);
+        System.arraycopy(batch.rmfSteps, 0, rmfSteps, first, count);
+        System.arraycopy(batch.impacts, 0, impacts, first, count);
+        System.arraycopy(batch.likelihoods, 0, likelihoods, first, count);
+        System.arraycopy(batch.singleLossExpectancies, 0, singleLossExpectancies, first, count);
+        System.arraycopy(batch.annualisedRatesOfOccurrence, 0, annualisedRatesOfOccurrence, first, count);
+        System.arraycopy(batch.controlEffectiveness, 0, controlEffectiveness, first, count);
+        copyTextCodes(batch, first, count);
+        Arrays.fill(stale, first, first + count, ALL_STALE);
+        size += count;
+        fireRowsAdded(first, count);
+        return first;
+    }
+
+    //Text from an encoded batch stays encoded until it is read
+    private void copyTextCodes(RiskBatch batch, int first, int count) {
+        for (int i = 0; i < count; i++) {
+            String threat = batch.threats[i];
+            String controlMeasures = batch.controlMeasures[i];
+            threatCodes[first + i] = threat != null || batch.dictionary == null
+                    ? dictionary.acquire(threat) : dictionary.acquire(batch.dictionary, batch.threatCodes[i]);
+            controlMeasureCodes[first + i] = controlMeasures != null || batch.dictionary == null
+                    ? dictionary.acquire(controlMeasures) : dictionary.acquire(batch.dictionary, batch.controlMeasureCodes[i]);
+        }
+    }
+
+    //Copies the editable columns with the text still encoded, against a frozen copy of the dictionary, so the
+    //batch can be read on another thread while the register changes
+    public RiskBatch snapshot() {
+        return new RiskBatch(size, new String[size], new String[size],
+                Arrays.copyOf(hipaaRules, size), Arrays.copyOf(rmfSteps, size), Arrays.copyOf(impacts, size), Arrays.copyOf(likelihoods, size),
+                Arrays.copyOf(singleLossExpectancies, size), Arrays.copyOf(annualisedRatesOfOccurrence, size), Arrays.copyOf(controlEffectiveness, size),
+                Arrays.copyOf(threatCodes, size), Arrays.copyOf(controlMeasureCodes, size), dictionary.freeze());
+    }
+
+    //Copies the columns every derived value is computed from into arrays of at least size() rows, one bulk copy
+    //per column, so the register can be scored on another thread while it keeps changing
+    public void copyScoringInputs(byte[] hipaaRules, byte[] rmfSteps, int[] impacts, int[] likelihoods, double[] singleLossExpectancies,
+                                  double[] annualisedRatesOfOccurrence, double[] controlEffectiveness) {
+        System.arraycopy(this.hipaaRules, 0, hipaaRules, 0, size);
+        System.arraycopy(this.rmfSteps, 0, rmfSteps, 0, size);
+        System.arraycopy(this.impacts, 0, impacts, 0, size);
+        System.arraycopy(this.likelihoods, 0, likelihoods, 0, size);
+        System.arraycopy(this.singleLossExpectancies, 0, singleLossExpectancies, 0, size);
+        System.arraycopy(this.annualisedRatesOfOccurrence, 0, annualisedRatesOfOccurrence, 0, size);
+        System.arraycopy(this.controlEffectiveness, 0, controlEffectiveness, 0, size);
+    }
+
+    //Removes a row, shifting later rows down. Views of later rows follow their data.
+    public void remove(int row) {
+        checkRow(row);
+        firePendingChanges();
+        Risk removed = views[row] != null ? views[row] : new Risk(this, row);
+        removed.detach(copyRow(row));
+        dictionary.release(threatCodes[row]);
+        dictionary.release(controlMeasureCodes[row]);
+
+        int tail = size - row - 1;
+        if (tail > 0) {
+            System.arraycopy(threatCodes, row + 1, threatCodes, row, tail);
+            System.arraycopy(controlMeasureCodes, row + 1, controlMeasureCodes, row, tail);
+            System.arraycopy(hipaaRules, row + 1, hipaaRules, row, tail);
+            System.arraycopy(rmfSteps, row + 1, rmfSteps, row, tail);
+            System.arraycopy(impacts, row + 1, impacts, row, tail);
+            System.arraycopy(likelihoods, row + 1, likelihoods, row, tail);
+            System.arraycopy(riskPriorityNumbers, row + 1, riskPriorityNumbers, row, tail);
+            System.arraycopy(singleLossExpectancies, row + 1, singleLossExpectancies, row, tail);
+            System.arraycopy(annualisedRatesOfOccurrence, row + 1, annualisedRatesOfOccurrence, row, tail);
+            System.arraycopy(annualisedLossExpectancies, row + 1, annualisedLossExpectancies, row, tail);
+            System.arraycopy(controlEffectiveness, row + 1, controlEffectiveness, row, tail);
+            System.arraycopy(residualRisks, row + 1, residualRisks, row, tail);
+            System.arraycopy(recommendationKeys, row + 1, recommendationKeys, row, tail);
+            System.arraycopy(stale, row + 1, stale, row, tail);
+            System.arraycopy(views, row + 1, views, row, tail);
+            for (int i = row; i < row + tail; i++) {
+                if (views[i] != null) {
+                    views[i].row = i;
+                }
+            }
+        }
+
+        size--;
+        views[size] = null;
+        removedRows = List.of(removed);
+        try {
+            for (RiskRegisterListener listener : listeners) {
+                listener.rowRemoved(row);
+            }
+        } finally {
+            removedRows = null;
+        }
+    }
+
+    //Inside rowRemoved() and cleared(), the removed rows in their old order, as detached views that keep the
+    //values the rows had, for listeners that must hand on the removed elements. After a clear, views for rows
+    //that never had one are only made as they are read.
+    public List<Risk> removedRows() {
+        return removedRows;
+    }
+
+    //Starts again with fresh columns. The old ones are kept only by the detached views of the cleared rows.
+    public void clear() {
+        firePendingChanges();
+        RiskBatch cleared = RiskBatch.encoded(size, hipaaRules, rmfSteps, impacts, likelihoods, singleLossExpectancies,
+                annualisedRatesOfOccurrence, controlEffectiveness, threatCodes, controlMeasureCodes, dictionary);
+        Risk[] clearedViews = views;
+        for (int i = 0; i < cleared.size(); i++) {
+            if (clearedViews[i] != null) {
+                clearedViews[i].detach(copyRow(cleared, i));
+            }
+        }
+
+        allocate(DEFAULT_CAPACITY);
+        size = 0;
+        dictionary = new StringDictionary();
+        pendingFields = null;
+        removedRows = new AbstractList<>() {
+            @Override
+            public Risk get(int index) {
+                Risk view = clearedViews[index];
+                if (view == null) {
+                    view = new Risk(RiskRegister.this, -1);
+                    view.detach(copyRow(cleared, index));
+                    clearedViews[index] = view;
+                }
+                return view;
+            }
+
+            @Override
+            public int size() {
+                return cleared.size();
+            }
+        };
+        try {
+            for (RiskRegisterListener listener : listeners) {
+                listener.cleared();
+            }
+        } finally {
+            removedRows = null;
+        }
+    }
+
+    //A one-row register holding a copy of the row, which the row's view reads once the row has gone
+    private RiskRegister copyRow(int row) {
+        RiskRegister copy = new RiskRegister(1);
+        copy.add(getThreat(row), getHipaaRule(row), getRmfStep(row), impacts[row], likelihoods[row], singleLossExpectancies[row],
+                annualisedRatesOfOccurrence[row], getControlMeasures(row), controlEffectiveness[row]);
+        return copy;
+    }
+
+    private static RiskRegister copyRow(RiskBatch rows, int row) {
+        RiskRegister copy = new RiskRegister(1);
+        copy.add(rows.getThreat(row), rows.getHipaaRule(row), rows.getRmfStep(row), rows.getImpact(row), rows.getLikelihood(row),
+                rows.getSingleLossExpectancy(row), rows.getAnnualisedRateOfOccurrence(row), rows.getControlMeasures(row), rows.getControlEffectiveness(row));
+        return copy;
+    }
+
+    //Returns the row view for a row, creating it on first use
+    public Risk view(int row) {
+        checkRow(row);
+        Risk view = views[row];
+        if (view == null) {
+            view = new Risk(this, row);
+            views[row] = view;
+        }
+        return view;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        int capacity = impacts.length;
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+
+        threatCodes = Arrays.copyOf(threatCodes, newCapacity);
+        controlMeasureCodes = Arrays.copyOf(controlMeasureCodes, newCapacity);
+        hipaaRules = Arrays.copyOf(hipaaRules, newCapacity);
+        rmfSteps = Arrays.copyOf(rmfSteps, newCapacity);
+        impacts = Arrays.copyOf(impacts, newCapacity);
+        likelihoods = Arrays.copyOf(likelihoods, newCapacity);
+        riskPriorityNumbers = Arrays.copyOf(riskPriorityNumbers, newCapacity);
+        singleLossExpectancies = Arrays.copyOf(singleLossExpectancies, newCapacity);
+        annualisedRatesOfOccurrence = Arrays.copyOf(annualisedRatesOfOccurrence, newCapacity);
+        annualisedLossExpectancies = Arrays.copyOf(annualisedLossExpectancies, newCapacity);
+        controlEffectiveness = Arrays.copyOf(controlEffectiveness, newCapacity);
+        residualRisks = Arrays.copyOf(residualRisks, newCapacity);
+        recommendationKeys = Arrays.copyOf(recommendationKeys, newCapacity);
+        stale = Arrays.copyOf(stale, newCapacity);
+        views = Arrays.copyOf(views, newCapacity);
+        if (pendingFields != null) {
+            pendingFields = Arrays.copyOf(pendingFields, newCapacity);
+        }
+    }
+
+    //Getter and Setters
+    public String getThreat(int row) {
+        checkRow(row);
+        return dictionary.text(threatCodes[row]);
+    }
+
+    public void setThreat(int row, String threat) {
+        checkRow(row);
+        int old = threatCodes[row];
+        threatCodes[row] = dictionary.acquire(threat);
+        dictionary.release(old);
+        changed(row, RiskField.THREAT);
+    }
+
+    //Dictionary code of the row's threat, -1 for none
+    public int getThreatCode(int row) {
+        checkRow(row);
+        return threatCodes[row];
+    }
+
+    public HIPAARule getHipaaRule(int row) {
+        checkRow(row);
+        return HIPAA_RULES[hipaaRules[row]];
+    }
+
+    public void setHipaaRule(int row, HIPAARule hipaaRule) {
+        checkRow(row);
+        hipaaRules[row] = (byte) hipaaRule.ordinal();
+        changed(row, RiskField.HIPAA_RULE);
+    }
+
+    public RMFStep getRmfStep(int row) {
+        checkRow(row);
+        return RMF_STEPS[rmfSteps[row]];
+    }
+
+    public void setRmfStep(int row, RMFStep rmfStep) {
+        checkRow(row);
+        rmfSteps[row] = (byte) rmfStep.ordinal();
+        changed(row, RiskField.RMF_STEP);
+    }
+
+    public int getImpact(int row) {
+        checkRow(row);
+        return impacts[row];
+    }
+
+    public void setImpact(int row, int impact) {
+        checkRow(row);
+        impacts[row] = impact;
+        changed(row, RiskField.IMPACT);
+    }
+
+    public int getLikelihood(int row) {
+        checkRow(row);
+        return likelihoods[row];
+    }
+
+    public void setLikelihood(int row, int likelihood) {
+        checkRow(row);
+        likelihoods[row] = likelihood;
+        changed(row, RiskField.LIKELIHOOD);
+    }
+
+    public int getRiskPriorityNumber(int row) {
+        checkRow(row);
+        return riskPriorityNumber(row);
+    }
+
+    public double getSingleLossExpectancy(int row) {
+        checkRow(row);
+        return singleLossExpectancies[row];
+    }
+
+    public void setSingleLossExpectancy(int row, double sle) {
+        checkRow(row);
+        singleLossExpectancies[row] = sle;
+        changed(row, RiskField.SINGLE_LOSS_EXPECTANCY);
+    }
+
+    public double getAnnualisedRateOfOccurrence(int row) {
+        checkRow(row);
+        return annualisedRatesOfOccurrence[row];
+    }
+
+    public void setAnnualisedRateOfOccurrence(int row, double aro) {
+        checkRow(row);
+        annualisedRatesOfOccurrence[row] = aro;
+        changed(row, RiskField.ANNUALISED_RATE_OF_OCCURRENCE);
+    }
+
+    public double getAnnualisedLossExpectancy(int row) {
+        checkRow(row);
+        return annualisedLossExpectancy(row);
+    }
+
+    public String getControlMeasures(int row) {
+        checkRow(row);
+        return dictionary.text(controlMeasureCodes[row]);
+    }
+
+    public void setControlMeasures(int row, String controlMeasures) {
+        checkRow(row);
+        int old = controlMeasureCodes[row];
+        controlMeasureCodes[row] = dictionary.acquire(controlMeasures);
+        dictionary.release(old);
+        changed(row, RiskField.CONTROL_MEASURES);
+    }
+
+    //Dictionary code of the row's control measures, -1 for none
+    public int getControlMeasuresCode(int row) {
+        checkRow(row);
+        return controlMeasureCodes[row];
+    }
+
+    //Decodes the threat and control measure codes
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public double getControlEffectiveness(int row) {
+        checkRow(row);
+        return controlEffectiveness[row];
+    }
+
+    public void setControlEffectiveness(int row, double controlEffectiveness) {
+        checkRow(row);
+        this.controlEffectiveness[row] = controlEffectiveness;
+        changed(row, RiskField.CONTROL_EFFECTIVENESS);
+    }
+
+    public double getResidualRisk(int row) {
+        checkRow(row);
+        return residualRisk(row);
+    }
+
+    public int getRecommendationKey(int row) {
+        checkRow(row);
+        return recommendationKey(row);
+    }
+
+    //Derived columns. Each is recomputed from its inputs, including other derived values, only when stale.
+    private int riskPriorityNumber(int row) {
+        if ((stale[row] & RPN_STALE) != 0) {
+            riskPriorityNumbers[row] = RiskScoring.riskPriorityNumber(impacts[row], likelihoods[row]);
+            stale[row] &= ~RPN_STALE;
+        }
+        return riskPriorityNumbers[row];
+    }
+
+    private double annualisedLossExpectancy(int row) {
+        if ((stale[row] & ALE_STALE) != 0) {
+            annualisedLossExpectancies[row] = RiskScoring.annualisedLossExpectancy(singleLossExpectancies[row], annualisedRatesOfOccurrence[row]);
+            stale[row] &= ~ALE_STALE;
+        }
+        return annualisedLossExpectancies[row];
+    }
+
+    private double residualRisk(int row) {
+        if ((stale[row] & RESIDUAL_RISK_STALE) != 0) {
+            residualRisks[row] = RiskScoring.residualRisk(riskPriorityNumber(row), controlEffectiveness[row]);
+            stale[row] &= ~RESIDUAL_RISK_STALE;
+        }
+        return residualRisks[row];
+    }
+
+    private int recommendationKey(int row) {
+        if ((stale[row] & RECOMMENDATION_KEY_STALE) != 0) {
+            recommendationKeys[row] = (short) RecommendationEngine.key(impacts[row], likelihoods[row], annualisedLossExpectancy(row), hipaaRules[row], rmfSteps[row]);
+            stale[row] &= ~RECOMMENDATION_KEY_STALE;
+        }
+        return recommendationKeys[row];
+    }
+
+    //Derived values that depend on each field
+    private static byte dependents(RiskField field) {
+        switch (field) {
+            case IMPACT:
+            case LIKELIHOOD:
+                return RPN_STALE | RESIDUAL_RISK_STALE | RECOMMENDATION_KEY_STALE;
+            case SINGLE_LOSS_EXPECTANCY:
+            case ANNUALISED_RATE_OF_OCCURRENCE:
+                return ALE_STALE | RECOMMENDATION_KEY_STALE;
+            case CONTROL_EFFECTIVENESS:
+                return RESIDUAL_RISK_STALE;
+            case HIPAA_RULE:
+            case RMF_STEP:
+                return RECOMMENDATION_KEY_STALE;
+            default:
+                return 0;
+        }
+    }
+
+    //Marks the field's dependents stale and tells listeners, now or when the current update ends
+    private void changed(int row, RiskField field) {
+        stale[row] |= dependents(field);
+        if (updateDepth == 0) {
+            for (RiskRegisterListener listener : listeners) {
+                listener.valueChanged(row, field);
+            }
+            return;
+        }
+        if (pendingFields == null) {
+            pendingFields = new int[impacts.length];
+            pendingRows = new int[16];
+        }
+        if (pendingFields[row] == 0) {
+            if (pendingCount == pendingRows.length) {
+                pendingRows = Arrays.copyOf(pendingRows, pendingCount * 2);
+            }
+            pendingRows[pendingCount++] = row;
+        }
+        pendingFields[row] |= RowChanges.mask(field);
+    }
+
+    private void firePendingChanges() {
+        if (pendingCount == 0) {
+            return;
+        }
+        int[] rows = Arrays.copyOf(pendingRows, pendingCount);
+        int[] fields = new int[pendingCount];
+        for (int i = 0; i < pendingCount; i++) {
+            fields[i] = pendingFields[rows[i]];
+            pendingFields[rows[i]] = 0;
+        }
+        pendingCount = 0;
+        RowChanges changes = new RowChanges(rows, fields);
+        for (RiskRegisterListener listener : listeners) {
+            listener.valuesChanged(changes);
+        }
+    }
+
+    private void fireRowsAdded(int first, int count) {
+        for (RiskRegisterListener listener : listeners) {
+            listener.rowsAdded(first, count);
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for register of size " + size);
+        }
+    }
+}
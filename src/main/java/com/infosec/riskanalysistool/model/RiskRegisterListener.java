@@ -0,0 +1,24 @@
+package com.infosec.riskanalysistool.model;
+
+//Notified synchronously after every structural change or edit of a RiskRegister
+public interface RiskRegisterListener {
+    void rowsAdded(int first, int count);
+
+    void rowRemoved(int row);
+
+    void valueChanged(int row, RiskField field);
+
+    //Edits made between beginUpdate() and endUpdate(), delivered once when the update ends.
+    //By default each change is passed on to valueChanged().
+    default void valuesChanged(RowChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            for (RiskField field : RiskField.values()) {
+                if (changes.changed(i, field)) {
+                    valueChanged(changes.row(i), field);
+                }
+            }
+        }
+    }
+
+    void cleared();
+}
@@ -0,0 +1,27 @@
+package com.infosec.riskanalysistool.model;
+
+//The formulas behind every derived value. The register's columns, snapshots and versions, the headless scorer,
+//reports and sensitivity analysis all score through these, so the UI, the CLI and the service cannot drift apart.
+public final class RiskScoring {
+    private RiskScoring() {
+    }
+
+    //RPN
+    public static int riskPriorityNumber(int impact, int likelihood) {
+        return impact * likelihood;
+    }
+
+    //ALE = SLE * ARO
+    public static double annualisedLossExpectancy(double singleLossExpectancy, double annualisedRateOfOccurrence) {
+        return singleLossExpectancy * annualisedRateOfOccurrence;
+    }
+
+    //The part of the RPN that controls of the given effectiveness (0-100%) leave
+    public static double residualRisk(int riskPriorityNumber, double controlEffectiveness) {
+        return riskPriorityNumber * (1 - controlEffectiveness / 100.0);
+    }
+
+    public static double residualRisk(int impact, int likelihood, double controlEffectiveness) {
+        return residualRisk(riskPriorityNumber(impact, likelihood), controlEffectiveness);
+    }
+}
@@ -0,0 +1,28 @@
+package com.infosec.riskanalysistool.model;
+
+//Rows edited during one RiskRegister update, each listed once with every field that changed
+public final class RowChanges {
+    private final int[] rows;
+    private final int[] fieldMasks;
+
+    RowChanges(int[] rows, int[] fieldMasks) {
+        this.rows = rows;
+        this.fieldMasks = fieldMasks;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    public int row(int index) {
+        return rows[index];
+    }
+
+    public boolean changed(int index, RiskField field) {
+        return (fieldMasks[index] & mask(field)) != 0;
+    }
+
+    static int mask(RiskField field) {
+        return 1 << field.ordinal();
+    }
+}
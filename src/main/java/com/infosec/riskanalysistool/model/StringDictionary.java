@@ -0,0 +1,171 @@
+package com.infosec.riskanalysistool.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+//The register's text, one entry per distinct string. Rows hold int codes, so a threat or control measure
+//repeated across thousands of risks is stored once. Each entry counts the rows using it, and its code is
+//reused once the last of them goes.
+//Entries taken from another dictionary (a mapped snapshot) keep that dictionary's code and are only decoded
+//when first read, so opening a large register still builds no Strings up front. Until then they are not
+//matched against new text, so the same string can briefly have two codes; see textOf.
+public final class StringDictionary implements TextDictionary {
+    private String[] values = new String[16];
+    private int[] refCounts = new int[16];
+    //Where an entry's text comes from until it is decoded
+    private TextDictionary[] sources = new TextDictionary[16];
+    private int[] sourceCodes = new int[16];
+    private int codeLimit;
+    private int size;
+    private int[] freeCodes = new int[16];
+    private int freeCount;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    //Per source dictionary: our code for each of its codes, -1 for none yet
+    private final Map<TextDictionary, int[]> translations = new IdentityHashMap<>();
+
+    //Code for the text with one more row using it; null text has code -1
+    public int acquire(String text) {
+        if (text == null) {
+            return -1;
+        }
+        Integer existing = codes.get(text);
+        int code;
+        if (existing != null) {
+            code = existing;
+        } else {
+            code = newCode();
+            values[code] = text;
+            codes.put(text, code);
+        }
+        refCounts[code]++;
+        return code;
+    }
+
+    //Code for the entry with the given code in another dictionary, decoded only when first read
+    public int acquire(TextDictionary source, int sourceCode) {
+        if (sourceCode < 0) {
+            return -1;
+        }
+        int[] translation = translations.get(source);
+        if (translation == null || sourceCode >= translation.length) {
+            int length = Math.max(sourceCode + 1, translation == null ? 64 : translation.length * 2);
+            int[] grown = new int[length];
+            Arrays.fill(grown, -1);
+            if (translation != null) {
+                System.arraycopy(translation, 0, grown, 0, translation.length);
+            }
+            translation = grown;
+            translations.put(source, translation);
+        }
+        int code = translation[sourceCode];
+        if (code < 0) {
+            code = newCode();
+            sources[code] = source;
+            sourceCodes[code] = sourceCode;
+            translation[sourceCode] = code;
+        }
+        refCounts[code]++;
+        return code;
+    }
+
+    //One less row uses the code; the entry goes with its last row
+    public void release(int code) {
+        if (code < 0 || --refCounts[code] > 0) {
+            return;
+        }
+        String value = values[code];
+        if (value != null) {
+            codes.remove(value, code);
+        }
+        if (sources[code] != null) {
+            translations.get(sources[code])[sourceCodes[code]] = -1;
+        }
+        values[code] = null;
+        sources[code] = null;
+        size--;
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+
+    @Override
+    public String text(int code) {
+        if (code < 0) {
+            return null;
+        }
+        String value = values[code];
+        if (value == null && sources[code] != null) {
+            value = sources[code].text(sourceCodes[code]);
+            values[code] = value;
+            if (value != null) {
+                codes.putIfAbsent(value, code);
+            }
+        }
+        return value;
+    }
+
+    //The code text() maps this string to, so codes that share a string group together; same as code unless
+    //new text arrived while an equal snapshot entry was still encoded
+    public int textOf(int code) {
+        String value = text(code);
+        if (value == null) {
+            return code;
+        }
+        Integer first = codes.get(value);
+        return first == null ? code : first;
+    }
+
+    //Code of an entry with this text, or -1 if no row has it (or only rows whose entry is still encoded)
+    public int find(String text) {
+        Integer code = text == null ? null : codes.get(text);
+        return code == null ? -1 : code;
+    }
+
+    //Rows using the code
+    public int refCount(int code) {
+        return code < 0 ? 0 : refCounts[code];
+    }
+
+    //Entries in use
+    public int size() {
+        return size;
+    }
+
+    //Every code in use is below this, so per-code arrays of this length cover the dictionary
+    public int codeLimit() {
+        return codeLimit;
+    }
+
+    //Read-only copy of the current entries that later changes do not affect, for use on another thread
+    public TextDictionary freeze() {
+        String[] frozenValues = Arrays.copyOf(values, codeLimit);
+        TextDictionary[] frozenSources = Arrays.copyOf(sources, codeLimit);
+        int[] frozenSourceCodes = Arrays.copyOf(sourceCodes, codeLimit);
+        return code -> {
+            if (code < 0) {
+                return null;
+            }
+            String value = frozenValues[code];
+            return value != null || frozenSources[code] == null ? value : frozenSources[code].text(frozenSourceCodes[code]);
+        };
+    }
+
+    private int newCode() {
+        size++;
+        if (freeCount > 0) {
+            return freeCodes[--freeCount];
+        }
+        if (codeLimit == values.length) {
+            int capacity = codeLimit * 2;
+            values = Arrays.copyOf(values, capacity);
+            refCounts = Arrays.copyOf(refCounts, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            sourceCodes = Arrays.copyOf(sourceCodes, capacity);
+        }
+        return codeLimit++;
+    }
+}
@@ -0,0 +1,6 @@
+package com.infosec.riskanalysistool.model;
+
+//Source of text for dictionary-encoded rows; a negative code has no text
+public interface TextDictionary {
+    String text(int code);
+}
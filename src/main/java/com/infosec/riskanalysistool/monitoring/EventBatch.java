@@ -0,0 +1,30 @@
+package com.infosec.riskanalysistool.monitoring;
+
+//Events parsed from a run of lines, as matched rules and times, handed to the estimator in one go. Each
+//source reuses its own batch, so parsing allocates nothing per event.
+final class EventBatch {
+    static final int CAPACITY = 4096;
+
+    final int[] rules = new int[CAPACITY];
+    final long[] times = new long[CAPACITY];
+    int size;
+    //Lines read, including those that were malformed or matched no rule
+    long lines;
+    long malformed;
+
+    boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    void add(int rule, long time) {
+        rules[size] = rule;
+        times[size] = time;
+        size++;
+    }
+
+    void clear() {
+        size = 0;
+        lines = 0;
+        malformed = 0;
+    }
+}
@@ -0,0 +1,256 @@
+package com.infosec.riskanalysistool.monitoring;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//Estimates how often each threat occurs from security events as they are logged, and publishes the rates at a
+//fixed interval. Events come from log files being followed, as tail -F would, and from connections to a port
+//on this machine, which a SIEM forwarder or netcat can stand in for.
+//
+//Each source has its own daemon thread that reads large blocks, parses them into a reused batch and records
+//the batch under one lock, so nothing is allocated or locked per event. A source only reads as fast as it
+//can record: a file waits on disk and a sender is held back by the connection's flow control. Consumers see
+//one EventRates per interval however fast events arrive, so the UI is never handed per-event work.
+public class EventFeedMonitor implements AutoCloseable {
+    static final long PUBLISH_MILLIS = 1000;
+    //How often a followed file is checked for more lines once it has all been read
+    private static final long POLL_MILLIS = 100;
+
+    private final EventRules rules;
+    private final RateEstimator estimator;
+    private final Consumer<EventRates> consumer;
+    private final ScheduledExecutorService scheduler;
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final List<Closeable> channels = new CopyOnWriteArrayList<>();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder matchedEvents = new LongAdder();
+    private final LongAdder malformedLines = new LongAdder();
+    private volatile Consumer<Exception> errorHandler = e -> { };
+    private volatile boolean closed;
+    private long publishedLines;
+    private long publishedNanos = System.nanoTime();
+
+    //The rules must not change while the monitor uses them. Rates are passed to the consumer on the
+    //monitor's own thread.
+    public EventFeedMonitor(EventRules rules, Duration window, Duration halfLife, Consumer<EventRates> consumer) {
+        this.rules = rules;
+        this.estimator = new RateEstimator(rules, window.toMillis(), halfLife.toMillis());
+        this.consumer = consumer;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-rates");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::publish, PUBLISH_MILLIS, PUBLISH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    //Told about a source that failed; other sources carry on
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    //Follows a file as lines are added to it, from its start or only from lines added from now on. A file
+    //that is truncated is read again from its start, and one that is replaced, as when logs are rotated, is
+    //read from the start of the new file. The file need not exist yet.
+    public void tail(Path file, boolean fromStart) {
+        startThread("event-tail-" + file.getFileName(), () -> follow(file, fromStart));
+    }
+
+    //Reads events from any number of connections to the port on the loopback address, one line per event;
+    //port 0 picks a free port. Returns the port listened on.
+    public int listen(int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        channels.add(server);
+        startThread("event-listener", () -> accept(server));
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        for (Closeable channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                //Nothing more will be read from it either way
+            }
+        }
+        threads.forEach(Thread::interrupt);
+    }
+
+    private void startThread(String name, Runnable work) {
+        Thread thread = new Thread(() -> {
+            try {
+                work.run();
+            } finally {
+                threads.remove(Thread.currentThread());
+            }
+        }, name);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    private void follow(Path file, boolean fromStart) {
+        EventStream stream = new EventStream(rules);
+        EventBatch batch = new EventBatch();
+        boolean skipExisting = !fromStart;
+        try {
+            while (!closed) {
+                FileChannel channel;
+                try {
+                    channel = FileChannel.open(file, StandardOpenOption.READ);
+                } catch (NoSuchFileException e) {
+                    skipExisting = false;
+                    Thread.sleep(POLL_MILLIS);
+                    continue;
+                }
+                channels.add(channel);
+                try (channel) {
+                    Object key = fileKey(file);
+                    if (skipExisting) {
+                        channel.position(channel.size());
+                        skipExisting = false;
+                    }
+                    stream.reset();
+                    while (!closed) {
+                        if (stream.read(channel) > 0) {
+                            drain(stream, batch);
+                        } else if (channel.size() < channel.position()) {
+                            channel.position(0);
+                            stream.reset();
+                        } else if (key != null && !key.equals(fileKey(file))) {
+                            //Replaced: everything in the old file has been read, so go on to the new one
+                            break;
+                        } else {
+                            Thread.sleep(POLL_MILLIS);
+                        }
+                    }
+                } finally {
+                    channels.remove(channel);
+                }
+            }
+        } catch (ClosedChannelException | InterruptedException e) {
+            //Closed
+        } catch (IOException e) {
+            report(e);
+        }
+    }
+
+    //Identifies the file at the path, so a replacement can be told apart; null if there is none there now
+    private static Object fileKey(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void accept(ServerSocketChannel server) {
+        try {
+            while (!closed) {
+                SocketChannel connection = server.accept();
+                channels.add(connection);
+                startThread("event-connection", () -> receive(connection));
+            }
+        } catch (ClosedChannelException e) {
+            //Closed
+        } catch (IOException e) {
+            report(e);
+        }
+    }
+
+    private void receive(SocketChannel connection) {
+        EventStream stream = new EventStream(rules);
+        EventBatch batch = new EventBatch();
+        try (connection) {
+            while (stream.read(connection) >= 0) {
+                drain(stream, batch);
+            }
+            stream.finish(batch);
+            drain(stream, batch);
+        } catch (ClosedChannelException e) {
+            //Closed
+        } catch (IOException e) {
+            report(e);
+        } finally {
+            channels.remove(connection);
+        }
+    }
+
+    //Parses and records every whole line read so far, a batch at a time
+    private void drain(EventStream stream, EventBatch batch) {
+        boolean full;
+        do {
+            long start = Operation.EVENT_INGEST.begin();
+            full = stream.parse(batch);
+            long parsed = batch.lines;
+            if (parsed > 0) {
+                synchronized (estimator) {
+                    estimator.record(batch, System.currentTimeMillis());
+                }
+                lines.add(parsed);
+                matchedEvents.add(batch.size);
+                malformedLines.add(batch.malformed);
+            }
+            batch.clear();
+            Operation.EVENT_INGEST.end(start, parsed);
+        } while (full);
+    }
+
+    private void publish() {
+        try {
+            double[] windowRates = new double[rules.threatCount()];
+            double[] decayedRates = new double[rules.threatCount()];
+            long time;
+            synchronized (estimator) {
+                time = estimator.clock(System.currentTimeMillis());
+                estimator.rates(time, windowRates, decayedRates);
+            }
+            long now = System.nanoTime();
+            long total = lines.sum();
+            double perSecond = (total - publishedLines) * 1e9 / Math.max(1, now - publishedNanos);
+            publishedLines = total;
+            publishedNanos = now;
+            consumer.accept(new EventRates(rules, time, windowRates, decayedRates, total, matchedEvents.sum(),
+                    malformedLines.sum(), perSecond));
+        } catch (RuntimeException e) {
+            //Keeps the schedule going; a failed consumer would otherwise stop every later publication
+            report(e);
+        }
+    }
+
+    private void report(Exception e) {
+        if (!closed) {
+            errorHandler.accept(e);
+        }
+    }
+}
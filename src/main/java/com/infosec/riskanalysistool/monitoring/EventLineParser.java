@@ -0,0 +1,244 @@
+package com.infosec.riskanalysistool.monitoring;
+
+//Parses event lines straight from bytes: a timestamp, then the event type, separated by a comma, tab or
+//space, with anything after the event type ignored. Blank lines and lines starting with # are skipped.
+//The timestamp is epoch seconds (with an optional fraction) or milliseconds, or ISO-8601 such as
+//2024-05-01T13:45:30.250Z or 2024-05-01T14:45+01:00; an ISO time without an offset is taken as UTC.
+//Nothing is allocated per line: the event type is matched against the rules in place.
+final class EventLineParser {
+    static final long INVALID = Long.MIN_VALUE;
+    //Epoch values below this are seconds (until the year 5138), above it milliseconds
+    private static final long MAX_EPOCH_SECONDS = 100_000_000_000L;
+
+    private final EventRules rules;
+
+    EventLineParser(EventRules rules) {
+        this.rules = rules;
+    }
+
+    //Parses whole lines of bytes[from, to) into the batch until the batch is full, and returns where the
+    //first line not parsed starts
+    int parse(byte[] bytes, int from, int to, EventBatch batch) {
+        int position = from;
+        while (position < to && !batch.isFull()) {
+            int newline = indexOf(bytes, (byte) '\n', position, to);
+            if (newline < 0) {
+                break;
+            }
+            parseLine(bytes, position, newline, batch);
+            position = newline + 1;
+        }
+        return position;
+    }
+
+    private void parseLine(byte[] bytes, int from, int to, EventBatch batch) {
+        int start = skipSpaces(bytes, from, to);
+        int end = to;
+        while (end > start && isSpace(bytes[end - 1])) {
+            end--;
+        }
+        if (start == end || bytes[start] == '#') {
+            return;
+        }
+        batch.lines++;
+
+        int timeEnd = start;
+        while (timeEnd < end && !isSeparator(bytes[timeEnd])) {
+            timeEnd++;
+        }
+        long time = parseTime(bytes, start, timeEnd);
+        int typeStart = timeEnd < end ? skipSpaces(bytes, timeEnd + 1, end) : end;
+        int typeEnd = typeStart;
+        while (typeEnd < end && !isSeparator(bytes[typeEnd])) {
+            typeEnd++;
+        }
+        if (time == INVALID || typeStart == typeEnd) {
+            batch.malformed++;
+            return;
+        }
+        int rule = rules.find(bytes, typeStart, typeEnd);
+        if (rule >= 0) {
+            batch.add(rule, time);
+        }
+    }
+
+    //Epoch milliseconds, or INVALID
+    static long parseTime(byte[] bytes, int from, int to) {
+        if (from == to) {
+            return INVALID;
+        }
+        int digits = 0;
+        while (from + digits < to && isDigit(bytes[from + digits])) {
+            digits++;
+        }
+        if (digits == 4 && from + digits < to && bytes[from + digits] == '-') {
+            return parseIsoTime(bytes, from, to);
+        }
+        if (digits == 0 || digits > 18) {
+            return INVALID;
+        }
+        long value = digits(bytes, from, from + digits);
+        int at = from + digits;
+        if (at == to) {
+            return value < MAX_EPOCH_SECONDS ? value * 1000 : value;
+        }
+        if (bytes[at] != '.' || at + 1 == to || value >= MAX_EPOCH_SECONDS) {
+            return INVALID;
+        }
+        long millis = fractionMillis(bytes, at + 1, to);
+        return millis == INVALID ? INVALID : value * 1000 + millis;
+    }
+
+    //yyyy-MM-ddTHH:mm[:ss[.fraction]][Z|+HH:mm|+HHmm|+HH]
+    private static long parseIsoTime(byte[] bytes, int from, int to) {
+        if (to - from < 16 || bytes[from + 7] != '-' || (bytes[from + 10] != 'T' && bytes[from + 10] != 't')
+                || bytes[from + 13] != ':') {
+            return INVALID;
+        }
+        int year = fixedDigits(bytes, from, 4);
+        int month = fixedDigits(bytes, from + 5, 2);
+        int day = fixedDigits(bytes, from + 8, 2);
+        int hour = fixedDigits(bytes, from + 11, 2);
+        int minute = fixedDigits(bytes, from + 14, 2);
+        int at = from + 16;
+        int second = 0;
+        if (at < to && bytes[at] == ':') {
+            if (to - at < 3) {
+                return INVALID;
+            }
+            second = fixedDigits(bytes, at + 1, 2);
+            at += 3;
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return INVALID;
+        }
+        long millis = 0;
+        if (at < to && (bytes[at] == '.' || bytes[at] == ',')) {
+            int fractionEnd = at + 1;
+            while (fractionEnd < to && isDigit(bytes[fractionEnd])) {
+                fractionEnd++;
+            }
+            if (fractionEnd == at + 1) {
+                return INVALID;
+            }
+            millis = fractionMillis(bytes, at + 1, fractionEnd);
+            at = fractionEnd;
+        }
+        long offsetSeconds = 0;
+        if (at < to && (bytes[at] == 'Z' || bytes[at] == 'z')) {
+            at++;
+        } else if (at < to && (bytes[at] == '+' || bytes[at] == '-')) {
+            int sign = bytes[at] == '-' ? -1 : 1;
+            at++;
+            if (to - at < 2) {
+                return INVALID;
+            }
+            int offsetHours = fixedDigits(bytes, at, 2);
+            int offsetMinutes = 0;
+            at += 2;
+            if (at < to && bytes[at] == ':') {
+                at++;
+            }
+            if (at < to) {
+                if (to - at < 2) {
+                    return INVALID;
+                }
+                offsetMinutes = fixedDigits(bytes, at, 2);
+                at += 2;
+            }
+            if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                return INVALID;
+            }
+            offsetSeconds = sign * (offsetHours * 3600L + offsetMinutes * 60L);
+        }
+        if (at != to) {
+            return INVALID;
+        }
+        long seconds = epochDay(year, month, day) * 86_400 + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return seconds * 1000 + millis;
+    }
+
+    //Days from 1970-01-01 in the proleptic Gregorian calendar
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    //The first three digits of a fraction of a second, as milliseconds, or INVALID if it is not all digits
+    private static long fractionMillis(byte[] bytes, int from, int to) {
+        long millis = 0;
+        for (int i = from; i < to; i++) {
+            if (!isDigit(bytes[i])) {
+                return INVALID;
+            }
+            if (i - from < 3) {
+                millis = millis * 10 + (bytes[i] - '0');
+            }
+        }
+        for (int i = to - from; i < 3; i++) {
+            millis *= 10;
+        }
+        return millis;
+    }
+
+    //A fixed-width number, or -1 if any of it is not a digit
+    private static int fixedDigits(byte[] bytes, int from, int width) {
+        int value = 0;
+        for (int i = from; i < from + width; i++) {
+            if (!isDigit(bytes[i])) {
+                return -1;
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    private static long digits(byte[] bytes, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    static int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(byte[] bytes, int from, int to) {
+        while (from < to && isSpace(bytes[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == ' ' || b == '\t';
+    }
+}
@@ -0,0 +1,63 @@
+package com.infosec.riskanalysistool.monitoring;
+
+//Occurrence rates of the rules' threats at one moment, with how the feed has been going, as published by an
+//EventFeedMonitor. Never changes once published.
+public final class EventRates {
+    private final EventRules rules;
+    private final long time;
+    private final double[] windowRates;
+    private final double[] decayedRates;
+    private final long lines;
+    private final long matchedEvents;
+    private final long malformedLines;
+    private final double linesPerSecond;
+
+    EventRates(EventRules rules, long time, double[] windowRates, double[] decayedRates, long lines, long matchedEvents,
+               long malformedLines, double linesPerSecond) {
+        this.rules = rules;
+        this.time = time;
+        this.windowRates = windowRates;
+        this.decayedRates = decayedRates;
+        this.lines = lines;
+        this.matchedEvents = matchedEvents;
+        this.malformedLines = malformedLines;
+        this.linesPerSecond = linesPerSecond;
+    }
+
+    public EventRules getRules() {
+        return rules;
+    }
+
+    //Whether any event has matched a rule yet; until one has, every rate is 0 for want of evidence
+    public boolean hasEvents() {
+        return time != Long.MIN_VALUE;
+    }
+
+    //Epoch milliseconds the rates were taken at, in event time
+    public long getTime() {
+        return time;
+    }
+
+    //Occurrences per year of a threat, by its index in the rules
+    public double getAnnualisedRate(int threatIndex, RateModel model) {
+        return model == RateModel.SLIDING_WINDOW ? windowRates[threatIndex] : decayedRates[threatIndex];
+    }
+
+    //Event lines read from every source so far, whether or not they matched a rule
+    public long getLines() {
+        return lines;
+    }
+
+    public long getMatchedEvents() {
+        return matchedEvents;
+    }
+
+    public long getMalformedLines() {
+        return malformedLines;
+    }
+
+    //Lines read per second since the rates before these
+    public double getLinesPerSecond() {
+        return linesPerSecond;
+    }
+}
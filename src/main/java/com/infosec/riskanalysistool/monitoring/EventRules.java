@@ -0,0 +1,204 @@
+package com.infosec.riskanalysistool.monitoring;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Which security events count towards which threats, read from a CSV file of
+//eventType,threat,eventsPerOccurrence rows (an optional header row is skipped). Every eventsPerOccurrence
+//events of the type count as one occurrence of the threat, e.g. 50 failed logins for one brute-force attempt.
+//Event types are matched exactly; threats are matched to risks ignoring case and surrounding spaces, and a
+//threat may have rules for several event types.
+//Event types are looked up straight from the bytes of an event line, so matching an event allocates nothing.
+public class EventRules {
+    private final List<String> threats = new ArrayList<>();
+    private final Map<String, Integer> threatIndexes = new HashMap<>();
+    private byte[][] eventTypes = new byte[8][];
+    private int[] ruleThreats = new int[8];
+    private double[] ruleWeights = new double[8];
+    private int size;
+    //Open addressing by hash of the event type: rule + 1, or 0 for an empty slot
+    private int[] slots = new int[16];
+
+    public static EventRules read(Path path) throws IOException {
+        EventRules rules = new EventRules();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.strip().startsWith("#")) {
+                    continue;
+                }
+                List<String> fields = splitFields(line);
+                if (fields.size() != 3) {
+                    throw new IOException("Line " + lineNumber + ": expected eventType,threat,eventsPerOccurrence");
+                }
+                double eventsPerOccurrence;
+                try {
+                    eventsPerOccurrence = Double.parseDouble(fields.get(2));
+                } catch (NumberFormatException e) {
+                    if (lineNumber == 1) {
+                        continue;
+                    }
+                    throw new IOException("Line " + lineNumber + ": eventsPerOccurrence must be a number");
+                }
+                if (!(eventsPerOccurrence > 0) || Double.isInfinite(eventsPerOccurrence)) {
+                    throw new IOException("Line " + lineNumber + ": eventsPerOccurrence must be more than 0");
+                }
+                if (fields.get(0).isEmpty() || fields.get(1).isEmpty()) {
+                    throw new IOException("Line " + lineNumber + ": event type and threat must not be empty");
+                }
+                if (rules.contains(fields.get(0))) {
+                    throw new IOException("Line " + lineNumber + ": event type " + fields.get(0) + " already has a rule");
+                }
+                rules.add(fields.get(0), fields.get(1), eventsPerOccurrence);
+            }
+        }
+        return rules;
+    }
+
+    //Replaces any rule the event type already had
+    public void add(String eventType, String threat, double eventsPerOccurrence) {
+        byte[] bytes = eventType.strip().getBytes(StandardCharsets.UTF_8);
+        int threatIndex = threatIndexes.computeIfAbsent(key(threat), k -> {
+            threats.add(threat.strip());
+            return threats.size() - 1;
+        });
+        int rule = find(bytes, 0, bytes.length);
+        if (rule < 0) {
+            if (size == eventTypes.length) {
+                eventTypes = Arrays.copyOf(eventTypes, size * 2);
+                ruleThreats = Arrays.copyOf(ruleThreats, size * 2);
+                ruleWeights = Arrays.copyOf(ruleWeights, size * 2);
+            }
+            rule = size++;
+            eventTypes[rule] = bytes;
+            if (size * 2 > slots.length) {
+                rehash(slots.length * 2);
+            } else {
+                insert(rule);
+            }
+        }
+        ruleThreats[rule] = threatIndex;
+        ruleWeights[rule] = 1 / eventsPerOccurrence;
+    }
+
+    public boolean contains(String eventType) {
+        byte[] bytes = eventType.strip().getBytes(StandardCharsets.UTF_8);
+        return find(bytes, 0, bytes.length) >= 0;
+    }
+
+    //Number of rules
+    public int size() {
+        return size;
+    }
+
+    //Number of distinct threats the rules count events towards
+    public int threatCount() {
+        return threats.size();
+    }
+
+    //A threat as first written in the rules
+    public String getThreat(int threatIndex) {
+        return threats.get(threatIndex);
+    }
+
+    //Index of the threat a risk's threat text matches, or -1 if no rule counts towards it
+    public int threatIndexOf(String threat) {
+        if (threat == null) {
+            return -1;
+        }
+        Integer index = threatIndexes.get(key(threat));
+        return index != null ? index : -1;
+    }
+
+    //The rule for the event type in bytes[from, to), or -1 if there is none
+    int find(byte[] bytes, int from, int to) {
+        int mask = slots.length - 1;
+        for (int slot = hash(bytes, from, to) & mask; ; slot = (slot + 1) & mask) {
+            int rule = slots[slot] - 1;
+            if (rule < 0) {
+                return -1;
+            }
+            if (Arrays.equals(eventTypes[rule], 0, eventTypes[rule].length, bytes, from, to)) {
+                return rule;
+            }
+        }
+    }
+
+    int threatOf(int rule) {
+        return ruleThreats[rule];
+    }
+
+    //Occurrences of the threat one event of the rule's type counts for
+    double weightOf(int rule) {
+        return ruleWeights[rule];
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int rule = 0; rule < size; rule++) {
+            insert(rule);
+        }
+    }
+
+    private void insert(int rule) {
+        int mask = slots.length - 1;
+        int slot = hash(eventTypes[rule], 0, eventTypes[rule].length) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = rule + 1;
+    }
+
+    //FNV-1a, with the high bits folded in since only the low ones pick the slot
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static String key(String threat) {
+        return threat.strip().toLowerCase(Locale.ROOT);
+    }
+
+    //Comma separated, with "" inside a quoted field for a quote
+    private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().strip());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().strip());
+        return fields;
+    }
+}
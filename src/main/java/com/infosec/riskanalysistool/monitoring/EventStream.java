@@ -0,0 +1,74 @@
+package com.infosec.riskanalysistool.monitoring;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+//One source's read buffer. Bytes are read in large blocks and parsed a batch at a time, and a line cut off at
+//the end of a block is kept for the next read. A line longer than the whole buffer is counted as malformed
+//and skipped.
+final class EventStream {
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private final EventLineParser parser;
+    private int start;
+    private int end;
+    private boolean skipping;
+
+    EventStream(EventRules rules) {
+        this.parser = new EventLineParser(rules);
+    }
+
+    //Reads whatever the channel has, after any part line left from the last read; -1 at its end
+    int read(ReadableByteChannel channel) throws IOException {
+        if (start > 0) {
+            System.arraycopy(bytes, start, bytes, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == bytes.length) {
+            skipping = true;
+            end = 0;
+        }
+        buffer.limit(bytes.length).position(end);
+        int read = channel.read(buffer);
+        if (read > 0) {
+            end += read;
+        }
+        return read;
+    }
+
+    //Parses the whole lines read so far into the batch, and returns whether it stopped because the batch filled
+    boolean parse(EventBatch batch) {
+        if (skipping) {
+            int newline = EventLineParser.indexOf(bytes, (byte) '\n', start, end);
+            if (newline < 0) {
+                start = end;
+                return false;
+            }
+            start = newline + 1;
+            skipping = false;
+            batch.lines++;
+            batch.malformed++;
+        }
+        start = parser.parse(bytes, start, end, batch);
+        return batch.isFull();
+    }
+
+    //Parses a last line with no newline after it, once the source has ended
+    void finish(EventBatch batch) {
+        if (!skipping && start < end && end < bytes.length) {
+            bytes[end++] = '\n';
+            parse(batch);
+        }
+    }
+
+    //Drops any part line, when the file being read is truncated or replaced
+    void reset() {
+        start = 0;
+        end = 0;
+        skipping = false;
+    }
+}
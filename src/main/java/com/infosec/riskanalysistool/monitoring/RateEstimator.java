@@ -0,0 +1,139 @@
+package com.infosec.riskanalysistool.monitoring;
+
+import java.util.Arrays;
+
+//Occurrence rates per threat, kept two ways at once. The sliding window counts occurrences in BUCKETS
+//buckets of equal length, reusing the oldest bucket as time moves on. The decayed count uses forward decay:
+//each occurrence is added scaled up by exp(lambda * (time - landmark)) and the sum is scaled back down when
+//the rate is read, so recording is one multiply-add whatever order events arrive in, and the sums are only
+//rescaled, all at once, when the scale grows too large.
+//Time is the latest event time seen, moved on by the wall clock while no newer events arrive, so replayed
+//logs are measured at their own pace and rates fall away when a live feed goes quiet.
+//Not thread-safe; EventFeedMonitor records and reads under a lock.
+final class RateEstimator {
+    static final double MILLIS_PER_YEAR = 365.25 * 24 * 60 * 60 * 1000;
+    static final int BUCKETS = 60;
+    //Scales up to e^200 stay far from overflow
+    private static final double MAX_GROWTH = 200;
+
+    private final EventRules rules;
+    private final int threats;
+    private final long windowMillis;
+    private final long bucketMillis;
+    //counts[slot * threats + threat], with bucketNumbers[slot] the bucket each slot holds
+    private final double[] counts;
+    private final long[] bucketNumbers = new long[BUCKETS];
+    private final double decayPerMilli;
+    private final double[] decayed;
+    private long landmark;
+    private long scaleTime = Long.MIN_VALUE;
+    private double scale;
+
+    private long firstTime = Long.MIN_VALUE;
+    private long latestTime = Long.MIN_VALUE;
+    private long latestArrival;
+
+    RateEstimator(EventRules rules, long windowMillis, long halfLifeMillis) {
+        this.rules = rules;
+        this.threats = rules.threatCount();
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        this.windowMillis = bucketMillis * BUCKETS;
+        this.counts = new double[BUCKETS * threats];
+        this.decayPerMilli = Math.log(2) / Math.max(1, halfLifeMillis);
+        this.decayed = new double[threats];
+        Arrays.fill(bucketNumbers, Long.MIN_VALUE);
+    }
+
+    //Records a batch of events that arrived at the given wall-clock time
+    void record(EventBatch batch, long arrival) {
+        for (int i = 0; i < batch.size; i++) {
+            long time = batch.times[i];
+            if (firstTime == Long.MIN_VALUE) {
+                firstTime = time;
+                landmark = time;
+            }
+            if (time > latestTime) {
+                latestTime = time;
+                latestArrival = arrival;
+            } else if (time < firstTime) {
+                firstTime = time;
+            }
+            int rule = batch.rules[i];
+            add(rules.threatOf(rule), rules.weightOf(rule), time);
+        }
+    }
+
+    //The estimator's current time for a wall-clock time: the latest event time plus however long it has been
+    //since it arrived. Long.MIN_VALUE before any events.
+    long clock(long wallClock) {
+        return latestTime == Long.MIN_VALUE ? Long.MIN_VALUE : latestTime + Math.max(0, wallClock - latestArrival);
+    }
+
+    long getLatestTime() {
+        return latestTime;
+    }
+
+    //Occurrences per year of each threat at the given time, by each model. Until a whole window or a few
+    //half-lives have passed, the rates are taken over the time that has.
+    void rates(long now, double[] windowRates, double[] decayedRates) {
+        if (latestTime == Long.MIN_VALUE) {
+            Arrays.fill(windowRates, 0);
+            Arrays.fill(decayedRates, 0);
+            return;
+        }
+        long observed = Math.max(bucketMillis, now - firstTime);
+
+        long nowBucket = Math.floorDiv(now, bucketMillis);
+        long span = Math.max(bucketMillis, Math.min(observed, now - (nowBucket - BUCKETS + 1) * bucketMillis));
+        Arrays.fill(windowRates, 0);
+        for (int slot = 0; slot < BUCKETS; slot++) {
+            long bucket = bucketNumbers[slot];
+            if (bucket > nowBucket - BUCKETS && bucket <= nowBucket) {
+                for (int threat = 0; threat < threats; threat++) {
+                    windowRates[threat] += counts[slot * threats + threat];
+                }
+            }
+        }
+        for (int threat = 0; threat < threats; threat++) {
+            windowRates[threat] *= MILLIS_PER_YEAR / span;
+        }
+
+        //A steady rate r builds a decayed count of r / lambda (1 - e^-lambda t) after time t
+        double down = Math.exp(-decayPerMilli * (now - landmark));
+        double perCount = decayPerMilli / -Math.expm1(-decayPerMilli * observed) * MILLIS_PER_YEAR;
+        for (int threat = 0; threat < threats; threat++) {
+            decayedRates[threat] = decayed[threat] * down * perCount;
+        }
+    }
+
+    private void add(int threat, double weight, long time) {
+        long bucket = Math.floorDiv(time, bucketMillis);
+        if (bucket > Math.floorDiv(latestTime, bucketMillis) - BUCKETS) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (bucketNumbers[slot] < bucket) {
+                Arrays.fill(counts, slot * threats, (slot + 1) * threats, 0);
+                bucketNumbers[slot] = bucket;
+            }
+            //Otherwise the slot may hold a later bucket, and the event has already left the window
+            if (bucketNumbers[slot] == bucket) {
+                counts[slot * threats + threat] += weight;
+            }
+        }
+
+        //Events in a batch mostly share a few times, so the scale is worked out once per time
+        if (time != scaleTime) {
+            double growth = decayPerMilli * (time - landmark);
+            if (growth > MAX_GROWTH) {
+                double down = Math.exp(-growth);
+                for (int i = 0; i < threats; i++) {
+                    decayed[i] *= down;
+                }
+                landmark = time;
+                growth = 0;
+            }
+            scaleTime = time;
+            scale = Math.exp(growth);
+        }
+        decayed[threat] += weight * scale;
+    }
+}
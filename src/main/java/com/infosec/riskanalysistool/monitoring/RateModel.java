@@ -0,0 +1,20 @@
+package com.infosec.riskanalysistool.monitoring;
+
+//How a threat's event rate is turned into an ARO
+public enum RateModel {
+    //Occurrences in the last window, every one counted equally
+    SLIDING_WINDOW("Sliding window"),
+    //Every occurrence so far, each counting half as much per half-life of age, so the rate moves smoothly
+    EXPONENTIAL_DECAY("Exponentially decayed");
+
+    private final String label;
+
+    RateModel(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,246 @@
+package com.infosec.riskanalysistool.monitoring;
+
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+
+import java.util.Arrays;
+
+//Sets the ARO of every risk whose threat the event rules count towards, from the latest EventRates, in one
+//register update; ALE, residual risk, the charts, the journal and the history then follow through their own
+//listeners. Risks whose threat has no rule keep the ARO they were given. Changes smaller than MIN_CHANGE are
+//left out, so a steady feed does not rewrite the register every second.
+//Threats are matched by dictionary code, each code looked up in the rules once until the rules or the register's
+//threats change. The rows of each code are kept as linked lists in primitive arrays, so an update visits only
+//the rows of threats that have rules rather than the whole register. The lists are built on the first apply()
+//and kept up to date as rows are added, removed and given new threats. Must be used on the thread that owns
+//the register.
+public class RegisterRateUpdater implements RiskRegisterListener, AutoCloseable {
+    //Relative change in ARO below which a risk is left as it is
+    static final double MIN_CHANGE = 0.005;
+
+    private final RiskRegister register;
+    private RateModel model = RateModel.SLIDING_WINDOW;
+    //Codes of the threats the rules count towards and each one's threat in the rules, for indexedRules
+    private int[] ruleCodes = new int[0];
+    private int[] ruleThreats = new int[0];
+    private EventRules indexedRules;
+
+    //First row of each threat code, -1 for none, and each row's code and the next and previous rows with that code
+    private boolean rowsIndexed;
+    private int[] firstRows = new int[0];
+    private int[] rowCodes = new int[0];
+    private int[] nextRows = new int[0];
+    private int[] previousRows = new int[0];
+
+    public RegisterRateUpdater(RiskRegister register) {
+        this.register = register;
+        register.addListener(this);
+    }
+
+    public RateModel getModel() {
+        return model;
+    }
+
+    public void setModel(RateModel model) {
+        this.model = model;
+    }
+
+    //Brings the risks' AROs up to date and returns how many changed
+    public int apply(EventRates rates) {
+        if (!rates.hasEvents()) {
+            return 0;
+        }
+        if (!rowsIndexed) {
+            indexRows();
+        }
+        EventRules rules = rates.getRules();
+        if (rules != indexedRules) {
+            matchThreats(rules);
+        }
+        int[] changed = new int[1];
+        register.update(() -> {
+            for (int i = 0; i < ruleCodes.length; i++) {
+                double aro = rates.getAnnualisedRate(ruleThreats[i], model);
+                for (int row = firstRows[ruleCodes[i]]; row >= 0; row = nextRows[row]) {
+                    double old = register.getAnnualisedRateOfOccurrence(row);
+                    if (Math.abs(aro - old) > MIN_CHANGE * Math.max(Math.abs(aro), Math.abs(old))) {
+                        register.setAnnualisedRateOfOccurrence(row, aro);
+                        changed[0]++;
+                    }
+                }
+            }
+        });
+        return changed[0];
+    }
+
+    //Looks up the threat of every code some row has, and keeps the codes the rules count towards
+    private void matchThreats(EventRules rules) {
+        int[] codes = new int[firstRows.length];
+        int[] threats = new int[firstRows.length];
+        int matched = 0;
+        for (int code = 0; code < firstRows.length; code++) {
+            if (firstRows[code] < 0) {
+                continue;
+            }
+            int threat = rules.threatIndexOf(register.getDictionary().text(code));
+            if (threat >= 0) {
+                codes[matched] = code;
+                threats[matched++] = threat;
+            }
+        }
+        ruleCodes = Arrays.copyOf(codes, matched);
+        ruleThreats = Arrays.copyOf(threats, matched);
+        indexedRules = rules;
+    }
+
+    @Override
+    public void close() {
+        register.removeListener(this);
+    }
+
+    //A code is only given to new text when a row is added or a threat is set, so only those forget lookups
+    @Override
+    public void rowsAdded(int first, int count) {
+        forget();
+        if (rowsIndexed) {
+            ensureRowCapacity(first + count);
+            for (int row = first; row < first + count; row++) {
+                link(row, register.getThreatCode(row));
+            }
+        }
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        if (!rowsIndexed) {
+            return;
+        }
+        unlink(row);
+        int size = register.size();
+        System.arraycopy(rowCodes, row + 1, rowCodes, row, size - row);
+        System.arraycopy(nextRows, row + 1, nextRows, row, size - row);
+        System.arraycopy(previousRows, row + 1, previousRows, row, size - row);
+        //Later rows have moved down one, and so have the links to them
+        shiftLinks(firstRows, firstRows.length, row);
+        shiftLinks(nextRows, size, row);
+        shiftLinks(previousRows, size, row);
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+        if (field == RiskField.THREAT) {
+            forget();
+            threatChanged(row);
+        }
+    }
+
+    @Override
+    public void valuesChanged(RowChanges changes) {
+        boolean threatsChanged = false;
+        for (int i = 0; i < changes.size(); i++) {
+            if (changes.changed(i, RiskField.THREAT)) {
+                threatsChanged = true;
+                threatChanged(changes.row(i));
+            }
+        }
+        if (threatsChanged) {
+            forget();
+        }
+    }
+
+    @Override
+    public void cleared() {
+        forget();
+        //The register starts a new dictionary, so the codes mean nothing any more
+        rowsIndexed = false;
+        firstRows = new int[0];
+        rowCodes = new int[0];
+        nextRows = new int[0];
+        previousRows = new int[0];
+    }
+
+    private void forget() {
+        indexedRules = null;
+    }
+
+    private void indexRows() {
+        firstRows = new int[0];
+        rowCodes = new int[0];
+        nextRows = new int[0];
+        previousRows = new int[0];
+        ensureRowCapacity(register.size());
+        for (int row = 0; row < register.size(); row++) {
+            link(row, register.getThreatCode(row));
+        }
+        rowsIndexed = true;
+    }
+
+    private void threatChanged(int row) {
+        if (!rowsIndexed) {
+            return;
+        }
+        int code = register.getThreatCode(row);
+        if (code != rowCodes[row]) {
+            unlink(row);
+            link(row, code);
+        }
+    }
+
+    //Puts the row at the head of its code's list
+    private void link(int row, int code) {
+        rowCodes[row] = code;
+        previousRows[row] = -1;
+        nextRows[row] = -1;
+        if (code < 0) {
+            return;
+        }
+        if (code >= firstRows.length) {
+            int length = firstRows.length;
+            firstRows = Arrays.copyOf(firstRows, Math.max(code + 1, register.getDictionary().codeLimit()));
+            Arrays.fill(firstRows, length, firstRows.length, -1);
+        }
+        int next = firstRows[code];
+        if (next >= 0) {
+            previousRows[next] = row;
+        }
+        nextRows[row] = next;
+        firstRows[code] = row;
+    }
+
+    private void unlink(int row) {
+        int code = rowCodes[row];
+        if (code < 0) {
+            return;
+        }
+        int previous = previousRows[row];
+        int next = nextRows[row];
+        if (previous >= 0) {
+            nextRows[previous] = next;
+        } else {
+            firstRows[code] = next;
+        }
+        if (next >= 0) {
+            previousRows[next] = previous;
+        }
+    }
+
+    private static void shiftLinks(int[] links, int length, int removedRow) {
+        for (int i = 0; i < length; i++) {
+            if (links[i] > removedRow) {
+                links[i]--;
+            }
+        }
+    }
+
+    private void ensureRowCapacity(int minCapacity) {
+        if (minCapacity <= rowCodes.length) {
+            return;
+        }
+        int capacity = Math.max(minCapacity, rowCodes.length + (rowCodes.length >> 1));
+        rowCodes = Arrays.copyOf(rowCodes, capacity);
+        nextRows = Arrays.copyOf(nextRows, capacity);
+        previousRows = Arrays.copyOf(previousRows, capacity);
+    }
+}
@@ -0,0 +1,119 @@
+package com.infosec.riskanalysistool.optimisation;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//Candidate controls by threat, read from a CSV file of threat,control,cost,effectiveness rows (an optional
+//header row is skipped). A threat's controls are offered to every risk with that threat; threats are matched
+//ignoring case and surrounding spaces.
+public class ControlCatalogue {
+    private record Option(String name, double cost, double effectiveness) {
+    }
+
+    private final Map<String, List<Option>> optionsByThreat = new HashMap<>();
+    private int size;
+
+    public static ControlCatalogue read(Path path) throws IOException {
+        ControlCatalogue catalogue = new ControlCatalogue();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = splitFields(line);
+                if (fields.size() != 4) {
+                    throw new IOException("Line " + lineNumber + ": expected threat,control,cost,effectiveness");
+                }
+                double cost;
+                double effectiveness;
+                try {
+                    cost = Double.parseDouble(fields.get(2));
+                    effectiveness = Double.parseDouble(fields.get(3));
+                } catch (NumberFormatException e) {
+                    if (lineNumber == 1) {
+                        continue;
+                    }
+                    throw new IOException("Line " + lineNumber + ": cost and effectiveness must be numbers");
+                }
+                if (!(cost >= 0) || !(effectiveness >= 0 && effectiveness <= 100)) {
+                    throw new IOException("Line " + lineNumber + ": cost must not be negative and effectiveness must be between 0 and 100");
+                }
+                catalogue.add(fields.get(0), fields.get(1), cost, effectiveness);
+            }
+        }
+        return catalogue;
+    }
+
+    public void add(String threat, String control, double cost, double effectiveness) {
+        optionsByThreat.computeIfAbsent(key(threat), k -> new ArrayList<>()).add(new Option(control, cost, effectiveness));
+        size++;
+    }
+
+    //Number of controls in the catalogue
+    public int size() {
+        return size;
+    }
+
+    //Risks in the register that have controls in the catalogue, with their current ALE and effectiveness.
+    //Must be called on the thread that owns the register.
+    public ControlPortfolio portfolioFor(RiskRegister register) {
+        ControlPortfolio.Builder builder = ControlPortfolio.builder();
+        for (int row = 0; row < register.size(); row++) {
+            List<Option> options = optionsByThreat.get(key(register.getThreat(row)));
+            if (options == null) {
+                continue;
+            }
+            builder.addRisk(row, register.getAnnualisedLossExpectancy(row), register.getControlEffectiveness(row));
+            for (Option option : options) {
+                builder.addOption(option.name(), option.cost(), option.effectiveness());
+            }
+        }
+        return builder.build();
+    }
+
+    private static String key(String threat) {
+        return threat.strip().toLowerCase(Locale.ROOT);
+    }
+
+    //Comma separated, with "" inside a quoted field for a quote
+    private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().strip());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().strip());
+        return fields;
+    }
+}
@@ -0,0 +1,129 @@
+package com.infosec.riskanalysistool.optimisation;
+
+import java.util.concurrent.ForkJoinPool;
+
+//Chooses at most one control option per risk to maximise ALE reduction within a budget (a multiple-choice
+//knapsack).
+//Exact: dynamic programming over the budget in steps of costResolution (whole currency units by default),
+//with every option's cost rounded up to whole steps, so a plan never goes over budget. Optimal whenever costs
+//are quoted to that resolution; memory and time grow with risks x budget steps, so it is only used up to
+//MAX_EXACT_CELLS.
+//Greedy: the LP relaxation's order of upgrade steps (see HullIncrements), built on the fork/join pool, taken
+//while they fit and then repaired by filling the remaining budget. Costs one sort, so it scales to any register.
+//Both report the LP bound, which gives an optimality gap for the plan.
+public class ControlOptimiser {
+    public static final double DEFAULT_COST_RESOLUTION = 1.0;
+    public static final long MAX_EXACT_CELLS = 25_000_000L;
+
+    private final ForkJoinPool pool;
+    private final double costResolution;
+
+    public ControlOptimiser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_COST_RESOLUTION);
+    }
+
+    public ControlOptimiser(ForkJoinPool pool, double costResolution) {
+        if (!(costResolution > 0) || Double.isInfinite(costResolution)) {
+            throw new IllegalArgumentException("Cost resolution must be more than zero: " + costResolution);
+        }
+        this.pool = pool;
+        this.costResolution = costResolution;
+    }
+
+    public boolean canSolveExactly(ControlPortfolio portfolio, double budget) {
+        return (long) portfolio.riskCount() * (capacity(budget) + 1) <= MAX_EXACT_CELLS;
+    }
+
+    //Exact for moderate portfolios and budgets, greedy otherwise
+    public ControlPlan optimise(ControlPortfolio portfolio, double budget) {
+        checkBudget(budget);
+        return canSolveExactly(portfolio, budget) ? solveExact(portfolio, budget) : solveGreedy(portfolio, budget);
+    }
+
+    //Supported points of the cost versus ALE reduction frontier, from no spending up to every useful option
+    public ParetoFrontier frontier(ControlPortfolio portfolio) {
+        return HullIncrements.of(portfolio, pool).frontier();
+    }
+
+    public ControlPlan solveGreedy(ControlPortfolio portfolio, double budget) {
+        checkBudget(budget);
+        long start = System.nanoTime();
+        int[] chosenOptions = new int[portfolio.riskCount()];
+        double bound = HullIncrements.of(portfolio, pool).fill(budget, chosenOptions);
+        return new ControlPlan(portfolio, ControlPlan.Solver.GREEDY, budget, chosenOptions, bound, System.nanoTime() - start);
+    }
+
+    public ControlPlan solveExact(ControlPortfolio portfolio, double budget) {
+        checkBudget(budget);
+        if (!canSolveExactly(portfolio, budget)) {
+            throw new IllegalArgumentException("Too many risks or too large a budget to solve exactly: " + portfolio.riskCount());
+        }
+        long start = System.nanoTime();
+        int risks = portfolio.riskCount();
+        int capacity = capacity(budget);
+
+        //best[w]: largest reduction from the risks so far using at most w steps
+        double[] best = new double[capacity + 1];
+        double[] next = new double[capacity + 1];
+        //choices[risk][w]: 1 + the option taken for that risk at w steps, or 0 for none
+        byte[][] choices = new byte[risks][];
+        for (int risk = 0; risk < risks; risk++) {
+            int first = portfolio.firstOption(risk);
+            int n = portfolio.optionsOf(risk);
+            if (n == 0) {
+                continue;
+            }
+            byte[] choice = new byte[capacity + 1];
+            System.arraycopy(best, 0, next, 0, capacity + 1);
+            for (int k = 0; k < n; k++) {
+                int weight = steps(portfolio.optionCost(first + k), capacity);
+                double reduction = portfolio.optionReduction(first + k);
+                for (int w = weight; w <= capacity; w++) {
+                    double candidate = best[w - weight] + reduction;
+                    if (candidate > next[w]) {
+                        next[w] = candidate;
+                        choice[w] = (byte) (k + 1);
+                    }
+                }
+            }
+            choices[risk] = choice;
+            double[] swap = best;
+            best = next;
+            next = swap;
+        }
+
+        int[] chosenOptions = new int[risks];
+        int w = capacity;
+        for (int risk = risks - 1; risk >= 0; risk--) {
+            int k = choices[risk] == null ? 0 : choices[risk][w] & 0xFF;
+            if (k == 0) {
+                chosenOptions[risk] = -1;
+                continue;
+            }
+            int option = portfolio.firstOption(risk) + k - 1;
+            chosenOptions[risk] = option;
+            w -= steps(portfolio.optionCost(option), capacity);
+        }
+
+        double bound = HullIncrements.of(portfolio, pool).fill(budget, new int[risks]);
+        return new ControlPlan(portfolio, ControlPlan.Solver.EXACT, budget, chosenOptions, bound, System.nanoTime() - start);
+    }
+
+    //Whole steps the budget buys, capped so an oversized budget reads as too large to solve exactly
+    private int capacity(double budget) {
+        return (int) Math.min(Integer.MAX_VALUE - 1, Math.floor(budget / costResolution + 1e-9));
+    }
+
+    //Whole steps needed to pay for a cost, or more than the capacity if it can never fit.
+    //Tolerates rounding so a cost of exactly n steps is not pushed up to n + 1.
+    private int steps(double cost, int capacity) {
+        double steps = Math.ceil(cost / costResolution - 1e-9);
+        return steps > capacity ? capacity + 1 : (int) Math.max(0, steps);
+    }
+
+    private static void checkBudget(double budget) {
+        if (!(budget >= 0) || Double.isInfinite(budget)) {
+            throw new IllegalArgumentException("Budget must be zero or more: " + budget);
+        }
+    }
+}
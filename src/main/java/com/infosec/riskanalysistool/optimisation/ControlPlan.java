@@ -0,0 +1,98 @@
+package com.infosec.riskanalysistool.optimisation;
+
+//The options chosen within a budget, at most one per risk
+public class ControlPlan {
+    public enum Solver {
+        EXACT("Exact (dynamic programming)"),
+        GREEDY("Greedy with repair");
+
+        private final String label;
+
+        Solver(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final ControlPortfolio portfolio;
+    private final Solver solver;
+    private final double budget;
+    private final int[] chosenOptions;
+    private final double totalCost;
+    private final double totalReduction;
+    private final double upperBound;
+    private final long solveNanos;
+
+    ControlPlan(ControlPortfolio portfolio, Solver solver, double budget, int[] chosenOptions, double upperBound, long solveNanos) {
+        this.portfolio = portfolio;
+        this.solver = solver;
+        this.budget = budget;
+        this.chosenOptions = chosenOptions;
+        this.upperBound = upperBound;
+        this.solveNanos = solveNanos;
+
+        double cost = 0;
+        double reduction = 0;
+        for (int option : chosenOptions) {
+            if (option >= 0) {
+                cost += portfolio.optionCost(option);
+                reduction += portfolio.optionReduction(option);
+            }
+        }
+        this.totalCost = cost;
+        this.totalReduction = reduction;
+    }
+
+    public ControlPortfolio getPortfolio() {
+        return portfolio;
+    }
+
+    public Solver getSolver() {
+        return solver;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    //Option chosen for a risk, or -1 to keep its current controls
+    public int chosenOption(int risk) {
+        return chosenOptions[risk];
+    }
+
+    public int getSelectedCount() {
+        int count = 0;
+        for (int option : chosenOptions) {
+            if (option >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public double getTotalReduction() {
+        return totalReduction;
+    }
+
+    //No plan within the budget can reduce ALE by more than this (the LP relaxation)
+    public double getUpperBound() {
+        return Math.max(upperBound, totalReduction);
+    }
+
+    //Fraction of the upper bound this plan may fall short by; 0 means provably optimal
+    public double getOptimalityGap() {
+        double bound = getUpperBound();
+        return bound > 0 ? (bound - totalReduction) / bound : 0;
+    }
+
+    public long getSolveNanos() {
+        return solveNanos;
+    }
+}
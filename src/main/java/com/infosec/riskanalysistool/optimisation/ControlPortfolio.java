@@ -0,0 +1,127 @@
+package com.infosec.riskanalysistool.optimisation;
+
+import java.util.Arrays;
+
+//Candidate control upgrades for a set of risks, stored as flat arrays grouped by risk.
+//Each option replaces the risk's current controls with ones of the given effectiveness, so it is worth
+//ALE * (effectiveness - current effectiveness) / 100 of ALE reduction; options that would not improve on the
+//current controls are dropped. At most one option can be chosen per risk.
+public final class ControlPortfolio {
+    //Options per risk are indexed with a byte by the exact solver
+    public static final int MAX_OPTIONS_PER_RISK = 255;
+
+    private final int[] riskRows;
+    private final int[] optionStarts;
+    private final String[] optionNames;
+    private final double[] optionCosts;
+    private final double[] optionReductions;
+
+    private ControlPortfolio(int[] riskRows, int[] optionStarts, String[] optionNames, double[] optionCosts, double[] optionReductions) {
+        this.riskRows = riskRows;
+        this.optionStarts = optionStarts;
+        this.optionNames = optionNames;
+        this.optionCosts = optionCosts;
+        this.optionReductions = optionReductions;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int riskCount() {
+        return riskRows.length;
+    }
+
+    public int optionCount() {
+        return optionCosts.length;
+    }
+
+    //Register row the risk was added with
+    public int riskRow(int risk) {
+        return riskRows[risk];
+    }
+
+    //Options of a risk are numbered firstOption(risk) to firstOption(risk + 1) - 1
+    public int firstOption(int risk) {
+        return optionStarts[risk];
+    }
+
+    public int optionsOf(int risk) {
+        return optionStarts[risk + 1] - optionStarts[risk];
+    }
+
+    public String optionName(int option) {
+        return optionNames[option];
+    }
+
+    public double optionCost(int option) {
+        return optionCosts[option];
+    }
+
+    public double optionReduction(int option) {
+        return optionReductions[option];
+    }
+
+    //Adds risks one at a time, each followed by its options
+    public static final class Builder {
+        private int[] riskRows = new int[16];
+        private int[] optionStarts = new int[17];
+        private String[] optionNames = new String[16];
+        private double[] optionCosts = new double[16];
+        private double[] optionReductions = new double[16];
+        private int risks;
+        private int options;
+        private double ale = Double.NaN;
+        private double currentEffectiveness;
+
+        private Builder() {
+        }
+
+        public Builder addRisk(int row, double annualisedLossExpectancy, double currentEffectiveness) {
+            if (risks == riskRows.length) {
+                riskRows = Arrays.copyOf(riskRows, risks * 2);
+                optionStarts = Arrays.copyOf(optionStarts, risks * 2 + 1);
+            }
+            riskRows[risks++] = row;
+            optionStarts[risks] = options;
+            this.ale = annualisedLossExpectancy;
+            this.currentEffectiveness = currentEffectiveness;
+            return this;
+        }
+
+        //Adds an option to the risk added last
+        public Builder addOption(String name, double cost, double effectiveness) {
+            if (Double.isNaN(ale)) {
+                throw new IllegalStateException("addRisk() must come before its options");
+            }
+            if (!(cost >= 0) || Double.isInfinite(cost)) {
+                throw new IllegalArgumentException("Control cost must be zero or more: " + cost);
+            }
+            if (effectiveness < 0 || effectiveness > 100) {
+                throw new IllegalArgumentException("Control effectiveness must be between 0 and 100: " + effectiveness);
+            }
+            double reduction = ale * (effectiveness - currentEffectiveness) / 100.0;
+            if (!(reduction > 0)) {
+                return this;
+            }
+            if (optionStarts[risks] - optionStarts[risks - 1] == MAX_OPTIONS_PER_RISK) {
+                throw new IllegalArgumentException("A risk can have at most " + MAX_OPTIONS_PER_RISK + " control options");
+            }
+            if (options == optionCosts.length) {
+                optionNames = Arrays.copyOf(optionNames, options * 2);
+                optionCosts = Arrays.copyOf(optionCosts, options * 2);
+                optionReductions = Arrays.copyOf(optionReductions, options * 2);
+            }
+            optionNames[options] = name;
+            optionCosts[options] = cost;
+            optionReductions[options] = reduction;
+            optionStarts[risks] = ++options;
+            return this;
+        }
+
+        public ControlPortfolio build() {
+            return new ControlPortfolio(Arrays.copyOf(riskRows, risks), Arrays.copyOf(optionStarts, risks + 1),
+                    Arrays.copyOf(optionNames, options), Arrays.copyOf(optionCosts, options), Arrays.copyOf(optionReductions, options));
+        }
+    }
+}
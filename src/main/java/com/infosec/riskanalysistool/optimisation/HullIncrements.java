@@ -0,0 +1,193 @@
+package com.infosec.riskanalysistool.optimisation;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//LP relaxation of the multiple-choice knapsack. For each risk, only options on the upper convex hull of
+//(cost, reduction) starting from (0, 0) can be part of an LP optimum; moving along the hull gives upgrade
+//steps with falling reduction per unit cost. Sorting every step of every risk by that ratio gives the LP
+//order: taking steps in order traces the supported points of the Pareto frontier, and stopping at a budget
+//gives the greedy plan and the LP bound.
+final class HullIncrements {
+    private static final int MIN_RISKS_PER_TASK = 1_024;
+
+    //Steps of a risk are stored in hull order in that risk's slice of the option arrays, so these are
+    //indexed like options: step i moves risk stepRisks[i] up to option stepOptions[i]
+    final int[] stepRisks;
+    final int[] stepOptions;
+    final double[] stepCosts;
+    final double[] stepReductions;
+    //Step indexes, best ratio first
+    final int[] order;
+    private final int riskCount;
+
+    private HullIncrements(ControlPortfolio portfolio, ForkJoinPool pool) {
+        int options = portfolio.optionCount();
+        riskCount = portfolio.riskCount();
+        stepRisks = new int[options];
+        stepOptions = new int[options];
+        stepCosts = new double[options];
+        stepReductions = new double[options];
+        int[] hullSizes = new int[riskCount];
+        if (riskCount > 0) {
+            int threshold = Math.max(MIN_RISKS_PER_TASK, riskCount / (pool.getParallelism() * 8));
+            pool.invoke(new HullTask(portfolio, hullSizes, 0, riskCount, threshold));
+        }
+
+        int steps = 0;
+        for (int size : hullSizes) {
+            steps += size;
+        }
+        //Sort keys: the ratio as a float in the high half (positive floats order like their bits) and the
+        //complemented step index in the low half, so equal ratios keep hull order within a risk
+        long[] keys = new long[steps];
+        int k = 0;
+        for (int risk = 0; risk < riskCount; risk++) {
+            int first = portfolio.firstOption(risk);
+            for (int i = first; i < first + hullSizes[risk]; i++) {
+                float ratio = (float) (stepReductions[i] / stepCosts[i]);
+                keys[k++] = (long) Float.floatToIntBits(ratio) << 32 | (~i & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.parallelSort(keys);
+        order = new int[steps];
+        for (int i = 0; i < steps; i++) {
+            order[i] = ~(int) keys[steps - 1 - i];
+        }
+    }
+
+    static HullIncrements of(ControlPortfolio portfolio, ForkJoinPool pool) {
+        return new HullIncrements(portfolio, pool);
+    }
+
+    //Prefix sums of the steps in LP order
+    ParetoFrontier frontier() {
+        double[] costs = new double[order.length + 1];
+        double[] reductions = new double[order.length + 1];
+        for (int i = 0; i < order.length; i++) {
+            costs[i + 1] = stepCosts[order[i]];
+            reductions[i + 1] = stepReductions[order[i]];
+        }
+        Arrays.parallelPrefix(costs, Double::sum);
+        Arrays.parallelPrefix(reductions, Double::sum);
+        return new ParetoFrontier(costs, reductions);
+    }
+
+    //Takes steps in LP order while they fit. The first step that does not fit gives the LP bound; after it
+    //the scan carries on and takes any later step that still fits (repair), except for risks that have
+    //already been passed over, whose later steps build on the skipped one.
+    //Fills in the chosen option per risk (or -1) and returns the LP bound.
+    double fill(double budget, int[] chosenOptions) {
+        Arrays.fill(chosenOptions, -1);
+        boolean[] blocked = new boolean[riskCount];
+        double cost = 0;
+        double reduction = 0;
+        double bound = Double.NaN;
+        for (int step : order) {
+            int risk = stepRisks[step];
+            if (blocked[risk]) {
+                continue;
+            }
+            if (cost + stepCosts[step] <= budget) {
+                cost += stepCosts[step];
+                reduction += stepReductions[step];
+                chosenOptions[risk] = stepOptions[step];
+            } else {
+                if (Double.isNaN(bound)) {
+                    bound = reduction + stepReductions[step] * (budget - cost) / stepCosts[step];
+                }
+                blocked[risk] = true;
+            }
+        }
+        return Double.isNaN(bound) ? reduction : bound;
+    }
+
+    private final class HullTask extends RecursiveAction {
+        private final ControlPortfolio portfolio;
+        private final int[] hullSizes;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        HullTask(ControlPortfolio portfolio, int[] hullSizes, int from, int to, int threshold) {
+            this.portfolio = portfolio;
+            this.hullSizes = hullSizes;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new HullTask(portfolio, hullSizes, from, mid, threshold),
+                        new HullTask(portfolio, hullSizes, mid, to, threshold));
+                return;
+            }
+
+            int[] sorted = new int[ControlPortfolio.MAX_OPTIONS_PER_RISK];
+            //Hull vertices as option indexes; -1 is the origin (keep the current controls)
+            int[] hull = new int[ControlPortfolio.MAX_OPTIONS_PER_RISK + 1];
+            for (int risk = from; risk < to; risk++) {
+                int first = portfolio.firstOption(risk);
+                int n = portfolio.optionsOf(risk);
+
+                //Insertion sort by cost, then by reduction descending; risks have only a few options
+                for (int i = 0; i < n; i++) {
+                    int option = first + i;
+                    int j = i - 1;
+                    while (j >= 0 && before(option, sorted[j])) {
+                        sorted[j + 1] = sorted[j];
+                        j--;
+                    }
+                    sorted[j + 1] = option;
+                }
+
+                int top = 0;
+                hull[0] = -1;
+                for (int i = 0; i < n; i++) {
+                    int option = sorted[i];
+                    //Costs at least as much as the last vertex for no more reduction
+                    if (portfolio.optionReduction(option) <= reduction(hull[top])) {
+                        continue;
+                    }
+                    while (top >= 1 && !above(hull[top - 1], hull[top], option)) {
+                        top--;
+                    }
+                    hull[++top] = option;
+                }
+
+                for (int v = 1; v <= top; v++) {
+                    int i = first + v - 1;
+                    stepRisks[i] = risk;
+                    stepOptions[i] = hull[v];
+                    stepCosts[i] = cost(hull[v]) - cost(hull[v - 1]);
+                    stepReductions[i] = reduction(hull[v]) - reduction(hull[v - 1]);
+                }
+                hullSizes[risk] = top;
+            }
+        }
+
+        private boolean before(int a, int b) {
+            double costA = portfolio.optionCost(a);
+            double costB = portfolio.optionCost(b);
+            return costA < costB || costA == costB && portfolio.optionReduction(a) > portfolio.optionReduction(b);
+        }
+
+        //True if b lies strictly above the line from a to c
+        private boolean above(int a, int b, int c) {
+            double cross = (cost(b) - cost(a)) * (reduction(c) - reduction(a)) - (reduction(b) - reduction(a)) * (cost(c) - cost(a));
+            return cross < 0;
+        }
+
+        private double cost(int option) {
+            return option < 0 ? 0 : portfolio.optionCost(option);
+        }
+
+        private double reduction(int option) {
+            return option < 0 ? 0 : portfolio.optionReduction(option);
+        }
+    }
+}
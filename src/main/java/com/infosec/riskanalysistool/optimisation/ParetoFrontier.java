@@ -0,0 +1,43 @@
+package com.infosec.riskanalysistool.optimisation;
+
+import java.util.Arrays;
+
+//Cost versus ALE reduction trade-off, both ascending from (0, 0). Every point is an achievable plan.
+public record ParetoFrontier(double[] costs, double[] reductions) {
+    public int size() {
+        return costs.length;
+    }
+
+    public double maxCost() {
+        return costs[costs.length - 1];
+    }
+
+    public double maxReduction() {
+        return reductions[reductions.length - 1];
+    }
+
+    //Largest reduction on the frontier that fits the budget
+    public double reductionAt(double budget) {
+        int index = Arrays.binarySearch(costs, budget);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index < 0 ? 0 : reductions[index];
+    }
+
+    //Thins the frontier to at most the given number of points for charting, keeping both ends
+    public ParetoFrontier sample(int points) {
+        int n = costs.length;
+        if (n <= points || points < 2) {
+            return this;
+        }
+        double[] sampledCosts = new double[points];
+        double[] sampledReductions = new double[points];
+        for (int i = 0; i < points; i++) {
+            int index = (int) ((long) i * (n - 1) / (points - 1));
+            sampledCosts[i] = costs[index];
+            sampledReductions[i] = reductions[index];
+        }
+        return new ParetoFrontier(sampledCosts, sampledReductions);
+    }
+}
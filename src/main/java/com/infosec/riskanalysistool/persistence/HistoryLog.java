@@ -0,0 +1,742 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+//Append-only log behind RegisterHistory; unlike the journal it is never emptied.
+//
+//  header   magic, version
+//  blocks   payload length, CRC-32 of the payload, payload (a block type followed by its contents)
+//
+//  EVENTS      time of the last event, rows after it, then the events of one register notification
+//  CHECKPOINT  time, checkpoint number, flags, rows
+//  TOTALS      a HistoryTotals sample
+//  STATE       rows and checksum (see checksum()) of the register as the blocks before it leave it
+//
+//Events are delta-encoded against the events before them, back to the last checkpoint: times as milliseconds
+//since the previous event, rows as the difference from the previous event's row, numbers as the difference
+//(integers) or the XOR with trailing zero bits dropped (decimals) from the previous value of the same field,
+//and text as a reference into a table of the strings seen so far. A checkpoint starts the encoding afresh, so
+//replay can begin at any checkpoint. Like the journal, a block cut short or failing its checksum ends the log.
+//
+//A checkpoint's flags say whether its snapshot was written and whether it is continuous: whether the events
+//before it lead to exactly the register it holds. Replay may run on through a continuous checkpoint, which is
+//what lets RegisterHistory delete old ones; checkpoints taken for bulk adds, which are not logged as events,
+//or for a register the log did not see change, are not continuous. Logs written before the flag existed
+//record 1 for a written checkpoint, which reads as written and not continuous.
+//
+//A STATE block follows each checkpoint and ends each session, so opening can tell whether the register still
+//matches the end of the log or was edited while nothing was logging it.
+final class HistoryLog implements Closeable {
+    static final String FILE_NAME = "history.log";
+
+    private static final int MAGIC = 0x52415448;    //"RATH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int BLOCK_HEADER_SIZE = 8;
+
+    //Block types
+    private static final byte EVENTS = 1;
+    private static final byte CHECKPOINT = 2;
+    private static final byte TOTALS = 3;
+    private static final byte STATE = 4;
+
+    //Checkpoint flags
+    private static final int WRITTEN = 1;
+    private static final int CONTINUOUS = 2;
+
+    //Event types
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte UPDATE = 3;
+    private static final byte CLEAR = 4;
+
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final RiskField[] FIELDS = RiskField.values();
+    private static final int CATEGORY_COUNT = RiskCategory.values().length;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    //Written by the writer thread, read by replays on any thread
+    private volatile long committed;
+    private final List<Checkpoint> checkpoints = new CopyOnWriteArrayList<>();
+    private final List<HistoryTotals> samples;
+    private final long lastTime;
+    private final int rowsAtEnd;
+    private final Long checksumAtEnd;
+    private final boolean truncated;
+
+    //A checkpoint whose snapshot was written; replay from it starts at offset
+    record Checkpoint(long time, long number, long offset, boolean continuous) {
+    }
+
+    private HistoryLog(Path path, FileChannel channel, long committed, List<Checkpoint> checkpoints, List<HistoryTotals> samples,
+                       long lastTime, int rowsAtEnd, Long checksumAtEnd, boolean truncated) {
+        this.path = path;
+        this.channel = channel;
+        this.committed = committed;
+        this.checkpoints.addAll(checkpoints);
+        this.samples = samples;
+        this.lastTime = lastTime;
+        this.rowsAtEnd = rowsAtEnd;
+        this.checksumAtEnd = checksumAtEnd;
+        this.truncated = truncated;
+    }
+
+    //Opens or creates the log, reading the checkpoints and totals samples but skipping over the events
+    static HistoryLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header, 0);
+                channel.force(true);
+                channel.position(HEADER_SIZE);
+                return new HistoryLog(path, channel, HEADER_SIZE, List.of(), new ArrayList<>(), 0, 0, null, false);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a risk register history");
+            }
+
+            List<Checkpoint> checkpoints = new ArrayList<>();
+            List<HistoryTotals> samples = new ArrayList<>();
+            long lastTime = 0;
+            int rows = 0;
+            Long checksum = null;
+            long size = channel.size();
+            long position = HEADER_SIZE;
+            ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            CRC32 check = new CRC32();
+            while (position + BLOCK_HEADER_SIZE <= size) {
+                blockHeader.clear();
+                channel.read(blockHeader, position);
+                int length = blockHeader.getInt(0);
+                int blockChecksum = blockHeader.getInt(4);
+                long start = position + BLOCK_HEADER_SIZE;
+                if (length <= 0 || length > size - start) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, start);
+                payload.flip();
+                check.reset();
+                check.update(payload.duplicate());
+                if ((int) check.getValue() != blockChecksum) {
+                    break;
+                }
+                position = start + length;
+                switch (payload.get()) {
+                    case EVENTS:
+                        lastTime = readVarLong(payload);
+                        rows = (int) readVarLong(payload);
+                        checksum = null;
+                        break;
+                    case CHECKPOINT:
+                        lastTime = readVarLong(payload);
+                        long number = readVarLong(payload);
+                        int flags = payload.get();
+                        rows = (int) readVarLong(payload);
+                        if ((flags & WRITTEN) != 0) {
+                            checkpoints.add(new Checkpoint(lastTime, number, position, (flags & CONTINUOUS) != 0));
+                        }
+                        break;
+                    case TOTALS:
+                        samples.add(readTotals(payload));
+                        break;
+                    case STATE:
+                        rows = (int) readVarLong(payload);
+                        checksum = payload.getLong();
+                        break;
+                    default:
+                        throw new IOException("Unknown history block type at " + start);
+                }
+            }
+
+            boolean truncated = position < size;
+            if (truncated) {
+                channel.truncate(position);
+            }
+            channel.position(position);
+            return new HistoryLog(path, channel, position, checkpoints, samples, lastTime, rows, checksum, truncated);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //Checkpoints with snapshots, oldest first
+    List<Checkpoint> checkpoints() {
+        return checkpoints;
+    }
+
+    //Forgets a checkpoint whose snapshot is being deleted; replay then starts from an earlier one
+    void drop(Checkpoint checkpoint) {
+        checkpoints.remove(checkpoint);
+    }
+
+    //Samples read when the log was opened
+    List<HistoryTotals> samples() {
+        return samples;
+    }
+
+    //Time of the last block read when the log was opened, 0 for a new log
+    long lastTime() {
+        return lastTime;
+    }
+
+    //Register rows after the last block read when the log was opened
+    int rowsAtEnd() {
+        return rowsAtEnd;
+    }
+
+    //Checksum of the register as the log leaves it, or null if no STATE block follows the last events, as after
+    //a crash
+    Long checksumAtEnd() {
+        return checksumAtEnd;
+    }
+
+    //True if opening cut off a damaged tail, so the register may have moved on from what the log records
+    boolean wasTruncated() {
+        return truncated;
+    }
+
+    long size() {
+        return committed;
+    }
+
+    //The latest checkpoint at or before the time, or null if there is none
+    Checkpoint checkpointAt(long time) {
+        Checkpoint latest = null;
+        for (Checkpoint checkpoint : checkpoints) {
+            if (checkpoint.time() > time) {
+                break;
+            }
+            latest = checkpoint;
+        }
+        return latest;
+    }
+
+    //Writer thread only
+    void appendEvents(byte[] events) throws IOException {
+        append(events);
+    }
+
+    void appendCheckpoint(long time, long number, boolean written, boolean continuous, int rows) throws IOException {
+        ByteSink out = new ByteSink(32);
+        out.writeByte(CHECKPOINT);
+        out.writeVarLong(time);
+        out.writeVarLong(number);
+        out.writeByte((written ? WRITTEN : 0) | (continuous ? CONTINUOUS : 0));
+        out.writeVarLong(rows);
+        append(out.toByteArray());
+        if (written) {
+            checkpoints.add(new Checkpoint(time, number, committed, continuous));
+        }
+    }
+
+    void appendTotals(HistoryTotals totals) throws IOException {
+        ByteSink out = new ByteSink(128);
+        out.writeByte(TOTALS);
+        out.writeVarLong(totals.getTime().toEpochMilli());
+        out.writeVarLong(totals.getRiskCount());
+        out.writeDouble(totals.getTotalAnnualisedLossExpectancy());
+        out.writeDouble(totals.getTotalResidualRisk());
+        for (RiskCategory category : RiskCategory.values()) {
+            out.writeVarLong(totals.getCategoryCount(category));
+        }
+        for (RMFStep rmfStep : RMF_STEPS) {
+            out.writeDouble(totals.getResidualRisk(rmfStep));
+        }
+        append(out.toByteArray());
+    }
+
+    void appendState(int rows, long checksum) throws IOException {
+        ByteSink out = new ByteSink(16);
+        out.writeByte(STATE);
+        out.writeVarLong(rows);
+        out.writeLong(checksum);
+        append(out.toByteArray());
+    }
+
+    //Hash of every value of every row in order. Text is hashed as text, so the same register loaded again, with
+    //its dictionary codes assigned afresh, has the same checksum.
+    static long checksum(RiskBatch rows) {
+        long hash = rows.size();
+        for (int row = 0; row < rows.size(); row++) {
+            hash = mix(hash, Objects.hashCode(rows.getThreat(row)));
+            hash = mix(hash, rows.getHipaaRule(row).ordinal());
+            hash = mix(hash, rows.getRmfStep(row).ordinal());
+            hash = mix(hash, rows.getImpact(row));
+            hash = mix(hash, rows.getLikelihood(row));
+            hash = mix(hash, Double.doubleToLongBits(rows.getSingleLossExpectancy(row)));
+            hash = mix(hash, Double.doubleToLongBits(rows.getAnnualisedRateOfOccurrence(row)));
+            hash = mix(hash, Objects.hashCode(rows.getControlMeasures(row)));
+            hash = mix(hash, Double.doubleToLongBits(rows.getControlEffectiveness(row)));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private void append(byte[] payload) throws IOException {
+        crc.reset();
+        crc.update(payload);
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + payload.length);
+        block.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        committed = channel.position();
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //Applies to the register, which holds the checkpoint's rows, every event after the checkpoint up to and
+    //including the given time. Safe on any thread: it reads only what the writer has committed.
+    void replay(Checkpoint checkpoint, RiskRegister register, long until) throws IOException {
+        long end = committed;
+        if (end <= checkpoint.offset()) {
+            return;
+        }
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer blocks = reader.map(FileChannel.MapMode.READ_ONLY, checkpoint.offset(), end - checkpoint.offset());
+            EventDecoder decoder = new EventDecoder(checkpoint.time());
+            int position = 0;
+            while (position + BLOCK_HEADER_SIZE <= blocks.limit()) {
+                int length = blocks.getInt(position);
+                int start = position + BLOCK_HEADER_SIZE;
+                ByteBuffer payload = blocks.slice(start, length);
+                position = start + length;
+                byte type = payload.get();
+                if (type == CHECKPOINT) {
+                    long time = readVarLong(payload);
+                    if (time > until) {
+                        return;
+                    }
+                    readVarLong(payload);
+                    int flags = payload.get();
+                    int rows = (int) readVarLong(payload);
+                    //Replay only passes a written checkpoint if that checkpoint has been dropped
+                    boolean gap = (flags & WRITTEN) != 0 ? (flags & CONTINUOUS) == 0 : register.size() != rows;
+                    if (gap) {
+                        throw new IOException("The history has a gap at " + Instant.ofEpochMilli(time) + " where a checkpoint could not be saved or was deleted");
+                    }
+                    decoder.reset(time);
+                } else if (type == EVENTS) {
+                    readVarLong(payload);
+                    readVarLong(payload);
+                    if (!decoder.apply(payload, register, until)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static HistoryTotals readTotals(ByteBuffer payload) {
+        long time = readVarLong(payload);
+        int riskCount = (int) readVarLong(payload);
+        double totalAnnualisedLossExpectancy = payload.getDouble();
+        double totalResidualRisk = payload.getDouble();
+        int[] categoryCounts = new int[CATEGORY_COUNT];
+        for (int i = 0; i < categoryCounts.length; i++) {
+            categoryCounts[i] = (int) readVarLong(payload);
+        }
+        double[] residualRisks = new double[RMF_STEPS.length];
+        for (int i = 0; i < residualRisks.length; i++) {
+            residualRisks[i] = payload.getDouble();
+        }
+        return new HistoryTotals(time, riskCount, totalAnnualisedLossExpectancy, totalResidualRisk, categoryCounts, residualRisks);
+    }
+
+    //Turns register notifications into EVENTS blocks. Owned by the register's thread.
+    static final class EventEncoder {
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final long[] previous = new long[FIELDS.length];
+        private long time;
+        private int row;
+        private ByteSink out;
+
+        EventEncoder(long time) {
+            reset(time);
+        }
+
+        //Starts the encoding afresh, as after a checkpoint at the given time
+        void reset(long time) {
+            strings.clear();
+            Arrays.fill(previous, 0);
+            this.time = time;
+            row = 0;
+        }
+
+        void begin() {
+            out = new ByteSink(64);
+        }
+
+        boolean isEmpty() {
+            return out == null || out.size() == 0;
+        }
+
+        //The block of events since begin(), stamped with the time of the last one and the rows after it
+        byte[] finish(int rows) {
+            ByteSink block = new ByteSink(out.size() + 16);
+            block.writeByte(EVENTS);
+            block.writeVarLong(time);
+            block.writeVarLong(rows);
+            block.write(out);
+            out = null;
+            return block.toByteArray();
+        }
+
+        void add(RiskRegister register, int first, int count, long now) {
+            event(ADD, now);
+            out.writeVarLong(count);
+            for (int r = first; r < first + count; r++) {
+                writeString(register.getThreat(r));
+                out.writeByte(register.getHipaaRule(r).ordinal());
+                out.writeByte(register.getRmfStep(r).ordinal());
+                writeInt(RiskField.IMPACT, register.getImpact(r));
+                writeInt(RiskField.LIKELIHOOD, register.getLikelihood(r));
+                writeDouble(RiskField.SINGLE_LOSS_EXPECTANCY, register.getSingleLossExpectancy(r));
+                writeDouble(RiskField.ANNUALISED_RATE_OF_OCCURRENCE, register.getAnnualisedRateOfOccurrence(r));
+                writeString(register.getControlMeasures(r));
+                writeDouble(RiskField.CONTROL_EFFECTIVENESS, register.getControlEffectiveness(r));
+            }
+        }
+
+        void remove(int removed, long now) {
+            event(REMOVE, now);
+            writeRow(removed);
+        }
+
+        void update(RiskRegister register, int updated, RiskField field, long now) {
+            event(UPDATE, now);
+            writeRow(updated);
+            out.writeByte(field.ordinal());
+            switch (field) {
+                case THREAT:
+                    writeString(register.getThreat(updated));
+                    break;
+                case CONTROL_MEASURES:
+                    writeString(register.getControlMeasures(updated));
+                    break;
+                case HIPAA_RULE:
+                    out.writeByte(register.getHipaaRule(updated).ordinal());
+                    break;
+                case RMF_STEP:
+                    out.writeByte(register.getRmfStep(updated).ordinal());
+                    break;
+                case IMPACT:
+                    writeInt(field, register.getImpact(updated));
+                    break;
+                case LIKELIHOOD:
+                    writeInt(field, register.getLikelihood(updated));
+                    break;
+                case SINGLE_LOSS_EXPECTANCY:
+                    writeDouble(field, register.getSingleLossExpectancy(updated));
+                    break;
+                case ANNUALISED_RATE_OF_OCCURRENCE:
+                    writeDouble(field, register.getAnnualisedRateOfOccurrence(updated));
+                    break;
+                case CONTROL_EFFECTIVENESS:
+                    writeDouble(field, register.getControlEffectiveness(updated));
+                    break;
+            }
+        }
+
+        void clear(long now) {
+            event(CLEAR, now);
+        }
+
+        private void event(byte type, long now) {
+            out.writeByte(type);
+            out.writeVarLong(Math.max(0, now - time));
+            time = Math.max(time, now);
+        }
+
+        private void writeRow(int value) {
+            out.writeVarLong(zigZag(value - row));
+            row = value;
+        }
+
+        private void writeInt(RiskField field, int value) {
+            out.writeVarLong(zigZag(value - previous[field.ordinal()]));
+            previous[field.ordinal()] = value;
+        }
+
+        private void writeDouble(RiskField field, double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            long xor = bits ^ previous[field.ordinal()];
+            previous[field.ordinal()] = bits;
+            if (xor == 0) {
+                out.writeByte(64);
+                return;
+            }
+            int trailing = Long.numberOfTrailingZeros(xor);
+            out.writeByte(trailing);
+            out.writeVarLong(xor >>> trailing);
+        }
+
+        //0 for null, 1 followed by the text for a new string, otherwise 2 + its number in the table
+        private void writeString(String value) {
+            if (value == null) {
+                out.writeVarLong(0);
+                return;
+            }
+            Integer id = strings.get(value);
+            if (id != null) {
+                out.writeVarLong(id + 2L);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(1);
+            out.writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    //Mirror of EventEncoder
+    private static final class EventDecoder {
+        private final List<String> strings = new ArrayList<>();
+        private final long[] previous = new long[FIELDS.length];
+        private long time;
+        private int row;
+
+        EventDecoder(long time) {
+            reset(time);
+        }
+
+        void reset(long time) {
+            strings.clear();
+            Arrays.fill(previous, 0);
+            this.time = time;
+            row = 0;
+        }
+
+        //Applies events in order; returns false at the first one later than until, leaving it unapplied
+        boolean apply(ByteBuffer events, RiskRegister register, long until) {
+            while (events.hasRemaining()) {
+                byte type = events.get();
+                time += readVarLong(events);
+                if (time > until) {
+                    return false;
+                }
+                switch (type) {
+                    case ADD:
+                        int count = (int) readVarLong(events);
+                        RiskBatch batch = new RiskBatch(count);
+                        for (int i = 0; i < count; i++) {
+                            String threat = readString(events);
+                            HIPAARule hipaaRule = HIPAA_RULES[events.get()];
+                            RMFStep rmfStep = RMF_STEPS[events.get()];
+                            int impact = readInt(events, RiskField.IMPACT);
+                            int likelihood = readInt(events, RiskField.LIKELIHOOD);
+                            double singleLossExpectancy = readDouble(events, RiskField.SINGLE_LOSS_EXPECTANCY);
+                            double annualisedRateOfOccurrence = readDouble(events, RiskField.ANNUALISED_RATE_OF_OCCURRENCE);
+                            String controlMeasures = readString(events);
+                            double controlEffectiveness = readDouble(events, RiskField.CONTROL_EFFECTIVENESS);
+                            batch.add(threat, hipaaRule, rmfStep, impact, likelihood, singleLossExpectancy, annualisedRateOfOccurrence, controlMeasures, controlEffectiveness);
+                        }
+                        register.addAll(batch);
+                        break;
+                    case REMOVE:
+                        register.remove(readRow(events));
+                        break;
+                    case UPDATE:
+                        int updated = readRow(events);
+                        RiskField field = FIELDS[events.get()];
+                        switch (field) {
+                            case THREAT:
+                                register.setThreat(updated, readString(events));
+                                break;
+                            case CONTROL_MEASURES:
+                                register.setControlMeasures(updated, readString(events));
+                                break;
+                            case HIPAA_RULE:
+                                register.setHipaaRule(updated, HIPAA_RULES[events.get()]);
+                                break;
+                            case RMF_STEP:
+                                register.setRmfStep(updated, RMF_STEPS[events.get()]);
+                                break;
+                            case IMPACT:
+                                register.setImpact(updated, readInt(events, field));
+                                break;
+                            case LIKELIHOOD:
+                                register.setLikelihood(updated, readInt(events, field));
+                                break;
+                            case SINGLE_LOSS_EXPECTANCY:
+                                register.setSingleLossExpectancy(updated, readDouble(events, field));
+                                break;
+                            case ANNUALISED_RATE_OF_OCCURRENCE:
+                                register.setAnnualisedRateOfOccurrence(updated, readDouble(events, field));
+                                break;
+                            case CONTROL_EFFECTIVENESS:
+                                register.setControlEffectiveness(updated, readDouble(events, field));
+                                break;
+                        }
+                        break;
+                    case CLEAR:
+                        register.clear();
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown history event type " + type);
+                }
+            }
+            return true;
+        }
+
+        private int readRow(ByteBuffer events) {
+            row += (int) unZigZag(readVarLong(events));
+            return row;
+        }
+
+        private int readInt(ByteBuffer events, RiskField field) {
+            int value = (int) (previous[field.ordinal()] + unZigZag(readVarLong(events)));
+            previous[field.ordinal()] = value;
+            return value;
+        }
+
+        private double readDouble(ByteBuffer events, RiskField field) {
+            int trailing = events.get();
+            long xor = trailing == 64 ? 0 : readVarLong(events) << trailing;
+            long bits = previous[field.ordinal()] ^ xor;
+            previous[field.ordinal()] = bits;
+            return Double.longBitsToDouble(bits);
+        }
+
+        private String readString(ByteBuffer events) {
+            long code = readVarLong(events);
+            if (code == 0) {
+                return null;
+            }
+            if (code >= 2) {
+                return strings.get((int) (code - 2));
+            }
+            byte[] bytes = new byte[(int) readVarLong(events)];
+            events.get(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    //Growable byte array with the encodings used above
+    static final class ByteSink {
+        private byte[] bytes;
+        private int size;
+
+        ByteSink(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        //Unsigned LEB128: seven bits per byte, low bits first
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeDouble(double value) {
+            writeLong(Double.doubleToRawLongBits(value));
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        void write(ByteSink other) {
+            ensure(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+}
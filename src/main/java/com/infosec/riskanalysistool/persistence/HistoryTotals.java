@@ -0,0 +1,50 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+import java.time.Instant;
+
+//Register totals as they stood at one moment: one point of the time series kept by RegisterHistory
+public final class HistoryTotals {
+    private final long time;
+    private final int riskCount;
+    private final double totalAnnualisedLossExpectancy;
+    private final double totalResidualRisk;
+    private final int[] categoryCounts;
+    private final double[] residualRisks;
+
+    HistoryTotals(long time, int riskCount, double totalAnnualisedLossExpectancy, double totalResidualRisk, int[] categoryCounts, double[] residualRisks) {
+        this.time = time;
+        this.riskCount = riskCount;
+        this.totalAnnualisedLossExpectancy = totalAnnualisedLossExpectancy;
+        this.totalResidualRisk = totalResidualRisk;
+        this.categoryCounts = categoryCounts;
+        this.residualRisks = residualRisks;
+    }
+
+    public Instant getTime() {
+        return Instant.ofEpochMilli(time);
+    }
+
+    public int getRiskCount() {
+        return riskCount;
+    }
+
+    public double getTotalAnnualisedLossExpectancy() {
+        return totalAnnualisedLossExpectancy;
+    }
+
+    public double getTotalResidualRisk() {
+        return totalResidualRisk;
+    }
+
+    public int getCategoryCount(RiskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+
+    //Sum of the residual risk of every risk at the RMF step
+    public double getResidualRisk(RMFStep rmfStep) {
+        return residualRisks[rmfStep.ordinal()];
+    }
+}
@@ -0,0 +1,370 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+//Append-only log of register edits made since the last snapshot.
+//
+//  header   magic, version, base sequence (the sequence number of the first record)
+//  records  payload length, CRC-32 of the payload, payload (a type byte followed by its fields)
+//
+//A record that is cut short or fails its checksum marks the end of the log: it is what a crash mid-write
+//leaves behind, so it and anything after it are truncated when the journal is opened. A record that passes its
+//checksum but does not fit the register (a row that is not there, an unknown field or ordinal, a count or string
+//longer than the record) means the journal is damaged or belongs to another snapshot, and fails the open.
+//
+//Records are read into memory rather than mapped, since some platforms cannot truncate a file that is mapped.
+final class Journal implements Closeable {
+    static final String FILE_NAME = "register.journal";
+
+    private static final int MAGIC = 0x5241544A;    //"RATJ"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    //Record types
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte UPDATE = 3;
+    private static final byte CLEAR = 4;
+
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final RiskField[] FIELDS = RiskField.values();
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private long nextSequence;
+
+    private Journal(FileChannel channel, long nextSequence) {
+        this.channel = channel;
+        this.nextSequence = nextSequence;
+    }
+
+    //Opens or creates the journal and replays onto the register every record from fromSequence on
+    static Journal open(Path path, RiskRegister register, long fromSequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                Journal journal = new Journal(channel, fromSequence);
+                journal.reset(fromSequence);
+                return journal;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a risk register journal");
+            }
+            long baseSequence = header.getLong(8);
+            if (baseSequence > fromSequence) {
+                throw new IOException("Journal starts at edit " + baseSequence + " but the snapshot ends at edit " + fromSequence);
+            }
+
+            long size = channel.size();
+            if (size - HEADER_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("Journal " + path + " is too large to replay");
+            }
+            ByteBuffer records = ByteBuffer.allocate((int) (size - HEADER_SIZE));
+            while (records.hasRemaining()) {
+                if (channel.read(records, HEADER_SIZE + records.position()) < 0) {
+                    break;
+                }
+            }
+            records.flip();
+            CRC32 check = new CRC32();
+            long sequence = baseSequence;
+            int position = 0;
+            while (position + RECORD_HEADER_SIZE <= records.limit()) {
+                int length = records.getInt(position);
+                int checksum = records.getInt(position + 4);
+                int start = position + RECORD_HEADER_SIZE;
+                if (length <= 0 || length > records.limit() - start) {
+                    break;
+                }
+                ByteBuffer payload = records.slice(start, length);
+                check.reset();
+                check.update(payload.duplicate());
+                if ((int) check.getValue() != checksum) {
+                    break;
+                }
+                //Records before fromSequence are already in the snapshot
+                if (sequence >= fromSequence) {
+                    try {
+                        apply(payload, register);
+                    } catch (IOException | RuntimeException e) {
+                        throw new IOException("Journal record " + sequence + " does not apply to the register", e);
+                    }
+                }
+                sequence++;
+                position = start + length;
+            }
+
+            long end = HEADER_SIZE + (long) position;
+            if (end < size) {
+                channel.truncate(end);
+            }
+            channel.position(end);
+            return new Journal(channel, sequence);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //Sequence number the next appended record will get
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    void append(byte[] payload) throws IOException {
+        crc.reset();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        nextSequence++;
+    }
+
+    //Empties the journal once a snapshot holding everything before baseSequence is in place
+    void reset(long baseSequence) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(baseSequence).flip();
+        channel.write(header, 0);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+        nextSequence = baseSequence;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //Encoding
+    static byte[] encodeAdd(RiskRegister register, int first, int count) {
+        return encode(out -> {
+            out.writeByte(ADD);
+            out.writeInt(count);
+            for (int row = first; row < first + count; row++) {
+                writeRow(out, register.getThreat(row), register.getHipaaRule(row), register.getRmfStep(row), register.getImpact(row), register.getLikelihood(row),
+                        register.getSingleLossExpectancy(row), register.getAnnualisedRateOfOccurrence(row), register.getControlMeasures(row), register.getControlEffectiveness(row));
+            }
+        });
+    }
+
+    static byte[] encodeAdd(RiskBatch batch, int first, int count) {
+        return encode(out -> {
+            out.writeByte(ADD);
+            out.writeInt(count);
+            for (int row = first; row < first + count; row++) {
+                writeRow(out, batch.getThreat(row), batch.getHipaaRule(row), batch.getRmfStep(row), batch.getImpact(row), batch.getLikelihood(row),
+                        batch.getSingleLossExpectancy(row), batch.getAnnualisedRateOfOccurrence(row), batch.getControlMeasures(row), batch.getControlEffectiveness(row));
+            }
+        });
+    }
+
+    static byte[] encodeRemove(int row) {
+        return encode(out -> {
+            out.writeByte(REMOVE);
+            out.writeInt(row);
+        });
+    }
+
+    static byte[] encodeUpdate(RiskRegister register, int row, RiskField field) {
+        return encode(out -> {
+            out.writeByte(UPDATE);
+            out.writeInt(row);
+            out.writeByte(field.ordinal());
+            switch (field) {
+                case THREAT:
+                    writeString(out, register.getThreat(row));
+                    break;
+                case CONTROL_MEASURES:
+                    writeString(out, register.getControlMeasures(row));
+                    break;
+                case HIPAA_RULE:
+                    out.writeByte(register.getHipaaRule(row).ordinal());
+                    break;
+                case RMF_STEP:
+                    out.writeByte(register.getRmfStep(row).ordinal());
+                    break;
+                case IMPACT:
+                    out.writeInt(register.getImpact(row));
+                    break;
+                case LIKELIHOOD:
+                    out.writeInt(register.getLikelihood(row));
+                    break;
+                case SINGLE_LOSS_EXPECTANCY:
+                    out.writeDouble(register.getSingleLossExpectancy(row));
+                    break;
+                case ANNUALISED_RATE_OF_OCCURRENCE:
+                    out.writeDouble(register.getAnnualisedRateOfOccurrence(row));
+                    break;
+                case CONTROL_EFFECTIVENESS:
+                    out.writeDouble(register.getControlEffectiveness(row));
+                    break;
+            }
+        });
+    }
+
+    static byte[] encodeClear() {
+        return new byte[]{CLEAR};
+    }
+
+    private static void writeRow(DataOutputStream out, String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood,
+                                 double singleLossExpectancy, double annualisedRateOfOccurrence, String controlMeasures, double controlEffectiveness) throws IOException {
+        writeString(out, threat);
+        out.writeByte(hipaaRule.ordinal());
+        out.writeByte(rmfStep.ordinal());
+        out.writeInt(impact);
+        out.writeInt(likelihood);
+        out.writeDouble(singleLossExpectancy);
+        out.writeDouble(annualisedRateOfOccurrence);
+        writeString(out, controlMeasures);
+        out.writeDouble(controlEffectiveness);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            //Only reachable through the stream API; a byte array never fails
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    //Decoding
+    private static void apply(ByteBuffer payload, RiskRegister register) throws IOException {
+        byte type = payload.get();
+        switch (type) {
+            case ADD:
+                //Every row takes at least two string lengths, two ordinals, two ints and three doubles
+                int count = payload.getInt();
+                if (count < 0 || count > payload.remaining() / 42) {
+                    throw new IOException("Bad row count " + count);
+                }
+                RiskBatch batch = new RiskBatch(count);
+                for (int i = 0; i < count; i++) {
+                    batch.add(readString(payload), readEnum(payload, HIPAA_RULES), readEnum(payload, RMF_STEPS), payload.getInt(), payload.getInt(),
+                            payload.getDouble(), payload.getDouble(), readString(payload), payload.getDouble());
+                }
+                register.addAll(batch);
+                break;
+            case REMOVE:
+                register.remove(readRow(payload, register));
+                break;
+            case UPDATE:
+                int row = readRow(payload, register);
+                switch (readEnum(payload, FIELDS)) {
+                    case THREAT:
+                        register.setThreat(row, readString(payload));
+                        break;
+                    case CONTROL_MEASURES:
+                        register.setControlMeasures(row, readString(payload));
+                        break;
+                    case HIPAA_RULE:
+                        register.setHipaaRule(row, readEnum(payload, HIPAA_RULES));
+                        break;
+                    case RMF_STEP:
+                        register.setRmfStep(row, readEnum(payload, RMF_STEPS));
+                        break;
+                    case IMPACT:
+                        register.setImpact(row, payload.getInt());
+                        break;
+                    case LIKELIHOOD:
+                        register.setLikelihood(row, payload.getInt());
+                        break;
+                    case SINGLE_LOSS_EXPECTANCY:
+                        register.setSingleLossExpectancy(row, payload.getDouble());
+                        break;
+                    case ANNUALISED_RATE_OF_OCCURRENCE:
+                        register.setAnnualisedRateOfOccurrence(row, payload.getDouble());
+                        break;
+                    case CONTROL_EFFECTIVENESS:
+                        register.setControlEffectiveness(row, payload.getDouble());
+                        break;
+                }
+                break;
+            case CLEAR:
+                register.clear();
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+        if (payload.hasRemaining()) {
+            throw new IOException(payload.remaining() + " bytes left over");
+        }
+    }
+
+    private static int readRow(ByteBuffer payload, RiskRegister register) throws IOException {
+        int row = payload.getInt();
+        if (row < 0 || row >= register.size()) {
+            throw new IOException("Row " + row + " is not in a register of " + register.size());
+        }
+        return row;
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer payload, E[] values) throws IOException {
+        int ordinal = payload.get();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Bad " + values[0].getDeclaringClass().getSimpleName() + " " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static String readString(ByteBuffer payload) throws IOException {
+        int length = payload.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > payload.remaining()) {
+            throw new IOException("String of " + length + " bytes in " + payload.remaining());
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
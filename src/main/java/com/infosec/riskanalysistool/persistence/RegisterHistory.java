@@ -0,0 +1,508 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+//Every change ever made to a RiskRegister, so the register can be seen as it stood at any past moment.
+//
+//Changes are kept as delta-encoded events in a HistoryLog, which is never compacted. Every so often the whole
+//register is written to a numbered checkpoint snapshot beside it; registerAt() loads the latest checkpoint
+//before the moment asked for and replays only the events between the two, so the cost of going back is
+//bounded by the checkpoint interval rather than the length of the history.
+//
+//Checkpoints younger than KEEP_ALL_MILLIS are all kept. Older ones are thinned to one per THINNED_INTERVAL_MILLIS
+//and the snapshots of the rest deleted, so a long-lived history does not keep a full copy of the register for every
+//few thousand edits. Replay runs on through a dropped checkpoint from the kept one before it, so every moment can
+//still be rebuilt; going far back just replays up to a day of events. Checkpoints that replay cannot run through
+//(see HistoryLog) are never dropped.
+//
+//Total ALE, residual risk per RMF step and risks per category are kept up to date change by change from the
+//previous value of each row, and a sample of them is logged at most every SAMPLE_INTERVAL_MILLIS while the
+//register is changing, so the trend over time is read straight from the samples without any replay.
+//
+//Each checkpoint and each session ends with a checksum of the register. If the register opened with does not
+//match the one the log ends with, it was changed while nothing was logging it, so the history carries on from a
+//fresh checkpoint rather than replaying onto a register it never saw.
+//
+//Like RegisterStore, events are encoded on the calling (FX) thread, which owns the register, and written in
+//order by a single background thread, which also writes the checkpoints.
+public class RegisterHistory implements RiskRegisterListener, AutoCloseable {
+    //Adds at least this big go into a checkpoint instead of the log
+    private static final int BULK_ROWS = 4_096;
+
+    //A checkpoint is taken once this many rows, or a quarter of the register if more, have been changed since the last
+    private static final int MIN_CHECKPOINT_ROWS = 16_384;
+
+    static final long SAMPLE_INTERVAL_MILLIS = 10_000;
+
+    static final long KEEP_ALL_MILLIS = 7L * 24 * 60 * 60 * 1000;
+    static final long THINNED_INTERVAL_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final int CATEGORY_COUNT = RiskCategory.values().length;
+
+    private final RiskRegister register;
+    private final Path directory;
+    private final Clock clock;
+    private final HistoryLog log;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "register-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<HistoryTotals> samples = new CopyOnWriteArrayList<>();
+
+    //Owned by the calling thread
+    private final HistoryLog.EventEncoder encoder;
+    private long checkpointNumber;
+    private long changedRows;
+    private long lastTime;
+    private long lastChangeTime;
+    private long lastSampleTime;
+
+    //Each row's contribution to the totals, so a change can take the old one off before adding the new
+    private double[] annualisedLossExpectancies = new double[0];
+    private double[] residualRisks = new double[0];
+    private byte[] categories = new byte[0];
+    private byte[] rmfSteps = new byte[0];
+    private int rows;
+    private double totalAnnualisedLossExpectancy;
+    private double totalResidualRisk;
+    private final int[] categoryCounts = new int[CATEGORY_COUNT];
+    private final double[] residualRiskByStep = new double[RMF_STEPS.length];
+
+    private Consumer<Exception> errorHandler = e -> { };
+
+    private RegisterHistory(RiskRegister register, Path directory, Clock clock, HistoryLog log) {
+        this.register = register;
+        this.directory = directory;
+        this.clock = clock;
+        this.log = log;
+        this.lastTime = log.lastTime();
+        this.encoder = new HistoryLog.EventEncoder(lastTime);
+        List<HistoryLog.Checkpoint> checkpoints = log.checkpoints();
+        this.checkpointNumber = checkpoints.isEmpty() ? 0 : checkpoints.get(checkpoints.size() - 1).number();
+        this.samples.addAll(log.samples());
+        this.lastSampleTime = samples.isEmpty() ? 0 : samples.get(samples.size() - 1).getTime().toEpochMilli();
+    }
+
+    //Continues the history kept in directory from the register as it is now, normally just after RegisterStore
+    //has loaded it
+    public static RegisterHistory open(Path directory, RiskRegister register) throws IOException {
+        return open(directory, register, Clock.systemUTC());
+    }
+
+    public static RegisterHistory open(Path directory, RiskRegister register, Clock clock) throws IOException {
+        Files.createDirectories(directory);
+        HistoryLog log = HistoryLog.open(directory.resolve(HistoryLog.FILE_NAME));
+        //A checkpoint written just before a crash may never have reached the log; its number is not reused, since
+        //writing over a snapshot that may still be mapped fails on some platforms
+        long lastFile = sweepCheckpointFiles(directory, log);
+        RegisterHistory history = new RegisterHistory(register, directory, clock, log);
+        history.checkpointNumber = Math.max(history.checkpointNumber, lastFile);
+        history.trackAll();
+        //Replay has to start from a checkpoint, and after a damaged tail, a crash or edits the log never saw it has
+        //to start from this register rather than what the log last recorded
+        Long checksumAtEnd = log.checksumAtEnd();
+        if (log.checkpoints().isEmpty() || log.wasTruncated() || checksumAtEnd == null || log.rowsAtEnd() != register.size()
+                || checksumAtEnd != HistoryLog.checksum(register.snapshot())) {
+            history.checkpoint(history.now(), false);
+        } else {
+            history.restart(history.now());
+        }
+        register.addListener(history);
+        return history;
+    }
+
+    //Called with failures from the background writer
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    //The register as it stood at the given moment, rebuilt from the latest checkpoint before it. Empty before
+    //the history began. Safe to call on any thread.
+    public RiskRegister registerAt(Instant instant) throws IOException {
+        long start = Operation.HISTORY_REPLAY.begin();
+        long time = instant.toEpochMilli();
+        RiskRegister past = new RiskRegister();
+        HistoryLog.Checkpoint checkpoint = log.checkpointAt(time);
+        while (checkpoint != null) {
+            SnapshotFile.Snapshot snapshot;
+            try {
+                snapshot = SnapshotFile.read(checkpointPath(checkpoint.number()));
+            } catch (NoSuchFileException e) {
+                //Dropped since it was looked up; start from the one kept before it
+                if (log.checkpoints().contains(checkpoint)) {
+                    throw e;
+                }
+                checkpoint = log.checkpointAt(time);
+                continue;
+            }
+            past.addAll(snapshot.batch());
+            log.replay(checkpoint, past, time);
+            break;
+        }
+        Operation.HISTORY_REPLAY.end(start, past.size());
+        return past;
+    }
+
+    //When the history begins, or null if nothing has been checkpointed yet
+    public Instant getStart() {
+        List<HistoryLog.Checkpoint> checkpoints = log.checkpoints();
+        return checkpoints.isEmpty() ? null : Instant.ofEpochMilli(checkpoints.get(0).time());
+    }
+
+    //The logged samples, oldest first, followed by the totals as they are now. Calling thread only.
+    public List<HistoryTotals> totals() {
+        List<HistoryTotals> totals = new ArrayList<>(samples.size() + 1);
+        totals.addAll(samples);
+        totals.add(currentTotals(now()));
+        return totals;
+    }
+
+    //Bytes of log written so far, not counting checkpoints
+    public long getLogBytes() {
+        return log.size();
+    }
+
+    //RiskRegisterListener
+    @Override
+    public void rowsAdded(int first, int count) {
+        long now = beforeChange();
+        if (count >= BULK_ROWS) {
+            checkpoint(now, false);
+            return;
+        }
+        for (int row = first; row < first + count; row++) {
+            track(row);
+        }
+        encoder.begin();
+        encoder.add(register, first, count, now);
+        logEvents(now, count);
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        long now = beforeChange();
+        untrack(row);
+        int tail = rows - row - 1;
+        System.arraycopy(annualisedLossExpectancies, row + 1, annualisedLossExpectancies, row, tail);
+        System.arraycopy(residualRisks, row + 1, residualRisks, row, tail);
+        System.arraycopy(categories, row + 1, categories, row, tail);
+        System.arraycopy(rmfSteps, row + 1, rmfSteps, row, tail);
+        rows--;
+        encoder.begin();
+        encoder.remove(row, now);
+        logEvents(now, 1);
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+        long now = beforeChange();
+        retrack(row);
+        encoder.begin();
+        encoder.update(register, row, field, now);
+        logEvents(now, 1);
+    }
+
+    //One block for the whole update
+    @Override
+    public void valuesChanged(RowChanges changes) {
+        long now = beforeChange();
+        encoder.begin();
+        for (int i = 0; i < changes.size(); i++) {
+            int row = changes.row(i);
+            retrack(row);
+            for (RiskField field : RiskField.values()) {
+                if (changes.changed(i, field)) {
+                    encoder.update(register, row, field, now);
+                }
+            }
+        }
+        logEvents(now, changes.size());
+    }
+
+    @Override
+    public void cleared() {
+        long now = beforeChange();
+        rows = 0;
+        resetTotals();
+        encoder.begin();
+        encoder.clear(now);
+        logEvents(now, 0);
+    }
+
+    //Logs a sample of the totals the change is about to alter, if the last one is old enough
+    private long beforeChange() {
+        long now = now();
+        if (lastChangeTime > lastSampleTime && now - lastSampleTime >= SAMPLE_INTERVAL_MILLIS) {
+            sample(lastChangeTime);
+        }
+        return now;
+    }
+
+    private void logEvents(long now, int changed) {
+        lastChangeTime = now;
+        byte[] block = encoder.finish(register.size());
+        writer.execute(() -> {
+            try {
+                long start = Operation.HISTORY_WRITE.begin();
+                log.appendEvents(block);
+                Operation.HISTORY_WRITE.end(start, block.length);
+            } catch (IOException e) {
+                errorHandler.accept(e);
+            }
+        });
+        changedRows += changed;
+        if (changedRows >= Math.max(MIN_CHECKPOINT_ROWS, rows / 4)) {
+            checkpoint(now, true);
+        }
+    }
+
+    private void sample(long time) {
+        HistoryTotals totals = currentTotals(time);
+        samples.add(totals);
+        lastSampleTime = time;
+        writer.execute(() -> {
+            try {
+                log.appendTotals(totals);
+            } catch (IOException e) {
+                errorHandler.accept(e);
+            }
+        });
+    }
+
+    //Writes the register to a new checkpoint in the background and starts the event encoding afresh from it.
+    //Continuous if every change up to now has been logged as events.
+    private void checkpoint(long now, boolean continuous) {
+        RiskBatch image = register.snapshot();
+        long number = ++checkpointNumber;
+        int imageRows = image.size();
+        encoder.reset(now);
+        changedRows = 0;
+        lastChangeTime = now;
+        //Recomputing the totals here stops rounding from building up between checkpoints
+        trackAll();
+        HistoryTotals totals = currentTotals(now);
+        samples.add(totals);
+        lastSampleTime = now;
+        writer.execute(() -> {
+            boolean written = false;
+            try {
+                long start = Operation.SNAPSHOT_WRITE.begin();
+                SnapshotFile.write(checkpointPath(number), image, number);
+                Operation.SNAPSHOT_WRITE.end(start, imageRows);
+                written = true;
+            } catch (IOException e) {
+                errorHandler.accept(e);
+            }
+            try {
+                //An unwritten checkpoint still restarts the encoding; replay cannot cross it if rows were added there
+                log.appendCheckpoint(now, number, written, continuous, imageRows);
+                log.appendState(imageRows, HistoryLog.checksum(image));
+                log.appendTotals(totals);
+            } catch (IOException e) {
+                errorHandler.accept(e);
+            }
+            dropOldCheckpoints(now);
+        });
+    }
+
+    //Carries on from the end of the log without a new checkpoint. The encoding still starts afresh, marked by a
+    //checkpoint block with no snapshot, since the state it was built on went with the last session.
+    private void restart(long now) {
+        encoder.reset(now);
+        long number = checkpointNumber;
+        int registerRows = register.size();
+        boolean needsSample = samples.isEmpty();
+        HistoryTotals totals = currentTotals(now);
+        if (needsSample) {
+            samples.add(totals);
+            lastSampleTime = now;
+        }
+        writer.execute(() -> {
+            try {
+                log.appendCheckpoint(now, number, false, false, registerRows);
+                if (needsSample) {
+                    log.appendTotals(totals);
+                }
+            } catch (IOException e) {
+                errorHandler.accept(e);
+            }
+            dropOldCheckpoints(now);
+        });
+    }
+
+    private Path checkpointPath(long number) {
+        return directory.resolve("checkpoint-" + number + ".snapshot");
+    }
+
+    //Applies the retention policy as of now. Writer thread only. A snapshot that cannot be deleted yet, most
+    //likely because a register from registerAt() still maps it, is deleted when the history is next opened.
+    private void dropOldCheckpoints(long now) {
+        HistoryLog.Checkpoint kept = null;
+        for (HistoryLog.Checkpoint checkpoint : log.checkpoints()) {
+            if (now - checkpoint.time() < KEEP_ALL_MILLIS) {
+                break;
+            }
+            if (kept != null && checkpoint.continuous() && checkpoint.time() - kept.time() < THINNED_INTERVAL_MILLIS) {
+                log.drop(checkpoint);
+                try {
+                    Files.deleteIfExists(checkpointPath(checkpoint.number()));
+                } catch (IOException e) {
+                    //Still in use
+                }
+            } else {
+                kept = checkpoint;
+            }
+        }
+    }
+
+    //Drops from the log the checkpoints whose snapshots have been deleted and deletes the snapshots the log has no
+    //checkpoint for: dropped ones that could not be deleted at the time, and any written just before a crash.
+    //Returns the highest checkpoint number found on disk.
+    private static long sweepCheckpointFiles(Path directory, HistoryLog log) throws IOException {
+        Map<Long, Path> files = new HashMap<>();
+        long last = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "checkpoint-*.snapshot")) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    long number = Long.parseLong(name.substring("checkpoint-".length(), name.length() - ".snapshot".length()));
+                    files.put(number, file);
+                    last = Math.max(last, number);
+                } catch (NumberFormatException e) {
+                    //Not one of ours
+                }
+            }
+        }
+        for (HistoryLog.Checkpoint checkpoint : log.checkpoints()) {
+            if (files.remove(checkpoint.number()) == null) {
+                log.drop(checkpoint);
+            }
+        }
+        for (Path orphan : files.values()) {
+            try {
+                Files.deleteIfExists(orphan);
+            } catch (IOException e) {
+                //Tried again next time
+            }
+        }
+        return last;
+    }
+
+    //Never earlier than the last event, so time deltas stay positive if the clock is set back
+    private long now() {
+        lastTime = Math.max(lastTime, clock.millis());
+        return lastTime;
+    }
+
+    private void trackAll() {
+        rows = 0;
+        resetTotals();
+        for (int row = 0; row < register.size(); row++) {
+            track(row);
+        }
+    }
+
+    //Appends the row's contribution at index row; rows arrive in order, so that is always the end
+    private void track(int row) {
+        if (row == annualisedLossExpectancies.length) {
+            int capacity = Math.max(16, row + (row >> 1));
+            annualisedLossExpectancies = Arrays.copyOf(annualisedLossExpectancies, capacity);
+            residualRisks = Arrays.copyOf(residualRisks, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            rmfSteps = Arrays.copyOf(rmfSteps, capacity);
+        }
+        rows = row + 1;
+        annualisedLossExpectancies[row] = register.getAnnualisedLossExpectancy(row);
+        residualRisks[row] = register.getResidualRisk(row);
+        categories[row] = (byte) RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row)).ordinal();
+        rmfSteps[row] = (byte) register.getRmfStep(row).ordinal();
+        add(row, 1);
+    }
+
+    private void untrack(int row) {
+        add(row, -1);
+    }
+
+    private void retrack(int row) {
+        untrack(row);
+        annualisedLossExpectancies[row] = register.getAnnualisedLossExpectancy(row);
+        residualRisks[row] = register.getResidualRisk(row);
+        categories[row] = (byte) RiskCategory.fromRiskPriorityNumber(register.getRiskPriorityNumber(row)).ordinal();
+        rmfSteps[row] = (byte) register.getRmfStep(row).ordinal();
+        add(row, 1);
+    }
+
+    private void add(int row, int sign) {
+        totalAnnualisedLossExpectancy += sign * annualisedLossExpectancies[row];
+        totalResidualRisk += sign * residualRisks[row];
+        categoryCounts[categories[row]] += sign;
+        residualRiskByStep[rmfSteps[row]] += sign * residualRisks[row];
+    }
+
+    private void resetTotals() {
+        totalAnnualisedLossExpectancy = 0;
+        totalResidualRisk = 0;
+        Arrays.fill(categoryCounts, 0);
+        Arrays.fill(residualRiskByStep, 0);
+    }
+
+    private HistoryTotals currentTotals(long time) {
+        return new HistoryTotals(time, rows, totalAnnualisedLossExpectancy, totalResidualRisk, categoryCounts.clone(), residualRiskByStep.clone());
+    }
+
+    //Logs the final totals and checksum, waits for everything queued to reach disk and releases the log
+    @Override
+    public void close() throws IOException {
+        register.removeListener(this);
+        if (lastChangeTime > lastSampleTime) {
+            sample(now());
+        }
+        RiskBatch image = register.snapshot();
+        writer.execute(() -> {
+            try {
+                log.appendState(image.size(), HistoryLog.checksum(image));
+            } catch (IOException e) {
+                errorHandler.accept(e);
+            }
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new IOException("Timed out saving the risk register history");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving the risk register history", e);
+        } finally {
+            log.force();
+            log.close();
+        }
+    }
+}
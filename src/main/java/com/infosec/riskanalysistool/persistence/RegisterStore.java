@@ -0,0 +1,291 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Keeps a RiskRegister on disk as a snapshot plus a journal of the edits made since.
+//
+//Every edit is numbered. The snapshot records how many edits it contains and the journal the number of its
+//first record, so opening replays exactly the journal records the snapshot is missing, even after a crash
+//between writing a snapshot and emptying the journal.
+//
+//Snapshots are never replaced in place. Each compaction writes the next generation, register-<n>.snapshot, and
+//the newest generation is the current one. A snapshot that has been read stays memory-mapped while the register
+//still has text to decode from it, and some platforms can neither replace nor delete a mapped file, so older
+//generations are deleted once a newer one is in place and again after each later compaction until that succeeds.
+//
+//Edits are encoded on the calling (FX) thread, which owns the register, and written by a single background
+//thread in the order they were made. Compaction copies the register's columns on the calling thread and
+//writes the snapshot on the same background thread, so every journal record queued before it is already on
+//disk and every one queued after it goes into the fresh journal.
+public class RegisterStore implements RiskRegisterListener, AutoCloseable {
+    //Adds at least this big go straight into a new snapshot instead of the journal
+    private static final int BULK_ROWS = 4_096;
+
+    //The journal is compacted once it is larger than the snapshot, and at least this large
+    private static final long MIN_COMPACTION_BYTES = 4L << 20;
+
+    //Written before snapshots were numbered; read as generation 0
+    private static final String LEGACY_SNAPSHOT = "register.snapshot";
+    private static final Pattern SNAPSHOT = Pattern.compile("register-(\\d{1,18})\\.snapshot");
+
+    private final RiskRegister register;
+    private final Path directory;
+    private final Journal journal;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "register-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int loadedRows;
+    private final long loadNanos;
+
+    //Owned by the calling thread; journalBytes counts the records written since the last compaction
+    private long sequence;
+    private long journalBytes;
+    private volatile long snapshotBytes;
+    //Owned by the background writer
+    private long generation;
+    private Consumer<Exception> errorHandler = e -> { };
+
+    private RegisterStore(RiskRegister register, Path directory, long generation, Journal journal, long snapshotBytes, long loadNanos) throws IOException {
+        this.register = register;
+        this.directory = directory;
+        this.generation = generation;
+        this.journal = journal;
+        this.sequence = journal.nextSequence();
+        this.journalBytes = journal.size() - Journal.HEADER_SIZE;
+        this.snapshotBytes = snapshotBytes;
+        this.loadedRows = register.size();
+        this.loadNanos = loadNanos;
+    }
+
+    //A register read from disk but not yet loaded. Reading and decoding the snapshot is most of the cost of
+    //opening and touches nothing but its file, so it can be done on any thread; the journal is replayed by open().
+    public static final class Saved {
+        private final Path directory;
+        private final long generation;
+        private final SnapshotFile.Snapshot snapshot;
+        private final long readNanos;
+
+        private Saved(Path directory, long generation, SnapshotFile.Snapshot snapshot, long readNanos) {
+            this.directory = directory;
+            this.generation = generation;
+            this.snapshot = snapshot;
+            this.readNanos = readNanos;
+        }
+
+        public int size() {
+            return snapshot != null ? snapshot.batch().size() : 0;
+        }
+    }
+
+    //Reads the snapshot kept in directory without loading it anywhere
+    public static Saved read(Path directory) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        long generation = -1;
+        Path snapshotPath = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                long fileGeneration = generation(file);
+                if (fileGeneration > generation) {
+                    generation = fileGeneration;
+                    snapshotPath = file;
+                }
+            }
+        }
+        SnapshotFile.Snapshot snapshot = snapshotPath != null ? SnapshotFile.read(snapshotPath) : null;
+        return new Saved(directory, Math.max(generation, 0), snapshot, System.nanoTime() - start);
+    }
+
+    //Loads the register kept in directory into an empty register, then records every later edit
+    public static RegisterStore open(Path directory, RiskRegister register) throws IOException {
+        return open(read(directory), register);
+    }
+
+    //Loads a register already read into an empty register, on the thread that owns the register
+    public static RegisterStore open(Saved saved, RiskRegister register) throws IOException {
+        if (!register.isEmpty()) {
+            throw new IllegalStateException("Register must be empty before it is opened from disk");
+        }
+        long start = System.nanoTime();
+
+        long snapshotSequence = 0;
+        long snapshotBytes = 0;
+        if (saved.snapshot != null) {
+            register.addAll(saved.snapshot.batch());
+            snapshotSequence = saved.snapshot.sequence();
+            snapshotBytes = saved.snapshot.bytes();
+        }
+        Journal journal = Journal.open(saved.directory.resolve(Journal.FILE_NAME), register, snapshotSequence);
+
+        RegisterStore store = new RegisterStore(register, saved.directory, saved.generation, journal, snapshotBytes, saved.readNanos + System.nanoTime() - start);
+        register.addListener(store);
+        //Generations a crash or a still-mapped file left behind last time
+        store.writer.execute(store::deleteOldSnapshots);
+        store.compactIfDue();
+        return store;
+    }
+
+    //Called with failures from the background writer
+    public void setErrorHandler(Consumer<Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    public int getLoadedRows() {
+        return loadedRows;
+    }
+
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    //RiskRegisterListener
+    @Override
+    public void rowsAdded(int first, int count) {
+        if (count >= BULK_ROWS) {
+            //The edit is counted but not journalled; if the snapshot cannot be written it is journalled then
+            sequence++;
+            compact(first, count);
+            return;
+        }
+        append(Journal.encodeAdd(register, first, count));
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        append(Journal.encodeRemove(row));
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+        append(Journal.encodeUpdate(register, row, field));
+    }
+
+    @Override
+    public void cleared() {
+        append(Journal.encodeClear());
+    }
+
+    private void append(byte[] record) {
+        sequence++;
+        journalBytes += record.length;
+        writer.execute(() -> {
+            try {
+                long start = Operation.JOURNAL_WRITE.begin();
+                journal.append(record);
+                Operation.JOURNAL_WRITE.end(start, record.length);
+            } catch (IOException e) {
+                errorHandler.accept(e);
+            }
+        });
+        compactIfDue();
+    }
+
+    private void compactIfDue() {
+        if (journalBytes > Math.max(MIN_COMPACTION_BYTES, snapshotBytes)) {
+            compact();
+        }
+    }
+
+    //Folds the journal into a new snapshot in the background
+    public void compact() {
+        compact(0, 0);
+    }
+
+    private void compact(int bulkFirst, int bulkCount) {
+        RiskBatch image = register.snapshot();
+        long imageSequence = sequence;
+        journalBytes = 0;
+        writer.execute(() -> {
+            try {
+                long start = Operation.SNAPSHOT_WRITE.begin();
+                long next = generation + 1;
+                snapshotBytes = SnapshotFile.write(snapshotPath(next), image, imageSequence);
+                generation = next;
+                journal.reset(imageSequence);
+                Operation.SNAPSHOT_WRITE.end(start, image.size());
+                deleteOldSnapshots();
+            } catch (IOException e) {
+                //The old snapshot and journal are untouched; keep the bulk add so that no edit goes missing
+                if (bulkCount > 0) {
+                    try {
+                        journal.append(Journal.encodeAdd(image, bulkFirst, bulkCount));
+                    } catch (IOException journalError) {
+                        e.addSuppressed(journalError);
+                    }
+                }
+                errorHandler.accept(e);
+            }
+        });
+    }
+
+    private Path snapshotPath(long generation) {
+        return directory.resolve("register-" + generation + ".snapshot");
+    }
+
+    //The generation a file in the directory holds, or -1 if it is not a snapshot
+    private static long generation(Path file) {
+        String name = file.getFileName().toString();
+        if (name.equals(LEGACY_SNAPSHOT)) {
+            return 0;
+        }
+        Matcher matcher = SNAPSHOT.matcher(name);
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    //Runs on the background writer. A generation that cannot be deleted yet, most likely because the register
+    //still maps it, is left for the next compaction.
+    private void deleteOldSnapshots() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                long fileGeneration = generation(file);
+                if (fileGeneration >= 0 && fileGeneration < generation) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        //Still in use
+                    }
+                }
+            }
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        }
+    }
+
+    //Compacts, waits for everything queued to reach disk and releases the files
+    @Override
+    public void close() throws IOException {
+        register.removeListener(this);
+        if (journalBytes > 0) {
+            compact();
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new IOException("Timed out saving the risk register");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving the risk register", e);
+        } finally {
+            journal.force();
+            journal.close();
+        }
+    }
+}
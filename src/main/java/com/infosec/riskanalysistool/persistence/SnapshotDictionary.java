@@ -0,0 +1,38 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.TextDictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+//Text section of a mapped snapshot. Entries are decoded on first use and cached, so rows that are never
+//displayed never become Strings. Racing decodes of the same entry are harmless: both produce equal Strings.
+final class SnapshotDictionary implements TextDictionary {
+    private final LongBuffer offsets;
+    private final ByteBuffer text;
+    private final String[] decoded;
+
+    SnapshotDictionary(LongBuffer offsets, ByteBuffer text, int entries) {
+        this.offsets = offsets;
+        this.text = text;
+        this.decoded = new String[entries];
+    }
+
+    @Override
+    public String text(int code) {
+        if (code < 0) {
+            return null;
+        }
+        String value = decoded[code];
+        if (value == null) {
+            int start = (int) offsets.get(code);
+            int end = (int) offsets.get(code + 1);
+            byte[] bytes = new byte[end - start];
+            text.get(start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            decoded[code] = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,282 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.TextDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Binary snapshot of the register.
+//
+//  header   magic, version, journal sequence, row count, dictionary entry count, dictionary byte count
+//  columns  fixed-width blocks, one per field: SLE, ARO and control effectiveness (8 bytes per row),
+//           impact, likelihood, threat code and control measures code (4 bytes), HIPAA rule and RMF step (1 byte)
+//  text     dictionary of distinct threat and control measure strings: entry offsets, then UTF-8 bytes
+//
+//Columns are stored one after another rather than as row records so that each one loads with a single
+//bulk copy into the matching register array. The text section stays mapped and is decoded per entry on demand,
+//so callers write each snapshot to a new file rather than over one that may still be mapped.
+//
+//Everything read is checked against the header before it is used, so a damaged file fails with an IOException
+//when it is read rather than with an index error when a row is first shown.
+final class SnapshotFile {
+    private static final int MAGIC = 0x52415453;    //"RATS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private static final int HIPAA_RULE_COUNT = HIPAARule.values().length;
+    private static final int RMF_STEP_COUNT = RMFStep.values().length;
+
+    private SnapshotFile() {
+    }
+
+    //Writes to a temporary file first and moves it into place, so a crash never leaves a half-written snapshot.
+    //Returns the size of the new file.
+    static long write(Path path, RiskBatch batch, long sequence) throws IOException {
+        int rows = batch.size();
+
+        //Dictionary-encode the text columns
+        TextEncoder encoder = new TextEncoder(batch.getDictionary());
+        int[] threatCodes = new int[rows];
+        int[] controlMeasureCodes = new int[rows];
+        long textBytes = 0;
+        for (int row = 0; row < rows; row++) {
+            int threatCode = batch.getThreatCode(row);
+            int controlMeasuresCode = batch.getControlMeasuresCode(row);
+            threatCodes[row] = threatCode >= 0 ? encoder.encode(threatCode) : encoder.encode(batch.getThreat(row));
+            controlMeasureCodes[row] = controlMeasuresCode >= 0 ? encoder.encode(controlMeasuresCode) : encoder.encode(batch.getControlMeasures(row));
+        }
+        List<byte[]> entries = encoder.entries;
+        for (byte[] entry : entries) {
+            textBytes += entry.length;
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sequence);
+            out.writeInt(rows);
+            out.writeInt(entries.size());
+            out.writeLong(textBytes);
+            out.write(new byte[HEADER_SIZE - out.size()]);
+
+            for (int row = 0; row < rows; row++) {
+                out.writeDouble(batch.getSingleLossExpectancy(row));
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeDouble(batch.getAnnualisedRateOfOccurrence(row));
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeDouble(batch.getControlEffectiveness(row));
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeInt(batch.getImpact(row));
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeInt(batch.getLikelihood(row));
+            }
+            for (int code : threatCodes) {
+                out.writeInt(code);
+            }
+            for (int code : controlMeasureCodes) {
+                out.writeInt(code);
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeByte(batch.getHipaaRule(row).ordinal());
+            }
+            for (int row = 0; row < rows; row++) {
+                out.writeByte(batch.getRmfStep(row).ordinal());
+            }
+            out.write(new byte[padding(2L * rows)]);
+
+            long offset = 0;
+            out.writeLong(offset);
+            for (byte[] entry : entries) {
+                offset += entry.length;
+                out.writeLong(offset);
+            }
+            for (byte[] entry : entries) {
+                out.write(entry);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        long bytes = Files.size(temp);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes;
+    }
+
+    //Assigns snapshot codes to distinct strings. Text still encoded in the batch is looked up by its batch code,
+    //so each distinct entry is decoded and hashed once however many rows share it.
+    private static final class TextEncoder {
+        private final TextDictionary dictionary;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private int[] byBatchCode = new int[0];
+
+        TextEncoder(TextDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        int encode(int batchCode) {
+            if (batchCode >= byBatchCode.length) {
+                int length = Math.max(batchCode + 1, byBatchCode.length * 2);
+                int[] grown = Arrays.copyOf(byBatchCode, length);
+                Arrays.fill(grown, byBatchCode.length, length, -2);
+                byBatchCode = grown;
+            }
+            if (byBatchCode[batchCode] == -2) {
+                byBatchCode[batchCode] = encode(dictionary.text(batchCode));
+            }
+            return byBatchCode[batchCode];
+        }
+
+        int encode(String text) {
+            if (text == null) {
+                return -1;
+            }
+            Integer code = codes.get(text);
+            if (code == null) {
+                code = entries.size();
+                codes.put(text, code);
+                entries.add(text.getBytes(StandardCharsets.UTF_8));
+            }
+            return code;
+        }
+    }
+
+    //Maps the snapshot and copies the numeric columns into arrays; text is left encoded behind a SnapshotDictionary
+    static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a risk register snapshot");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + header.getInt(4));
+            }
+            long sequence = header.getLong(8);
+            int rows = header.getInt(16);
+            int entries = header.getInt(20);
+            long textBytes = header.getLong(24);
+            if (sequence < 0 || rows < 0 || entries < 0 || textBytes < 0 || textBytes > Integer.MAX_VALUE) {
+                throw corrupt(path, "header");
+            }
+
+            long columnsStart = HEADER_SIZE;
+            long offsetsStart = columnsStart + 42L * rows + padding(2L * rows);
+            long textStart = offsetsStart + 8L * (entries + 1L);
+            if (textStart + textBytes != fileSize) {
+                throw new IOException("Snapshot " + path + " is truncated or corrupt");
+            }
+
+            long position = columnsStart;
+            double[] singleLossExpectancies = new double[rows];
+            map(channel, position, 8L * rows).asDoubleBuffer().get(singleLossExpectancies);
+            position += 8L * rows;
+            double[] annualisedRatesOfOccurrence = new double[rows];
+            map(channel, position, 8L * rows).asDoubleBuffer().get(annualisedRatesOfOccurrence);
+            position += 8L * rows;
+            double[] controlEffectiveness = new double[rows];
+            map(channel, position, 8L * rows).asDoubleBuffer().get(controlEffectiveness);
+            position += 8L * rows;
+            int[] impacts = new int[rows];
+            map(channel, position, 4L * rows).asIntBuffer().get(impacts);
+            position += 4L * rows;
+            int[] likelihoods = new int[rows];
+            map(channel, position, 4L * rows).asIntBuffer().get(likelihoods);
+            position += 4L * rows;
+            int[] threatCodes = new int[rows];
+            map(channel, position, 4L * rows).asIntBuffer().get(threatCodes);
+            position += 4L * rows;
+            int[] controlMeasureCodes = new int[rows];
+            map(channel, position, 4L * rows).asIntBuffer().get(controlMeasureCodes);
+            position += 4L * rows;
+            byte[] hipaaRules = new byte[rows];
+            map(channel, position, rows).get(hipaaRules);
+            position += rows;
+            byte[] rmfSteps = new byte[rows];
+            map(channel, position, rows).get(rmfSteps);
+            checkCodes(path, "threat", threatCodes, entries);
+            checkCodes(path, "control measures", controlMeasureCodes, entries);
+            checkOrdinals(path, "HIPAA rule", hipaaRules, HIPAA_RULE_COUNT);
+            checkOrdinals(path, "RMF step", rmfSteps, RMF_STEP_COUNT);
+
+            LongBuffer offsets = map(channel, offsetsStart, 8L * (entries + 1L)).asLongBuffer();
+            long previous = 0;
+            for (int entry = 0; entry <= entries; entry++) {
+                long offset = offsets.get(entry);
+                if (offset < previous || (entry == 0 && offset != 0) || (entry == entries && offset != textBytes)) {
+                    throw corrupt(path, "dictionary entry " + entry);
+                }
+                previous = offset;
+            }
+
+            //The mappings outlive the channel, so the dictionary keeps decoding after this returns
+            SnapshotDictionary dictionary = new SnapshotDictionary(offsets, map(channel, textStart, textBytes), entries);
+            RiskBatch batch = RiskBatch.encoded(rows, hipaaRules, rmfSteps, impacts, likelihoods, singleLossExpectancies,
+                    annualisedRatesOfOccurrence, controlEffectiveness, threatCodes, controlMeasureCodes, dictionary);
+            return new Snapshot(batch, sequence, fileSize);
+        }
+    }
+
+    private static void checkCodes(Path path, String column, int[] codes, int entries) throws IOException {
+        for (int row = 0; row < codes.length; row++) {
+            if (codes[row] < -1 || codes[row] >= entries) {
+                throw corrupt(path, column + " of row " + row);
+            }
+        }
+    }
+
+    private static void checkOrdinals(Path path, String column, byte[] ordinals, int count) throws IOException {
+        for (int row = 0; row < ordinals.length; row++) {
+            if (ordinals[row] < 0 || ordinals[row] >= count) {
+                throw corrupt(path, column + " of row " + row);
+            }
+        }
+    }
+
+    private static IOException corrupt(Path path, String what) {
+        return new IOException("Snapshot " + path + " is corrupt: bad " + what);
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot section at " + position + " is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    //Keeps the dictionary offsets 8-byte aligned after the two byte columns
+    private static int padding(long bytes) {
+        return (int) ((8 - (bytes & 7)) & 7);
+    }
+
+    record Snapshot(RiskBatch batch, long sequence, long bytes) {
+    }
+}
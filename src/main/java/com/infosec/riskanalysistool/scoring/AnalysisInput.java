@@ -0,0 +1,34 @@
+package com.infosec.riskanalysistool.scoring;
+
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+//Copy of the scoring inputs taken on the thread that owns the register, so the analysis can run in the
+//background while the register keeps changing. Text columns are left out; no derived metric depends on them.
+public record AnalysisInput(byte[] hipaaRules, byte[] rmfSteps, int[] impacts, int[] likelihoods, double[] singleLossExpectancies,
+                            double[] annualisedRatesOfOccurrence, double[] controlEffectiveness) {
+
+    //One bulk copy per column
+    public static AnalysisInput from(RiskRegister register) {
+        AnalysisInput input = empty(register.size());
+        register.copyScoringInputs(input.hipaaRules, input.rmfSteps, input.impacts, input.likelihoods, input.singleLossExpectancies,
+                input.annualisedRatesOfOccurrence, input.controlEffectiveness);
+        return input;
+    }
+
+    //Scoring inputs of risks that were never added to a register, such as an imported file scored headless
+    public static AnalysisInput from(RiskBatch batch) {
+        AnalysisInput input = empty(batch.size());
+        batch.copyScoringInputs(input.hipaaRules, input.rmfSteps, input.impacts, input.likelihoods, input.singleLossExpectancies,
+                input.annualisedRatesOfOccurrence, input.controlEffectiveness);
+        return input;
+    }
+
+    private static AnalysisInput empty(int size) {
+        return new AnalysisInput(new byte[size], new byte[size], new int[size], new int[size], new double[size], new double[size], new double[size]);
+    }
+
+    public int size() {
+        return impacts.length;
+    }
+}
@@ -0,0 +1,90 @@
+package com.infosec.riskanalysistool.scoring;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+
+//Immutable result of one RiskScorer run: the derived metrics of every row of the input and the
+//register totals built from them. The arrays are never handed out, so a published result can be read
+//from any thread while the next one is being computed.
+public final class RegisterAnalysis {
+    private static final RiskCategory[] CATEGORIES = RiskCategory.values();
+
+    private final long generation;
+    private final int[] riskPriorityNumbers;
+    private final double[] annualisedLossExpectancies;
+    private final double[] residualRisks;
+    private final byte[] categories;
+    private final short[] recommendationKeys;
+
+    private final double totalAnnualisedLossExpectancy;
+    private final double totalResidualRisk;
+    private final int[] categoryCounts;
+    private final double[] categoryAnnualisedLossExpectancies;
+    private final long computeNanos;
+
+    RegisterAnalysis(long generation, int[] riskPriorityNumbers, double[] annualisedLossExpectancies, double[] residualRisks,
+                     byte[] categories, short[] recommendationKeys, double totalAnnualisedLossExpectancy, double totalResidualRisk,
+                     int[] categoryCounts, double[] categoryAnnualisedLossExpectancies, long computeNanos) {
+        this.generation = generation;
+        this.riskPriorityNumbers = riskPriorityNumbers;
+        this.annualisedLossExpectancies = annualisedLossExpectancies;
+        this.residualRisks = residualRisks;
+        this.categories = categories;
+        this.recommendationKeys = recommendationKeys;
+        this.totalAnnualisedLossExpectancy = totalAnnualisedLossExpectancy;
+        this.totalResidualRisk = totalResidualRisk;
+        this.categoryCounts = categoryCounts;
+        this.categoryAnnualisedLossExpectancies = categoryAnnualisedLossExpectancies;
+        this.computeNanos = computeNanos;
+    }
+
+    //Increases with every submitted input; a result is current only if no later input has been submitted
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getRiskCount() {
+        return riskPriorityNumbers.length;
+    }
+
+    //Per-row metrics, indexed like the input
+    public int getRiskPriorityNumber(int row) {
+        return riskPriorityNumbers[row];
+    }
+
+    public double getAnnualisedLossExpectancy(int row) {
+        return annualisedLossExpectancies[row];
+    }
+
+    public double getResidualRisk(int row) {
+        return residualRisks[row];
+    }
+
+    public RiskCategory getCategory(int row) {
+        return CATEGORIES[categories[row]];
+    }
+
+    public int getRecommendationKey(int row) {
+        return recommendationKeys[row];
+    }
+
+    //Totals
+    public double getTotalAnnualisedLossExpectancy() {
+        return totalAnnualisedLossExpectancy;
+    }
+
+    public double getTotalResidualRisk() {
+        return totalResidualRisk;
+    }
+
+    public int getCategoryCount(RiskCategory category) {
+        return categoryCounts[category.ordinal()];
+    }
+
+    public double getCategoryAnnualisedLossExpectancy(RiskCategory category) {
+        return categoryAnnualisedLossExpectancies[category.ordinal()];
+    }
+
+    public long getComputeNanos() {
+        return computeNanos;
+    }
+}
@@ -0,0 +1,137 @@
+package com.infosec.riskanalysistool.scoring;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.RecommendationEngine;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskScoring;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+//Scores every row of an input on a fork/join pool: RPN, ALE, residual risk, category and recommendation, with
+//the register and per-category totals. Nothing here needs the FX toolkit, so batch jobs and other programs
+//can score registers without starting it; AnalysisService runs the same scoring for the UI.
+public class RiskScorer {
+    private static final int MIN_ROWS_PER_TASK = 8_192;
+    private static final int CATEGORY_COUNT = RiskCategory.values().length;
+
+    private final ForkJoinPool pool;
+
+    public RiskScorer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RiskScorer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public RegisterAnalysis score(AnalysisInput input) {
+        return score(input, 0, () -> false);
+    }
+
+    //Throws CancellationException at the next task boundary once cancelled returns true
+    public RegisterAnalysis score(AnalysisInput input, long generation, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        long timing = Operation.ANALYSIS.begin();
+        int size = input.size();
+        Columns columns = new Columns(size);
+        int threshold = Math.max(MIN_ROWS_PER_TASK, size / (pool.getParallelism() * 8));
+        ScoringTask task = new ScoringTask(input, columns, 0, size, threshold, cancelled);
+        //Rows too few to split are scored on the calling thread rather than waiting for a pool worker
+        Totals totals = size <= threshold ? task.compute() : pool.invoke(task);
+        Operation.ANALYSIS.end(timing, size);
+        return new RegisterAnalysis(generation, columns.riskPriorityNumbers, columns.annualisedLossExpectancies, columns.residualRisks,
+                columns.categories, columns.recommendationKeys, totals.annualisedLossExpectancy, totals.residualRisk,
+                totals.categoryCounts, totals.categoryAnnualisedLossExpectancies, System.nanoTime() - start);
+    }
+
+    //Output columns, written by disjoint row ranges
+    private static final class Columns {
+        final int[] riskPriorityNumbers;
+        final double[] annualisedLossExpectancies;
+        final double[] residualRisks;
+        final byte[] categories;
+        final short[] recommendationKeys;
+
+        Columns(int size) {
+            riskPriorityNumbers = new int[size];
+            annualisedLossExpectancies = new double[size];
+            residualRisks = new double[size];
+            categories = new byte[size];
+            recommendationKeys = new short[size];
+        }
+    }
+
+    private static final class Totals {
+        double annualisedLossExpectancy;
+        double residualRisk;
+        final int[] categoryCounts = new int[CATEGORY_COUNT];
+        final double[] categoryAnnualisedLossExpectancies = new double[CATEGORY_COUNT];
+
+        Totals merge(Totals other) {
+            annualisedLossExpectancy += other.annualisedLossExpectancy;
+            residualRisk += other.residualRisk;
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                categoryCounts[i] += other.categoryCounts[i];
+                categoryAnnualisedLossExpectancies[i] += other.categoryAnnualisedLossExpectancies[i];
+            }
+            return this;
+        }
+    }
+
+    private static final class ScoringTask extends RecursiveTask<Totals> {
+        private final AnalysisInput input;
+        private final Columns columns;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final BooleanSupplier cancelled;
+
+        ScoringTask(AnalysisInput input, Columns columns, int from, int to, int threshold, BooleanSupplier cancelled) {
+            this.input = input;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Analysis superseded");
+            }
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                ScoringTask left = new ScoringTask(input, columns, from, middle, threshold, cancelled);
+                left.fork();
+                Totals right = new ScoringTask(input, columns, middle, to, threshold, cancelled).compute();
+                return left.join().merge(right);
+            }
+
+            Totals totals = new Totals();
+            for (int row = from; row < to; row++) {
+                int impact = input.impacts()[row];
+                int likelihood = input.likelihoods()[row];
+                int rpn = RiskScoring.riskPriorityNumber(impact, likelihood);
+                double ale = RiskScoring.annualisedLossExpectancy(input.singleLossExpectancies()[row], input.annualisedRatesOfOccurrence()[row]);
+                double residualRisk = RiskScoring.residualRisk(rpn, input.controlEffectiveness()[row]);
+                int category = RiskCategory.fromRiskPriorityNumber(rpn).ordinal();
+
+                columns.riskPriorityNumbers[row] = rpn;
+                columns.annualisedLossExpectancies[row] = ale;
+                columns.residualRisks[row] = residualRisk;
+                columns.categories[row] = (byte) category;
+                columns.recommendationKeys[row] = (short) RecommendationEngine.key(impact, likelihood, ale, input.hipaaRules()[row], input.rmfSteps()[row]);
+
+                totals.annualisedLossExpectancy += ale;
+                totals.residualRisk += residualRisk;
+                totals.categoryCounts[category]++;
+                totals.categoryAnnualisedLossExpectancies[category] += ale;
+            }
+            return totals;
+        }
+    }
+}
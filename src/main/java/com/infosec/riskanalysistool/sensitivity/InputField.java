@@ -0,0 +1,30 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+import com.infosec.riskanalysistool.analysis.RankingMetric;
+
+//Risk inputs a sensitivity analysis moves, each with the portfolio measure it drives: SLE and ARO drive ALE,
+//and impact, likelihood and control effectiveness drive residual risk
+public enum InputField {
+    SINGLE_LOSS_EXPECTANCY("SLE", RankingMetric.ANNUALISED_LOSS_EXPECTANCY),
+    ANNUALISED_RATE_OF_OCCURRENCE("ARO", RankingMetric.ANNUALISED_LOSS_EXPECTANCY),
+    IMPACT("Impact", RankingMetric.RESIDUAL_RISK),
+    LIKELIHOOD("Likelihood", RankingMetric.RESIDUAL_RISK),
+    CONTROL_EFFECTIVENESS("Control effectiveness", RankingMetric.RESIDUAL_RISK);
+
+    private final String label;
+    private final RankingMetric metric;
+
+    InputField(String label, RankingMetric metric) {
+        this.label = label;
+        this.metric = metric;
+    }
+
+    public RankingMetric getMetric() {
+        return metric;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,38 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+//How far each input is moved down and up. SLE and ARO move by a fraction of their value (0.2 for +/-20%);
+//impact and likelihood move by whole points within 1-10, and control effectiveness by percentage points
+//within 0-100. topRisks is how many individual risks are kept per input for ranking.
+public record SensitivityConfig(double sleSwing, double aroSwing, int impactSwing, int likelihoodSwing,
+                                double effectivenessSwing, int topRisks) {
+
+    public SensitivityConfig {
+        if (!(sleSwing >= 0 && sleSwing <= 1) || !(aroSwing >= 0 && aroSwing <= 1)) {
+            throw new IllegalArgumentException("SLE and ARO swings must be between 0 and 1: " + sleSwing + ", " + aroSwing);
+        }
+        if (impactSwing < 0 || impactSwing > 9 || likelihoodSwing < 0 || likelihoodSwing > 9) {
+            throw new IllegalArgumentException("Impact and likelihood swings must be between 0 and 9: " + impactSwing + ", " + likelihoodSwing);
+        }
+        if (!(effectivenessSwing >= 0 && effectivenessSwing <= 100)) {
+            throw new IllegalArgumentException("Control effectiveness swing must be between 0 and 100: " + effectivenessSwing);
+        }
+        if (topRisks < 1) {
+            throw new IllegalArgumentException("Top risks must be positive: " + topRisks);
+        }
+    }
+
+    public static SensitivityConfig defaults() {
+        return new SensitivityConfig(0.2, 0.2, 1, 1, 15, 50);
+    }
+
+    //The swing as it reads on a chart, e.g. "ARO +/-20%"
+    public String describe(InputField field) {
+        return switch (field) {
+            case SINGLE_LOSS_EXPECTANCY -> String.format("%s \u00b1%.0f%%", field, sleSwing * 100);
+            case ANNUALISED_RATE_OF_OCCURRENCE -> String.format("%s \u00b1%.0f%%", field, aroSwing * 100);
+            case IMPACT -> String.format("%s \u00b1%d", field, impactSwing);
+            case LIKELIHOOD -> String.format("%s \u00b1%d", field, likelihoodSwing);
+            case CONTROL_EFFECTIVENESS -> String.format("%s \u00b1%.0f points", field, effectivenessSwing);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+//One input moved down and up for one group of risks, with the portfolio measure it drives at each end
+public record SensitivityDriver(String label, InputField field, double low, double high) {
+
+    //Spread between the two ends; tornado charts are ordered by it
+    public double swing() {
+        return Math.abs(high - low);
+    }
+}
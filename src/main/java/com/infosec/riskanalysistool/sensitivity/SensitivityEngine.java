@@ -0,0 +1,240 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+import com.infosec.riskanalysistool.analysis.RankingMetric;
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskScoring;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+//Parallel one-at-a-time sensitivity analysis of portfolio ALE and residual risk.
+//Both measures are sums of per-risk terms, so moving an input for a group of risks changes the total by the
+//sum of each risk's own change, clamping included. One pass over the register works out every risk's change
+//at both ends of each input's swing and adds it to the whole register, the risk's HIPAA rule, RMF step and
+//category, instead of totalling the register again for each of the many thousand perturbations. The pass
+//is split over the primitive columns with fork/join; each task adds into its own arrays and keeps its own
+//top risks per input, and the tasks' results are merged as they join.
+public class SensitivityEngine {
+    private static final int MIN_RISKS_PER_TASK = 4_096;
+    private static final InputField[] FIELDS = InputField.values();
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final RiskCategory[] CATEGORIES = RiskCategory.values();
+
+    //Group indexes: the whole register, then each HIPAA rule, RMF step and category
+    private static final int FIRST_HIPAA_RULE = 1;
+    private static final int FIRST_RMF_STEP = FIRST_HIPAA_RULE + HIPAA_RULES.length;
+    private static final int FIRST_CATEGORY = FIRST_RMF_STEP + RMF_STEPS.length;
+    private static final int GROUPS = FIRST_CATEGORY + CATEGORIES.length;
+
+    private static final int SLE = InputField.SINGLE_LOSS_EXPECTANCY.ordinal();
+    private static final int ARO = InputField.ANNUALISED_RATE_OF_OCCURRENCE.ordinal();
+    private static final int IMPACT = InputField.IMPACT.ordinal();
+    private static final int LIKELIHOOD = InputField.LIKELIHOOD.ordinal();
+    private static final int EFFECTIVENESS = InputField.CONTROL_EFFECTIVENESS.ordinal();
+
+    private final ForkJoinPool pool;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public SensitivityEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public SensitivityEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //Stops a running analysis at the next task boundary; run() then throws CancellationException
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public SensitivityResult run(SensitivityInput input, SensitivityConfig config) {
+        cancelled.set(false);
+        long start = Operation.SENSITIVITY.begin();
+        long started = System.nanoTime();
+        int threshold = Math.max(MIN_RISKS_PER_TASK, input.size() / (pool.getParallelism() * 8));
+        Totals totals = pool.invoke(new TotalsTask(input, config, 0, input.size(), threshold));
+        if (cancelled.get()) {
+            throw new CancellationException("Sensitivity analysis cancelled");
+        }
+
+        EnumMap<SensitivityLevel, List<SensitivityDriver>> drivers = new EnumMap<>(SensitivityLevel.class);
+        drivers.put(SensitivityLevel.REGISTER, groupDrivers(totals, config, 0, 1, group -> "All risks"));
+        drivers.put(SensitivityLevel.HIPAA_RULE, groupDrivers(totals, config, FIRST_HIPAA_RULE, HIPAA_RULES.length,
+                group -> HIPAA_RULES[group].toString()));
+        drivers.put(SensitivityLevel.RMF_STEP, groupDrivers(totals, config, FIRST_RMF_STEP, RMF_STEPS.length,
+                group -> RMF_STEPS[group].toString()));
+        drivers.put(SensitivityLevel.CATEGORY, groupDrivers(totals, config, FIRST_CATEGORY, CATEGORIES.length,
+                group -> CATEGORIES[group].toString()));
+        drivers.put(SensitivityLevel.RISK, riskDrivers(totals, input, config));
+
+        long elapsed = System.nanoTime() - started;
+        Operation.SENSITIVITY.end(start, input.size());
+        return new SensitivityResult(config, input.size(), totals.annualisedLossExpectancy, totals.residualRisk, drivers, elapsed);
+    }
+
+    private static List<SensitivityDriver> groupDrivers(Totals totals, SensitivityConfig config, int first, int count, IntFunction<String> name) {
+        List<SensitivityDriver> drivers = new ArrayList<>();
+        for (int group = 0; group < count; group++) {
+            for (InputField field : FIELDS) {
+                int at = (first + group) * FIELDS.length + field.ordinal();
+                double base = totals.base(field);
+                drivers.add(new SensitivityDriver(name.apply(group) + ": " + config.describe(field), field,
+                        base + totals.downDeltas[at], base + totals.upDeltas[at]));
+            }
+        }
+        return ranked(drivers);
+    }
+
+    //The few risks kept per input are worked out again here, which is cheaper than carrying their values
+    //through every merge
+    private static List<SensitivityDriver> riskDrivers(Totals totals, SensitivityInput input, SensitivityConfig config) {
+        List<SensitivityDriver> drivers = new ArrayList<>();
+        double[] down = new double[FIELDS.length];
+        double[] up = new double[FIELDS.length];
+        for (InputField field : FIELDS) {
+            SwingHeap top = totals.topRisks[field.ordinal()];
+            double base = totals.base(field);
+            for (int i = 0; i < top.size(); i++) {
+                int row = top.row(i);
+                deltas(input, config, row, down, up);
+                drivers.add(new SensitivityDriver(input.threat(row) + " (#" + (row + 1) + "): " + config.describe(field), field,
+                        base + down[field.ordinal()], base + up[field.ordinal()]));
+            }
+        }
+        return ranked(drivers);
+    }
+
+    private static List<SensitivityDriver> ranked(List<SensitivityDriver> drivers) {
+        return drivers.stream()
+                .filter(driver -> driver.swing() > 0)
+                .sorted(Comparator.comparingDouble(SensitivityDriver::swing).reversed())
+                .toList();
+    }
+
+    //Change in the risk's ALE or residual risk with each input moved down and up by its swing
+    private static void deltas(SensitivityInput input, SensitivityConfig config, int row, double[] down, double[] up) {
+        double ale = RiskScoring.annualisedLossExpectancy(input.singleLossExpectancies()[row], input.annualisedRatesOfOccurrence()[row]);
+        int impact = input.impacts()[row];
+        int likelihood = input.likelihoods()[row];
+        double effectiveness = input.controlEffectiveness()[row];
+        double residualRisk = RiskScoring.residualRisk(impact, likelihood, effectiveness);
+
+        down[SLE] = -config.sleSwing() * ale;
+        up[SLE] = config.sleSwing() * ale;
+        down[ARO] = -config.aroSwing() * ale;
+        up[ARO] = config.aroSwing() * ale;
+        down[IMPACT] = RiskScoring.residualRisk(Math.max(1, impact - config.impactSwing()), likelihood, effectiveness) - residualRisk;
+        up[IMPACT] = RiskScoring.residualRisk(Math.min(10, impact + config.impactSwing()), likelihood, effectiveness) - residualRisk;
+        down[LIKELIHOOD] = RiskScoring.residualRisk(impact, Math.max(1, likelihood - config.likelihoodSwing()), effectiveness) - residualRisk;
+        up[LIKELIHOOD] = RiskScoring.residualRisk(impact, Math.min(10, likelihood + config.likelihoodSwing()), effectiveness) - residualRisk;
+        //Less effective controls leave more residual risk
+        down[EFFECTIVENESS] = RiskScoring.residualRisk(impact, likelihood, Math.max(0, effectiveness - config.effectivenessSwing())) - residualRisk;
+        up[EFFECTIVENESS] = RiskScoring.residualRisk(impact, likelihood, Math.min(100, effectiveness + config.effectivenessSwing())) - residualRisk;
+    }
+
+    //Sums over a range of rows: the base measures, each group's change per input at both ends, and the
+    //risks with the largest swing per input
+    private static final class Totals {
+        double annualisedLossExpectancy;
+        double residualRisk;
+        final double[] downDeltas = new double[GROUPS * FIELDS.length];
+        final double[] upDeltas = new double[GROUPS * FIELDS.length];
+        final SwingHeap[] topRisks = new SwingHeap[FIELDS.length];
+
+        Totals(int topRiskCount) {
+            for (int field = 0; field < FIELDS.length; field++) {
+                topRisks[field] = new SwingHeap(topRiskCount);
+            }
+        }
+
+        double base(InputField field) {
+            return field.getMetric() == RankingMetric.ANNUALISED_LOSS_EXPECTANCY
+                    ? annualisedLossExpectancy : residualRisk;
+        }
+
+        void add(Totals other) {
+            annualisedLossExpectancy += other.annualisedLossExpectancy;
+            residualRisk += other.residualRisk;
+            for (int i = 0; i < downDeltas.length; i++) {
+                downDeltas[i] += other.downDeltas[i];
+                upDeltas[i] += other.upDeltas[i];
+            }
+            for (int field = 0; field < FIELDS.length; field++) {
+                topRisks[field].addAll(other.topRisks[field]);
+            }
+        }
+    }
+
+    private final class TotalsTask extends RecursiveTask<Totals> {
+        private final SensitivityInput input;
+        private final SensitivityConfig config;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        TotalsTask(SensitivityInput input, SensitivityConfig config, int from, int to, int threshold) {
+            this.input = input;
+            this.config = config;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > threshold && !cancelled.get()) {
+                int mid = (from + to) >>> 1;
+                TotalsTask right = new TotalsTask(input, config, mid, to, threshold);
+                right.fork();
+                Totals totals = new TotalsTask(input, config, from, mid, threshold).compute();
+                totals.add(right.join());
+                return totals;
+            }
+
+            Totals totals = new Totals(config.topRisks());
+            if (cancelled.get()) {
+                return totals;
+            }
+            double[] down = new double[FIELDS.length];
+            double[] up = new double[FIELDS.length];
+            byte[] hipaaRules = input.hipaaRules();
+            byte[] rmfSteps = input.rmfSteps();
+            int fields = FIELDS.length;
+            for (int row = from; row < to; row++) {
+                deltas(input, config, row, down, up);
+                int impact = input.impacts()[row];
+                int likelihood = input.likelihoods()[row];
+                totals.annualisedLossExpectancy += RiskScoring.annualisedLossExpectancy(input.singleLossExpectancies()[row], input.annualisedRatesOfOccurrence()[row]);
+                totals.residualRisk += RiskScoring.residualRisk(impact, likelihood, input.controlEffectiveness()[row]);
+
+                int hipaaRule = (FIRST_HIPAA_RULE + hipaaRules[row]) * fields;
+                int rmfStep = (FIRST_RMF_STEP + rmfSteps[row]) * fields;
+                int category = (FIRST_CATEGORY + RiskCategory.of(impact, likelihood).ordinal()) * fields;
+                for (int field = 0; field < fields; field++) {
+                    totals.downDeltas[field] += down[field];
+                    totals.upDeltas[field] += up[field];
+                    totals.downDeltas[hipaaRule + field] += down[field];
+                    totals.upDeltas[hipaaRule + field] += up[field];
+                    totals.downDeltas[rmfStep + field] += down[field];
+                    totals.upDeltas[rmfStep + field] += up[field];
+                    totals.downDeltas[category + field] += down[field];
+                    totals.upDeltas[category + field] += up[field];
+                    totals.topRisks[field].offer(row, Math.abs(up[field] - down[field]));
+                }
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.TextDictionary;
+
+//Copy of the columns a sensitivity analysis reads, taken on the thread that owns the register so the
+//analysis can run in the background while the register keeps changing. Threats stay encoded against a
+//frozen dictionary, since only the risks that make the chart are ever named.
+public record SensitivityInput(int[] threatCodes, TextDictionary dictionary, byte[] hipaaRules, byte[] rmfSteps,
+                               int[] impacts, int[] likelihoods, double[] singleLossExpectancies,
+                               double[] annualisedRatesOfOccurrence, double[] controlEffectiveness) {
+
+    public static SensitivityInput from(RiskRegister register) {
+        int size = register.size();
+        int[] threatCodes = new int[size];
+        byte[] hipaaRules = new byte[size];
+        byte[] rmfSteps = new byte[size];
+        int[] impacts = new int[size];
+        int[] likelihoods = new int[size];
+        double[] sle = new double[size];
+        double[] aro = new double[size];
+        double[] effectiveness = new double[size];
+        for (int row = 0; row < size; row++) {
+            threatCodes[row] = register.getThreatCode(row);
+            hipaaRules[row] = (byte) register.getHipaaRule(row).ordinal();
+            rmfSteps[row] = (byte) register.getRmfStep(row).ordinal();
+            impacts[row] = register.getImpact(row);
+            likelihoods[row] = register.getLikelihood(row);
+            sle[row] = register.getSingleLossExpectancy(row);
+            aro[row] = register.getAnnualisedRateOfOccurrence(row);
+            effectiveness[row] = register.getControlEffectiveness(row);
+        }
+        return new SensitivityInput(threatCodes, register.getDictionary().freeze(), hipaaRules, rmfSteps, impacts, likelihoods,
+                sle, aro, effectiveness);
+    }
+
+    public int size() {
+        return impacts.length;
+    }
+
+    public String threat(int row) {
+        return dictionary.text(threatCodes[row]);
+    }
+}
@@ -0,0 +1,21 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+//Which risks an input is moved for at once: all of them, those in one facet value, or one risk at a time
+public enum SensitivityLevel {
+    REGISTER("Whole register"),
+    HIPAA_RULE("HIPAA rule"),
+    RMF_STEP("RMF step"),
+    CATEGORY("Category"),
+    RISK("Individual risks");
+
+    private final String label;
+
+    SensitivityLevel(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,54 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+import com.infosec.riskanalysistool.analysis.RankingMetric;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+//Portfolio ALE and residual risk as the register stands, and how far each input moves them for each group
+public final class SensitivityResult {
+    private final SensitivityConfig config;
+    private final int riskCount;
+    private final double baseAnnualisedLossExpectancy;
+    private final double baseResidualRisk;
+    //Largest swing first
+    private final Map<SensitivityLevel, List<SensitivityDriver>> drivers;
+    private final long elapsedNanos;
+
+    SensitivityResult(SensitivityConfig config, int riskCount, double baseAnnualisedLossExpectancy, double baseResidualRisk,
+                      EnumMap<SensitivityLevel, List<SensitivityDriver>> drivers, long elapsedNanos) {
+        this.config = config;
+        this.riskCount = riskCount;
+        this.baseAnnualisedLossExpectancy = baseAnnualisedLossExpectancy;
+        this.baseResidualRisk = baseResidualRisk;
+        this.drivers = drivers;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public SensitivityConfig getConfig() {
+        return config;
+    }
+
+    public int getRiskCount() {
+        return riskCount;
+    }
+
+    //The measure with every input as it is
+    public double base(RankingMetric metric) {
+        return metric == RankingMetric.ANNUALISED_LOSS_EXPECTANCY ? baseAnnualisedLossExpectancy : baseResidualRisk;
+    }
+
+    //The inputs that move the measure most at this level, largest swing first; inputs that do not move it
+    //at all are left out
+    public List<SensitivityDriver> drivers(SensitivityLevel level, RankingMetric metric, int limit) {
+        return drivers.get(level).stream()
+                .filter(driver -> driver.field().getMetric() == metric)
+                .limit(limit)
+                .toList();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
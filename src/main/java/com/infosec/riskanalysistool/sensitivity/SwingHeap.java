@@ -0,0 +1,64 @@
+package com.infosec.riskanalysistool.sensitivity;
+
+//The rows with the largest swings seen so far, up to a fixed number, in a min-heap on swing so a row that
+//does not make the cut costs one comparison
+final class SwingHeap {
+    private final int[] rows;
+    private final double[] swings;
+    private int size;
+
+    SwingHeap(int capacity) {
+        rows = new int[capacity];
+        swings = new double[capacity];
+    }
+
+    void offer(int row, double swing) {
+        if (!(swing > 0)) {
+            return;
+        }
+        if (size < rows.length) {
+            int at = size++;
+            while (at > 0 && swings[(at - 1) / 2] > swing) {
+                rows[at] = rows[(at - 1) / 2];
+                swings[at] = swings[(at - 1) / 2];
+                at = (at - 1) / 2;
+            }
+            rows[at] = row;
+            swings[at] = swing;
+        } else if (swing > swings[0]) {
+            int at = 0;
+            while (true) {
+                int child = at * 2 + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && swings[child + 1] < swings[child]) {
+                    child++;
+                }
+                if (swings[child] >= swing) {
+                    break;
+                }
+                rows[at] = rows[child];
+                swings[at] = swings[child];
+                at = child;
+            }
+            rows[at] = row;
+            swings[at] = swing;
+        }
+    }
+
+    void addAll(SwingHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.rows[i], other.swings[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    //In no particular order
+    int row(int index) {
+        return rows[index];
+    }
+}
@@ -0,0 +1,144 @@
+package com.infosec.riskanalysistool.service;
+
+import com.infosec.riskanalysistool.model.RecommendationEngine;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.scoring.RegisterAnalysis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//Writes scores and errors as JSON straight into a reusable byte array. Every recommendation text and category
+//name is escaped and encoded once, so a row only costs its threat and numbers. Output is plain ASCII, with any
+//other character in a threat written as a JSON unicode escape.
+final class ScoreWriter {
+    private static final byte[][] RECOMMENDATIONS = recommendations();
+    private static final byte[][] CATEGORIES = categories();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] bytes = new byte[4_096];
+    private int length;
+
+    //line is left out when it is 0
+    void score(long line, RiskBatch risks, RegisterAnalysis analysis, int row) {
+        append('{');
+        if (line > 0) {
+            append("\"line\":").append(Long.toString(line)).append(',');
+        }
+        append("\"threat\":").appendString(risks.getThreat(row))
+                .append(",\"rpn\":").append(Integer.toString(analysis.getRiskPriorityNumber(row)))
+                .append(",\"category\":").append(CATEGORIES[analysis.getCategory(row).ordinal()])
+                .append(",\"ale\":").append(Double.toString(analysis.getAnnualisedLossExpectancy(row)))
+                .append(",\"residualRisk\":").append(Double.toString(analysis.getResidualRisk(row)))
+                .append(",\"recommendation\":").append(RECOMMENDATIONS[analysis.getRecommendationKey(row)])
+                .append('}');
+    }
+
+    void error(long line, String message) {
+        append('{');
+        if (line > 0) {
+            append("\"line\":").append(Long.toString(line)).append(',');
+        }
+        append("\"error\":").appendString(message).append('}');
+    }
+
+    void newline() {
+        append('\n');
+    }
+
+    int length() {
+        return length;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    private ScoreWriter append(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+        return this;
+    }
+
+    //For text already known to be ASCII with nothing to escape
+    private ScoreWriter append(String ascii) {
+        ensureCapacity(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            bytes[length++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    private ScoreWriter append(byte[] encoded) {
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+        return this;
+    }
+
+    private ScoreWriter appendString(String value) {
+        ensureCapacity(value.length() * 6 + 2);
+        length = escape(value, bytes, length);
+        return this;
+    }
+
+    private void ensureCapacity(int more) {
+        if (length + more > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length + more, bytes.length * 2));
+        }
+    }
+
+    //Writes value as a quoted JSON string at pos, which must have room for six bytes per char and the quotes
+    private static int escape(String value, byte[] out, int pos) {
+        out[pos++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out[pos++] = '\\';
+                out[pos++] = (byte) c;
+            } else if (c == '\n') {
+                out[pos++] = '\\';
+                out[pos++] = 'n';
+            } else if (c >= 0x20 && c < 0x7F) {
+                out[pos++] = (byte) c;
+            } else {
+                out[pos++] = '\\';
+                out[pos++] = 'u';
+                out[pos++] = HEX[c >>> 12];
+                out[pos++] = HEX[(c >>> 8) & 0xF];
+                out[pos++] = HEX[(c >>> 4) & 0xF];
+                out[pos++] = HEX[c & 0xF];
+            }
+        }
+        out[pos++] = '"';
+        return pos;
+    }
+
+    private static byte[] encode(String value) {
+        byte[] out = new byte[value.length() * 6 + 2];
+        return Arrays.copyOf(out, escape(value, out, 0));
+    }
+
+    private static byte[][] recommendations() {
+        byte[][] encoded = new byte[RecommendationEngine.KEY_COUNT][];
+        for (int key = 0; key < encoded.length; key++) {
+            encoded[key] = encode(RecommendationEngine.recommendation(key));
+        }
+        return encoded;
+    }
+
+    private static byte[][] categories() {
+        RiskCategory[] values = RiskCategory.values();
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = encode(values[i].toString());
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,186 @@
+package com.infosec.riskanalysistool.service;
+
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.io.ImportError;
+import com.infosec.riskanalysistool.io.JsonLinesReader;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.scoring.AnalysisInput;
+import com.infosec.riskanalysistool.scoring.RegisterAnalysis;
+import com.infosec.riskanalysistool.scoring.RiskScorer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Scores risks over HTTP for other programs on this machine; it listens on the loopback address only.
+//
+//    POST /score         one risk as a JSON object; answered with its scores as a JSON object
+//    POST /score/batch   JSON Lines, one risk per line; answered with JSON Lines, one line per risk in order
+//
+//Risks are written as for "Import Risks..." and scored by RiskScorer with the register's formulas. Each
+//request runs on its own virtual thread, so thousands of slow or idle clients cost little more than their
+//connections. A batch is read, scored and answered a block of lines at a time, so it can be any length
+//without being held in memory, and answers are written straight into bytes by ScoreWriter.
+public class ScoringServer implements AutoCloseable {
+    private static final String JSON = "application/json";
+    private static final String JSON_LINES = "application/x-ndjson";
+
+    private static final int BACKLOG = 4_096;
+    //The body of a single risk is read whole; a risk is far shorter than this
+    private static final int MAX_SINGLE_BODY = 1 << 16;
+
+    //Keep-alive connections kept open between requests
+    private static final int MAX_IDLE_CONNECTIONS = 16_384;
+
+    private final RiskScorer scorer = new RiskScorer();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    //Tunes the JDK's HTTP server for many clients. Its settings are system properties, read once when the first
+    //server in the JVM is made, so this is left to programs that run nothing but this server and is called
+    //before start(); a server embedded elsewhere keeps the defaults. The defaults suit a few clients: without
+    //TCP_NODELAY a body written after its headers waits for the client's delayed ACK, about 40 ms a request,
+    //and past 200 idle keep-alive connections it closes them. Settings given with -D are kept.
+    public static void configureForManyClients() {
+        defaultProperty("sun.net.httpserver.nodelay", "true");
+        defaultProperty("sun.net.httpserver.maxIdleConnections", Integer.toString(MAX_IDLE_CONNECTIONS));
+    }
+
+    //Listens on the port on the loopback address; port 0 picks a free port. Returns the port listened on.
+    public synchronized int start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Already started");
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/score", this::handle);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = Operation.SCORING_REQUEST.begin();
+        int risks = 0;
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            boolean batch = path.equals("/score/batch");
+            if (!batch && !path.equals("/score")) {
+                respond(exchange, 404, "No such endpoint: " + path);
+            } else if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "Risks must be sent with POST");
+            } else {
+                risks = batch ? scoreBatch(exchange) : scoreOne(exchange);
+            }
+        } finally {
+            Operation.SCORING_REQUEST.end(start, risks);
+        }
+    }
+
+    private int scoreOne(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_SINGLE_BODY + 1);
+        if (body.length > MAX_SINGLE_BODY) {
+            respond(exchange, 413, "A single risk must be under " + MAX_SINGLE_BODY + " bytes; use /score/batch for more");
+            return 0;
+        }
+        JsonLinesReader reader = new JsonLinesReader(new ByteArrayInputStream(body), body.length + 1);
+        JsonLinesReader.Block block = reader.next();
+        if (block == null || reader.next() != null || block.batch().size() + block.errors().size() != 1) {
+            respond(exchange, 400, "Expected one risk as a JSON object; use /score/batch for more");
+            return 0;
+        }
+        if (!block.errors().isEmpty()) {
+            respond(exchange, 400, block.errors().get(0).message());
+            return 0;
+        }
+
+        RegisterAnalysis analysis = scorer.score(AnalysisInput.from(block.batch()));
+        ScoreWriter writer = new ScoreWriter();
+        writer.score(0, block.batch(), analysis, 0);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, writer.length());
+        try (OutputStream out = exchange.getResponseBody()) {
+            writer.writeTo(out);
+        }
+        return 1;
+    }
+
+    //Rejected lines are answered in place with their error, so the answer has a line for every risk sent
+    private int scoreBatch(HttpExchange exchange) throws IOException {
+        JsonLinesReader reader = new JsonLinesReader(exchange.getRequestBody());
+        ScoreWriter writer = new ScoreWriter();
+        int scored = 0;
+        exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), JsonLinesReader.DEFAULT_BLOCK_SIZE)) {
+            try {
+                for (JsonLinesReader.Block block = reader.next(); block != null; block = reader.next()) {
+                    RiskBatch risks = block.batch();
+                    RegisterAnalysis analysis = scorer.score(AnalysisInput.from(risks));
+                    List<ImportError> errors = block.errors();
+                    int error = 0;
+                    for (int row = 0; row < risks.size(); row++) {
+                        long line = block.rowLine(row);
+                        for (; error < errors.size() && errors.get(error).line() < line; error++) {
+                            writeError(writer, errors.get(error));
+                        }
+                        writer.score(line, risks, analysis, row);
+                        writer.newline();
+                    }
+                    for (; error < errors.size(); error++) {
+                        writeError(writer, errors.get(error));
+                    }
+                    writer.writeTo(out);
+                    writer.reset();
+                    scored += risks.size();
+                }
+            } catch (IOException e) {
+                //The status has been sent, so a line that cannot be read ends the answer with an error instead
+                writer.reset();
+                writer.error(0, e.getMessage());
+                writer.newline();
+                writer.writeTo(out);
+            }
+        }
+        return scored;
+    }
+
+    private static void defaultProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    private static void writeError(ScoreWriter writer, ImportError error) {
+        writer.error(error.line(), error.message());
+        writer.newline();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        ScoreWriter writer = new ScoreWriter();
+        writer.error(0, message);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, writer.length());
+        try (OutputStream out = exchange.getResponseBody()) {
+            writer.writeTo(out);
+        }
+    }
+}
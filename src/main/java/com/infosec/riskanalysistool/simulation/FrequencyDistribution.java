@@ -0,0 +1,6 @@
+package com.infosec.riskanalysistool.simulation;
+
+//How many loss events a risk produces per simulated year, with the ARO as the mean
+public enum FrequencyDistribution {
+    POISSON, NEGATIVE_BINOMIAL
+}
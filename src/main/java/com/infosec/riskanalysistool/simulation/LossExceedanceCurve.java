@@ -0,0 +1,8 @@
+package com.infosec.riskanalysistool.simulation;
+
+//Probability that the annual portfolio loss exceeds losses[i] is exceedanceProbabilities[i]
+public record LossExceedanceCurve(double[] losses, double[] exceedanceProbabilities) {
+    public int size() {
+        return losses.length;
+    }
+}
@@ -0,0 +1,233 @@
+package com.infosec.riskanalysistool.simulation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Parallel Monte Carlo ALE simulation.
+//Every risk is modelled as a compound distribution: an event count with the ARO as mean and a per-event
+//loss equal to the SLE times a unit severity draw. Work is split with fork/join and every subtask gets its
+//own SplittableRandom split from its parent, so a run is reproducible for a given seed and pool size.
+//
+//Portfolio pass: the sum of independent Poisson counts is Poisson with the summed ARO, so each trial draws
+//one total count and assigns events to risks through an alias table weighted by ARO. Cost per trial is the
+//number of events, not the register size. The negative binomial is a Poisson-gamma mixture; in this pass
+//the gamma shock is shared across the portfolio in each trial, which keeps every risk's marginal negative
+//binomial but makes frequencies move together (a common-cause year).
+//
+//Per-risk pass: every risk is simulated on its own for perRiskTrials trials to get its VaR and TVaR.
+public class MonteCarloEngine {
+    private static final int MIN_TRIALS_PER_TASK = 2_048;
+    private static final int MIN_RISKS_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public MonteCarloEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MonteCarloEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //Stops a running simulation at the next task boundary; run() then throws CancellationException
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    //Clears an earlier cancel. Called when a run is submitted rather than by run() itself, so a cancel made
+    //before the run gets going still stops it.
+    public void resetCancel() {
+        cancelled.set(false);
+    }
+
+    public SimulationResult run(SimulationInput input, SimulationConfig config) {
+        Model model = new Model(input, config);
+        SplittableRandom root = new SplittableRandom(config.seed());
+
+        long start = System.nanoTime();
+        double[] portfolioLosses = new double[config.trials()];
+        if (model.totalRate > 0) {
+            int threshold = Math.max(MIN_TRIALS_PER_TASK, config.trials() / (pool.getParallelism() * 8));
+            pool.invoke(new PortfolioTask(model, portfolioLosses, 0, config.trials(), threshold, root.split()));
+        }
+        checkCancelled();
+        Arrays.parallelSort(portfolioLosses);
+        long portfolioNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int risks = input.size();
+        double[] means = new double[risks];
+        double[] valueAtRisk = new double[risks];
+        double[] tailValueAtRisk = new double[risks];
+        if (risks > 0) {
+            int threshold = Math.max(MIN_RISKS_PER_TASK, risks / (pool.getParallelism() * 8));
+            pool.invoke(new PerRiskTask(model, means, valueAtRisk, tailValueAtRisk, 0, risks, threshold, root.split()));
+        }
+        checkCancelled();
+        long perRiskNanos = System.nanoTime() - start;
+
+        return new SimulationResult(config, portfolioLosses, means, valueAtRisk, tailValueAtRisk, portfolioNanos, perRiskNanos);
+    }
+
+    private void checkCancelled() {
+        if (cancelled.get()) {
+            throw new CancellationException("Simulation cancelled");
+        }
+    }
+
+    //Read-only parameters shared by all tasks
+    private static final class Model {
+        final SimulationConfig config;
+        final double[] sle;
+        final double[] aro;
+        final double totalRate;
+        final AliasTable eventRisk;
+        final double gammaShape;
+        final double pertAlpha;
+        final double pertBeta;
+
+        Model(SimulationInput input, SimulationConfig config) {
+            this.config = config;
+            this.sle = input.singleLossExpectancies();
+            this.aro = input.annualisedRatesOfOccurrence();
+
+            double[] weights = new double[aro.length];
+            double total = 0;
+            for (int i = 0; i < aro.length; i++) {
+                //Risks that cannot lose money never need to be drawn
+                weights[i] = sle[i] > 0 && aro[i] > 0 ? aro[i] : 0;
+                total += weights[i];
+            }
+            this.totalRate = total;
+            this.eventRisk = total > 0 ? new AliasTable(weights) : null;
+
+            this.gammaShape = 1 / config.dispersion();
+            double range = config.pertMaxFactor() - config.pertMinFactor();
+            this.pertAlpha = 1 + 4 * (1 - config.pertMinFactor()) / range;
+            this.pertBeta = 1 + 4 * (config.pertMaxFactor() - 1) / range;
+        }
+
+        int eventCount(SplittableRandom random, double rate) {
+            if (config.frequency() == FrequencyDistribution.NEGATIVE_BINOMIAL) {
+                rate *= Sampling.gamma(random, gammaShape) / gammaShape;
+            }
+            return Sampling.poisson(random, rate);
+        }
+
+        double unitSeverity(SplittableRandom random) {
+            if (config.severity() == SeverityDistribution.PERT) {
+                double min = config.pertMinFactor();
+                return min + (config.pertMaxFactor() - min) * Sampling.beta(random, pertAlpha, pertBeta);
+            }
+            return Sampling.unitLognormal(random, config.lognormalSigma());
+        }
+    }
+
+    private final class PortfolioTask extends RecursiveAction {
+        private final Model model;
+        private final double[] losses;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final SplittableRandom random;
+
+        PortfolioTask(Model model, double[] losses, int from, int to, int threshold, SplittableRandom random) {
+            this.model = model;
+            this.losses = losses;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) {
+                return;
+            }
+            if (to - from > threshold) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PortfolioTask(model, losses, from, mid, threshold, random.split()),
+                        new PortfolioTask(model, losses, mid, to, threshold, random.split()));
+                return;
+            }
+
+            for (int trial = from; trial < to; trial++) {
+                int events = model.eventCount(random, model.totalRate);
+                double loss = 0;
+                for (int e = 0; e < events; e++) {
+                    int risk = model.eventRisk.sample(random);
+                    loss += model.sle[risk] * model.unitSeverity(random);
+                }
+                losses[trial] = loss;
+            }
+        }
+    }
+
+    private final class PerRiskTask extends RecursiveAction {
+        private final Model model;
+        private final double[] means;
+        private final double[] valueAtRisk;
+        private final double[] tailValueAtRisk;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final SplittableRandom random;
+
+        PerRiskTask(Model model, double[] means, double[] valueAtRisk, double[] tailValueAtRisk,
+                    int from, int to, int threshold, SplittableRandom random) {
+            this.model = model;
+            this.means = means;
+            this.valueAtRisk = valueAtRisk;
+            this.tailValueAtRisk = tailValueAtRisk;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) {
+                return;
+            }
+            if (to - from > threshold) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PerRiskTask(model, means, valueAtRisk, tailValueAtRisk, from, mid, threshold, random.split()),
+                        new PerRiskTask(model, means, valueAtRisk, tailValueAtRisk, mid, to, threshold, random.split()));
+                return;
+            }
+
+            int trials = model.config.perRiskTrials();
+            double level = model.config.confidenceLevel();
+            //One buffer per leaf task, reused for every risk in the range
+            double[] losses = new double[trials];
+            for (int risk = from; risk < to; risk++) {
+                double sle = model.sle[risk];
+                double aro = model.aro[risk];
+                if (sle <= 0 || aro <= 0) {
+                    continue;
+                }
+                double sum = 0;
+                for (int trial = 0; trial < trials; trial++) {
+                    int events = model.eventCount(random, aro);
+                    double loss = 0;
+                    for (int e = 0; e < events; e++) {
+                        loss += sle * model.unitSeverity(random);
+                    }
+                    losses[trial] = loss;
+                    sum += loss;
+                }
+                Arrays.sort(losses);
+                means[risk] = sum / trials;
+                valueAtRisk[risk] = SimulationResult.quantile(losses, trials, level);
+                tailValueAtRisk[risk] = SimulationResult.tailMean(losses, trials, level);
+            }
+        }
+    }
+}
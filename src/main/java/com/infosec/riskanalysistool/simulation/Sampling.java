@@ -0,0 +1,107 @@
+package com.infosec.riskanalysistool.simulation;
+
+import java.util.SplittableRandom;
+
+//Allocation-free samplers used in the simulation inner loops
+final class Sampling {
+    private static final int LOG_FACTORIAL_TABLE_SIZE = 256;
+    private static final double[] LOG_FACTORIAL = new double[LOG_FACTORIAL_TABLE_SIZE];
+
+    static {
+        for (int k = 1; k < LOG_FACTORIAL_TABLE_SIZE; k++) {
+            LOG_FACTORIAL[k] = LOG_FACTORIAL[k - 1] + Math.log(k);
+        }
+    }
+
+    private Sampling() {
+    }
+
+    static int poisson(SplittableRandom random, double lambda) {
+        if (lambda <= 0) {
+            return 0;
+        }
+        if (lambda < 30) {
+            //Inversion by sequential search
+            double p = Math.exp(-lambda);
+            double cumulative = p;
+            double u = random.nextDouble();
+            int k = 0;
+            while (u > cumulative && p > 0) {
+                k++;
+                p *= lambda / k;
+                cumulative += p;
+            }
+            return k;
+        }
+        return poissonPtrs(random, lambda);
+    }
+
+    //Transformed rejection with squeeze (Hormann 1993), for large means
+    private static int poissonPtrs(SplittableRandom random, double lambda) {
+        double sqrtLambda = Math.sqrt(lambda);
+        double logLambda = Math.log(lambda);
+        double b = 0.931 + 2.53 * sqrtLambda;
+        double a = -0.059 + 0.02483 * b;
+        double inverseAlpha = 1.1239 + 1.1328 / (b - 3.4);
+        double vr = 0.9277 - 3.6224 / (b - 2);
+
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            int k = (int) Math.floor((2 * a / us + b) * u + lambda + 0.43);
+            if (us >= 0.07 && v <= vr) {
+                return k;
+            }
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+            if (Math.log(v) + Math.log(inverseAlpha) - Math.log(a / (us * us) + b) <= -lambda + k * logLambda - logFactorial(k)) {
+                return k;
+            }
+        }
+    }
+
+    //Gamma(shape, 1) by Marsaglia and Tsang
+    static double gamma(SplittableRandom random, double shape) {
+        if (shape < 1) {
+            double u = random.nextDouble();
+            return gamma(random, shape + 1) * Math.pow(u, 1 / shape);
+        }
+        double d = shape - 1.0 / 3.0;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1 + c * x;
+            if (v <= 0) {
+                continue;
+            }
+            v = v * v * v;
+            double u = random.nextDouble();
+            double x2 = x * x;
+            if (u < 1 - 0.0331 * x2 * x2 || Math.log(u) < 0.5 * x2 + d * (1 - v + Math.log(v))) {
+                return d * v;
+            }
+        }
+    }
+
+    static double beta(SplittableRandom random, double alpha, double beta) {
+        double x = gamma(random, alpha);
+        double y = gamma(random, beta);
+        return x / (x + y);
+    }
+
+    //Multiplier with mean 1: exp(N(-sigma^2 / 2, sigma))
+    static double unitLognormal(SplittableRandom random, double sigma) {
+        return Math.exp(sigma * random.nextGaussian() - 0.5 * sigma * sigma);
+    }
+
+    static double logFactorial(int k) {
+        if (k < LOG_FACTORIAL_TABLE_SIZE) {
+            return LOG_FACTORIAL[k];
+        }
+        //Stirling series
+        double n = k + 1.0;
+        return (n - 0.5) * Math.log(n) - n + 0.5 * Math.log(2 * Math.PI) + 1 / (12 * n) - 1 / (360 * n * n * n);
+    }
+}
@@ -0,0 +1,6 @@
+package com.infosec.riskanalysistool.simulation;
+
+//Loss per event, scaled by the risk's SLE
+public enum SeverityDistribution {
+    LOGNORMAL, PERT
+}
@@ -0,0 +1,51 @@
+package com.infosec.riskanalysistool.simulation;
+
+//Parameters for a Monte Carlo ALE run.
+//dispersion is the negative binomial variance factor (variance = mean + dispersion * mean^2).
+//lognormalSigma is the log-space standard deviation of the per-event loss, whose mean is kept at the SLE.
+//pertMinFactor/pertMaxFactor bound the PERT severity as multiples of the SLE, which is used as the most likely value.
+public record SimulationConfig(int trials, FrequencyDistribution frequency, double dispersion,
+                               SeverityDistribution severity, double lognormalSigma,
+                               double pertMinFactor, double pertMaxFactor,
+                               int perRiskTrials, double confidenceLevel, long seed) {
+
+    public static final int MAX_TRIALS = 10_000_000;
+
+    public SimulationConfig {
+        if (trials < 1 || trials > MAX_TRIALS) {
+            throw new IllegalArgumentException("Trials must be between 1 and " + MAX_TRIALS + ": " + trials);
+        }
+        if (perRiskTrials < 1) {
+            throw new IllegalArgumentException("Per-risk trials must be positive: " + perRiskTrials);
+        }
+        if (confidenceLevel <= 0 || confidenceLevel >= 1) {
+            throw new IllegalArgumentException("Confidence level must be in (0, 1): " + confidenceLevel);
+        }
+        if (frequency == FrequencyDistribution.NEGATIVE_BINOMIAL && dispersion <= 0) {
+            throw new IllegalArgumentException("Negative binomial dispersion must be positive: " + dispersion);
+        }
+        if (severity == SeverityDistribution.LOGNORMAL && lognormalSigma <= 0) {
+            throw new IllegalArgumentException("Lognormal sigma must be positive: " + lognormalSigma);
+        }
+        if (severity == SeverityDistribution.PERT && !(pertMinFactor >= 0 && pertMinFactor <= 1 && pertMaxFactor > 1)) {
+            throw new IllegalArgumentException("PERT factors must satisfy 0 <= min <= 1 < max: " + pertMinFactor + ", " + pertMaxFactor);
+        }
+    }
+
+    public static SimulationConfig defaults(int trials) {
+        return new SimulationConfig(trials, FrequencyDistribution.POISSON, 0.5, SeverityDistribution.LOGNORMAL, 1.0,
+                0.25, 4.0, Math.min(trials, 10_000), 0.99, System.nanoTime());
+    }
+
+    public SimulationConfig withFrequency(FrequencyDistribution frequency) {
+        return new SimulationConfig(trials, frequency, dispersion, severity, lognormalSigma, pertMinFactor, pertMaxFactor, perRiskTrials, confidenceLevel, seed);
+    }
+
+    public SimulationConfig withSeverity(SeverityDistribution severity) {
+        return new SimulationConfig(trials, frequency, dispersion, severity, lognormalSigma, pertMinFactor, pertMaxFactor, perRiskTrials, confidenceLevel, seed);
+    }
+
+    public SimulationConfig withSeed(long seed) {
+        return new SimulationConfig(trials, frequency, dispersion, severity, lognormalSigma, pertMinFactor, pertMaxFactor, perRiskTrials, confidenceLevel, seed);
+    }
+}
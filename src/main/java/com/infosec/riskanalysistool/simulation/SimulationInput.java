@@ -0,0 +1,23 @@
+package com.infosec.riskanalysistool.simulation;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+
+//Copy of the SLE and ARO columns taken on the thread that owns the register,
+//so the simulation can run in the background while the register keeps changing
+public record SimulationInput(double[] singleLossExpectancies, double[] annualisedRatesOfOccurrence) {
+
+    public static SimulationInput from(RiskRegister register) {
+        int size = register.size();
+        double[] sle = new double[size];
+        double[] aro = new double[size];
+        for (int row = 0; row < size; row++) {
+            sle[row] = register.getSingleLossExpectancy(row);
+            aro[row] = register.getAnnualisedRateOfOccurrence(row);
+        }
+        return new SimulationInput(sle, aro);
+    }
+
+    public int size() {
+        return singleLossExpectancies.length;
+    }
+}
@@ -0,0 +1,125 @@
+package com.infosec.riskanalysistool.simulation;
+
+//Outcome of a Monte Carlo run: the sorted annual portfolio losses (one per trial) and
+//per-risk mean loss, VaR and TVaR at the configured confidence level
+public class SimulationResult {
+    private final SimulationConfig config;
+    private final double[] sortedPortfolioLosses;
+    private final double[] riskMeanLosses;
+    private final double[] riskValueAtRisk;
+    private final double[] riskTailValueAtRisk;
+    private final long portfolioNanos;
+    private final long perRiskNanos;
+
+    SimulationResult(SimulationConfig config, double[] sortedPortfolioLosses, double[] riskMeanLosses,
+                     double[] riskValueAtRisk, double[] riskTailValueAtRisk, long portfolioNanos, long perRiskNanos) {
+        this.config = config;
+        this.sortedPortfolioLosses = sortedPortfolioLosses;
+        this.riskMeanLosses = riskMeanLosses;
+        this.riskValueAtRisk = riskValueAtRisk;
+        this.riskTailValueAtRisk = riskTailValueAtRisk;
+        this.portfolioNanos = portfolioNanos;
+        this.perRiskNanos = perRiskNanos;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public int getTrials() {
+        return sortedPortfolioLosses.length;
+    }
+
+    public int getRiskCount() {
+        return riskMeanLosses.length;
+    }
+
+    //Portfolio
+    public double meanPortfolioLoss() {
+        double sum = 0;
+        for (double loss : sortedPortfolioLosses) {
+            sum += loss;
+        }
+        return sum / sortedPortfolioLosses.length;
+    }
+
+    public double valueAtRisk() {
+        return valueAtRisk(config.confidenceLevel());
+    }
+
+    public double valueAtRisk(double level) {
+        return quantile(sortedPortfolioLosses, level);
+    }
+
+    public double tailValueAtRisk() {
+        return tailValueAtRisk(config.confidenceLevel());
+    }
+
+    public double tailValueAtRisk(double level) {
+        return tailMean(sortedPortfolioLosses, sortedPortfolioLosses.length, level);
+    }
+
+    //Exceedance probabilities are spaced logarithmically from 1 down to 1/trials, so the tail gets as many points as the body
+    public LossExceedanceCurve lossExceedanceCurve(int points) {
+        int trials = sortedPortfolioLosses.length;
+        int n = Math.max(2, points);
+        double[] losses = new double[n];
+        double[] probabilities = new double[n];
+        double logMin = Math.log(1.0 / trials);
+        for (int i = 0; i < n; i++) {
+            double probability = Math.exp(logMin * i / (n - 1));
+            int index = Math.min(trials - 1, Math.max(0, (int) Math.ceil((1 - probability) * trials) - 1));
+            losses[i] = sortedPortfolioLosses[index];
+            probabilities[i] = probability;
+        }
+        return new LossExceedanceCurve(losses, probabilities);
+    }
+
+    //Per risk, indexed by register row at the time the input was taken
+    public double riskMeanLoss(int row) {
+        return riskMeanLosses[row];
+    }
+
+    public double riskValueAtRisk(int row) {
+        return riskValueAtRisk[row];
+    }
+
+    public double riskTailValueAtRisk(int row) {
+        return riskTailValueAtRisk[row];
+    }
+
+    //Throughput
+    public long getPortfolioNanos() {
+        return portfolioNanos;
+    }
+
+    public long getPerRiskNanos() {
+        return perRiskNanos;
+    }
+
+    public double trialsPerSecond() {
+        return sortedPortfolioLosses.length / (portfolioNanos / 1e9);
+    }
+
+    public double riskTrialsPerSecond() {
+        return (double) riskMeanLosses.length * config.perRiskTrials() / (perRiskNanos / 1e9);
+    }
+
+    static double quantile(double[] sorted, double level) {
+        return quantile(sorted, sorted.length, level);
+    }
+
+    static double quantile(double[] sorted, int length, double level) {
+        int index = (int) Math.ceil(level * length) - 1;
+        return sorted[Math.min(length - 1, Math.max(0, index))];
+    }
+
+    static double tailMean(double[] sorted, int length, double level) {
+        int start = Math.min(length - 1, Math.max(0, (int) Math.ceil(level * length) - 1));
+        double sum = 0;
+        for (int i = start; i < length; i++) {
+            sum += sorted[i];
+        }
+        return sum / (length - start);
+    }
+}
@@ -1,4 +1,161 @@
 package com.infosec.riskanalysistool.util;
 
+import com.infosec.riskanalysistool.diagnostics.Operation;
+import com.infosec.riskanalysistool.model.Risk;
+import com.infosec.riskanalysistool.optimisation.ParetoFrontier;
+import com.infosec.riskanalysistool.sensitivity.SensitivityDriver;
+import com.infosec.riskanalysistool.simulation.LossExceedanceCurve;
+import javafx.scene.Node;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Tooltip;
+import javafx.util.StringConverter;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//Chart helpers. Everything here is meant to be called on the JavaFX Application Thread,
+//which is what makes sharing a single NumberFormat and Tooltip safe.
 public class ChartUtil {
+    public static final String ALE_SERIES_NAME = "Annualised Loss Expectancy (ALE)";
+
+    private static final NumberFormat CURRENCY_FORMAT = NumberFormat.getCurrencyInstance();
+    private static final NumberFormat COMPACT_FORMAT = compactFormat();
+
+    private static final StringConverter<Number> CURRENCY_CONVERTER = new StringConverter<Number>() {
+        @Override
+        public String toString(Number object) {
+            return CURRENCY_FORMAT.format(object.doubleValue());
+        }
+
+        @Override
+        public Number fromString(String string) {
+            return null;
+        }
+    };
+
+    //One tooltip shared by every bar; its text is filled in from the hovered bar when it shows
+    private static Tooltip aleTooltip;
+
+    public static String formatCurrency(double value) {
+        return CURRENCY_FORMAT.format(value);
+    }
+
+    //Short form for tight spaces, e.g. $1.2M
+    public static String formatCompactCurrency(double value) {
+        return CURRENCY_FORMAT.getCurrency().getSymbol() + COMPACT_FORMAT.format(value);
+    }
+
+    private static NumberFormat compactFormat() {
+        NumberFormat format = NumberFormat.getCompactNumberInstance(Locale.getDefault(), NumberFormat.Style.SHORT);
+        format.setMaximumFractionDigits(1);
+        return format;
+    }
+
+    //Format the y-axis to display currency, installing the formatter only once per axis
+    public static void installCurrencyAxis(XYChart<String, Number> chart) {
+        installCurrencyFormatter((NumberAxis) chart.getYAxis());
+    }
+
+    public static void installCurrencyFormatter(NumberAxis axis) {
+        if (axis.getTickLabelFormatter() != CURRENCY_CONVERTER) {
+            axis.setTickLabelFormatter(CURRENCY_CONVERTER);
+        }
+    }
+
+    //Loss on the x-axis, probability of exceeding it on the y-axis
+    public static XYChart.Series<Number, Number> lossExceedanceSeries(LossExceedanceCurve curve) {
+        List<XYChart.Data<Number, Number>> dataPoints = new ArrayList<>(curve.size());
+        for (int i = 0; i < curve.size(); i++) {
+            dataPoints.add(new XYChart.Data<>(curve.losses()[i], curve.exceedanceProbabilities()[i]));
+        }
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        series.setName("Loss exceedance");
+        series.getData().setAll(dataPoints);
+        return series;
+    }
+
+    //Control spend on the x-axis, ALE reduction on the y-axis
+    public static XYChart.Series<Number, Number> paretoFrontierSeries(ParetoFrontier frontier) {
+        List<XYChart.Data<Number, Number>> dataPoints = new ArrayList<>(frontier.size());
+        for (int i = 0; i < frontier.size(); i++) {
+            dataPoints.add(new XYChart.Data<>(frontier.costs()[i], frontier.reductions()[i]));
+        }
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        series.setName("Best ALE reduction for spend");
+        series.getData().setAll(dataPoints);
+        return series;
+    }
+
+    //Tornado bars for a horizontal StackedBarChart: how far each driver moves the measure from its base with
+    //the input down and with it up. Drivers are given largest first and added the other way round, because a
+    //vertical category axis draws its first category at the bottom.
+    public static List<XYChart.Series<Number, String>> tornadoSeries(List<SensitivityDriver> drivers, double base) {
+        List<XYChart.Data<Number, String>> downPoints = new ArrayList<>(drivers.size());
+        List<XYChart.Data<Number, String>> upPoints = new ArrayList<>(drivers.size());
+        for (int i = drivers.size() - 1; i >= 0; i--) {
+            SensitivityDriver driver = drivers.get(i);
+            downPoints.add(new XYChart.Data<>(driver.low() - base, driver.label()));
+            upPoints.add(new XYChart.Data<>(driver.high() - base, driver.label()));
+        }
+        XYChart.Series<Number, String> downSeries = new XYChart.Series<>();
+        downSeries.setName("Input down");
+        downSeries.getData().setAll(downPoints);
+        XYChart.Series<Number, String> upSeries = new XYChart.Series<>();
+        upSeries.setName("Input up");
+        upSeries.getData().setAll(upPoints);
+        return List.of(downSeries, upSeries);
+    }
+
+    //Attach the shared tooltip to a data point whose node has been created by the chart.
+    //It shows the data point's extra value when that is a String, and its ALE otherwise.
+    public static void installAleTooltip(XYChart.Data<String, Number> dataPoint) {
+        Node node = dataPoint.getNode();
+        if (node != null) {
+            if (aleTooltip == null) {
+                aleTooltip = createAleTooltip();
+            }
+            node.setUserData(dataPoint);
+            Tooltip.install(node, aleTooltip);
+        }
+    }
+
+    //Full rebuild of an ALE chart. Prefer RiskAnalysisPipeline for charts that follow a live register.
+    public static void updateRiskChart(BarChart<String, Number> chart, List<Risk> risks) {
+        long start = Operation.CHART_UPDATE.begin();
+        List<XYChart.Data<String, Number>> dataPoints = new ArrayList<>(risks.size());
+        for (Risk risk : risks) {
+            dataPoints.add(new XYChart.Data<>(risk.getThreat(), risk.getAnnualisedLossExpectancy()));
+        }
+
+        XYChart.Series<String, Number> aleSeries = new XYChart.Series<>();
+        aleSeries.setName(ALE_SERIES_NAME);
+        aleSeries.getData().setAll(dataPoints);
+
+        chart.getData().setAll(List.of(aleSeries));
+        installCurrencyAxis(chart);
+
+        for (XYChart.Data<String, Number> dataPoint : dataPoints) {
+            installAleTooltip(dataPoint);
+        }
+        Operation.CHART_UPDATE.end(start, dataPoints.size());
+    }
+
+    private static Tooltip createAleTooltip() {
+        Tooltip tooltip = new Tooltip();
+        tooltip.setOnShowing(e -> {
+            Node owner = tooltip.getOwnerNode();
+            if (owner != null && owner.getUserData() instanceof XYChart.Data<?, ?> dataPoint) {
+                if (dataPoint.getExtraValue() instanceof String description) {
+                    tooltip.setText(description);
+                } else {
+                    tooltip.setText("ALE: " + CURRENCY_FORMAT.format(((Number) dataPoint.getYValue()).doubleValue()));
+                }
+            }
+        });
+        return tooltip;
+    }
 }
@@ -1,4 +1,48 @@
 package com.infosec.riskanalysistool.util;
 
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.Risk;
+
 public class ValidationUtil {
+    public static boolean isValidRisk(Risk risk) {
+        return risk != null && !risk.isDetached() && isValidRisk(risk.getThreat(), risk.getHipaaRule(), risk.getRmfStep(), risk.getImpact(), risk.getLikelihood(), risk.getSingleLossExpectancy(), risk.getAnnualisedRateOfOccurrence(), risk.getControlEffectiveness());
+    }
+
+    //Validates raw field values before they are written into the register
+    public static boolean isValidRisk(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, double controlEffectiveness) {
+        return validationError(threat, hipaaRule, rmfStep, impact, likelihood, singleLossExpectancy, annualisedRateOfOccurrence, controlEffectiveness) == null;
+    }
+
+    //Same rules as isValidRisk, but names the first one that fails (null when the values are valid)
+    public static String validationError(String threat, HIPAARule hipaaRule, RMFStep rmfStep, int impact, int likelihood, double singleLossExpectancy, double annualisedRateOfOccurrence, double controlEffectiveness) {
+        //Base validation
+        if (threat == null || threat.isEmpty()) {
+            return "Threat is required";
+        }
+        if (hipaaRule == null) {
+            return "HIPAA rule is required";
+        }
+        if (rmfStep == null) {
+            return "RMF step is required";
+        }
+        if (impact < 1 || impact > 10) {
+            return "Impact must be between 1 and 10";
+        }
+        if (likelihood < 1 || likelihood > 10) {
+            return "Likelihood must be between 1 and 10";
+        }
+        if (!(singleLossExpectancy >= 0)) {
+            return "SLE must not be negative";
+        }
+        if (!(annualisedRateOfOccurrence >= 0)) {
+            return "ARO must not be negative";
+        }
+
+        //Control validation
+        if (!(controlEffectiveness >= 0 && controlEffectiveness <= 100)) {
+            return "Control effectiveness must be between 0 and 100";
+        }
+        return null;
+    }
 }
@@ -0,0 +1,110 @@
+package com.infosec.riskanalysistool.view;
+
+import com.infosec.riskanalysistool.model.Risk;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.util.List;
+
+//The register's rows as an ObservableList for a TableView. Nothing is held per row: an element is the register's
+//view of that row, created when the table first asks for it, so only the rows that have been shown cost a view.
+//Rows added, removed and cleared in the register are passed on as list changes; edits in place are not, as
+//the table refills its visible cells instead. The list cannot be changed or sorted directly; changes go through
+//the register.
+public class RegisterRowList extends ObservableListBase<Risk> implements RiskRegisterListener {
+    private final RiskRegister register;
+
+    public RegisterRowList(RiskRegister register) {
+        this.register = register;
+        register.addListener(this);
+    }
+
+    @Override
+    public Risk get(int index) {
+        return register.view(index);
+    }
+
+    @Override
+    public int size() {
+        return register.size();
+    }
+
+    @Override
+    public void rowsAdded(int first, int count) {
+        beginChange();
+        nextAdd(first, first + count);
+        endChange();
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        beginChange();
+        nextRemove(row, register.removedRows());
+        endChange();
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+    }
+
+    @Override
+    public void valuesChanged(RowChanges changes) {
+    }
+
+    @Override
+    public void cleared() {
+        //Passed on as is: a list change built with nextRemove() would read every removed row up front, and the
+        //register only makes views for the ones a listener reads
+        fireChange(new Cleared(this, register.removedRows()));
+    }
+
+    //Every element removed in one go. Also used by RegisterRowSubset.
+    static class Cleared extends ListChangeListener.Change<Risk> {
+        private final List<Risk> removed;
+        private boolean onChange;
+
+        Cleared(ObservableList<Risk> list, List<Risk> removed) {
+            super(list);
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean next() {
+            if (onChange) {
+                return false;
+            }
+            onChange = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            onChange = false;
+        }
+
+        @Override
+        public int getFrom() {
+            return 0;
+        }
+
+        @Override
+        public int getTo() {
+            return 0;
+        }
+
+        @Override
+        public List<Risk> getRemoved() {
+            return removed;
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            return new int[0];
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.infosec.riskanalysistool.view;
+
+import com.infosec.riskanalysistool.model.Risk;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+import com.infosec.riskanalysistool.model.RowChanges;
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.List;
+
+//Some of the register's rows, in a given order, as an ObservableList for a TableView. As with RegisterRowList
+//only row numbers are held, and an element is the register's view of its row, made when the table asks for it.
+//Removed rows drop out and later rows are renumbered to match the register; added rows and edits are left to
+//whoever chose the rows. Call dispose() once the list is no longer shown.
+public class RegisterRowSubset extends ObservableListBase<Risk> implements RiskRegisterListener {
+    private final RiskRegister register;
+    private int[] rows;
+    private int size;
+
+    //Takes over the array, whose first size entries are the rows in the order shown
+    public RegisterRowSubset(RiskRegister register, int[] rows, int size) {
+        this.register = register;
+        this.rows = rows;
+        this.size = size;
+        register.addListener(this);
+    }
+
+    public void dispose() {
+        register.removeListener(this);
+    }
+
+    @Override
+    public Risk get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return register.view(rows[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void rowsAdded(int first, int count) {
+    }
+
+    @Override
+    public void rowRemoved(int row) {
+        int removedAt = -1;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int listed = rows[i];
+            if (listed == row) {
+                removedAt = i;
+                continue;
+            }
+            rows[kept++] = listed > row ? listed - 1 : listed;
+        }
+        size = kept;
+        if (removedAt >= 0) {
+            beginChange();
+            nextRemove(removedAt, register.removedRows());
+            endChange();
+        }
+    }
+
+    @Override
+    public void valueChanged(int row, RiskField field) {
+    }
+
+    @Override
+    public void valuesChanged(RowChanges changes) {
+    }
+
+    @Override
+    public void cleared() {
+        if (size == 0) {
+            return;
+        }
+        List<Risk> clearedRows = register.removedRows();
+        int[] listed = rows;
+        int count = size;
+        rows = new int[0];
+        size = 0;
+        fireChange(new RegisterRowList.Cleared(this, new AbstractList<>() {
+            @Override
+            public Risk get(int index) {
+                return clearedRows.get(listed[index]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        }));
+    }
+}
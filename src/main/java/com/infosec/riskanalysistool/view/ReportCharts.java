@@ -0,0 +1,96 @@
+package com.infosec.riskanalysistool.view;
+
+import com.infosec.riskanalysistool.io.ReportImage;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskScoring;
+import com.infosec.riskanalysistool.util.ChartUtil;
+import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+//The charts of an exported report: the risk matrix and the top risks by ALE, drawn off-screen from the same
+//snapshot the report's rows come from. Must be called on the JavaFX Application Thread, which snapshots need;
+//the pixels are encoded later, on the export thread.
+public final class ReportCharts {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 420;
+    private static final int TOP_RISKS = 15;
+
+    private ReportCharts() {
+    }
+
+    public static List<ReportImage> render(RiskBatch risks) {
+        int[] counts = new int[RiskHeatMap.CELLS];
+        double[] annualisedLossExpectancies = new double[RiskHeatMap.CELLS];
+        //Smallest ALE at the head, so it is the one dropped once there are more than TOP_RISKS
+        PriorityQueue<Integer> topRisks = new PriorityQueue<>(TOP_RISKS + 1,
+                (a, b) -> Double.compare(annualisedLossExpectancy(risks, a), annualisedLossExpectancy(risks, b)));
+        for (int row = 0; row < risks.size(); row++) {
+            int cell = RiskHeatMap.cellIndex(risks.getImpact(row), risks.getLikelihood(row));
+            counts[cell]++;
+            annualisedLossExpectancies[cell] += annualisedLossExpectancy(risks, row);
+            topRisks.offer(row);
+            if (topRisks.size() > TOP_RISKS) {
+                topRisks.poll();
+            }
+        }
+
+        RiskHeatMap heatMap = new RiskHeatMap();
+        BitSet allCells = new BitSet(RiskHeatMap.CELLS);
+        allCells.set(0, RiskHeatMap.CELLS);
+        heatMap.update(counts, annualisedLossExpectancies, allCells);
+
+        //Largest first; repeated threat names are numbered so the category axis keeps one bar each
+        List<XYChart.Data<String, Number>> dataPoints = new ArrayList<>(TOP_RISKS);
+        Set<String> names = new HashSet<>();
+        while (!topRisks.isEmpty()) {
+            int row = topRisks.poll();
+            String name = risks.getThreat(row);
+            for (int copy = 2; !names.add(name); copy++) {
+                name = risks.getThreat(row) + " (" + copy + ")";
+            }
+            dataPoints.add(0, new XYChart.Data<>(name, annualisedLossExpectancy(risks, row)));
+        }
+        XYChart.Series<String, Number> aleSeries = new XYChart.Series<>();
+        aleSeries.setName(ChartUtil.ALE_SERIES_NAME);
+        aleSeries.getData().setAll(dataPoints);
+        BarChart<String, Number> chart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+        chart.setAnimated(false);
+        chart.setLegendVisible(false);
+        chart.getData().add(aleSeries);
+        ChartUtil.installCurrencyAxis(chart);
+
+        return List.of(snapshot("Risk Matrix", heatMap), snapshot("Top " + TOP_RISKS + " Risks by ALE", chart));
+    }
+
+    private static double annualisedLossExpectancy(RiskBatch risks, int row) {
+        return RiskScoring.annualisedLossExpectancy(risks.getSingleLossExpectancy(row), risks.getAnnualisedRateOfOccurrence(row));
+    }
+
+    //Lays the chart out in a scene of its own, which is never shown, and reads back its pixels
+    private static ReportImage snapshot(String title, Region chart) {
+        StackPane root = new StackPane(chart);
+        new Scene(root, WIDTH, HEIGHT);
+        root.applyCss();
+        root.layout();
+        WritableImage image = root.snapshot(null, null);
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        return new ReportImage(title, width, height, pixels);
+    }
+}
@@ -0,0 +1,167 @@
+package com.infosec.riskanalysistool.view;
+
+import com.infosec.riskanalysistool.analysis.RankingMetric;
+import com.infosec.riskanalysistool.analysis.RiskDistributions;
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.util.ChartUtil;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Median, p90 and p99 of one metric for the whole register and each HIPAA rule, RMF step and category, drawn
+//on a single Canvas. Each row shows the figures and a bar on a shared log scale: a box from the median to p90
+//and a whisker on to p99. Groups with no risks are left out.
+public class RiskDistributionPanel extends Region {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final double ROW_HEIGHT = 22;
+    private static final double HEADER_HEIGHT = 26;
+    private static final double NAME_WIDTH = 230;
+    private static final double COLUMN_WIDTH = 100;
+
+    private final Canvas canvas = new Canvas();
+    private final Font headerFont = Font.font(null, FontWeight.BOLD, 12);
+    private final Font rowFont = Font.font(null, FontWeight.NORMAL, 12);
+    private final List<Row> rows = new ArrayList<>();
+    private RankingMetric metric = RankingMetric.ANNUALISED_LOSS_EXPECTANCY;
+
+    private record Row(String name, boolean section, long count, double[] quantiles, double rankError) {
+    }
+
+    public RiskDistributionPanel() {
+        getChildren().add(canvas);
+        setMinSize(400, 200);
+        setPrefSize(900, HEADER_HEIGHT + ROW_HEIGHT * 20);
+    }
+
+    //Reads the quantiles of every group for the metric and repaints
+    public void update(RiskDistributions distributions, RankingMetric metric) {
+        this.metric = metric;
+        rows.clear();
+        addRow("All risks", distributions.whole(metric));
+        rows.add(new Row("By HIPAA rule", true, 0, null, 0));
+        for (HIPAARule hipaaRule : HIPAARule.values()) {
+            addRow(hipaaRule.toString(), distributions.of(metric, hipaaRule));
+        }
+        rows.add(new Row("By RMF step", true, 0, null, 0));
+        for (RMFStep rmfStep : RMFStep.values()) {
+            addRow(rmfStep.toString(), distributions.of(metric, rmfStep));
+        }
+        rows.add(new Row("By category", true, 0, null, 0));
+        for (RiskCategory category : RiskCategory.values()) {
+            addRow(category.toString(), distributions.of(metric, category));
+        }
+        //One more row for the accuracy note
+        setPrefHeight(HEADER_HEIGHT + ROW_HEIGHT * (rows.size() + 1));
+        draw();
+    }
+
+    private void addRow(String name, RiskDistributions.Distribution distribution) {
+        if (distribution.count() > 0) {
+            rows.add(new Row(name, false, distribution.count(), distribution.quantiles(QUANTILES), distribution.rankError()));
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = snapSizeX(getWidth() - snappedLeftInset() - snappedRightInset());
+        double height = snapSizeY(getHeight() - snappedTopInset() - snappedBottomInset());
+        canvas.relocate(snappedLeftInset(), snappedTopInset());
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            draw();
+        }
+    }
+
+    private void draw() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        double barLeft = NAME_WIDTH + COLUMN_WIDTH * 4;
+        double barWidth = canvas.getWidth() - barLeft - 10;
+
+        g.setFill(Color.BLACK);
+        g.setTextBaseline(VPos.CENTER);
+        g.setFont(headerFont);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.fillText(metric.toString(), 0, HEADER_HEIGHT / 2, NAME_WIDTH - 10);
+        g.setTextAlign(TextAlignment.RIGHT);
+        String[] headers = {"Risks", "Median", "p90", "p99"};
+        for (int i = 0; i < headers.length; i++) {
+            g.fillText(headers[i], NAME_WIDTH + COLUMN_WIDTH * (i + 1) - 10, HEADER_HEIGHT / 2);
+        }
+
+        //Every bar shares one log scale, up to the largest p99
+        double scaleMax = 0;
+        for (Row row : rows) {
+            if (!row.section()) {
+                scaleMax = Math.max(scaleMax, Math.log1p(Math.max(0, row.quantiles()[2])));
+            }
+        }
+
+        double y = HEADER_HEIGHT;
+        for (Row row : rows) {
+            double centre = y + ROW_HEIGHT / 2;
+            if (row.section()) {
+                g.setFill(Color.BLACK);
+                g.setFont(headerFont);
+                g.setTextAlign(TextAlignment.LEFT);
+                g.fillText(row.name(), 0, centre, NAME_WIDTH - 10);
+                y += ROW_HEIGHT;
+                continue;
+            }
+            g.setFill(Color.BLACK);
+            g.setFont(rowFont);
+            g.setTextAlign(TextAlignment.LEFT);
+            g.fillText(row.name(), 10, centre, NAME_WIDTH - 20);
+            g.setTextAlign(TextAlignment.RIGHT);
+            g.fillText(String.format("%,d", row.count()), NAME_WIDTH + COLUMN_WIDTH - 10, centre);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                g.fillText(format(row.quantiles()[i]), NAME_WIDTH + COLUMN_WIDTH * (i + 2) - 10, centre);
+            }
+            if (barWidth > 20 && scaleMax > 0) {
+                double median = barLeft + barWidth * Math.log1p(Math.max(0, row.quantiles()[0])) / scaleMax;
+                double p90 = barLeft + barWidth * Math.log1p(Math.max(0, row.quantiles()[1])) / scaleMax;
+                double p99 = barLeft + barWidth * Math.log1p(Math.max(0, row.quantiles()[2])) / scaleMax;
+                g.setStroke(Color.DIMGRAY);
+                g.setLineWidth(1);
+                g.strokeLine(p90, centre, p99, centre);
+                g.strokeLine(p99, centre - 4, p99, centre + 4);
+                g.setFill(Color.STEELBLUE);
+                g.fillRect(median, centre - 6, Math.max(2, p90 - median), 12);
+                g.setStroke(Color.NAVY);
+                g.setLineWidth(2);
+                g.strokeLine(median, centre - 7, median, centre + 7);
+            }
+            y += ROW_HEIGHT;
+        }
+
+        //Sketched groups can be out by a little; say how much at worst
+        double worst = 0;
+        for (Row row : rows) {
+            worst = Math.max(worst, row.rankError());
+        }
+        if (worst > 0) {
+            g.setFill(Color.DIMGRAY);
+            g.setFont(rowFont);
+            g.setTextAlign(TextAlignment.LEFT);
+            g.fillText(String.format("Percentiles are within %.1f%% of the true rank", worst * 100), 10, y + ROW_HEIGHT / 2);
+        }
+    }
+
+    private String format(double value) {
+        if (Double.isNaN(value)) {
+            return "-";
+        }
+        return metric == RankingMetric.ANNUALISED_LOSS_EXPECTANCY ? ChartUtil.formatCompactCurrency(value) : String.format("%,.1f", value);
+    }
+}
@@ -0,0 +1,235 @@
+package com.infosec.riskanalysistool.view;
+
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.util.ChartUtil;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.BitSet;
+import java.util.function.BiConsumer;
+
+//Impact x likelihood heat map drawn on a single Canvas. Impact runs left to right and likelihood top to
+//bottom, as in the old label grid. Each cell is filled with its category colour, shaded by how many risks
+//it holds, and shows the count and ALE total. Only cells whose contents or highlight change are repainted;
+//everything is repainted when the canvas is resized or the busiest cell's count changes the shading scale.
+public class RiskHeatMap extends Region {
+    public static final int SIZE = 10;
+    public static final int CELLS = SIZE * SIZE;
+
+    private static final double LEFT_HEADER = 90;
+    private static final double TOP_HEADER = 26;
+    private static final double GAP = 2;
+
+    private final Canvas canvas = new Canvas();
+    private final Font headerFont = Font.font(null, FontWeight.BOLD, 12);
+    private final Font countFont = Font.font(null, FontWeight.BOLD, 14);
+    private final Font detailFont = Font.font(null, FontWeight.NORMAL, 10);
+    private final int[] counts = new int[CELLS];
+    private final double[] annualisedLossExpectancies = new double[CELLS];
+    private int maxCount;
+    private int highlightedCell = -1;
+    private int filteredCell = -1;
+    private BiConsumer<Integer, Integer> onCellClicked;
+
+    public RiskHeatMap() {
+        getChildren().add(canvas);
+        setMinSize(320, 220);
+        setPrefSize(760, 380);
+        canvas.setOnMouseClicked(e -> {
+            int cell = cellAt(e.getX(), e.getY());
+            if (cell >= 0 && onCellClicked != null) {
+                onCellClicked.accept(impactOf(cell), likelihoodOf(cell));
+            }
+        });
+    }
+
+    //Row-major cell index, or -1 when the scores are outside the grid
+    public static int cellIndex(int impact, int likelihood) {
+        if (impact < 1 || impact > SIZE || likelihood < 1 || likelihood > SIZE) {
+            return -1;
+        }
+        return (likelihood - 1) * SIZE + (impact - 1);
+    }
+
+    public static int impactOf(int cell) {
+        return cell % SIZE + 1;
+    }
+
+    public static int likelihoodOf(int cell) {
+        return cell / SIZE + 1;
+    }
+
+    //Called with the impact and likelihood of a clicked cell
+    public void setOnCellClicked(BiConsumer<Integer, Integer> onCellClicked) {
+        this.onCellClicked = onCellClicked;
+    }
+
+    //Copies the changed cells from the caller's grid and repaints them
+    public void update(int[] counts, double[] annualisedLossExpectancies, BitSet changed) {
+        for (int cell = changed.nextSetBit(0); cell >= 0; cell = changed.nextSetBit(cell + 1)) {
+            this.counts[cell] = counts[cell];
+            this.annualisedLossExpectancies[cell] = annualisedLossExpectancies[cell];
+        }
+
+        int newMax = 0;
+        for (int count : this.counts) {
+            newMax = Math.max(newMax, count);
+        }
+        if (newMax != maxCount) {
+            maxCount = newMax;
+            drawCells();
+            return;
+        }
+        for (int cell = changed.nextSetBit(0); cell >= 0; cell = changed.nextSetBit(cell + 1)) {
+            drawCell(cell);
+        }
+    }
+
+    //Outlines the cell of the selected risk; pass -1 to clear
+    public void setHighlightedCell(int cell) {
+        int previous = highlightedCell;
+        highlightedCell = cell;
+        if (previous >= 0) {
+            drawCell(previous);
+        }
+        if (cell >= 0 && cell != previous) {
+            drawCell(cell);
+        }
+    }
+
+    //Marks the cell the table is filtered to; pass -1 to clear
+    public void setFilteredCell(int cell) {
+        int previous = filteredCell;
+        filteredCell = cell;
+        if (previous >= 0) {
+            drawCell(previous);
+        }
+        if (cell >= 0 && cell != previous) {
+            drawCell(cell);
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = snapSizeX(getWidth() - snappedLeftInset() - snappedRightInset());
+        double height = snapSizeY(getHeight() - snappedTopInset() - snappedBottomInset());
+        canvas.relocate(snappedLeftInset(), snappedTopInset());
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            drawAll();
+        }
+    }
+
+    private double cellWidth() {
+        return Math.max(0, (canvas.getWidth() - LEFT_HEADER) / SIZE);
+    }
+
+    private double cellHeight() {
+        return Math.max(0, (canvas.getHeight() - TOP_HEADER) / SIZE);
+    }
+
+    private int cellAt(double x, double y) {
+        double cellWidth = cellWidth();
+        double cellHeight = cellHeight();
+        if (x < LEFT_HEADER || y < TOP_HEADER || cellWidth == 0 || cellHeight == 0) {
+            return -1;
+        }
+        int impact = (int) ((x - LEFT_HEADER) / cellWidth) + 1;
+        int likelihood = (int) ((y - TOP_HEADER) / cellHeight) + 1;
+        return cellIndex(impact, likelihood);
+    }
+
+    private void drawAll() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        g.setFill(Color.BLACK);
+        g.setFont(headerFont);
+        g.setTextBaseline(VPos.CENTER);
+        g.setTextAlign(TextAlignment.CENTER);
+        for (int i = 1; i <= SIZE; i++) {
+            g.fillText("Impact " + i, LEFT_HEADER + (i - 0.5) * cellWidth(), TOP_HEADER / 2);
+        }
+        g.setTextAlign(TextAlignment.LEFT);
+        for (int i = 1; i <= SIZE; i++) {
+            g.fillText("Likelihood " + i, 0, TOP_HEADER + (i - 0.5) * cellHeight());
+        }
+        drawCells();
+    }
+
+    private void drawCells() {
+        for (int cell = 0; cell < CELLS; cell++) {
+            drawCell(cell);
+        }
+    }
+
+    private void drawCell(int cell) {
+        double cellWidth = cellWidth();
+        double cellHeight = cellHeight();
+        if (cellWidth <= GAP || cellHeight <= GAP) {
+            return;
+        }
+        int impact = impactOf(cell);
+        int likelihood = likelihoodOf(cell);
+        double x = LEFT_HEADER + (impact - 1) * cellWidth;
+        double y = TOP_HEADER + (likelihood - 1) * cellHeight;
+        double width = cellWidth - GAP;
+        double height = cellHeight - GAP;
+
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(x, y, width, height);
+
+        //Empty cells are faint; busier cells approach the full category colour on a log scale
+        RiskCategory category = RiskCategory.of(impact, likelihood);
+        int count = counts[cell];
+        double shade = count == 0 ? 0.2 : 0.45 + 0.55 * Math.log1p(count) / Math.log1p(Math.max(1, maxCount));
+        g.setFill(categoryColour(category).deriveColor(0, 1, 1, shade));
+        g.fillRect(x, y, width, height);
+
+        g.setFill(Color.BLACK);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        double centreX = x + width / 2;
+        g.setFont(detailFont);
+        g.fillText(category.toString(), centreX, y + height * 0.2, width - 4);
+        if (count > 0) {
+            g.setFont(countFont);
+            g.fillText(String.format("%,d", count), centreX, y + height * 0.5, width - 4);
+            g.setFont(detailFont);
+            g.fillText(ChartUtil.formatCompactCurrency(annualisedLossExpectancies[cell]), centreX, y + height * 0.8, width - 4);
+        }
+
+        if (cell == filteredCell) {
+            g.setStroke(Color.NAVY);
+            g.setLineWidth(2);
+            g.setLineDashes(6, 4);
+            g.strokeRect(x + 1, y + 1, width - 2, height - 2);
+            g.setLineDashes();
+        }
+        if (cell == highlightedCell) {
+            g.setStroke(Color.BLACK);
+            g.setLineWidth(3);
+            g.strokeRect(x + 1.5, y + 1.5, width - 3, height - 3);
+        }
+    }
+
+    //Same colours as the category styles in styles.css
+    private static Color categoryColour(RiskCategory category) {
+        switch (category) {
+            case CRITICAL:
+                return Color.RED;
+            case HIGH:
+                return Color.ORANGE;
+            case MEDIUM:
+                return Color.YELLOW;
+            default:
+                return Color.LIGHTGREEN;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 module com.infosec.riskanalysistool {
     requires javafx.controls;
     requires javafx.fxml;
-
-    requires org.controlsfx.controls;
-    requires com.dlsc.formsfx;
-    requires net.synedra.validatorfx;
-    requires org.kordamp.bootstrapfx.core;
+    requires jdk.httpserver;
+    requires jdk.jfr;
+    requires jdk.management;
 
     // This opens the controller package for reflection access by JavaFX
 
     // Exporting packages if needed by other modules
     exports com.infosec.riskanalysistool;
+    exports com.infosec.riskanalysistool.model;
+    //Headless core: scoring (RiskScorer, AnalysisInput, RegisterAnalysis), import, report export and the HTTP
+    //scoring service need no JavaFX, so other programs can embed them and RiskAnalysisCli runs them from the
+    //class path without it. The incremental analysis stages drive the UI's charts and are not exported.
+    exports com.infosec.riskanalysistool.scoring;
+    exports com.infosec.riskanalysistool.io;
+    exports com.infosec.riskanalysistool.service;
 }
\ No newline at end of file
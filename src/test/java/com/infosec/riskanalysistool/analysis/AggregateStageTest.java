@@ -0,0 +1,100 @@
+package com.infosec.riskanalysistool.analysis;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskCategory;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.scoring.AnalysisInput;
+import com.infosec.riskanalysistool.scoring.RegisterAnalysis;
+import com.infosec.riskanalysistool.scoring.RiskScorer;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AggregateStageTest {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+
+    //The running totals the summary shows must match a full rescore after any mix of changes
+    @Test
+    void runningTotalsMatchAFullRescore() {
+        RiskRegister register = new RiskRegister();
+        RiskAnalysisPipeline pipeline = new RiskAnalysisPipeline(register);
+        pipeline.setAutoFlush(false);
+        AggregateStage stage = new AggregateStage();
+        int[] published = new int[1];
+        stage.setOnPublished(() -> published[0]++);
+        pipeline.addStage(stage);
+        pipeline.start();
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 40; i++) {
+                change(register, random);
+            }
+            pipeline.flush();
+            assertMatchesRescore(stage, register);
+        }
+        assertEquals(50, published[0]);
+
+        register.clear();
+        pipeline.flush();
+        assertMatchesRescore(stage, register);
+    }
+
+    //A stage added once rows are in the register starts from them
+    @Test
+    void lateStageIsCaughtUp() {
+        RiskRegister register = new RiskRegister();
+        RiskAnalysisPipeline pipeline = new RiskAnalysisPipeline(register);
+        pipeline.setAutoFlush(false);
+        pipeline.start();
+        SplittableRandom random = new SplittableRandom(8);
+        for (int i = 0; i < 200; i++) {
+            add(register, random);
+        }
+
+        AggregateStage stage = new AggregateStage();
+        pipeline.addStage(stage);
+        assertMatchesRescore(stage, register);
+        assertEquals(200, stage.riskCountProperty().get());
+    }
+
+    private static void assertMatchesRescore(AggregateStage stage, RiskRegister register) {
+        RegisterAnalysis analysis = new RiskScorer().score(AnalysisInput.from(register));
+        RiskAggregates aggregates = stage.getAggregates();
+        assertEquals(analysis.getRiskCount(), aggregates.getRiskCount());
+        assertEquals(analysis.getTotalAnnualisedLossExpectancy(), aggregates.getTotalAnnualisedLossExpectancy(), 1e-6 * Math.max(1, analysis.getTotalAnnualisedLossExpectancy()));
+        assertEquals(analysis.getTotalResidualRisk(), aggregates.getTotalResidualRisk(), 1e-6 * Math.max(1, analysis.getTotalResidualRisk()));
+        for (RiskCategory category : RiskCategory.values()) {
+            assertEquals(analysis.getCategoryCount(category), aggregates.getCategoryCount(category), category.name());
+        }
+        assertEquals(aggregates.getTotalAnnualisedLossExpectancy(), stage.totalAnnualisedLossExpectancyProperty().get());
+    }
+
+    private static void change(RiskRegister register, SplittableRandom random) {
+        if (register.size() < 10) {
+            add(register, random);
+            return;
+        }
+        int row = random.nextInt(register.size());
+        switch (random.nextInt(6)) {
+            case 0 -> add(register, random);
+            case 1 -> register.remove(row);
+            case 2 -> register.setImpact(row, 1 + random.nextInt(10));
+            case 3 -> register.setSingleLossExpectancy(row, random.nextDouble() * 500_000);
+            case 4 -> register.setControlEffectiveness(row, random.nextInt(101));
+            default -> register.update(() -> {
+                register.setLikelihood(row, 1 + random.nextInt(10));
+                register.setAnnualisedRateOfOccurrence(row, random.nextDouble() * 2);
+            });
+        }
+    }
+
+    private static void add(RiskRegister register, SplittableRandom random) {
+        register.add("Threat " + random.nextInt(100), HIPAA_RULES[random.nextInt(HIPAA_RULES.length)], RMF_STEPS[random.nextInt(RMF_STEPS.length)],
+                1 + random.nextInt(10), 1 + random.nextInt(10), random.nextDouble() * 500_000, random.nextDouble() * 2, "None", random.nextInt(101));
+    }
+}
@@ -0,0 +1,158 @@
+package com.infosec.riskanalysistool.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+    private static final int VALUES = 1_000_000;
+
+    @Test
+    void exactUntilTheFirstCompaction() {
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = shuffled(100, new Random(1));
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        assertTrue(sketch.isExact());
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(99, sketch.quantile(1));
+        assertEquals(0.5, sketch.rank(49));
+        assertTrue(sketch.remove(99));
+        assertEquals(98, sketch.max());
+    }
+
+    @Test
+    void rankErrorOnUniformValues() {
+        Random random = new Random(2);
+        double[] values = new double[VALUES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+        }
+        assertRankError(sketchOf(values), values);
+    }
+
+    @Test
+    void rankErrorOnLognormalValues() {
+        assertRankError(sketchOf(lognormal(VALUES, new Random(3))), lognormal(VALUES, new Random(3)));
+    }
+
+    //Sorted input is where a compactor that always kept the same half would go most wrong
+    @Test
+    void rankErrorOnAscendingAndDescendingValues() {
+        double[] ascending = new double[VALUES];
+        double[] descending = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            ascending[i] = i;
+            descending[i] = VALUES - i;
+        }
+        assertRankError(sketchOf(ascending), ascending);
+        assertRankError(sketchOf(descending), descending);
+    }
+
+    @Test
+    void rankErrorAfterMergingEqualParts() {
+        double[] values = lognormal(VALUES, new Random(4));
+        QuantileSketch merged = new QuantileSketch();
+        int parts = 8;
+        for (int part = 0; part < parts; part++) {
+            merged.merge(sketchOf(Arrays.copyOfRange(values, part * VALUES / parts, (part + 1) * VALUES / parts)));
+        }
+        assertEquals(VALUES, merged.count());
+        assertRankError(merged, values);
+    }
+
+    //Parts of very different sizes, and from different distributions, as the registers of separate sites would be
+    @Test
+    void rankErrorAfterMergingUnevenParts() {
+        Random random = new Random(5);
+        double[] small = lognormal(2_000, random);
+        double[] large = new double[VALUES];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = random.nextDouble() * 1_000_000;
+        }
+        QuantileSketch merged = sketchOf(small);
+        QuantileSketch other = sketchOf(large);
+        merged.merge(other);
+        assertEquals(VALUES, other.count());
+
+        double[] all = Arrays.copyOf(small, small.length + large.length);
+        System.arraycopy(large, 0, all, small.length, large.length);
+        assertEquals(all.length, merged.count());
+        assertFalse(merged.isExact());
+        assertRankError(merged, all);
+    }
+
+    private static QuantileSketch sketchOf(double[] values) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+
+    //Every percentile from p1 to p99 must fall within RANK_ERROR of its true rank, and so must the sketch's
+    //rank of the true percentile
+    private static void assertRankError(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted[0], sketch.min());
+        assertEquals(sorted[sorted.length - 1], sketch.max());
+        for (int p = 1; p <= 99; p++) {
+            int percentile = p;
+            double fraction = percentile / 100.0;
+            double estimate = sketch.quantile(fraction);
+            double trueRank = rank(sorted, estimate);
+            assertTrue(Math.abs(trueRank - fraction) <= QuantileSketch.RANK_ERROR,
+                    () -> String.format("p%d was %s at true rank %.4f", percentile, estimate, trueRank));
+
+            double exact = sorted[(int) (fraction * (sorted.length - 1))];
+            double estimatedRank = sketch.rank(exact);
+            assertTrue(Math.abs(estimatedRank - rank(sorted, exact)) <= QuantileSketch.RANK_ERROR,
+                    () -> String.format("rank of p%d was %.4f", percentile, estimatedRank));
+        }
+    }
+
+    //Fraction of the sorted values at or below the value
+    private static double rank(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return (double) low / sorted.length;
+    }
+
+    private static double[] lognormal(int count, Random random) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.exp(10 + 1.5 * random.nextGaussian());
+        }
+        return values;
+    }
+
+    private static double[] shuffled(int count, Random random) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,178 @@
+package com.infosec.riskanalysistool.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentRiskRegisterTest {
+    //Spans several segments, with a part-filled one at the end
+    private static final int ROWS = 3 * ConcurrentRiskRegister.SEGMENT_ROWS + 7;
+    private static final int COMMITS = 200;
+
+    @Test
+    void readersSeeAConsistentSnapshotWhileAWriterCommits() throws InterruptedException {
+        ConcurrentRiskRegister register = new ConcurrentRiskRegister();
+        for (int row = 0; row < ROWS; row++) {
+            register.add("Threat " + row, HIPAARule.SECURITY_RULE, RMFStep.ASSESS, 5, 5, 0, 1, "None", 50);
+        }
+
+        //Commit k sets every row's SLE to k and appends one row, so a version with SLE k has ROWS + k rows
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int k = 1; k <= COMMITS; k++) {
+                    double value = k;
+                    register.update(editor -> {
+                        for (int row = 0; row < editor.size(); row++) {
+                            editor.setSingleLossExpectancy(row, value);
+                        }
+                        editor.add("Added " + value, HIPAARule.PRIVACY_RULE, RMFStep.MONITOR, 5, 5, value, 1, "None", 50);
+                    });
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            } finally {
+                writing.set(false);
+            }
+        });
+
+        AtomicInteger snapshotsRead = new AtomicInteger();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(new Thread(() -> {
+                try {
+                    long lastNumber = -1;
+                    do {
+                        RegisterVersion version = register.snapshot();
+                        assertTrue(version.getNumber() >= lastNumber, "versions went backwards");
+                        lastNumber = version.getNumber();
+
+                        double k = version.getSingleLossExpectancy(0);
+                        assertEquals(ROWS + (int) k, version.size(), "rows of version " + version.getNumber());
+                        for (int row = 0; row < version.size(); row++) {
+                            assertEquals(k, version.getSingleLossExpectancy(row), "row " + row + " of version " + version.getNumber());
+                        }
+                        //Later commits never change a version already taken
+                        assertEquals(k, version.getSingleLossExpectancy(version.size() - 1));
+                        snapshotsRead.incrementAndGet();
+                    } while (writing.get());
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+
+        readers.forEach(Thread::start);
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        assertTrue(snapshotsRead.get() >= readers.size());
+        RegisterVersion last = register.snapshot();
+        assertEquals(ROWS + COMMITS, last.size());
+        assertEquals(COMMITS, last.getSingleLossExpectancy(0));
+    }
+
+    @Test
+    void snapshotIsUnchangedByLaterCommits() {
+        ConcurrentRiskRegister register = new ConcurrentRiskRegister();
+        for (int row = 0; row < ROWS; row++) {
+            register.add("Threat " + row, HIPAARule.SECURITY_RULE, RMFStep.ASSESS, 5, 5, row, 1, "Controls " + row, 50);
+        }
+        RegisterVersion before = register.snapshot();
+
+        register.update(editor -> editor.setThreat(0, "Changed"));
+        register.update(editor -> editor.setSingleLossExpectancy(ROWS - 1, -1));
+        register.remove(ConcurrentRiskRegister.SEGMENT_ROWS);
+        register.add("Added", HIPAARule.PRIVACY_RULE, RMFStep.MONITOR, 1, 1, 1, 1, null, 0);
+
+        assertEquals(ROWS, before.size());
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals("Threat " + row, before.getThreat(row));
+            assertEquals(row, before.getSingleLossExpectancy(row));
+            assertEquals("Controls " + row, before.getControlMeasures(row));
+        }
+        RegisterVersion after = register.snapshot();
+        assertEquals(before.getNumber() + 4, after.getNumber());
+        assertEquals("Changed", after.getThreat(0));
+        assertEquals("Threat " + (ConcurrentRiskRegister.SEGMENT_ROWS + 1), after.getThreat(ConcurrentRiskRegister.SEGMENT_ROWS));
+    }
+
+    @Test
+    void concurrentAppendsAreAllKeptInOrder() throws InterruptedException {
+        ConcurrentRiskRegister register = new ConcurrentRiskRegister();
+        int threads = 4;
+        int adds = 500;
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            writers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < adds; i++) {
+                        register.add(thread + ":" + i, HIPAARule.SECURITY_RULE, RMFStep.ASSESS, 5, 5, i, 1, null, 0);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        RegisterVersion version = register.snapshot();
+        assertEquals(threads * adds, version.size());
+        assertEquals(threads * adds, register.getCommits());
+        int[] next = new int[threads];
+        for (int row = 0; row < version.size(); row++) {
+            String[] parts = version.getThreat(row).split(":");
+            int thread = Integer.parseInt(parts[0]);
+            assertEquals(next[thread]++, Integer.parseInt(parts[1]), "rows of thread " + thread + " out of order");
+        }
+    }
+
+    @Test
+    void conflictingEditsAreNeverLost() throws InterruptedException {
+        ConcurrentRiskRegister register = new ConcurrentRiskRegister();
+        register.add("Shared", HIPAARule.SECURITY_RULE, RMFStep.ASSESS, 5, 5, 0, 1, null, 0);
+        int threads = 4;
+        int increments = 500;
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < increments; i++) {
+                        register.update(editor -> editor.setSingleLossExpectancy(0, editor.getSingleLossExpectancy(0) + 1));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "failed: " + failures.peek());
+        assertEquals(threads * increments, register.snapshot().getSingleLossExpectancy(0));
+        //The add, then one commit per increment however often it had to run again
+        assertEquals(threads * increments + 1, register.getCommits());
+    }
+}
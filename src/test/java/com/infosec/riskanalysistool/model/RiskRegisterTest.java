@@ -0,0 +1,99 @@
+package com.infosec.riskanalysistool.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RiskRegisterTest {
+    //A removed row's view, whether or not it was made before, still reads the values the row had
+    @Test
+    void removedRowsKeepTheirValues() {
+        RiskRegister register = new RiskRegister();
+        for (int i = 0; i < 5; i++) {
+            add(register, i);
+        }
+        Risk shown = register.view(1);
+        List<Risk> removed = new ArrayList<>();
+        register.addListener(new Listener() {
+            @Override
+            public void rowRemoved(int row) {
+                removed.addAll(register.removedRows());
+            }
+        });
+
+        register.remove(1);
+        register.remove(2);
+        assertSame(shown, removed.get(0));
+        assertValues(removed.get(0), 1);
+        assertValues(removed.get(1), 3);
+        assertValues(register.view(1), 2);
+        assertNull(register.removedRows());
+    }
+
+    //Clearing hands listeners every cleared row, with views only made for the ones read
+    @Test
+    void clearedRowsKeepTheirValues() {
+        RiskRegister register = new RiskRegister();
+        for (int i = 0; i < 2000; i++) {
+            add(register, i);
+        }
+        Risk shown = register.view(10);
+        List<List<Risk>> cleared = new ArrayList<>();
+        register.addListener(new Listener() {
+            @Override
+            public void cleared() {
+                cleared.add(register.removedRows());
+            }
+        });
+
+        register.clear();
+        add(register, 7);
+        List<Risk> rows = cleared.get(0);
+        assertEquals(2000, rows.size());
+        assertSame(shown, rows.get(10));
+        assertValues(shown, 10);
+        assertValues(rows.get(1999), 1999);
+        assertSame(rows.get(1999), rows.get(1999));
+        assertValues(register.view(0), 7);
+    }
+
+    private static void add(RiskRegister register, int i) {
+        register.add("Threat " + i, HIPAARule.values()[i % 3], RMFStep.values()[i % 7], 1 + i % 10, 1 + i / 10 % 10,
+                1000 * i, 0.5, "Control " + i, i % 101);
+    }
+
+    private static void assertValues(Risk risk, int i) {
+        assertEquals("Threat " + i, risk.getThreat());
+        assertEquals("Control " + i, risk.getControlMeasures());
+        assertEquals(1 + i % 10, risk.getImpact());
+        assertEquals(1 + i / 10 % 10, risk.getLikelihood());
+        assertEquals(RiskScoring.annualisedLossExpectancy(1000 * i, 0.5), risk.getAnnualisedLossExpectancy());
+    }
+
+    private static class Listener implements RiskRegisterListener {
+        @Override
+        public void rowsAdded(int first, int count) {
+        }
+
+        @Override
+        public void rowRemoved(int row) {
+        }
+
+        @Override
+        public void valueChanged(int row, RiskField field) {
+        }
+
+        @Override
+        public void valuesChanged(RowChanges changes) {
+        }
+
+        @Override
+        public void cleared() {
+        }
+    }
+}
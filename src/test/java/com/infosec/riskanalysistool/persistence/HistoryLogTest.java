@@ -0,0 +1,198 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistoryLogTest {
+    private static final byte EVENTS = 1;
+    private static final byte REMOVE = 2;
+    private static final byte UPDATE = 3;
+    private static final long START = 100;
+
+    @Test
+    void zigZagKeepsSmallNumbersSmall() {
+        assertEquals(0, HistoryLog.zigZag(0));
+        assertEquals(1, HistoryLog.zigZag(-1));
+        assertEquals(2, HistoryLog.zigZag(1));
+        assertEquals(3, HistoryLog.zigZag(-2));
+        assertEquals(-1, HistoryLog.zigZag(Long.MIN_VALUE));
+        for (long value : new long[]{0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, HistoryLog.unZigZag(HistoryLog.zigZag(value)));
+        }
+    }
+
+    @Test
+    void varLongsUseSevenBitsPerByte() {
+        assertArrayEquals(new byte[]{0}, varLong(0));
+        assertArrayEquals(new byte[]{127}, varLong(127));
+        assertArrayEquals(new byte[]{(byte) 0x80, 1}, varLong(128));
+        assertArrayEquals(new byte[]{(byte) 0xAC, 2}, varLong(300));
+        assertEquals(10, varLong(-1).length);
+        for (long value : new long[]{0, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE}) {
+            assertEquals(value, HistoryLog.readVarLong(ByteBuffer.wrap(varLong(value))));
+        }
+    }
+
+    @Test
+    void rowsAndIntegersAreDeltasFromThePreviousValue() {
+        RiskRegister register = register(8);
+        HistoryLog.EventEncoder encoder = new HistoryLog.EventEncoder(START);
+        encoder.begin();
+        encoder.remove(5, START);
+        encoder.remove(3, START + 300);
+        register.setImpact(3, 5);
+        encoder.update(register, 3, RiskField.IMPACT, START + 300);
+        register.setImpact(3, 3);
+        encoder.update(register, 3, RiskField.IMPACT, START + 300);
+
+        assertArrayEquals(bytes(
+                REMOVE, 0, 10,
+                REMOVE, 0xAC, 2, 3,
+                UPDATE, 0, 0, RiskField.IMPACT.ordinal(), 10,
+                UPDATE, 0, 0, RiskField.IMPACT.ordinal(), 3), events(encoder, 8, START + 300));
+    }
+
+    @Test
+    void decimalsAreXoredWithThePreviousValue() {
+        RiskRegister register = register(1);
+        HistoryLog.EventEncoder encoder = new HistoryLog.EventEncoder(START);
+        int field = RiskField.SINGLE_LOSS_EXPECTANCY.ordinal();
+        encoder.begin();
+        register.setSingleLossExpectancy(0, 1.0);
+        encoder.update(register, 0, RiskField.SINGLE_LOSS_EXPECTANCY, START);
+        encoder.update(register, 0, RiskField.SINGLE_LOSS_EXPECTANCY, START);
+        register.setSingleLossExpectancy(0, Math.nextUp(1.0));
+        encoder.update(register, 0, RiskField.SINGLE_LOSS_EXPECTANCY, START);
+
+        //1.0 is 0x3FF0000000000000: 52 trailing zero bits, then 0x3FF. The same value again is only the marker 64,
+        //and the next double up differs in the lowest bit alone.
+        assertArrayEquals(bytes(
+                UPDATE, 0, 0, field, 52, 0xFF, 0x07,
+                UPDATE, 0, 0, field, 64,
+                UPDATE, 0, 0, field, 0, 1), events(encoder, 1, START));
+    }
+
+    @Test
+    void stringsAreWrittenOnceThenReferenced() {
+        RiskRegister register = register(2);
+        HistoryLog.EventEncoder encoder = new HistoryLog.EventEncoder(START);
+        int field = RiskField.THREAT.ordinal();
+        encoder.begin();
+        register.setThreat(0, "Phishing");
+        register.setThreat(1, "Phishing");
+        encoder.update(register, 0, RiskField.THREAT, START);
+        encoder.update(register, 1, RiskField.THREAT, START);
+        register.setThreat(1, null);
+        encoder.update(register, 1, RiskField.THREAT, START);
+
+        byte[] expected = concat(bytes(UPDATE, 0, 0, field, 1, 8), "Phishing".getBytes(StandardCharsets.UTF_8),
+                bytes(UPDATE, 0, 2, field, 2,
+                        UPDATE, 0, 0, field, 0));
+        assertArrayEquals(expected, events(encoder, 2, START));
+    }
+
+    @Test
+    void checkpointStartsTheEncodingAfresh() {
+        RiskRegister register = register(1);
+        register.setThreat(0, "Phishing");
+        HistoryLog.EventEncoder encoder = new HistoryLog.EventEncoder(START);
+        encoder.begin();
+        encoder.update(register, 0, RiskField.THREAT, START);
+        events(encoder, 1, START);
+
+        encoder.reset(START);
+        encoder.begin();
+        encoder.update(register, 0, RiskField.THREAT, START);
+        byte[] expected = concat(bytes(UPDATE, 0, 0, RiskField.THREAT.ordinal(), 1, 8), "Phishing".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(expected, events(encoder, 1, START));
+    }
+
+    @Test
+    void replayAppliesEventsUpToTheTimeAskedFor(@TempDir Path directory) throws IOException {
+        RiskRegister register = register(3);
+        RiskRegister atCheckpoint = copy(register);
+        HistoryLog.EventEncoder encoder = new HistoryLog.EventEncoder(START);
+        RiskRegister[] expected = new RiskRegister[4];
+        try (HistoryLog log = HistoryLog.open(directory.resolve(HistoryLog.FILE_NAME))) {
+            log.appendCheckpoint(START, 1, true, false, register.size());
+            HistoryLog.Checkpoint checkpoint = log.checkpoints().get(0);
+            for (int i = 1; i <= 3; i++) {
+                long time = START + 10 * i;
+                encoder.begin();
+                register.setAnnualisedRateOfOccurrence(i - 1, i / 4.0);
+                encoder.update(register, i - 1, RiskField.ANNUALISED_RATE_OF_OCCURRENCE, time);
+                register.add("Added " + i, HIPAARule.SECURITY_RULE, RMFStep.ASSESS, i, i, 1_000 * i, 0.5, null, 10 * i);
+                encoder.add(register, register.size() - 1, 1, time);
+                log.appendEvents(encoder.finish(register.size()));
+                expected[i] = copy(register);
+            }
+
+            for (int i = 1; i <= 3; i++) {
+                RiskRegister replayed = copy(atCheckpoint);
+                log.replay(checkpoint, replayed, START + 10 * i + 5);
+                TestRegisters.assertSameRows(expected[i], replayed);
+            }
+            RiskRegister beforeAny = copy(atCheckpoint);
+            log.replay(checkpoint, beforeAny, START + 5);
+            TestRegisters.assertSameRows(atCheckpoint, beforeAny);
+        }
+    }
+
+    private static RiskRegister register(int rows) {
+        RiskRegister register = new RiskRegister();
+        for (int row = 0; row < rows; row++) {
+            register.add("Threat " + row, HIPAARule.PRIVACY_RULE, RMFStep.MONITOR, 1, 1, 1_000, 0.1, "None", 50);
+        }
+        return register;
+    }
+
+    private static RiskRegister copy(RiskRegister register) {
+        RiskRegister copy = new RiskRegister();
+        copy.addAll(register.snapshot());
+        return copy;
+    }
+
+    private static byte[] varLong(long value) {
+        HistoryLog.ByteSink sink = new HistoryLog.ByteSink(10);
+        sink.writeVarLong(value);
+        return sink.toByteArray();
+    }
+
+    //The events of the block, after checking its header
+    private static byte[] events(HistoryLog.EventEncoder encoder, int rows, long lastTime) {
+        ByteBuffer block = ByteBuffer.wrap(encoder.finish(rows));
+        assertEquals(EVENTS, block.get());
+        assertEquals(lastTime, HistoryLog.readVarLong(block));
+        assertEquals(rows, HistoryLog.readVarLong(block));
+        return Arrays.copyOfRange(block.array(), block.position(), block.limit());
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteBuffer all = ByteBuffer.allocate(Arrays.stream(parts).mapToInt(part -> part.length).sum());
+        for (byte[] part : parts) {
+            all.put(part);
+        }
+        return all.array();
+    }
+}
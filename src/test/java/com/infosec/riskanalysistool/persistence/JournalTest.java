@@ -0,0 +1,146 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JournalTest {
+    @Test
+    void roundTrip(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve(Journal.FILE_NAME);
+        RiskRegister register = new RiskRegister();
+        try (Journal journal = Journal.open(path, new RiskRegister(), 0)) {
+            register.addListener(new TestRegisters.JournalListener(register, journal));
+            TestRegisters.edit(register, 1);
+            register.clear();
+            TestRegisters.edit(register, 2);
+            assertEquals(65, journal.nextSequence());
+        }
+
+        RiskRegister replayed = new RiskRegister();
+        try (Journal journal = Journal.open(path, replayed, 0)) {
+            assertEquals(65, journal.nextSequence());
+        }
+        TestRegisters.assertSameRows(register, replayed);
+    }
+
+    @Test
+    void recordsBeforeTheSnapshotAreSkipped(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve(Journal.FILE_NAME);
+        List<byte[]> records = List.of(addRecord("First"), addRecord("Second"), addRecord("Third"));
+        write(path, records);
+
+        RiskRegister register = new RiskRegister();
+        register.add("First", HIPAARule.PRIVACY_RULE, RMFStep.ASSESS, 5, 5, 1_000, 1, "None", 50);
+        try (Journal journal = Journal.open(path, register, 1)) {
+            assertEquals(3, journal.nextSequence());
+        }
+        assertEquals(List.of("First", "Second", "Third"), threats(register));
+    }
+
+    @Test
+    void truncatedTailIsDropped(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve(Journal.FILE_NAME);
+        write(path, List.of(addRecord("First"), addRecord("Second"), addRecord("Third")));
+        long complete = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(complete - 5);
+        }
+
+        assertRecoversTwoRecords(path, complete - 8 - addRecord("Third").length);
+    }
+
+    @Test
+    void corruptTailIsDropped(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve(Journal.FILE_NAME);
+        write(path, List.of(addRecord("First"), addRecord("Second"), addRecord("Third")));
+        long complete = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, complete - 1);
+            last.put(0, (byte) ~last.get(0));
+            channel.write(last.rewind(), complete - 1);
+        }
+
+        assertRecoversTwoRecords(path, complete - 8 - addRecord("Third").length);
+    }
+
+    @Test
+    void recordForAMissingRowFails(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve(Journal.FILE_NAME);
+        write(path, List.of(addRecord("First"), Journal.encodeRemove(5)));
+        assertThrows(IOException.class, () -> Journal.open(path, new RiskRegister(), 0));
+    }
+
+    @Test
+    void recordWithABadOrdinalFails(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve(Journal.FILE_NAME);
+        byte[] add = addRecord("First");
+        //The HIPAA rule follows the type, the count and the threat
+        add[1 + 4 + 4 + "First".length()] = 42;
+        write(path, List.of(add));
+        assertThrows(IOException.class, () -> Journal.open(path, new RiskRegister(), 0));
+    }
+
+    @Test
+    void recordWithAnOversizedCountFails(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve(Journal.FILE_NAME);
+        byte[] add = addRecord("First");
+        ByteBuffer.wrap(add).putInt(1, Integer.MAX_VALUE);
+        write(path, List.of(add));
+        assertThrows(IOException.class, () -> Journal.open(path, new RiskRegister(), 0));
+    }
+
+    //The first two records are replayed, the tail is cut off and appending carries on from there
+    private static void assertRecoversTwoRecords(Path path, long expectedSize) throws IOException {
+        RiskRegister register = new RiskRegister();
+        try (Journal journal = Journal.open(path, register, 0)) {
+            assertEquals(2, journal.nextSequence());
+            assertEquals(expectedSize, journal.size());
+            journal.append(addRecord("Fourth"));
+        }
+        assertEquals(List.of("First", "Second"), threats(register));
+
+        RiskRegister reopened = new RiskRegister();
+        try (Journal journal = Journal.open(path, reopened, 0)) {
+            assertEquals(3, journal.nextSequence());
+        }
+        assertEquals(List.of("First", "Second", "Fourth"), threats(reopened));
+    }
+
+    private static byte[] addRecord(String threat) {
+        RiskRegister register = new RiskRegister();
+        register.add(threat, HIPAARule.PRIVACY_RULE, RMFStep.ASSESS, 5, 5, 1_000, 1, "None", 50);
+        return Journal.encodeAdd(register, 0, 1);
+    }
+
+    private static void write(Path path, List<byte[]> records) throws IOException {
+        try (Journal journal = Journal.open(path, new RiskRegister(), 0)) {
+            for (byte[] record : records) {
+                journal.append(record);
+            }
+        }
+    }
+
+    private static List<String> threats(RiskRegister register) {
+        List<String> threats = new ArrayList<>();
+        for (int row = 0; row < register.size(); row++) {
+            threats.add(register.getThreat(row));
+        }
+        return threats;
+    }
+}
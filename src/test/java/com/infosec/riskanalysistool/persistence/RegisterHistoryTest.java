@@ -0,0 +1,195 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegisterHistoryTest {
+    private static final long START = Instant.parse("2026-01-05T00:00:00Z").toEpochMilli();
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    void registerAtRebuildsEachMoment(@TempDir Path directory) throws IOException {
+        TestClock clock = new TestClock(START);
+        RiskRegister register = new RiskRegister();
+        List<Long> times = new ArrayList<>();
+        List<RiskRegister> expected = new ArrayList<>();
+
+        try (RegisterHistory history = RegisterHistory.open(directory, register, clock)) {
+            register.add("Phishing", HIPAARule.SECURITY_RULE, RMFStep.MONITOR, 6, 7, 50_000, 0.8, "Training", 40);
+            record(clock, register, times, expected);
+            register.setThreat(0, "Spear phishing");
+            register.setAnnualisedRateOfOccurrence(0, 0.4);
+            record(clock, register, times, expected);
+            //Large enough to be checkpointed rather than logged
+            register.addAll(TestRegisters.batch(5_000, 1));
+            record(clock, register, times, expected);
+            register.remove(2);
+            register.update(() -> {
+                for (int row = 0; row < 100; row++) {
+                    register.setImpact(row, 1 + row % 10);
+                    register.setControlMeasures(row, row % 3 == 0 ? null : "Control " + row % 7);
+                }
+            });
+            record(clock, register, times, expected);
+            TestRegisters.edit(register, 2);
+            record(clock, register, times, expected);
+            register.clear();
+            record(clock, register, times, expected);
+            register.add("Ransomware", HIPAARule.BREACH_NOTIFICATION_RULE, RMFStep.IMPLEMENT, 9, 5, 900_000, 0.2, null, 75);
+            record(clock, register, times, expected);
+        }
+
+        //Reopened, since replay only sees what the background writer has finished
+        clock.advance(HOUR);
+        try (RegisterHistory history = RegisterHistory.open(directory, register, clock)) {
+            assertEquals(Instant.ofEpochMilli(START), history.getStart());
+            assertEquals(0, history.registerAt(Instant.ofEpochMilli(START - 1)).size());
+            assertReplays(history, times, expected);
+        }
+    }
+
+    @Test
+    void oldCheckpointsAreThinnedToOneADay(@TempDir Path directory) throws IOException {
+        TestClock clock = new TestClock(START);
+        RiskRegister register = new RiskRegister();
+        List<Long> times = new ArrayList<>();
+        List<RiskRegister> expected = new ArrayList<>();
+        int rows = 16_384;
+
+        //A checkpoint on opening and one for the bulk add, then one every six hours for ten days as the whole
+        //register is re-rated
+        try (RegisterHistory history = RegisterHistory.open(directory, register, clock)) {
+            register.addAll(TestRegisters.batch(rows, 1));
+            for (int day = 0; day < 10; day++) {
+                for (int hour = 6; hour <= 18; hour += 6) {
+                    clock.set(START + day * DAY + hour * HOUR);
+                    double rate = day + hour / 100.0;
+                    register.update(() -> {
+                        for (int row = 0; row < rows; row++) {
+                            register.setAnnualisedRateOfOccurrence(row, rate);
+                        }
+                    });
+                    times.add(clock.millis());
+                    expected.add(copy(register));
+                }
+            }
+        }
+        //Of the 32 written, those from the first three days were more than a week old by the last one. The two
+        //replay cannot run through are kept, then the first at least a day after the last kept: 2 of the other 9.
+        assertEquals(32 - 7, checkpointFiles(directory));
+
+        clock.set(START + 10 * DAY);
+        try (RegisterHistory history = RegisterHistory.open(directory, register, clock)) {
+            assertReplays(history, times, expected);
+        }
+        assertEquals(32 - 7, checkpointFiles(directory));
+
+        //A day later the fourth day has aged too
+        clock.set(START + 11 * DAY);
+        RegisterHistory.open(directory, register, clock).close();
+        assertEquals(32 - 9, checkpointFiles(directory));
+    }
+
+    //Edits made while the history was closed leave the row count alone but still start it from a new checkpoint
+    @Test
+    void editsTheLogNeverSawStartANewCheckpoint(@TempDir Path directory) throws IOException {
+        TestClock clock = new TestClock(START);
+        RiskRegister register = TestRegisters.register(100, 1);
+        RegisterHistory.open(directory, register, clock).close();
+        clock.advance(HOUR);
+        RegisterHistory.open(directory, register, clock).close();
+        assertEquals(1, checkpointFiles(directory));
+
+        clock.advance(HOUR);
+        register.setThreat(40, "Tailgating");
+        register.setImpact(41, 10);
+        try (RegisterHistory history = RegisterHistory.open(directory, register, clock)) {
+            clock.advance(HOUR);
+            register.setLikelihood(42, 1);
+        }
+        assertEquals(2, checkpointFiles(directory));
+        try (RegisterHistory history = RegisterHistory.open(directory, register, clock)) {
+            TestRegisters.assertSameRows(register, history.registerAt(clock.instant()));
+        }
+    }
+
+    private static void record(TestClock clock, RiskRegister register, List<Long> times, List<RiskRegister> expected) {
+        times.add(clock.millis());
+        expected.add(copy(register));
+        clock.advance(1_000);
+    }
+
+    private static void assertReplays(RegisterHistory history, List<Long> times, List<RiskRegister> expected) throws IOException {
+        for (int i = 0; i < times.size(); i++) {
+            TestRegisters.assertSameRows(expected.get(i), history.registerAt(Instant.ofEpochMilli(times.get(i))));
+            //Still the same just before the next change
+            long next = i + 1 < times.size() ? times.get(i + 1) : times.get(i) + DAY;
+            TestRegisters.assertSameRows(expected.get(i), history.registerAt(Instant.ofEpochMilli(next - 1)));
+        }
+    }
+
+    private static RiskRegister copy(RiskRegister register) {
+        RiskRegister copy = new RiskRegister();
+        copy.addAll(register.snapshot());
+        return copy;
+    }
+
+    private static long checkpointFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("checkpoint-")).count();
+        }
+    }
+
+    private static final class TestClock extends Clock {
+        private long millis;
+
+        TestClock(long millis) {
+            this.millis = millis;
+        }
+
+        void set(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long by) {
+            millis += by;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
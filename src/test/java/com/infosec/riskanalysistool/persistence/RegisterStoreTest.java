@@ -0,0 +1,123 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegisterStoreTest {
+    @Test
+    void roundTrip(@TempDir Path directory) throws IOException {
+        RiskRegister register = new RiskRegister();
+        try (RegisterStore store = RegisterStore.open(directory, register)) {
+            register.addAll(TestRegisters.batch(10_000, 1));
+            TestRegisters.edit(register, 2);
+        }
+
+        RiskRegister loaded = new RiskRegister();
+        try (RegisterStore store = RegisterStore.open(directory, loaded)) {
+            assertEquals(register.size(), store.getLoadedRows());
+            TestRegisters.edit(loaded, 3);
+        }
+        TestRegisters.edit(register, 3);
+
+        RiskRegister reloaded = new RiskRegister();
+        RegisterStore.open(directory, reloaded).close();
+        TestRegisters.assertSameRows(register, reloaded);
+    }
+
+    @Test
+    void compactionLeavesOnlyTheNewestSnapshot(@TempDir Path directory) throws IOException {
+        RiskRegister register = new RiskRegister();
+        try (RegisterStore store = RegisterStore.open(directory, register)) {
+            for (int i = 0; i < 3; i++) {
+                TestRegisters.edit(register, i);
+                store.compact();
+            }
+        }
+        //Nothing was journalled after the last compaction, so closing did not write another
+        assertEquals(List.of("register-3.snapshot", Journal.FILE_NAME), files(directory));
+
+        RiskRegister loaded = new RiskRegister();
+        RegisterStore.open(directory, loaded).close();
+        TestRegisters.assertSameRows(register, loaded);
+    }
+
+    @Test
+    void snapshotFromBeforeGenerationsIsRead(@TempDir Path directory) throws IOException {
+        RiskRegister register = TestRegisters.register(100, 1);
+        SnapshotFile.write(directory.resolve("register.snapshot"), register.snapshot(), 0);
+
+        RiskRegister loaded = new RiskRegister();
+        try (RegisterStore store = RegisterStore.open(directory, loaded)) {
+            TestRegisters.edit(loaded, 2);
+        }
+        TestRegisters.edit(register, 2);
+        assertEquals(List.of("register-1.snapshot", Journal.FILE_NAME), files(directory));
+
+        RiskRegister reloaded = new RiskRegister();
+        RegisterStore.open(directory, reloaded).close();
+        TestRegisters.assertSameRows(register, reloaded);
+    }
+
+    //A crash after the new snapshot is in place but before the journal is emptied leaves journal records the
+    //snapshot already holds; they must not be applied twice
+    @Test
+    void journalOverlappingTheSnapshotIsNotReplayedTwice(@TempDir Path directory) throws IOException {
+        RiskRegister register = TestRegisters.register(100, 1);
+        try (Journal journal = Journal.open(directory.resolve(Journal.FILE_NAME), new RiskRegister(), 0)) {
+            journal.append(Journal.encodeAdd(register, 0, register.size()));
+            TestRegisters.JournalListener listener = new TestRegisters.JournalListener(register, journal);
+            register.addListener(listener);
+            TestRegisters.edit(register, 2);
+            register.removeListener(listener);
+            SnapshotFile.write(directory.resolve("register-1.snapshot"), register.snapshot(), journal.nextSequence());
+        }
+
+        RiskRegister loaded = new RiskRegister();
+        try (RegisterStore store = RegisterStore.open(directory, loaded)) {
+            TestRegisters.assertSameRows(register, loaded);
+            TestRegisters.edit(loaded, 3);
+        }
+        TestRegisters.edit(register, 3);
+
+        RiskRegister reloaded = new RiskRegister();
+        RegisterStore.open(directory, reloaded).close();
+        TestRegisters.assertSameRows(register, reloaded);
+    }
+
+    @Test
+    void bulkAddIsJournalledWhenTheSnapshotCannotBeWritten(@TempDir Path directory) throws IOException {
+        RiskRegister register = new RiskRegister();
+        List<Exception> errors = new CopyOnWriteArrayList<>();
+        try (RegisterStore store = RegisterStore.open(directory, register)) {
+            store.setErrorHandler(errors::add);
+            //A directory where the next snapshot's temporary file would go
+            Files.createDirectory(directory.resolve("register-1.snapshot.tmp"));
+            register.addAll(TestRegisters.batch(5_000, 1));
+        }
+        assertEquals(1, errors.size());
+        assertInstanceOf(IOException.class, errors.get(0));
+        assertTrue(Files.size(directory.resolve(Journal.FILE_NAME)) > Journal.HEADER_SIZE);
+
+        RiskRegister loaded = new RiskRegister();
+        RegisterStore.open(directory, loaded).close();
+        TestRegisters.assertSameRows(register, loaded);
+    }
+
+    private static List<String> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+}
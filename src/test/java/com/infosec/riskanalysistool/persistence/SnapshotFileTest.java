@@ -0,0 +1,89 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.RiskRegister;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotFileTest {
+    private static final int HEADER_SIZE = 64;
+
+    @Test
+    void roundTrip(@TempDir Path directory) throws IOException {
+        RiskRegister register = TestRegisters.register(1_000, 1);
+        Path path = directory.resolve("register-1.snapshot");
+
+        long bytes = SnapshotFile.write(path, register.snapshot(), 42);
+        SnapshotFile.Snapshot snapshot = SnapshotFile.read(path);
+
+        assertEquals(42, snapshot.sequence());
+        assertEquals(Files.size(path), bytes);
+        assertEquals(bytes, snapshot.bytes());
+        RiskRegister loaded = new RiskRegister();
+        loaded.addAll(snapshot.batch());
+        TestRegisters.assertSameRows(register, loaded);
+    }
+
+    @Test
+    void emptyRegisterRoundTrips(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("register-1.snapshot");
+        SnapshotFile.write(path, new RiskRegister().snapshot(), 0);
+        assertEquals(0, SnapshotFile.read(path).batch().size());
+    }
+
+    @Test
+    void truncatedSnapshotIsRejected(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("register-1.snapshot");
+        SnapshotFile.write(path, TestRegisters.register(100, 2).snapshot(), 1);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.read(path));
+    }
+
+    @Test
+    void badOrdinalIsRejected(@TempDir Path directory) throws IOException {
+        int rows = 100;
+        Path path = directory.resolve("register-1.snapshot");
+        SnapshotFile.write(path, TestRegisters.register(rows, 3).snapshot(), 1);
+        //The HIPAA rule column follows three double and four int columns
+        overwrite(path, HEADER_SIZE + 40L * rows + 7, (byte) 99);
+        assertThrows(IOException.class, () -> SnapshotFile.read(path));
+    }
+
+    @Test
+    void badTextCodeIsRejected(@TempDir Path directory) throws IOException {
+        int rows = 100;
+        Path path = directory.resolve("register-1.snapshot");
+        SnapshotFile.write(path, TestRegisters.register(rows, 4).snapshot(), 1);
+        //The first threat code follows three double and two int columns
+        ByteBuffer code = ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(code, HEADER_SIZE + 32L * rows);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.read(path));
+    }
+
+    @Test
+    void badRowCountIsRejected(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("register-1.snapshot");
+        SnapshotFile.write(path, TestRegisters.register(100, 5).snapshot(), 1);
+        overwrite(path, 16, (byte) 0x80);
+        assertThrows(IOException.class, () -> SnapshotFile.read(path));
+    }
+
+    private static void overwrite(Path path, long position, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{value}), position);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.infosec.riskanalysistool.persistence;
+
+import com.infosec.riskanalysistool.model.HIPAARule;
+import com.infosec.riskanalysistool.model.RMFStep;
+import com.infosec.riskanalysistool.model.RiskBatch;
+import com.infosec.riskanalysistool.model.RiskField;
+import com.infosec.riskanalysistool.model.RiskRegister;
+import com.infosec.riskanalysistool.model.RiskRegisterListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Reproducible registers for the persistence tests, and a row-by-row comparison of two of them
+final class TestRegisters {
+    private static final HIPAARule[] HIPAA_RULES = HIPAARule.values();
+    private static final RMFStep[] RMF_STEPS = RMFStep.values();
+    private static final String[] CONTROL_MEASURES = {"Multi-factor authentication", "Encrypted backups", "None", null};
+
+    private TestRegisters() {
+    }
+
+    static RiskBatch batch(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        RiskBatch batch = new RiskBatch(size);
+        for (int i = 0; i < size; i++) {
+            //A few repeats and nulls so the text dictionaries share entries
+            String threat = random.nextInt(10) == 0 ? null : "Threat " + random.nextInt(size);
+            batch.add(threat, HIPAA_RULES[random.nextInt(HIPAA_RULES.length)], RMF_STEPS[random.nextInt(RMF_STEPS.length)],
+                    1 + random.nextInt(10), 1 + random.nextInt(10), 1_000 + random.nextDouble() * 500_000, random.nextDouble() * 2,
+                    CONTROL_MEASURES[random.nextInt(CONTROL_MEASURES.length)], random.nextInt(101));
+        }
+        return batch;
+    }
+
+    static RiskRegister register(int size, long seed) {
+        RiskRegister register = new RiskRegister();
+        register.addAll(batch(size, seed));
+        return register;
+    }
+
+    //A fixed mix of adds, edits and removals
+    static void edit(RiskRegister register, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        register.addAll(batch(20, seed));
+        register.add("Ransomware", HIPAARule.SECURITY_RULE, RMFStep.MONITOR, 9, 7, 250_000, 0.4, "Offline backups", 60);
+        for (int i = 0; i < 30; i++) {
+            int row = random.nextInt(register.size());
+            switch (i % 5) {
+                case 0 -> register.setThreat(row, "Edited threat " + i);
+                case 1 -> register.setAnnualisedRateOfOccurrence(row, random.nextDouble());
+                case 2 -> register.setRmfStep(row, RMF_STEPS[random.nextInt(RMF_STEPS.length)]);
+                case 3 -> register.setControlMeasures(row, i % 2 == 0 ? null : "Edited control " + i);
+                default -> register.remove(row);
+            }
+        }
+    }
+
+    static void assertSameRows(RiskRegister expected, RiskRegister actual) {
+        assertEquals(expected.size(), actual.size(), "rows");
+        for (int row = 0; row < expected.size(); row++) {
+            String at = "row " + row;
+            assertEquals(expected.getThreat(row), actual.getThreat(row), at);
+            assertEquals(expected.getHipaaRule(row), actual.getHipaaRule(row), at);
+            assertEquals(expected.getRmfStep(row), actual.getRmfStep(row), at);
+            assertEquals(expected.getImpact(row), actual.getImpact(row), at);
+            assertEquals(expected.getLikelihood(row), actual.getLikelihood(row), at);
+            assertEquals(expected.getSingleLossExpectancy(row), actual.getSingleLossExpectancy(row), at);
+            assertEquals(expected.getAnnualisedRateOfOccurrence(row), actual.getAnnualisedRateOfOccurrence(row), at);
+            assertEquals(expected.getControlMeasures(row), actual.getControlMeasures(row), at);
+            assertEquals(expected.getControlEffectiveness(row), actual.getControlEffectiveness(row), at);
+        }
+    }
+
+    //Journals every edit as RegisterStore does, without its compaction or background writer
+    record JournalListener(RiskRegister register, Journal journal) implements RiskRegisterListener {
+        @Override
+        public void rowsAdded(int first, int count) {
+            append(Journal.encodeAdd(register, first, count));
+        }
+
+        @Override
+        public void rowRemoved(int row) {
+            append(Journal.encodeRemove(row));
+        }
+
+        @Override
+        public void valueChanged(int row, RiskField field) {
+            append(Journal.encodeUpdate(register, row, field));
+        }
+
+        @Override
+        public void cleared() {
+            append(Journal.encodeClear());
+        }
+
+        private void append(byte[] record) {
+            try {
+                journal.append(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}